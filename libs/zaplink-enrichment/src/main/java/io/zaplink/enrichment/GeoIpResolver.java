@@ -0,0 +1,160 @@
+package io.zaplink.enrichment;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maxmind.db.CHMCache;
+import com.maxmind.db.Reader;
+import com.maxmind.geoip2.DatabaseReader;
+import com.maxmind.geoip2.model.CityResponse;
+import com.maxmind.geoip2.record.City;
+import com.maxmind.geoip2.record.Country;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.zaplink.enrichment.net.CidrBlock;
+import io.zaplink.enrichment.net.IpAddresses;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * IP address geolocation using MaxMind GeoLite2, without external API calls.
+ *
+ * The database file is memory-mapped, and resolved locations are kept in a bounded per-IP cache.
+ * Addresses are parsed numerically, so a malformed header never triggers a DNS lookup. Without a
+ * database every address resolves to {@link GeoLocation#UNKNOWN}. Cache metrics are published as
+ * geoip.locations.
+ */
+@Slf4j
+public class GeoIpResolver
+    implements
+    Closeable
+{
+    /**
+     * Loopback, private, link-local, carrier-grade NAT and unique-local ranges.
+     */
+    private static final List<CidrBlock>     NON_PUBLIC_RANGES = Stream
+            .of( "0.0.0.0/8", "10.0.0.0/8", "100.64.0.0/10", "127.0.0.0/8", "169.254.0.0/16", "172.16.0.0/12",
+                 "192.168.0.0/16", "::/127", "fc00::/7", "fe80::/10" )
+            .map( CidrBlock::parse ).toList();
+    private final Cache<String, GeoLocation> locations;
+    private final DatabaseReader             dbReader;
+    /**
+     * @param dbPath    database file; if it does not exist, GeoLite2-City.mmdb is loaded from the classpath
+     * @param cacheSize resolved locations to keep
+     */
+    public GeoIpResolver( String dbPath, long cacheSize, MeterRegistry meterRegistry )
+    {
+        this.locations = Caffeine.newBuilder().maximumSize( cacheSize ).recordStats().build();
+        CaffeineCacheMetrics.monitor( meterRegistry, locations, "geoip.locations" );
+        this.dbReader = open( dbPath );
+    }
+
+    /**
+     * Resolve location from IP address.
+     *
+     * @param ipAddress the IP address to resolve
+     * @return the location, or {@link GeoLocation#UNKNOWN} for private, invalid or unknown addresses
+     */
+    public GeoLocation resolveLocation( String ipAddress )
+    {
+        if ( dbReader == null || ipAddress == null )
+        {
+            return GeoLocation.UNKNOWN;
+        }
+        return locations.get( ipAddress, this::lookup );
+    }
+
+    @Override
+    public void close()
+    {
+        if ( dbReader != null )
+        {
+            try
+            {
+                dbReader.close();
+            }
+            catch ( IOException e )
+            {
+                log.error( "Error closing GeoIP reader", e );
+            }
+        }
+    }
+
+    private static DatabaseReader open( String dbPath )
+    {
+        try
+        {
+            File database = new File( dbPath );
+            if ( database.exists() )
+            {
+                log.info( "GeoIP Database memory-mapped from: {}", dbPath );
+                return new DatabaseReader.Builder( database ).fileMode( Reader.FileMode.MEMORY_MAPPED )
+                        .withCache( new CHMCache() ).build();
+            }
+            // Try loading from classpath if file path not found (for Docker/Jar)
+            try (var stream = GeoIpResolver.class.getClassLoader().getResourceAsStream( "GeoLite2-City.mmdb" ))
+            {
+                if ( stream != null )
+                {
+                    log.info( "GeoIP Database loaded from classpath" );
+                    return new DatabaseReader.Builder( stream ).withCache( new CHMCache() ).build();
+                }
+                log.warn( "GeoIP Database not found at {} or in classpath. GeoIP features will be disabled.",
+                          dbPath );
+            }
+        }
+        catch ( IOException e )
+        {
+            log.error( "Failed to initialize GeoIP Database", e );
+        }
+        return null;
+    }
+
+    private GeoLocation lookup( String ipAddress )
+    {
+        byte[] address = IpAddresses.parse( ipAddress );
+        if ( address == null || isLocalOrPrivate( address ) )
+        {
+            return GeoLocation.UNKNOWN;
+        }
+        try
+        {
+            Optional<CityResponse> response = dbReader.tryCity( InetAddress.getByAddress( address ) );
+            if ( response.isEmpty() )
+            {
+                return GeoLocation.UNKNOWN;
+            }
+            Country country = response.get().getCountry();
+            City city = response.get().getCity();
+            return new GeoLocation( country != null && country.getIsoCode() != null ? country.getIsoCode() : "Unknown",
+                                    city != null && city.getName() != null ? city.getName() : "Unknown" );
+        }
+        catch ( Exception e )
+        {
+            log.trace( "Failed to resolve location for {}: {}", ipAddress, e.getMessage() );
+            return GeoLocation.UNKNOWN;
+        }
+    }
+
+    /**
+     * Check if IP is local or private.
+     */
+    static boolean isLocalOrPrivate( byte[] address )
+    {
+        for ( CidrBlock range : NON_PUBLIC_RANGES )
+        {
+            if ( range.contains( address ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,12 @@
+package io.zaplink.enrichment;
+
+/**
+ * Country ISO code and city name resolved for a client IP address.
+ */
+public record GeoLocation( String country, String city )
+{
+    /**
+     * Location of private, unparseable or unknown addresses.
+     */
+    public static final GeoLocation UNKNOWN = new GeoLocation( "Unknown", "Unknown" );
+}
@@ -0,0 +1,184 @@
+package io.zaplink.enrichment;
+
+/**
+ * Device, OS, browser and bot classification of a User-Agent string.
+ *
+ * {@link #parse(String)} walks the string once, matching tokens case-insensitively at each
+ * position without lowercasing a copy. Values match the redirect service's RequestUtils, whose
+ * vocabulary routing rules are written in, so analytics and rules agree on what a device or OS is.
+ */
+public record UaProfile( String deviceType, String os, String browser, boolean bot )
+{
+    /**
+     * Profile of a missing User-Agent header.
+     */
+    public static final UaProfile UNKNOWN      = new UaProfile( "Unknown", "Unknown", "Unknown", false );
+    private static final int      TABLET       = 1;
+    private static final int      IPAD         = 1 << 1;
+    private static final int      MOBILE       = 1 << 2;
+    private static final int      ANDROID      = 1 << 3;
+    private static final int      IPHONE       = 1 << 4;
+    private static final int      MOZILLA      = 1 << 5;
+    private static final int      CHROME       = 1 << 6;
+    private static final int      SAFARI       = 1 << 7;
+    private static final int      FIREFOX      = 1 << 8;
+    private static final int      WINDOWS      = 1 << 9;
+    private static final int      MAC          = 1 << 10;
+    private static final int      DARWIN       = 1 << 11;
+    private static final int      IOS          = 1 << 12;
+    private static final int      LINUX        = 1 << 13;
+    private static final int      EDGE         = 1 << 14;
+    private static final int      OPERA        = 1 << 15;
+    private static final int      IE           = 1 << 16;
+    private static final int      BOT          = 1 << 17;
+    /**
+     * Crawlers, link-preview fetchers and HTTP libraries.
+     */
+    private static final String[] BOT_TOKENS_B = { "bot" };
+    private static final String[] BOT_TOKENS_C = { "crawl", "curl/" };
+    private static final String[] BOT_TOKENS_F = { "facebookexternalhit" };
+    private static final String[] BOT_TOKENS_H = { "headless", "httpclient" };
+    private static final String[] BOT_TOKENS_P = { "python-", "preview" };
+    private static final String[] BOT_TOKENS_S = { "spider", "slurp" };
+    private static final String[] BOT_TOKENS_W = { "wget/" };
+    /**
+     * Classify a User-Agent string in a single pass.
+     *
+     * @param userAgent raw header value, may be null
+     */
+    public static UaProfile parse( String userAgent )
+    {
+        if ( userAgent == null )
+        {
+            return UNKNOWN;
+        }
+        int flags = 0;
+        int length = userAgent.length();
+        for ( int i = 0; i < length; i++ )
+        {
+            char c = userAgent.charAt( i );
+            if ( c >= 'A' && c <= 'Z' )
+            {
+                c = (char) ( c + ( 'a' - 'A' ) );
+            }
+            switch ( c )
+            {
+                case 'a' -> flags |= token( userAgent, i, "android", ANDROID );
+                case 'b' -> flags |= bot( userAgent, i, BOT_TOKENS_B );
+                case 'c' -> flags |= token( userAgent, i, "chrome", CHROME ) | bot( userAgent, i, BOT_TOKENS_C );
+                case 'd' -> flags |= token( userAgent, i, "darwin", DARWIN );
+                case 'e' -> flags |= token( userAgent, i, "edg", EDGE );
+                case 'f' -> flags |= token( userAgent, i, "firefox", FIREFOX ) | bot( userAgent, i, BOT_TOKENS_F );
+                case 'h' -> flags |= bot( userAgent, i, BOT_TOKENS_H );
+                case 'i' -> flags |= token( userAgent, i, "ipad", IPAD ) | token( userAgent, i, "iphone", IPHONE )
+                        | token( userAgent, i, "ios", IOS );
+                case 'l' -> flags |= token( userAgent, i, "linux", LINUX );
+                case 'm' -> flags |= token( userAgent, i, "mobile", MOBILE ) | token( userAgent, i, "mozilla", MOZILLA )
+                        | token( userAgent, i, "mac", MAC ) | token( userAgent, i, "msie", IE );
+                case 'o' -> flags |= token( userAgent, i, "opera", OPERA ) | token( userAgent, i, "opr", OPERA );
+                case 'p' -> flags |= bot( userAgent, i, BOT_TOKENS_P );
+                case 's' -> flags |= token( userAgent, i, "safari", SAFARI ) | bot( userAgent, i, BOT_TOKENS_S );
+                case 't' -> flags |= token( userAgent, i, "tablet", TABLET ) | token( userAgent, i, "trident", IE );
+                case 'w' -> flags |= token( userAgent, i, "windows", WINDOWS ) | bot( userAgent, i, BOT_TOKENS_W );
+                default ->
+                {
+                }
+            }
+        }
+        return new UaProfile( deviceType( flags ), os( flags ), browser( flags ), ( flags & BOT ) != 0 );
+    }
+
+    private static String deviceType( int flags )
+    {
+        if ( has( flags, TABLET | IPAD ) )
+        {
+            return "Tablet";
+        }
+        if ( has( flags, MOBILE | ANDROID | IPHONE ) )
+        {
+            return "Mobile";
+        }
+        if ( has( flags, MOZILLA | CHROME | SAFARI | FIREFOX ) )
+        {
+            return "Desktop";
+        }
+        return "Unknown";
+    }
+
+    private static String os( int flags )
+    {
+        if ( has( flags, WINDOWS ) )
+        {
+            return "Windows";
+        }
+        // iOS User-Agents also say "like Mac OS X", so they report MacOS, as RequestUtils does
+        if ( has( flags, MAC | DARWIN ) )
+        {
+            return "MacOS";
+        }
+        if ( has( flags, IPHONE | IPAD | IOS ) )
+        {
+            return "iOS";
+        }
+        if ( has( flags, ANDROID ) )
+        {
+            return "Android";
+        }
+        if ( has( flags, LINUX ) )
+        {
+            return "Linux";
+        }
+        return "Unknown";
+    }
+
+    private static String browser( int flags )
+    {
+        if ( has( flags, EDGE ) )
+        {
+            return "Edge";
+        }
+        if ( has( flags, CHROME ) )
+        {
+            return "Chrome";
+        }
+        if ( has( flags, FIREFOX ) )
+        {
+            return "Firefox";
+        }
+        if ( has( flags, SAFARI ) && !has( flags, ANDROID ) )
+        {
+            return "Safari";
+        }
+        if ( has( flags, OPERA ) )
+        {
+            return "Opera";
+        }
+        if ( has( flags, IE ) )
+        {
+            return "IE";
+        }
+        return "Other";
+    }
+
+    private static boolean has( int flags, int mask )
+    {
+        return ( flags & mask ) != 0;
+    }
+
+    private static int token( String userAgent, int offset, String token, int flag )
+    {
+        return userAgent.regionMatches( true, offset, token, 0, token.length() ) ? flag : 0;
+    }
+
+    private static int bot( String userAgent, int offset, String[] tokens )
+    {
+        for ( String token : tokens )
+        {
+            if ( userAgent.regionMatches( true, offset, token, 0, token.length() ) )
+            {
+                return BOT;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,70 @@
+package io.zaplink.enrichment.net;
+
+/**
+ * An IPv4 or IPv6 network in CIDR notation, matched against parsed address bytes.
+ */
+public final class CidrBlock
+{
+    private final byte[] network;
+    private final int    prefixLength;
+    private CidrBlock( byte[] network, int prefixLength )
+    {
+        this.network = network;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Parse a block such as "172.16.0.0/12" or "fc00::/7".
+     *
+     * @throws IllegalArgumentException if the notation is invalid
+     */
+    public static CidrBlock parse( String cidr )
+    {
+        int slash = cidr.indexOf( '/' );
+        byte[] network = slash > 0 ? IpAddresses.parse( cidr.substring( 0, slash ) ) : null;
+        if ( network == null )
+        {
+            throw new IllegalArgumentException( "Invalid CIDR block: " + cidr );
+        }
+        int prefixLength;
+        try
+        {
+            prefixLength = Integer.parseInt( cidr.substring( slash + 1 ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IllegalArgumentException( "Invalid CIDR block: " + cidr, e );
+        }
+        if ( prefixLength < 0 || prefixLength > network.length * 8 )
+        {
+            throw new IllegalArgumentException( "Invalid CIDR prefix length: " + cidr );
+        }
+        return new CidrBlock( network, prefixLength );
+    }
+
+    /**
+     * Whether the address, as returned by {@link IpAddresses#parse(String)}, lies in this block.
+     */
+    public boolean contains( byte[] address )
+    {
+        if ( address == null || address.length != network.length )
+        {
+            return false;
+        }
+        int fullBytes = prefixLength >>> 3;
+        for ( int i = 0; i < fullBytes; i++ )
+        {
+            if ( address[i] != network[i] )
+            {
+                return false;
+            }
+        }
+        int remainingBits = prefixLength & 7;
+        if ( remainingBits == 0 )
+        {
+            return true;
+        }
+        int mask = 0xFF << ( 8 - remainingBits ) & 0xFF;
+        return ( address[fullBytes] & mask ) == ( network[fullBytes] & mask );
+    }
+}
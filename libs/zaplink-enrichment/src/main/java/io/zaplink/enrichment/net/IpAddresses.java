@@ -0,0 +1,171 @@
+package io.zaplink.enrichment.net;
+
+import java.util.Arrays;
+
+/**
+ * Parser for textual IPv4 and IPv6 literals.
+ *
+ * Unlike {@code InetAddress.getByName} this never falls back to a DNS lookup: anything that is not
+ * an address literal (a hostname, "unknown", a port suffix) is rejected. IPv4-mapped IPv6 addresses
+ * are returned in their 4-byte form so both notations match the same ranges.
+ */
+public final class IpAddresses
+{
+    private IpAddresses()
+    {
+        // Utility class
+    }
+
+    /**
+     * Parse an address literal into its network-order bytes.
+     *
+     * @return 4 bytes for IPv4, 16 bytes for IPv6, or null if the value is not an address literal
+     */
+    public static byte[] parse( String ip )
+    {
+        if ( ip == null || ip.isEmpty() || ip.length() > 64 )
+        {
+            return null;
+        }
+        return ip.indexOf( ':' ) >= 0 ? parseIpv6( ip ) : parseIpv4( ip, 0, ip.length() );
+    }
+
+    private static byte[] parseIpv4( String ip, int start, int end )
+    {
+        byte[] bytes = new byte[4];
+        int octet = 0;
+        int value = -1;
+        for ( int i = start; i < end; i++ )
+        {
+            char c = ip.charAt( i );
+            if ( c >= '0' && c <= '9' )
+            {
+                value = ( value < 0 ? 0 : value * 10 ) + ( c - '0' );
+                if ( value > 255 )
+                {
+                    return null;
+                }
+            }
+            else if ( c == '.' && value >= 0 && octet < 3 )
+            {
+                bytes[octet++] = (byte) value;
+                value = -1;
+            }
+            else
+            {
+                return null;
+            }
+        }
+        if ( value < 0 || octet != 3 )
+        {
+            return null;
+        }
+        bytes[3] = (byte) value;
+        return bytes;
+    }
+
+    private static byte[] parseIpv6( String ip )
+    {
+        int end = ip.indexOf( '%' ); // zone id, e.g. fe80::1%eth0
+        if ( end < 0 )
+        {
+            end = ip.length();
+        }
+        byte[] bytes = new byte[16];
+        int group = 0;
+        int compressAt = -1;
+        int i = 0;
+        if ( ip.startsWith( "::" ) )
+        {
+            compressAt = 0;
+            i = 2;
+        }
+        while ( i < end )
+        {
+            if ( group == 8 )
+            {
+                return null;
+            }
+            int groupEnd = i;
+            int value = 0;
+            while ( groupEnd < end && groupEnd - i < 5 )
+            {
+                int digit = Character.digit( ip.charAt( groupEnd ), 16 );
+                if ( digit < 0 )
+                {
+                    break;
+                }
+                value = ( value << 4 ) | digit;
+                groupEnd++;
+            }
+            if ( groupEnd < end && ip.charAt( groupEnd ) == '.' )
+            {
+                // Trailing dotted IPv4 part, e.g. ::ffff:10.0.0.1
+                byte[] ipv4 = group <= 6 ? parseIpv4( ip, i, end ) : null;
+                if ( ipv4 == null )
+                {
+                    return null;
+                }
+                System.arraycopy( ipv4, 0, bytes, group * 2, 4 );
+                group += 2;
+                break;
+            }
+            if ( groupEnd == i || groupEnd - i > 4 )
+            {
+                return null;
+            }
+            bytes[group * 2] = (byte) ( value >>> 8 );
+            bytes[group * 2 + 1] = (byte) value;
+            group++;
+            if ( groupEnd == end )
+            {
+                break;
+            }
+            if ( ip.charAt( groupEnd ) != ':' )
+            {
+                return null;
+            }
+            i = groupEnd + 1;
+            if ( i < end && ip.charAt( i ) == ':' )
+            {
+                if ( compressAt >= 0 )
+                {
+                    return null;
+                }
+                compressAt = group;
+                i++;
+            }
+            else if ( i == end )
+            {
+                return null; // trailing single colon
+            }
+        }
+        if ( compressAt >= 0 )
+        {
+            if ( group == 8 )
+            {
+                return null;
+            }
+            int tail = group - compressAt;
+            System.arraycopy( bytes, compressAt * 2, bytes, 16 - tail * 2, tail * 2 );
+            Arrays.fill( bytes, compressAt * 2, 16 - tail * 2, (byte) 0 );
+        }
+        else if ( group != 8 )
+        {
+            return null;
+        }
+        return isIpv4Mapped( bytes ) ? Arrays.copyOfRange( bytes, 12, 16 ) : bytes;
+    }
+
+    private static boolean isIpv4Mapped( byte[] bytes )
+    {
+        for ( int i = 0; i < 10; i++ )
+        {
+            if ( bytes[i] != 0 )
+            {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xFF && bytes[11] == (byte) 0xFF;
+    }
+}
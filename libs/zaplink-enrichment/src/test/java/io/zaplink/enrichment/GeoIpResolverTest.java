@@ -0,0 +1,61 @@
+package io.zaplink.enrichment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GeoIpResolverTest
+{
+    private TestMmdb.Database database;
+    private GeoIpResolver     resolver;
+    @BeforeEach
+    void setUp()
+        throws Exception
+    {
+        database = TestMmdb.write( 16, 42 );
+        resolver = new GeoIpResolver( database.file().toString(), 100, new SimpleMeterRegistry() );
+    }
+
+    @AfterEach
+    void tearDown()
+        throws Exception
+    {
+        resolver.close();
+        Files.deleteIfExists( database.file() );
+    }
+
+    @Test
+    void resolveLocation_FindsMappedAddresses()
+    {
+        assertEquals( new GeoLocation( "US", "New York" ), resolver.resolveLocation( database.addresses().get( 0 ) ) );
+        assertEquals( new GeoLocation( "US", "San Francisco" ),
+                      resolver.resolveLocation( database.addresses().get( 1 ) ) );
+    }
+
+    @Test
+    void resolveLocation_PrivateInvalidAndUnmappedAddressesAreUnknown()
+    {
+        for ( String ip : new String[]
+        { "10.1.2.3", "192.168.1.10", "127.0.0.1", "100.64.0.1", "::1", "fe80::1", "not-an-ip", "999.1.1.1", "",
+          "203.0.113.7" } )
+        {
+            assertEquals( GeoLocation.UNKNOWN, resolver.resolveLocation( ip ), ip );
+        }
+        assertEquals( GeoLocation.UNKNOWN, resolver.resolveLocation( null ) );
+    }
+
+    @Test
+    void resolveLocation_WithoutADatabaseIsUnknown()
+    {
+        try ( GeoIpResolver disabled = new GeoIpResolver( "missing.mmdb", 100, new SimpleMeterRegistry() ) )
+        {
+            assertEquals( GeoLocation.UNKNOWN, disabled.resolveLocation( database.addresses().get( 0 ) ) );
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.zaplink.enrichment.net;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+
+import org.junit.jupiter.api.Test;
+
+class IpAddressesTest
+{
+    @Test
+    void parse_AcceptsIpv4AndIpv6Literals()
+        throws Exception
+    {
+        for ( String ip : new String[]
+        { "203.0.113.7", "0.0.0.0", "255.255.255.255", "2001:db8::1", "::", "::1", "fe80::1:2:3:4",
+          "2001:0db8:85a3:0000:0000:8a2e:0370:7334", "1::", "64:ff9b::192.0.2.33" } )
+        {
+            assertArrayEquals( InetAddress.getByName( ip ).getAddress(), IpAddresses.parse( ip ), ip );
+        }
+        assertArrayEquals( new byte[]
+        { 10, 0, 0, 1 }, IpAddresses.parse( "::ffff:10.0.0.1" ) );
+    }
+
+    @Test
+    void parse_RejectsNonLiterals()
+    {
+        for ( String ip : new String[]
+        { "unknown", "localhost", "example.com", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1.2.3.4:8080", "1..2.3", "",
+          ":1", "1:", "1::2::3", "12345::", "1:2:3:4:5:6:7:8:9", "g::1" } )
+        {
+            assertNull( IpAddresses.parse( ip ), ip );
+        }
+        assertNull( IpAddresses.parse( null ) );
+    }
+
+    @Test
+    void contains_MatchesWholeCidrRange()
+    {
+        CidrBlock block = CidrBlock.parse( "172.16.0.0/12" );
+        assertTrue( block.contains( IpAddresses.parse( "172.16.0.1" ) ) );
+        assertTrue( block.contains( IpAddresses.parse( "172.31.255.255" ) ) );
+        assertFalse( block.contains( IpAddresses.parse( "172.32.0.1" ) ) );
+        assertFalse( block.contains( IpAddresses.parse( "172.2.3.4" ) ) );
+        assertFalse( block.contains( IpAddresses.parse( "fc00::1" ) ) );
+        assertTrue( CidrBlock.parse( "fc00::/7" ).contains( IpAddresses.parse( "fd12:3456::1" ) ) );
+    }
+}
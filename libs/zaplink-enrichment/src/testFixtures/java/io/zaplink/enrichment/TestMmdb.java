@@ -0,0 +1,238 @@
+package io.zaplink.enrichment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes a small synthetic GeoIP2 City database, so GeoIP lookups can be tested and benchmarked
+ * on a box without the licensed GeoLite2 file.
+ *
+ * The file follows the MaxMind DB format: an IPv4 search tree with 24-bit records, the data
+ * section, and the metadata map. Random public /24 networks are mapped to a fixed set of
+ * country and city records, so lookups walk 24 tree levels like they would in the real database.
+ */
+public final class TestMmdb
+{
+    private static final String[][] LOCATIONS     = {
+            { "US", "New York" }, { "US", "San Francisco" }, { "IN", "Mumbai" }, { "IN", "Bengaluru" },
+            { "GB", "London" }, { "DE", "Berlin" }, { "FR", "Paris" }, { "BR", "Sao Paulo" },
+            { "JP", "Tokyo" }, { "AU", "Sydney" }, { "CA", "Toronto" }, { "SG", "Singapore" } };
+    private static final byte[]     METADATA_MARK = { (byte) 0xAB, (byte) 0xCD, (byte) 0xEF, 'M', 'a', 'x', 'M', 'i',
+            'n', 'd', '.', 'c', 'o', 'm' };
+    private static final int        EMPTY         = -1;
+    private TestMmdb()
+    {
+        // Utility class
+    }
+
+    /**
+     * Write the database to a temporary file.
+     *
+     * @param networks number of /24 networks to map
+     * @param seed     seed for the network addresses; the same seed yields the same file
+     * @return the database file and one address inside each mapped network
+     */
+    public static Database write( int networks, long seed )
+        throws IOException
+    {
+        // Data section: one map per location, shared by every network that points to it
+        Encoder data = new Encoder();
+        int[] locationOffsets = new int[LOCATIONS.length];
+        for ( int i = 0; i < LOCATIONS.length; i++ )
+        {
+            locationOffsets[i] = data.size();
+            data.map( 2 );
+            data.string( "country" );
+            data.map( 1 );
+            data.string( "iso_code" );
+            data.string( LOCATIONS[i][0] );
+            data.string( "city" );
+            data.map( 1 );
+            data.string( "names" );
+            data.map( 1 );
+            data.string( "en" );
+            data.string( LOCATIONS[i][1] );
+        }
+        // Search tree: node i has a left and right record; values >= 0 are child nodes and
+        // values below EMPTY encode a data offset as -(offset + 2)
+        List<int[]> nodes = new ArrayList<>();
+        nodes.add( new int[] { EMPTY, EMPTY } );
+        Random random = new Random( seed );
+        List<String> addresses = new ArrayList<>( networks );
+        while ( addresses.size() < networks )
+        {
+            int first = 1 + random.nextInt( 223 );
+            if ( first == 10 || first == 100 || first == 127 || first == 169 || first == 172 || first == 192 )
+            {
+                continue;
+            }
+            int network = first << 24 | random.nextInt( 1 << 16 ) << 8;
+            insert( nodes, network, 24, -( locationOffsets[addresses.size() % LOCATIONS.length] + 2 ) );
+            addresses.add( first + "." + ( network >>> 16 & 0xFF ) + "." + ( network >>> 8 & 0xFF ) + "."
+                    + ( 1 + random.nextInt( 254 ) ) );
+        }
+        int nodeCount = nodes.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream( nodeCount * 6 + data.size() + 512 );
+        for ( int[] node : nodes )
+        {
+            writeRecord( out, resolve( node[0], nodeCount ) );
+            writeRecord( out, resolve( node[1], nodeCount ) );
+        }
+        out.write( new byte[16] );
+        out.write( data.toByteArray() );
+        out.write( METADATA_MARK );
+        Encoder metadata = new Encoder();
+        metadata.map( 8 );
+        metadata.string( "node_count" );
+        metadata.uint32( nodeCount );
+        metadata.string( "record_size" );
+        metadata.uint16( 24 );
+        metadata.string( "ip_version" );
+        metadata.uint16( 4 );
+        metadata.string( "database_type" );
+        metadata.string( "GeoLite2-City" );
+        metadata.string( "languages" );
+        metadata.array( 1 );
+        metadata.string( "en" );
+        metadata.string( "binary_format_major_version" );
+        metadata.uint16( 2 );
+        metadata.string( "binary_format_minor_version" );
+        metadata.uint16( 0 );
+        metadata.string( "build_epoch" );
+        metadata.uint64( System.currentTimeMillis() / 1000 );
+        out.write( metadata.toByteArray() );
+        Path file = Files.createTempFile( "zaplink-geoip-", ".mmdb" );
+        Files.write( file, out.toByteArray() );
+        return new Database( file, List.copyOf( addresses ) );
+    }
+
+    /**
+     * A written database file and one address inside each of its networks.
+     */
+    public record Database( Path file, List<String> addresses )
+    {
+    }
+    private static void insert( List<int[]> nodes, int network, int prefixLength, int value )
+    {
+        int node = 0;
+        for ( int depth = 0; depth < prefixLength; depth++ )
+        {
+            int bit = network >>> ( 31 - depth ) & 1;
+            if ( depth == prefixLength - 1 )
+            {
+                nodes.get( node )[bit] = value;
+                return;
+            }
+            int child = nodes.get( node )[bit];
+            if ( child < 0 )
+            {
+                // Networks are disjoint /24s, so an existing data record is never split
+                child = nodes.size();
+                nodes.add( new int[] { EMPTY, EMPTY } );
+                nodes.get( node )[bit] = child;
+            }
+            node = child;
+        }
+    }
+
+    private static int resolve( int record, int nodeCount )
+    {
+        if ( record == EMPTY )
+        {
+            return nodeCount;
+        }
+        // Data pointers are offsets past the 16-byte separator, above the node range
+        return record >= 0 ? record : nodeCount + 16 + ( -record - 2 );
+    }
+
+    private static void writeRecord( ByteArrayOutputStream out, int value )
+    {
+        out.write( value >>> 16 );
+        out.write( value >>> 8 );
+        out.write( value );
+    }
+
+    /**
+     * Minimal MaxMind DB data section encoder for the types used above.
+     */
+    private static final class Encoder
+    {
+        private static final int            TYPE_STRING = 2;
+        private static final int            TYPE_UINT16 = 5;
+        private static final int            TYPE_UINT32 = 6;
+        private static final int            TYPE_MAP    = 7;
+        private static final int            TYPE_UINT64 = 9;
+        private static final int            TYPE_ARRAY  = 11;
+        private final ByteArrayOutputStream buffer      = new ByteArrayOutputStream();
+        int size()
+        {
+            return buffer.size();
+        }
+
+        byte[] toByteArray()
+        {
+            return buffer.toByteArray();
+        }
+
+        void map( int entries )
+        {
+            control( TYPE_MAP, entries );
+        }
+
+        void array( int elements )
+        {
+            control( TYPE_ARRAY, elements );
+        }
+
+        void string( String value )
+        {
+            byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+            control( TYPE_STRING, bytes.length );
+            buffer.writeBytes( bytes );
+        }
+
+        void uint16( int value )
+        {
+            unsigned( TYPE_UINT16, value, 2 );
+        }
+
+        void uint32( long value )
+        {
+            unsigned( TYPE_UINT32, value, 4 );
+        }
+
+        void uint64( long value )
+        {
+            unsigned( TYPE_UINT64, value, 8 );
+        }
+
+        private void unsigned( int type, long value, int width )
+        {
+            control( type, width );
+            for ( int shift = ( width - 1 ) * 8; shift >= 0; shift -= 8 )
+            {
+                buffer.write( (int) ( value >>> shift ) );
+            }
+        }
+
+        private void control( int type, int size )
+        {
+            if ( size >= 29 )
+            {
+                throw new IllegalArgumentException( "Sizes above 28 are not needed here: " + size );
+            }
+            // Types above 7 are extended: a zero type in the control byte, then (type - 7)
+            buffer.write( ( type <= 7 ? type : 0 ) << 5 | size );
+            if ( type > 7 )
+            {
+                buffer.write( type - 7 );
+            }
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package io.zaplink.core.common.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -16,7 +20,7 @@ import java.util.Map;
 
 /**
  * Kafka configuration for the Core Service.
- * Configures Kafka producers for publishing team and workflow events.
+ * Configures Kafka producers for publishing team, workflow and link snapshot events.
  * 
  * @author Zaplink Team
  * @version 1.0
@@ -57,4 +61,22 @@ public class KafkaConfig {
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+    
+    /**
+     * Declares the log-compacted link snapshot topic, so only the latest snapshot
+     * per link is retained and tombstones eventually remove deleted links.
+     * 
+     * @param topic the link snapshot topic name
+     * @param partitions number of partitions
+     * @return NewTopic created by KafkaAdmin at startup if missing
+     */
+    @Bean
+    @ConditionalOnProperty(name = "link-snapshots.enabled", havingValue = "true")
+    public NewTopic linkSnapshotTopic(@Value("${link-snapshots.topic:link-snapshots}") String topic,
+                                      @Value("${link-snapshots.partitions:6}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).compact()
+            .config(TopicConfig.MIN_COMPACTION_LAG_MS_CONFIG, "60000")
+            .config(TopicConfig.DELETE_RETENTION_MS_CONFIG, "86400000")
+            .build();
+    }
 }
@@ -0,0 +1,24 @@
+package io.zaplink.core.common.constants;
+
+/**
+ * Redis keys and channels shared with the redirect service.
+ * Must stay in sync with io.zaplink.redirect.common.constants.RedisConstants.
+ *
+ * @author Zaplink Team
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class RedisConstants
+{
+    private RedisConstants()
+    {
+        throw new UnsupportedOperationException( "Class cannot be instantiated" );
+    }
+    public static final String URL_CACHE_PREFIX           = "url:";
+    public static final String QR_CACHE_PREFIX            = "qr:";
+    public static final String BIO_PAGE_CACHE_PREFIX      = "bio:";
+    public static final String CONFIG_KEY_SEGMENT         = "config:";
+    public static final String BINARY_CONFIG_KEY_SEGMENT  = "cfg:";
+    public static final String CACHE_INVALIDATION_CHANNEL = "zaplink:cache:invalidate";
+    public static final String KEY_CREATED_CHANNEL        = "zaplink:keys:created";
+}
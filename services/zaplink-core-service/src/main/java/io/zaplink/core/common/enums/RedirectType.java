@@ -0,0 +1,9 @@
+package io.zaplink.core.common.enums;
+
+/**
+ * HTTP status a link redirects with when its redirect may be cached by clients.
+ * Must stay in sync with io.zaplink.redirect.common.enums.RedirectType.
+ */
+public enum RedirectType {
+    TEMPORARY, PERMANENT
+}
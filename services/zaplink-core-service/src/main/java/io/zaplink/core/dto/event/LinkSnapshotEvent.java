@@ -0,0 +1,42 @@
+package io.zaplink.core.dto.event;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.zaplink.core.common.enums.RedirectType;
+import io.zaplink.core.dto.request.RedirectRuleDto;
+
+/**
+ * Kafka event carrying the full redirect-relevant state of a short URL or dynamic QR code.
+ * Published to the log-compacted link snapshot topic, keyed by "url:" or "qr:" plus the key,
+ * so the latest snapshot per link is retained and redirect nodes can rebuild their local
+ * store from the topic alone. A deleted link is published as a tombstone (null value).
+ *
+ * QR-only fields (id, scanLimit, allowedDomains, passwordProtected) are null or false for URLs.
+ * The password itself is never published, only whether one is set.
+ *
+ * @author Zaplink Team
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public record LinkSnapshotEvent(
+    String type,
+    String key,
+    Long id,
+    String destinationUrl,
+    List<RedirectRuleDto> rules,
+    boolean active,
+    LocalDateTime expiresAt,
+    Integer scanLimit,
+    List<String> allowedDomains,
+    boolean passwordProtected,
+    boolean trackAnalytics,
+    RedirectType redirectType,
+    Integer cacheMaxAge,
+    Instant publishedAt
+) {
+
+    public static final String TYPE_URL = "url";
+    public static final String TYPE_QR = "qr";
+}
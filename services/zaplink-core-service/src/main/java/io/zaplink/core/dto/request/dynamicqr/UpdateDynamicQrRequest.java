@@ -3,8 +3,10 @@ package io.zaplink.core.dto.request.dynamicqr;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import io.zaplink.core.common.enums.RedirectType;
 import io.zaplink.core.dto.request.RedirectRuleDto;
 import io.zaplink.core.dto.request.qr.QRConfig;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Builder;
 
@@ -19,6 +21,10 @@ public record UpdateDynamicQrRequest( @NotBlank(message = "QR Name is required")
                                       Integer scanLimit,
                                       List<String> allowedDomains,
                                       Boolean trackAnalytics,
-                                      List<RedirectRuleDto> rules )
+                                      List<RedirectRuleDto> rules,
+                                      // Client caching policy, applied only to QR codes without rules, password,
+                                      // scan limit, domain restriction or analytics
+                                      RedirectType redirectType,
+                                      @Min(value = 0, message = "Redirect cache max-age must be non-negative") Integer redirectCacheMaxAge )
 {
 }
@@ -5,8 +5,11 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import io.zaplink.core.common.enums.RedirectType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -55,4 +58,9 @@ public class DynamicQrCodeEntity
     private String        allowedDomains;
     @Column(name = "track_analytics", nullable = false) @Default
     private Boolean       trackAnalytics = true;
+    // Client caching policy, honoured by the redirect service only for plain QR codes
+    @Enumerated(EnumType.STRING) @Column(name = "redirect_type")
+    private RedirectType  redirectType;
+    @Column(name = "redirect_cache_max_age")
+    private Integer       redirectCacheMaxAge;
 }
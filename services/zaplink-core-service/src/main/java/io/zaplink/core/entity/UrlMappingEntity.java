@@ -3,6 +3,7 @@ package io.zaplink.core.entity;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import io.zaplink.core.common.enums.RedirectType;
 import io.zaplink.core.common.enums.UrlStatusEnum;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
@@ -48,4 +49,11 @@ public class UrlMappingEntity
     @ElementCollection(fetch = FetchType.EAGER) @CollectionTable(name = "url_tags", joinColumns =
     { @JoinColumn(name = "url_mapping_id") }) @Column(name = "tag")
     private List<String>  tags;
+    @Column(name = "track_analytics")
+    private Boolean       trackAnalytics = true;
+    // Client caching policy, honoured by the redirect service only for links without rules and with analytics off
+    @Enumerated(EnumType.STRING) @Column(name = "redirect_type")
+    private RedirectType  redirectType;
+    @Column(name = "redirect_cache_max_age")
+    private Integer       redirectCacheMaxAge;
 }
\ No newline at end of file
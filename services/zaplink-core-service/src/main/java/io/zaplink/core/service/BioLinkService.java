@@ -54,8 +54,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j @Service @RequiredArgsConstructor @Transactional(readOnly = true)
 public class BioLinkService
 {
-    private final BioLinkRepository bioLinkRepository;
-    private final BioPageRepository bioPageRepository;
+    private final BioLinkRepository          bioLinkRepository;
+    private final BioPageRepository          bioPageRepository;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
     /**
      * Creates a new bio link with comprehensive validation and logging.
      * 
@@ -110,6 +111,7 @@ public class BioLinkService
                 entity.setCurrency( request.currency() );
             }
             BioLinkEntity saved = bioLinkRepository.save( entity );
+            cacheInvalidationPublisher.invalidateBioPage( bioPage.getUsername() );
             log.info( "Successfully created bio link with ID: {}, title: {}, type: {}", saved.getId(), saved.getTitle(),
                       saved.getTypeName() );
             return convertToDto( saved );
@@ -174,6 +176,7 @@ public class BioLinkService
             Optional.ofNullable( request.currency() ).ifPresent( entity::setCurrency );
         }
         BioLinkEntity saved = bioLinkRepository.save( entity );
+        cacheInvalidationPublisher.invalidateBioPage( entity.getBioPage().getUsername() );
         log.info( "Updated bio link with ID: {}", saved.getId() );
         return convertToDto( saved );
     }
@@ -198,11 +201,10 @@ public class BioLinkService
     public boolean deleteBioLink( Long id, String userEmail )
     {
         log.info( "Deleting bio link with ID: {}", id );
-        if ( !bioLinkRepository.existsById( id ) )
-        {
-            throw new IllegalArgumentException( "Bio link not found with ID: " + id );
-        }
-        bioLinkRepository.deleteById( id );
+        BioLinkEntity entity = bioLinkRepository.findById( id )
+                .orElseThrow( () -> new IllegalArgumentException( "Bio link not found with ID: " + id ) );
+        bioLinkRepository.delete( entity );
+        cacheInvalidationPublisher.invalidateBioPage( entity.getBioPage().getUsername() );
         log.info( "Deleted bio link with ID: {}", id );
         return true;
     }
@@ -254,6 +256,8 @@ public class BioLinkService
             link.setSortOrder( linkOrder.sortOrder() );
         }
         List<BioLinkEntity> saveAllRecordLinks = bioLinkRepository.saveAll( links );
+        bioPageRepository.findById( pageId )
+                .ifPresent( page -> cacheInvalidationPublisher.invalidateBioPage( page.getUsername() ) );
         log.info( "Reordered {} links for page ID: {}", request.linkOrders().size(), pageId );
         return saveAllRecordLinks.size() > 0;
     }
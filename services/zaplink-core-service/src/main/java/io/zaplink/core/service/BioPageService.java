@@ -60,8 +60,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j @Service @RequiredArgsConstructor @Transactional(readOnly = true)
 public class BioPageService
 {
-    private final BioPageRepository bioPageRepository;
-    private final BioLinkRepository bioLinkRepository;
+    private final BioPageRepository          bioPageRepository;
+    private final BioLinkRepository          bioLinkRepository;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
     /**
      * Creates a new bio page with comprehensive validation and logging.
      * 
@@ -164,6 +165,7 @@ public class BioPageService
         Optional.ofNullable( request.avatarUrl() ).ifPresent( entity::setAvatarUrl );
         Optional.ofNullable( request.themeConfig() ).ifPresent( entity::setThemeConfig );
         BioPageEntity saved = bioPageRepository.save( entity );
+        cacheInvalidationPublisher.invalidateBioPage( saved.getUsername() );
         log.info( "Successfully updated bio page with ID: {}", id );
         return convertToDto( saved );
     }
@@ -209,6 +211,7 @@ public class BioPageService
             int linkCount = entity.getBioLinks() != null ? entity.getBioLinks().size() : 0;
             log.info( "Deleting bio page '{}' with {} associated links", entity.getUsername(), linkCount );
             bioPageRepository.delete( entity );
+            cacheInvalidationPublisher.invalidateBioPage( entity.getUsername() );
             log.info( "Successfully deleted bio page with ID: {}", id );
             return true;
         } ).orElseGet( () -> {
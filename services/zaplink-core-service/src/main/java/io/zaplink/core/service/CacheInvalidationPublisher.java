@@ -0,0 +1,160 @@
+package io.zaplink.core.service;
+
+import java.util.List;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.zaplink.core.common.constants.RedisConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Invalidates redirect-service caches when a link changes.
+ * Removes the shared Redis entries (legacy JSON and binary) and publishes the key
+ * on the invalidation channel so every redirect node evicts its in-process copy.
+ * Also announces newly created keys so redirect nodes can add them to their known-key filter,
+ * and bio page changes so redirect nodes drop their cached copy of the public page.
+ * URL and QR changes are also republished as link snapshots (see {@link LinkSnapshotPublisher}).
+ *
+ * @author Zaplink Team
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Slf4j @Service @RequiredArgsConstructor
+public class CacheInvalidationPublisher
+{
+    private final StringRedisTemplate   redisTemplate;
+    private final LinkSnapshotPublisher linkSnapshotPublisher;
+    /**
+     * Invalidates cached redirect config for a short URL.
+     *
+     * @param shortUrlKey the short URL key
+     */
+    public void invalidateUrl( String shortUrlKey )
+    {
+        afterCommit( () -> {
+            publish( RedisConstants.URL_CACHE_PREFIX, shortUrlKey );
+            linkSnapshotPublisher.publishUrl( shortUrlKey );
+        } );
+    }
+
+    /**
+     * Invalidates cached redirect config for a dynamic QR code.
+     *
+     * @param qrKey the QR key
+     */
+    public void invalidateQr( String qrKey )
+    {
+        afterCommit( () -> {
+            publish( RedisConstants.QR_CACHE_PREFIX, qrKey );
+            linkSnapshotPublisher.publishQr( qrKey );
+        } );
+    }
+
+    /**
+     * Invalidates the public bio page cached by redirect nodes for a username.
+     * Bio pages have no shared Redis entry, so only the invalidation message is published.
+     *
+     * @param username the bio page username
+     */
+    public void invalidateBioPage( String username )
+    {
+        afterCommit( () -> broadcast( RedisConstants.BIO_PAGE_CACHE_PREFIX, username ) );
+    }
+
+    /**
+     * Announces a newly created short URL key to redirect nodes.
+     *
+     * @param shortUrlKey the short URL key
+     */
+    public void announceUrl( String shortUrlKey )
+    {
+        afterCommit( () -> {
+            announce( RedisConstants.URL_CACHE_PREFIX, shortUrlKey );
+            linkSnapshotPublisher.publishUrl( shortUrlKey );
+        } );
+    }
+
+    /**
+     * Announces a newly created dynamic QR key to redirect nodes.
+     *
+     * @param qrKey the QR key
+     */
+    public void announceQr( String qrKey )
+    {
+        afterCommit( () -> {
+            announce( RedisConstants.QR_CACHE_PREFIX, qrKey );
+            linkSnapshotPublisher.publishQr( qrKey );
+        } );
+    }
+
+    /**
+     * Defers the action until the surrounding transaction commits, so a redirect
+     * node cannot re-cache the old row between eviction and commit.
+     */
+    private void afterCommit( Runnable action )
+    {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    action.run();
+                }
+            } );
+        }
+        else
+        {
+            action.run();
+        }
+    }
+
+    private void publish( String prefix, String key )
+    {
+        try
+        {
+            redisTemplate.delete( List.of( prefix + RedisConstants.CONFIG_KEY_SEGMENT + key,
+                                           prefix + RedisConstants.BINARY_CONFIG_KEY_SEGMENT + key ) );
+            redisTemplate.convertAndSend( RedisConstants.CACHE_INVALIDATION_CHANNEL, prefix + key );
+            log.debug( "Published cache invalidation for {}{}", prefix, key );
+        }
+        catch ( Exception ex )
+        {
+            // Never fail the write; cached entries still expire via their TTL
+            log.warn( "Failed to publish cache invalidation for {}{}: {}", prefix, key, ex.getMessage() );
+        }
+    }
+
+    private void broadcast( String prefix, String key )
+    {
+        try
+        {
+            redisTemplate.convertAndSend( RedisConstants.CACHE_INVALIDATION_CHANNEL, prefix + key );
+            log.debug( "Published cache invalidation for {}{}", prefix, key );
+        }
+        catch ( Exception ex )
+        {
+            // Redirect nodes revalidate the page once their fresh TTL runs out
+            log.warn( "Failed to publish cache invalidation for {}{}: {}", prefix, key, ex.getMessage() );
+        }
+    }
+
+    private void announce( String prefix, String key )
+    {
+        try
+        {
+            redisTemplate.convertAndSend( RedisConstants.KEY_CREATED_CHANNEL, prefix + key );
+            log.debug( "Announced new key {}{}", prefix, key );
+        }
+        catch ( Exception ex )
+        {
+            // Redirect nodes pick the key up on their next filter rebuild
+            log.warn( "Failed to announce new key {}{}: {}", prefix, key, ex.getMessage() );
+        }
+    }
+}
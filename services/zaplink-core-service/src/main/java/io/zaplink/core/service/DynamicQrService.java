@@ -26,9 +26,10 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j @Service @RequiredArgsConstructor
 public class DynamicQrService
 {
-    private final DynamicQrCodeRepository dynamicQrCodeRepository;
-    private final RedirectRuleRepository  redirectRuleRepository;
-    private final ObjectMapper            objectMapper;
+    private final DynamicQrCodeRepository    dynamicQrCodeRepository;
+    private final RedirectRuleRepository     redirectRuleRepository;
+    private final ObjectMapper               objectMapper;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
     @Transactional
     public DynamicQrResponse createDynamicQr( CreateDynamicQrRequest request, String userEmail )
     {
@@ -68,6 +69,7 @@ public class DynamicQrService
                         .collect( Collectors.toList() );
                 redirectRuleRepository.saveAll( ruleEntities );
             }
+            cacheInvalidationPublisher.announceQr( qrKey );
             log.info( "Created dynamic QR with key: {} for user: {}", qrKey, userEmail );
             return convertToResponse( entity );
         }
@@ -105,6 +107,7 @@ public class DynamicQrService
                 redirectRuleRepository.saveAll( ruleEntities );
             }
         }
+        cacheInvalidationPublisher.invalidateQr( qrKey );
         log.info( "Updated destination for QR key: {} by user: {}", qrKey, userEmail );
         return convertToResponse( entity );
     }
@@ -121,6 +124,7 @@ public class DynamicQrService
         entity.setIsActive( !entity.getIsActive() );
         entity.setUpdatedAt( LocalDateTime.now() );
         dynamicQrCodeRepository.save( entity );
+        cacheInvalidationPublisher.invalidateQr( qrKey );
         log.info( "Toggled status for QR key: {} to {} by user: {}", qrKey, entity.getIsActive(), userEmail );
     }
 
@@ -133,6 +137,7 @@ public class DynamicQrService
             throw new IllegalArgumentException( "Dynamic QR not found or access denied" );
         }
         dynamicQrCodeRepository.delete( entityOpt.get() );
+        cacheInvalidationPublisher.invalidateQr( qrKey );
         log.info( "Deleted dynamic QR with key: {} by user: {}", qrKey, userEmail );
     }
 
@@ -167,6 +172,10 @@ public class DynamicQrService
                 entity.setScanLimit( request.scanLimit() );
             if ( request.trackAnalytics() != null )
                 entity.setTrackAnalytics( request.trackAnalytics() );
+            if ( request.redirectType() != null )
+                entity.setRedirectType( request.redirectType() );
+            if ( request.redirectCacheMaxAge() != null )
+                entity.setRedirectCacheMaxAge( request.redirectCacheMaxAge() );
             if ( request.allowedDomains() != null )
             {
                 entity.setAllowedDomains( objectMapper.writeValueAsString( request.allowedDomains() ) );
@@ -186,6 +195,7 @@ public class DynamicQrService
                         .collect( Collectors.toList() );
                 redirectRuleRepository.saveAll( ruleEntities );
             }
+            cacheInvalidationPublisher.invalidateQr( qrKey );
             log.info( "Updated dynamic QR with key: {} for user: {}", qrKey, userEmail );
             return convertToResponse( entity );
         }
@@ -0,0 +1,218 @@
+package io.zaplink.core.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zaplink.core.common.constants.RedisConstants;
+import io.zaplink.core.common.enums.UrlStatusEnum;
+import io.zaplink.core.dto.event.LinkSnapshotEvent;
+import io.zaplink.core.dto.request.RedirectRuleDto;
+import io.zaplink.core.entity.DynamicQrCodeEntity;
+import io.zaplink.core.entity.RedirectRuleEntity;
+import io.zaplink.core.entity.UrlMappingEntity;
+import io.zaplink.core.repository.DynamicQrCodeRepository;
+import io.zaplink.core.repository.RedirectRuleRepository;
+import io.zaplink.core.repository.UrlMappingRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes link snapshots to the log-compacted topic that redirect nodes replicate into their
+ * local link store. Each change re-reads the committed row, so the last message per key always
+ * carries the current state; links that no longer exist are published as tombstones.
+ * Disabled by default; with backfill-on-startup, every link is republished once the service is
+ * up, which seeds a new topic. A failed send is only logged: the cache invalidation sent for the
+ * same change makes redirect nodes drop their local copy of the link.
+ *
+ * @author Zaplink Team
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Slf4j @Service
+public class LinkSnapshotPublisher
+{
+    private static final int                    BACKFILL_PAGE_SIZE = 500;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final UrlMappingRepository          urlMappingRepository;
+    private final DynamicQrCodeRepository       dynamicQrCodeRepository;
+    private final RedirectRuleRepository        redirectRuleRepository;
+    private final ObjectMapper                  objectMapper;
+    private final boolean                       enabled;
+    private final boolean                       backfillOnStartup;
+    private final String                        topic;
+    public LinkSnapshotPublisher( KafkaTemplate<String, Object> kafkaTemplate,
+                                  UrlMappingRepository urlMappingRepository,
+                                  DynamicQrCodeRepository dynamicQrCodeRepository,
+                                  RedirectRuleRepository redirectRuleRepository,
+                                  ObjectMapper objectMapper,
+                                  @Value("${link-snapshots.enabled:false}") boolean enabled,
+                                  @Value("${link-snapshots.backfill-on-startup:false}") boolean backfillOnStartup,
+                                  @Value("${link-snapshots.topic:link-snapshots}") String topic )
+    {
+        this.kafkaTemplate = kafkaTemplate;
+        this.urlMappingRepository = urlMappingRepository;
+        this.dynamicQrCodeRepository = dynamicQrCodeRepository;
+        this.redirectRuleRepository = redirectRuleRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.backfillOnStartup = backfillOnStartup;
+        this.topic = topic;
+    }
+
+    /**
+     * Publishes the current state of a short URL, or a tombstone if it no longer exists.
+     *
+     * @param shortUrlKey the short URL key
+     */
+    public void publishUrl( String shortUrlKey )
+    {
+        if ( enabled )
+        {
+            send( RedisConstants.URL_CACHE_PREFIX + shortUrlKey,
+                  urlMappingRepository.findByShortUrlKey( shortUrlKey ).map( this::toSnapshot ).orElse( null ) );
+        }
+    }
+
+    /**
+     * Publishes the current state of a dynamic QR code, or a tombstone if it no longer exists.
+     *
+     * @param qrKey the QR key
+     */
+    public void publishQr( String qrKey )
+    {
+        if ( enabled )
+        {
+            send( RedisConstants.QR_CACHE_PREFIX + qrKey,
+                  dynamicQrCodeRepository.findByQrKey( qrKey ).map( this::toSnapshot ).orElse( null ) );
+        }
+    }
+
+    /**
+     * Republishes every link so a new or emptied topic holds a complete snapshot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill()
+    {
+        if ( !enabled || !backfillOnStartup )
+        {
+            return;
+        }
+        Thread.ofVirtual().name( "link-snapshot-backfill" ).start( () -> {
+            try
+            {
+                long urls = 0;
+                long qrs = 0;
+                Page<UrlMappingEntity> urlPage;
+                int page = 0;
+                do
+                {
+                    urlPage = urlMappingRepository.findAll( PageRequest.of( page++, BACKFILL_PAGE_SIZE,
+                                                                            Sort.by( "id" ) ) );
+                    for ( UrlMappingEntity entity : urlPage )
+                    {
+                        send( RedisConstants.URL_CACHE_PREFIX + entity.getShortUrlKey(), toSnapshot( entity ) );
+                        urls++;
+                    }
+                }
+                while ( urlPage.hasNext() );
+                Page<DynamicQrCodeEntity> qrPage;
+                page = 0;
+                do
+                {
+                    qrPage = dynamicQrCodeRepository.findAll( PageRequest.of( page++, BACKFILL_PAGE_SIZE,
+                                                                              Sort.by( "id" ) ) );
+                    for ( DynamicQrCodeEntity entity : qrPage )
+                    {
+                        send( RedisConstants.QR_CACHE_PREFIX + entity.getQrKey(), toSnapshot( entity ) );
+                        qrs++;
+                    }
+                }
+                while ( qrPage.hasNext() );
+                log.info( "Backfilled link snapshot topic {} with {} URLs and {} QR codes", topic, urls, qrs );
+            }
+            catch ( Exception ex )
+            {
+                log.error( "Link snapshot backfill failed", ex );
+            }
+        } );
+    }
+
+    private LinkSnapshotEvent toSnapshot( UrlMappingEntity entity )
+    {
+        List<RedirectRuleDto> rules = toRuleDtos( redirectRuleRepository
+                .findByUrlMappingIdOrderByPriorityDesc( entity.getId() ) );
+        return new LinkSnapshotEvent( LinkSnapshotEvent.TYPE_URL, entity.getShortUrlKey(), null,
+                                      entity.getOriginalUrl(), rules, entity.getStatus() == UrlStatusEnum.ACTIVE,
+                                      entity.getExpiresAt(), null, null, false,
+                                      !Boolean.FALSE.equals( entity.getTrackAnalytics() ), entity.getRedirectType(),
+                                      entity.getRedirectCacheMaxAge(), Instant.now() );
+    }
+
+    private LinkSnapshotEvent toSnapshot( DynamicQrCodeEntity entity )
+    {
+        List<RedirectRuleDto> rules = toRuleDtos( redirectRuleRepository
+                .findByDynamicQrCodeIdOrderByPriorityDesc( entity.getId() ) );
+        return new LinkSnapshotEvent( LinkSnapshotEvent.TYPE_QR, entity.getQrKey(), entity.getId(),
+                                      entity.getCurrentDestinationUrl(), rules,
+                                      Boolean.TRUE.equals( entity.getIsActive() ), entity.getExpirationDate(),
+                                      entity.getScanLimit(), parseAllowedDomains( entity.getAllowedDomains() ),
+                                      entity.getPassword() != null && !entity.getPassword().isEmpty(),
+                                      Boolean.TRUE.equals( entity.getTrackAnalytics() ), entity.getRedirectType(),
+                                      entity.getRedirectCacheMaxAge(), Instant.now() );
+    }
+
+    private static List<RedirectRuleDto> toRuleDtos( List<RedirectRuleEntity> rules )
+    {
+        return rules.stream().map( r -> new RedirectRuleDto( r.getDimension(), r.getValue(), r.getDestinationUrl(),
+                                                             r.getPriority() ) )
+                .toList();
+    }
+
+    private List<String> parseAllowedDomains( String allowedDomainsJson )
+    {
+        if ( allowedDomainsJson == null || allowedDomainsJson.isBlank() )
+        {
+            return List.of();
+        }
+        try
+        {
+            return objectMapper.readValue( allowedDomainsJson, new TypeReference<List<String>>()
+            {} );
+        }
+        catch ( Exception ex )
+        {
+            log.warn( "Invalid allowed domains JSON in link snapshot: {}", ex.getMessage() );
+            return List.of();
+        }
+    }
+
+    private void send( String key, LinkSnapshotEvent snapshot )
+    {
+        try
+        {
+            kafkaTemplate.send( topic, key, snapshot ).whenComplete( ( result, ex ) -> {
+                if ( ex != null )
+                {
+                    log.warn( "Failed to publish link snapshot for {}: {}", key, ex.getMessage() );
+                }
+            } );
+        }
+        catch ( Exception ex )
+        {
+            // Never fail the write; the invalidation published with it has already dropped the link from
+            // redirect nodes' local stores, so they serve it from Redis and the database until its next snapshot
+            log.warn( "Failed to publish link snapshot for {}: {}", key, ex.getMessage() );
+        }
+    }
+}
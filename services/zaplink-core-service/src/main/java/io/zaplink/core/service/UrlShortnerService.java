@@ -27,9 +27,10 @@ import lombok.extern.slf4j.Slf4j;
 public class UrlShortnerService
 {
     @Value("${redirect.base.url}")
-    private String                       BASE_URL;
-    private final UrlMappingRepository   urlMappingRepository;
-    private final RedirectRuleRepository redirectRuleRepository;
+    private String                           BASE_URL;
+    private final UrlMappingRepository       urlMappingRepository;
+    private final RedirectRuleRepository     redirectRuleRepository;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
     public ShortnerResponse createShortUrl( ShortnerRequest urlRequest, String userEmail )
     {
         log.info( LogConstants.LOG_SHORT_URL_INIT );
@@ -53,6 +54,7 @@ public class UrlShortnerService
                             .toList();
                     redirectRuleRepository.saveAll( ruleEntities );
                 }
+                cacheInvalidationPublisher.announceUrl( savedUrlMappingEntity.getShortUrlKey() );
                 log.info( LogConstants.LOG_URL_MAPPING_CREATED );
                 return new ShortnerResponse( savedUrlMappingEntity.getShortUrl(),
                                              savedUrlMappingEntity.getTraceId(),
@@ -116,6 +118,12 @@ public class UrlShortnerService
         entity.setTitle( updateRequest.title() );
         entity.setPlatform( updateRequest.platform() );
         entity.setTags( updateRequest.tags() );
+        if ( updateRequest.redirectType() != null )
+            entity.setRedirectType( updateRequest.redirectType() );
+        if ( updateRequest.redirectCacheMaxAge() != null )
+            entity.setRedirectCacheMaxAge( updateRequest.redirectCacheMaxAge() );
+        if ( updateRequest.trackAnalytics() != null )
+            entity.setTrackAnalytics( updateRequest.trackAnalytics() );
         // Update Rules: Delete existing and add new
         redirectRuleRepository.deleteByUrlMappingId( entity.getId() );
         redirectRuleRepository.flush(); // Force delete to be applied immediately
@@ -129,6 +137,7 @@ public class UrlShortnerService
             redirectRuleRepository.saveAll( ruleEntities );
         }
         UrlMappingEntity savedEntity = urlMappingRepository.save( entity );
+        cacheInvalidationPublisher.invalidateUrl( savedEntity.getShortUrlKey() );
         return new ShortnerResponse( savedEntity.getShortUrl(), savedEntity.getTraceId(), savedEntity.getTags() );
     }
 }
@@ -19,16 +19,19 @@ import io.zaplink.core.dto.request.ShortnerRequest;
 import io.zaplink.core.dto.response.ShortnerResponse;
 import io.zaplink.core.entity.UrlMappingEntity;
 import io.zaplink.core.repository.UrlMappingRepository;
+import io.zaplink.core.service.CacheInvalidationPublisher;
 import io.zaplink.core.service.UrlShortnerService;
 
 @ExtendWith(MockitoExtension.class)
 class CoreServiceImplTest
 {
     @Mock
-    private UrlMappingRepository   urlMappingRepository;
+    private UrlMappingRepository       urlMappingRepository;
+    @Mock
+    private CacheInvalidationPublisher cacheInvalidationPublisher;
     @InjectMocks
-    private UrlShortnerService urlShortnerService;
-    private static final String    BASE_URL = "http://localhost:8083/";
+    private UrlShortnerService         urlShortnerService;
+    private static final String        BASE_URL = "http://localhost:8083/";
     @BeforeEach
     void setUp()
     {
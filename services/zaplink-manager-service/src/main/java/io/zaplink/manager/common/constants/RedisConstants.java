@@ -11,5 +11,10 @@ public final class RedisConstants
     {
         throw new UnsupportedOperationException( "Utility class cannot be instantiated" );
     }
-    public static final long URL_CACHE_TTL = 60 * 60 * 24; // 24 Hours
+    public static final long   URL_CACHE_TTL       = 60 * 60 * 24; // 24 Hours
+    public static final String QR_CACHE_PREFIX     = "qr:";
+    /**
+     * Pub/sub channel on which new keys are announced to redirect nodes' known-key filters (same as core's).
+     */
+    public static final String KEY_CREATED_CHANNEL = "zaplink:keys:created";
 }
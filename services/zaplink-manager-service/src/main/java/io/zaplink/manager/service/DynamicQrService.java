@@ -14,6 +14,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.zaplink.manager.common.client.CoreServiceClient;
+import io.zaplink.manager.common.constants.RedisConstants;
 import io.zaplink.manager.dto.request.dynamicqr.CreateDynamicQrRequest;
 import io.zaplink.manager.dto.request.qr.QRConfig;
 import io.zaplink.manager.dto.response.dynamicqr.DynamicQrResponse;
@@ -21,6 +22,7 @@ import io.zaplink.manager.dto.response.dynamicqr.QrAnalyticsResponse;
 import io.zaplink.manager.entity.DynamicQrCodeEntity;
 import io.zaplink.manager.repository.DynamicQrCodeRepository;
 import io.zaplink.manager.repository.QrScanAnalyticsRepository;
+import io.zaplink.manager.service.helper.RedisServiceHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -31,6 +33,7 @@ public class DynamicQrService
     private final CoreServiceClient         coreServiceClient;
     private final ObjectMapper              objectMapper;
     private final QrScanAnalyticsRepository qrScanAnalyticsRepository;
+    private final RedisServiceHelper        redisService;
     public Optional<DynamicQrResponse> getDynamicQr( String qrKey, String userEmail )
     {
         return dynamicQrCodeRepository.findByQrKey( qrKey ).filter( qr -> qr.getUserEmail().equals( userEmail ) )
@@ -212,6 +215,8 @@ public class DynamicQrService
                 entity.setQrConfig( objectMapper.writeValueAsString( request.qrConfig() ) );
             }
             DynamicQrCodeEntity saved = dynamicQrCodeRepository.save( entity );
+            // Saved outside a transaction, so the row is committed before redirect nodes learn the key
+            announceQr( saved.getQrKey() );
             return convertToResponse( saved );
         }
         catch ( JsonProcessingException e )
@@ -221,6 +226,23 @@ public class DynamicQrService
         }
     }
 
+    /**
+     * Announces a new QR key to redirect nodes, which otherwise reject it as unknown until their
+     * next known-key filter rebuild.
+     */
+    private void announceQr( String qrKey )
+    {
+        try
+        {
+            redisService.publish( RedisConstants.KEY_CREATED_CHANNEL, RedisConstants.QR_CACHE_PREFIX + qrKey );
+        }
+        catch ( Exception e )
+        {
+            // Redirect nodes pick the key up on their next filter rebuild
+            log.warn( "Failed to announce new QR key {}: {}", qrKey, e.getMessage() );
+        }
+    }
+
     private String generateUniqueKey()
     {
         return java.util.UUID.randomUUID().toString().substring( 0, 8 );
@@ -36,4 +36,10 @@ public class RedisServiceHelper
     {
         redisTemplate.delete( key );
     }
+
+    // Publish a message on a pub/sub channel
+    public void publish( String channel, String message )
+    {
+        redisTemplate.convertAndSend( channel, message );
+    }
 }
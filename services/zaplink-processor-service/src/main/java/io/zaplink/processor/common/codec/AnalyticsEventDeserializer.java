@@ -0,0 +1,117 @@
+package io.zaplink.processor.common.codec;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JacksonJsonDeserializer;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import io.zaplink.events.proto.AnalyticsEventsProto.AnalyticsEvent;
+import io.zaplink.events.proto.AnalyticsEventsProto.QrScan;
+import io.zaplink.events.proto.AnalyticsEventsProto.UrlClick;
+import io.zaplink.processor.dto.event.QrScanEvent;
+import io.zaplink.processor.dto.event.UrlClickEvent;
+
+/**
+ * Dual-format Kafka deserializer for analytics events.
+ *
+ * Protobuf {@link AnalyticsEvent} envelopes are decoded directly; records whose payload starts
+ * with '{' are legacy JSON and go to a {@link JacksonJsonDeserializer}, configured with the same
+ * consumer properties (type mappings) as before. This keeps old and new producers readable
+ * while the redirect service migrates.
+ * 
+ * @author Zaplink Team
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class AnalyticsEventDeserializer
+    implements
+    Deserializer<Object>
+{
+    /**
+     * Newest envelope version this consumer understands; see analytics-events.proto.
+     */
+    public static final int                       SUPPORTED_SCHEMA_VERSION = 1;
+    private final JacksonJsonDeserializer<Object> json                     = new JacksonJsonDeserializer<>();
+    @Override
+    public void configure( Map<String, ?> configs, boolean isKey )
+    {
+        json.configure( configs, isKey );
+    }
+
+    @Override
+    public Object deserialize( String topic, byte[] data )
+    {
+        return deserialize( topic, null, data );
+    }
+
+    @Override
+    public Object deserialize( String topic, Headers headers, byte[] data )
+    {
+        if ( data == null )
+        {
+            return null;
+        }
+        if ( isJson( data ) )
+        {
+            return headers != null ? json.deserialize( topic, headers, data ) : json.deserialize( topic, data );
+        }
+        try
+        {
+            return fromProto( AnalyticsEvent.parseFrom( data ) );
+        }
+        catch ( InvalidProtocolBufferException e )
+        {
+            throw new SerializationException( "Malformed analytics event on topic " + topic, e );
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        json.close();
+    }
+
+    private static Object fromProto( AnalyticsEvent event )
+    {
+        if ( event.getSchemaVersion() > SUPPORTED_SCHEMA_VERSION )
+        {
+            throw new SerializationException( "Unsupported analytics schema version: " + event.getSchemaVersion() );
+        }
+        return switch ( event.getEventCase() )
+        {
+            case URL_CLICK ->
+            {
+                UrlClick click = event.getUrlClick();
+                yield new UrlClickEvent( click.getUrlKey(), click.getIpAddress(), click.getUserAgent(),
+                                         click.getReferrer(), emptyToNull( click.getCountryHeader() ),
+                                         Instant.ofEpochMilli( click.getTimestampMillis() ), null );
+            }
+            case QR_SCAN ->
+            {
+                QrScan scan = event.getQrScan();
+                yield new QrScanEvent( scan.getQrKey(), scan.getIpAddress(), scan.getUserAgent(), scan.getReferrer(),
+                                       emptyToNull( scan.getCountryHeader() ),
+                                       Instant.ofEpochMilli( scan.getTimestampMillis() ), null );
+            }
+            case EVENT_NOT_SET -> throw new SerializationException( "Analytics event envelope without an event" );
+        };
+    }
+
+    /**
+     * Producers write JSON objects without leading whitespace; a protobuf envelope starts with a field tag.
+     */
+    private static boolean isJson( byte[] data )
+    {
+        return data.length > 0 && data[0] == '{';
+    }
+
+    private static String emptyToNull( String value )
+    {
+        return value.isEmpty() ? null : value;
+    }
+}
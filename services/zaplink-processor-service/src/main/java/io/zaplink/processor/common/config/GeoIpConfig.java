@@ -0,0 +1,23 @@
+package io.zaplink.processor.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.enrichment.GeoIpResolver;
+
+/**
+ * GeoIP lookup for click enrichment, shared with the redirect service (libs/zaplink-enrichment).
+ */
+@Configuration
+public class GeoIpConfig
+{
+    @Bean(destroyMethod = "close")
+    public GeoIpResolver geoIpResolver( MeterRegistry meterRegistry,
+                                        @Value("${geoip.db-path:classpath:GeoLite2-City.mmdb}") String dbPath,
+                                        @Value("${geoip.cache-size:100000}") long cacheSize )
+    {
+        return new GeoIpResolver( dbPath, cacheSize, meterRegistry );
+    }
+}
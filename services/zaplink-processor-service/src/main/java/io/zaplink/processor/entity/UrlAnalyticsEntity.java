@@ -31,6 +31,8 @@ public class UrlAnalyticsEntity
     private String        deviceType;
     @Column(name = "browser")
     private String        browser;
+    @Column(name = "is_bot")
+    private Boolean       bot;
     @Column(name = "trace_id")
     private String        traceId;
     @Column(name = "accessed_at")
@@ -1,6 +1,9 @@
 package io.zaplink.processor.service.helper;
 
-import java.util.Map;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
 
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
@@ -8,6 +11,8 @@ import org.springframework.stereotype.Service;
 import io.zaplink.processor.entity.UrlAnalyticsEntity;
 import io.zaplink.processor.repository.UrlAnalyticsRepository;
 import io.zaplink.processor.service.impl.ClickCountBatchProcessorService;
+import io.zaplink.processor.service.impl.ClickEnrichmentService;
+import io.zaplink.processor.service.impl.ClickEnrichmentService.Enrichment;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,9 +29,10 @@ public class KafkaListenerHelper
 {
     private final ClickCountBatchProcessorService batchProcessorService;
     private final UrlAnalyticsRepository          analyticsRepository;
+    private final ClickEnrichmentService          clickEnrichmentService;
     /**
      * Listens to URL click events from Kafka.
-     * 1. Saves detailed analytics.
+     * 1. Enriches and saves detailed analytics.
      * 2. Accumulates click count for batch update.
      * 
      * @param event the URL click event record
@@ -48,9 +54,8 @@ public class KafkaListenerHelper
     }
 
     /**
-     * Listens to QR scan events from Kafka.
-     * 1. Saves detailed analytics.
-     * 2. Accumulates scan count (as click count) for batch update.
+     * Listens to QR scan events from Kafka, then enriches and saves detailed analytics.
+     * Scan counts are maintained by the redirect service, which enforces scan limits.
      * 
      * @param event the QR scan event record
      */
@@ -61,8 +66,6 @@ public class KafkaListenerHelper
         try
         {
             saveQrAnalytics( event );
-            // Accumulate scan count (treated as click for now)
-            batchProcessorService.accumulateClickCount( event.qrKey(), 1 );
         }
         catch ( Exception e )
         {
@@ -72,50 +75,44 @@ public class KafkaListenerHelper
 
     private void saveUrlAnalytics( io.zaplink.processor.dto.event.UrlClickEvent event )
     {
-        UrlAnalyticsEntity entity = new UrlAnalyticsEntity();
-        entity.setShortUrlKey( event.urlKey() );
-        entity.setIpAddress( event.ipAddress() );
-        entity.setUserAgent( event.userAgent() );
-        entity.setReferrer( event.referrer() );
-        entity.setDeviceType( event.deviceType() );
-        entity.setBrowser( event.browser() );
-        entity.setTraceId( event.traceId() );
-        // Convert Instant to LocalDateTime
-        if ( event.timestamp() != null )
-        {
-            entity.setAccessedAt( java.time.LocalDateTime.ofInstant( event.timestamp(),
-                                                                     java.time.ZoneId.of( "UTC" ) ) );
-        }
-        else
-        {
-            entity.setAccessedAt( java.time.LocalDateTime.now() );
-        }
-        entity.setCountry( event.country() );
-        entity.setCity( event.city() );
-        analyticsRepository.save( entity );
+        analyticsRepository.save( newAnalytics( event.urlKey(), event.ipAddress(), event.userAgent(), event.referrer(),
+                                                event.countryHeader(), event.timestamp(), event.traceId() ) );
     }
 
     private void saveQrAnalytics( io.zaplink.processor.dto.event.QrScanEvent event )
     {
+        // Storing QR key in short_url_key column
+        analyticsRepository.save( newAnalytics( event.qrKey(), event.ipAddress(), event.userAgent(), event.referrer(),
+                                                event.countryHeader(), event.timestamp(), event.traceId() ) );
+    }
+
+    /**
+     * Build an analytics row from a raw event, resolving geo, device, browser and bot here
+     * rather than on the redirect path.
+     */
+    private UrlAnalyticsEntity newAnalytics( String key,
+                                             String ipAddress,
+                                             String userAgent,
+                                             String referrer,
+                                             String countryHeader,
+                                             Instant timestamp,
+                                             String traceId )
+    {
+        Enrichment enrichment = clickEnrichmentService.enrich( ipAddress, userAgent, countryHeader );
         UrlAnalyticsEntity entity = new UrlAnalyticsEntity();
-        entity.setShortUrlKey( event.qrKey() ); // Storing QR key in short_url_key column
-        entity.setIpAddress( event.ipAddress() );
-        entity.setUserAgent( event.userAgent() );
-        entity.setReferrer( event.referrer() );
-        entity.setDeviceType( event.deviceType() );
-        entity.setBrowser( event.browser() );
-        entity.setTraceId( event.traceId() );
-        if ( event.timestamp() != null )
-        {
-            entity.setAccessedAt( java.time.LocalDateTime.ofInstant( event.timestamp(),
-                                                                     java.time.ZoneId.of( "UTC" ) ) );
-        }
-        else
-        {
-            entity.setAccessedAt( java.time.LocalDateTime.now() );
-        }
-        entity.setCountry( event.country() );
-        entity.setCity( event.city() );
-        analyticsRepository.save( entity );
+        entity.setShortUrlKey( key );
+        entity.setIpAddress( ipAddress );
+        entity.setUserAgent( userAgent );
+        entity.setReferrer( referrer );
+        entity.setCountry( enrichment.country() );
+        entity.setCity( enrichment.city() );
+        entity.setDeviceType( enrichment.deviceType() );
+        entity.setBrowser( enrichment.browser() );
+        entity.setBot( enrichment.bot() );
+        entity.setTraceId( traceId != null ? traceId : UUID.randomUUID().toString() );
+        // Convert Instant to LocalDateTime
+        entity.setAccessedAt( timestamp != null ? LocalDateTime.ofInstant( timestamp, ZoneOffset.UTC )
+                : LocalDateTime.now() );
+        return entity;
     }
 }
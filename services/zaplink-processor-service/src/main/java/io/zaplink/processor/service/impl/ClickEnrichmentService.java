@@ -0,0 +1,58 @@
+package io.zaplink.processor.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.zaplink.enrichment.GeoIpResolver;
+import io.zaplink.enrichment.GeoLocation;
+import io.zaplink.enrichment.UaProfile;
+
+/**
+ * Enriches raw click and scan events with location, device, browser and bot classification.
+ * The redirect service publishes only what the request provides, so this work stays off the
+ * redirect path.
+ * 
+ * @author Zaplink Team
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Service
+public class ClickEnrichmentService
+{
+    /**
+     * Attributes derived from a raw event.
+     */
+    public record Enrichment( String country, String city, String deviceType, String browser, boolean bot )
+    {
+    }
+    private final GeoIpResolver            geoIpResolver;
+    private final Cache<String, UaProfile> userAgents;
+    public ClickEnrichmentService( GeoIpResolver geoIpResolver,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${zaplink.enrichment.user-agent-cache-size:10000}") long cacheSize )
+    {
+        this.geoIpResolver = geoIpResolver;
+        this.userAgents = Caffeine.newBuilder().maximumSize( cacheSize ).recordStats().build();
+        CaffeineCacheMetrics.monitor( meterRegistry, userAgents, "enrichment.user-agent" );
+    }
+
+    /**
+     * Derive location and client attributes for one event.
+     *
+     * @param countryHeader country from the edge proxy; preferred over GeoIP when present
+     */
+    public Enrichment enrich( String ipAddress, String userAgent, String countryHeader )
+    {
+        GeoLocation location = geoIpResolver.resolveLocation( ipAddress );
+        // Cloudflare sends XX for unknown and T1 for Tor exit nodes
+        String country = countryHeader != null && countryHeader.length() == 2 && !"XX".equals( countryHeader )
+                && !"T1".equals( countryHeader ) ? countryHeader : location.country();
+        UaProfile profile = userAgent != null ? userAgents.get( userAgent, UaProfile::parse ) : UaProfile.UNKNOWN;
+        return new Enrichment( country, location.city(), profile.deviceType(), profile.browser(), profile.bot() );
+    }
+}
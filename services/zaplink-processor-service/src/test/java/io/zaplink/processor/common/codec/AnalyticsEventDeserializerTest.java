@@ -0,0 +1,66 @@
+package io.zaplink.processor.common.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JacksonJsonDeserializer;
+
+import io.zaplink.events.proto.AnalyticsEventsProto.AnalyticsEvent;
+import io.zaplink.events.proto.AnalyticsEventsProto.QrScan;
+import io.zaplink.events.proto.AnalyticsEventsProto.UrlClick;
+import io.zaplink.processor.dto.event.QrScanEvent;
+import io.zaplink.processor.dto.event.UrlClickEvent;
+
+class AnalyticsEventDeserializerTest
+{
+    @Test
+    void deserialize_DecodesProtobufEnvelopes()
+    {
+        AnalyticsEventDeserializer deserializer = new AnalyticsEventDeserializer();
+        byte[] click = AnalyticsEvent.newBuilder().setSchemaVersion( 1 )
+                .setUrlClick( UrlClick.newBuilder().setUrlKey( "abc123" ).setIpAddress( "203.0.113.7" )
+                        .setUserAgent( "curl/8.4.0" ).setCountryHeader( "DE" )
+                        .setTimestampMillis( 1_700_000_000_000L ) )
+                .build().toByteArray();
+        UrlClickEvent event = assertInstanceOf( UrlClickEvent.class,
+                                                deserializer.deserialize( "url-click-events", new RecordHeaders(),
+                                                                          click ) );
+        assertEquals( "abc123", event.urlKey() );
+        assertEquals( "DE", event.countryHeader() );
+        assertEquals( "", event.referrer() );
+        assertEquals( Instant.ofEpochMilli( 1_700_000_000_000L ), event.timestamp() );
+        byte[] scan = AnalyticsEvent.newBuilder().setSchemaVersion( 1 )
+                .setQrScan( QrScan.newBuilder().setQrKey( "qr1" ).setTimestampMillis( 1L ) ).build().toByteArray();
+        QrScanEvent scanEvent = assertInstanceOf( QrScanEvent.class,
+                                                  deserializer.deserialize( "qr-scan-events", scan ) );
+        assertEquals( "qr1", scanEvent.qrKey() );
+        assertNull( scanEvent.countryHeader() );
+    }
+
+    @Test
+    void deserialize_FallsBackToJsonAndRejectsNewerSchemas()
+    {
+        AnalyticsEventDeserializer deserializer = new AnalyticsEventDeserializer();
+        deserializer.configure( Map.of( JacksonJsonDeserializer.TRUSTED_PACKAGES, "*",
+                                        JacksonJsonDeserializer.VALUE_DEFAULT_TYPE, UrlClickEvent.class.getName() ),
+                                false );
+        byte[] json = "{\"urlKey\":\"abc123\",\"ipAddress\":\"203.0.113.7\",\"country\":\"US\"}"
+                .getBytes( StandardCharsets.UTF_8 );
+        UrlClickEvent event = assertInstanceOf( UrlClickEvent.class,
+                                                deserializer.deserialize( "url-click-events", new RecordHeaders(),
+                                                                          json ) );
+        assertEquals( "abc123", event.urlKey() );
+        byte[] future = AnalyticsEvent.newBuilder().setSchemaVersion( 99 )
+                .setUrlClick( UrlClick.newBuilder().setUrlKey( "abc123" ) ).build().toByteArray();
+        assertThrows( SerializationException.class, () -> deserializer.deserialize( "url-click-events", future ) );
+    }
+}
@@ -0,0 +1,95 @@
+package io.zaplink.processor.service.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.enrichment.GeoIpResolver;
+import io.zaplink.enrichment.TestMmdb;
+import io.zaplink.processor.dto.event.QrScanEvent;
+import io.zaplink.processor.dto.event.UrlClickEvent;
+import io.zaplink.processor.entity.UrlAnalyticsEntity;
+import io.zaplink.processor.repository.UrlAnalyticsRepository;
+import io.zaplink.processor.service.impl.ClickCountBatchProcessorService;
+import io.zaplink.processor.service.impl.ClickEnrichmentService;
+
+class KafkaListenerHelperTest
+{
+    private static final String                   IPHONE                = "Mozilla/5.0 (iPhone; CPU iPhone OS "
+            + "17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1";
+    private final UrlAnalyticsRepository          analyticsRepository   = mock( UrlAnalyticsRepository.class );
+    private final ClickCountBatchProcessorService batchProcessorService = mock( ClickCountBatchProcessorService.class );
+    private TestMmdb.Database                     database;
+    private GeoIpResolver                         geoIpResolver;
+    private KafkaListenerHelper                   listenerHelper;
+    @BeforeEach
+    void setUp()
+        throws Exception
+    {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        database = TestMmdb.write( 16, 42 );
+        geoIpResolver = new GeoIpResolver( database.file().toString(), 100, meterRegistry );
+        listenerHelper = new KafkaListenerHelper( batchProcessorService, analyticsRepository,
+                                                  new ClickEnrichmentService( geoIpResolver, meterRegistry, 100 ) );
+    }
+
+    @AfterEach
+    void tearDown()
+        throws Exception
+    {
+        geoIpResolver.close();
+        Files.deleteIfExists( database.file() );
+    }
+
+    @Test
+    void handleUrlClickEvent_SavesTheEnrichedClickAndCountsIt()
+    {
+        Instant timestamp = Instant.parse( "2026-10-17T10:15:30Z" );
+        listenerHelper.handleUrlClickEvent( new UrlClickEvent( "abc123", database.addresses().get( 1 ), IPHONE,
+                                                               "https://example.com", null, timestamp, null ) );
+        UrlAnalyticsEntity saved = saved();
+        assertEquals( "abc123", saved.getShortUrlKey() );
+        assertEquals( "US", saved.getCountry() );
+        assertEquals( "San Francisco", saved.getCity() );
+        assertEquals( "Mobile", saved.getDeviceType() );
+        assertEquals( "Safari", saved.getBrowser() );
+        assertFalse( saved.getBot() );
+        assertNotNull( saved.getTraceId(), "a trace id is generated when the producer sent none" );
+        assertEquals( LocalDateTime.ofInstant( timestamp, ZoneOffset.UTC ), saved.getAccessedAt() );
+        verify( batchProcessorService ).accumulateClickCount( "abc123", 1 );
+    }
+
+    @Test
+    void handleQrScanEvent_UsesTheCountryHeaderAndKeepsTheTraceId()
+    {
+        listenerHelper.handleQrScanEvent( new QrScanEvent( "qr123", "192.168.1.20", "curl/8.4.0", null, "IN",
+                                                           Instant.now(), "trace-1" ) );
+        UrlAnalyticsEntity saved = saved();
+        assertEquals( "qr123", saved.getShortUrlKey() );
+        assertEquals( "IN", saved.getCountry() );
+        assertEquals( "Unknown", saved.getCity() );
+        assertTrue( saved.getBot() );
+        assertEquals( "trace-1", saved.getTraceId() );
+    }
+
+    private UrlAnalyticsEntity saved()
+    {
+        ArgumentCaptor<UrlAnalyticsEntity> entity = ArgumentCaptor.forClass( UrlAnalyticsEntity.class );
+        verify( analyticsRepository ).save( entity.capture() );
+        return entity.getValue();
+    }
+}
@@ -0,0 +1,97 @@
+package io.zaplink.processor.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.enrichment.GeoIpResolver;
+import io.zaplink.enrichment.GeoLocation;
+import io.zaplink.enrichment.TestMmdb;
+import io.zaplink.processor.service.impl.ClickEnrichmentService.Enrichment;
+
+class ClickEnrichmentServiceTest
+{
+    static final String            CHROME        = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+    private final MeterRegistry    meterRegistry = new SimpleMeterRegistry();
+    private TestMmdb.Database      database;
+    private GeoIpResolver          geoIpResolver;
+    private ClickEnrichmentService enrichmentService;
+    @BeforeEach
+    void setUp()
+        throws Exception
+    {
+        database = TestMmdb.write( 16, 42 );
+        geoIpResolver = new GeoIpResolver( database.file().toString(), 100, meterRegistry );
+        enrichmentService = new ClickEnrichmentService( geoIpResolver, meterRegistry, 100 );
+    }
+
+    @AfterEach
+    void tearDown()
+        throws Exception
+    {
+        geoIpResolver.close();
+        Files.deleteIfExists( database.file() );
+    }
+
+    @Test
+    void enrich_PrefersTheCountryHeaderOverGeoIp()
+    {
+        String ip = database.addresses().get( 0 );
+        Enrichment fromHeader = enrichmentService.enrich( ip, CHROME, "DE" );
+        assertEquals( "DE", fromHeader.country() );
+        assertEquals( "New York", fromHeader.city(), "the city still comes from GeoIP" );
+        for ( String header : new String[] { null, "", "XX", "T1", "Germany" } )
+        {
+            assertEquals( "US", enrichmentService.enrich( ip, CHROME, header ).country(), header );
+        }
+    }
+
+    @Test
+    void enrich_PrivateAndInvalidAddressesAreUnknown()
+    {
+        for ( String ip : new String[] { "10.0.0.1", "192.168.1.20", "127.0.0.1", "fc00::1", "not-an-ip", "", null } )
+        {
+            Enrichment enrichment = enrichmentService.enrich( ip, CHROME, null );
+            assertEquals( GeoLocation.UNKNOWN.country(), enrichment.country(), ip );
+            assertEquals( GeoLocation.UNKNOWN.city(), enrichment.city(), ip );
+        }
+    }
+
+    @Test
+    void enrich_ParsesEachUserAgentOnce()
+    {
+        Enrichment first = enrichmentService.enrich( "10.0.0.1", CHROME, null );
+        Enrichment second = enrichmentService.enrich( "10.0.0.2", CHROME, null );
+        assertEquals( first, second );
+        assertEquals( "Desktop", first.deviceType() );
+        assertEquals( "Chrome", first.browser() );
+        assertFalse( first.bot() );
+        assertEquals( 1, cacheGets( "hit" ) );
+        assertEquals( 1, cacheGets( "miss" ) );
+        assertTrue( enrichmentService.enrich( "10.0.0.3", "curl/8.4.0", null ).bot() );
+    }
+
+    @Test
+    void enrich_WithoutAUserAgentIsUnknown()
+    {
+        Enrichment enrichment = enrichmentService.enrich( "10.0.0.1", null, null );
+        assertEquals( "Unknown", enrichment.deviceType() );
+        assertEquals( "Unknown", enrichment.browser() );
+        assertEquals( 0, cacheGets( "miss" ), "nothing to cache" );
+    }
+
+    private double cacheGets( String result )
+    {
+        return meterRegistry.get( "cache.gets" ).tags( "cache", "enrichment.user-agent", "result", result )
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,102 @@
+package io.zaplink.redirect.benchmark;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.enrichment.GeoLocation;
+import io.zaplink.enrichment.TestMmdb;
+import io.zaplink.redirect.service.GeoIpService;
+
+/**
+ * Measures {@link GeoIpService#resolveLocation} against a synthetic City database written by
+ * {@link TestMmdb}. Addresses are drawn from the mapped networks, unmapped public space and private
+ * ranges; cacheSize 0 measures the memory-mapped tree walk on every call.
+ *
+ * Run with: ./gradlew jmh -PjmhIncludes=GeoIpBenchmark
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS) @Warmup(iterations = 3, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class GeoIpBenchmark
+{
+    private static final int  NETWORKS = 20_000;
+    @Param(
+    { "0", "100000" })
+    private long              cacheSize;
+    private TestMmdb.Database database;
+    private GeoIpService      geoIpService;
+    private String[]          addresses;
+    private int               next;
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        database = TestMmdb.write( NETWORKS, 42 );
+        geoIpService = new GeoIpService( new SimpleMeterRegistry(), cacheSize, database.file().toString() );
+        // 8 in 10 addresses are mapped, the rest fall in unmapped or private space
+        Random random = new Random( 7 );
+        List<String> mix = new ArrayList<>();
+        for ( int i = 0; i < 4096; i++ )
+        {
+            mix.add( switch ( i % 10 )
+            {
+                case 8 -> "203.0." + random.nextInt( 256 ) + "." + random.nextInt( 256 );
+                case 9 -> "192.168.1." + random.nextInt( 256 );
+                default -> database.addresses().get( random.nextInt( NETWORKS ) );
+            } );
+        }
+        addresses = mix.toArray( String[]::new );
+        GeoLocation sample = geoIpService.resolveLocation( database.addresses().get( 0 ) );
+        if ( GeoLocation.UNKNOWN.equals( sample ) )
+        {
+            throw new IllegalStateException( "Test database did not resolve " + database.addresses().get( 0 ) );
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+        throws Exception
+    {
+        geoIpService.cleanup();
+        Files.deleteIfExists( database.file() );
+    }
+
+    @Benchmark
+    public GeoLocation resolveAddress()
+    {
+        return geoIpService.resolveLocation( nextAddress() );
+    }
+
+    /**
+     * Per-request path: client IP from X-Forwarded-For, then the lookup.
+     */
+    @Benchmark
+    public GeoLocation resolveRequest()
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader( "X-Forwarded-For", nextAddress() + ", 10.0.0.1" );
+        return geoIpService.resolveLocation( request );
+    }
+
+    private String nextAddress()
+    {
+        next = ( next + 1 ) & ( addresses.length - 1 );
+        return addresses[next];
+    }
+}
@@ -0,0 +1,89 @@
+package io.zaplink.redirect.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.zaplink.redirect.common.codec.RedirectConfigCodec;
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+/**
+ * Compares the legacy JSON cache format with {@link RedirectConfigCodec}.
+ * Payload sizes for each rule count are printed once per trial.
+ *
+ * Run with: ./gradlew jmh -PjmhIncludes=RedirectConfigCodecBenchmark
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS) @Warmup(iterations = 3, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class RedirectConfigCodecBenchmark
+{
+    @Param(
+    { "0", "3", "20" })
+    private int               ruleCount;
+    private ObjectMapper      objectMapper;
+    private RedirectConfigDto config;
+    private String            json;
+    private byte[]            binary;
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule( new JavaTimeModule() );
+        List<RedirectRuleDto> rules = new ArrayList<>();
+        RuleDimension[] dimensions = RuleDimension.values();
+        for ( int i = 0; i < ruleCount; i++ )
+        {
+            rules.add( new RedirectRuleDto( dimensions[i % dimensions.length], "value-" + i,
+                                            "https://example.com/landing/campaign-" + i + "?utm_source=zaplink",
+                                            ruleCount - i ) );
+        }
+        config = new RedirectConfigDto( "https://www.example.com/products/summer-sale?utm_campaign=launch", rules );
+        json = objectMapper.writeValueAsString( config );
+        binary = RedirectConfigCodec.encode( config );
+        System.out.printf( "%n[payload] rules=%d json=%d bytes binary=%d bytes (%.1f%%)%n", ruleCount,
+                           json.getBytes().length, binary.length, 100.0 * binary.length / json.getBytes().length );
+    }
+
+    @Benchmark
+    public RedirectConfigDto decodeJson()
+        throws Exception
+    {
+        return objectMapper.readValue( json, RedirectConfigDto.class );
+    }
+
+    @Benchmark
+    public RedirectConfigDto decodeBinary()
+    {
+        return RedirectConfigCodec.decode( binary );
+    }
+
+    @Benchmark
+    public String encodeJson()
+        throws Exception
+    {
+        return objectMapper.writeValueAsString( config );
+    }
+
+    @Benchmark
+    public byte[] encodeBinary()
+    {
+        return RedirectConfigCodec.encode( config );
+    }
+}
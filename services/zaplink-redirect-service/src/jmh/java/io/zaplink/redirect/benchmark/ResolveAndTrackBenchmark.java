@@ -0,0 +1,193 @@
+package io.zaplink.redirect.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.redirect.common.enums.OverflowPolicy;
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+import io.zaplink.redirect.repository.RedirectRuleRepository;
+import io.zaplink.redirect.repository.UrlMappingRepository;
+import io.zaplink.redirect.service.ClientRateLimiter;
+import io.zaplink.redirect.service.GeoIpService;
+import io.zaplink.redirect.service.HotKeyTracker;
+import io.zaplink.redirect.service.KafkaEventPublisher;
+import io.zaplink.redirect.service.KnownKeyFilter;
+import io.zaplink.redirect.service.LocalLinkStore;
+import io.zaplink.redirect.service.RedirectCachePolicy;
+import io.zaplink.redirect.service.RedirectConfigCache;
+import io.zaplink.redirect.service.RedirectStageMetrics;
+import io.zaplink.redirect.service.RedisGuard;
+import io.zaplink.redirect.service.RedisService;
+import io.zaplink.redirect.service.RuleEngine;
+import io.zaplink.redirect.service.UrlRedirectService;
+import io.zaplink.redirect.service.UrlRedirectService.RedirectResult;
+import io.zaplink.redirect.service.UserAgentClassifier;
+
+/**
+ * Measures {@link UrlRedirectService#resolveAndTrack} end to end for links already in L1: known-key
+ * check, hot-key counting, the client rate limit, rule evaluation with User-Agent classification,
+ * the cache policy, buffering the click event and stage timing at the given sample rate. The
+ * services are wired by hand with their production defaults; repositories are stubs that fail if
+ * the benchmark ever leaves the cached path, Redis is never reached and the analytics drainer is
+ * not started, so the buffer sheds its oldest events.
+ * {@link #resolveUntracked} measures the crawler path for comparison.
+ *
+ * Run with: ./gradlew jmh -PjmhIncludes=ResolveAndTrackBenchmark
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS) @Warmup(iterations = 3, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class ResolveAndTrackBenchmark
+{
+    private static final int      KEYS        = 1024;
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Mobile Safari/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 14_2) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Safari/605.1.15" };
+    private static final String[]    COUNTRIES   = { "US", "IN", "GB", "DE" };
+    @Param(
+    { "0", "10" })
+    private int                      ruleCount;
+    /**
+     * Fraction of requests whose stages are timed; 0 leaves only the result counters.
+     */
+    @Param(
+    { "0", "0.1", "1" })
+    private double                   stageSampleRate;
+    private UrlRedirectService       urlRedirectService;
+    private String[]                 keys;
+    private MockHttpServletRequest[] requests;
+    private int                      next;
+    @Setup
+    public void setup()
+    {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule( new JavaTimeModule() );
+        RuleEngine ruleEngine = new RuleEngine();
+        RedisGuard redisGuard = new RedisGuard( meterRegistry, 100, 20, 0.5, Duration.ofMillis( 100 ), 0.5,
+                                                Duration.ofSeconds( 5 ), 5, true, 0.99, Duration.ofMillis( 2 ),
+                                                Duration.ofMillis( 50 ) );
+        RedisService redisService = new RedisService( null, null, objectMapper, redisGuard, false, 0.1,
+                                                      Duration.ofSeconds( 60 ) );
+        RedirectConfigCache redirectConfigCache = new RedirectConfigCache( redisService, ruleEngine, meterRegistry,
+                                                                           100_000, Duration.ofDays( 1 ),
+                                                                           Duration.ofSeconds( 60 ), 0.1, 1.0 );
+        KnownKeyFilter knownKeyFilter = new KnownKeyFilter( stub( UrlMappingRepository.class ), null, null, null,
+                                                            meterRegistry, false, 0.01, 1_000_000 );
+        KafkaEventPublisher kafkaEventPublisher = new KafkaEventPublisher( null, meterRegistry, 65_536,
+                                                                           OverflowPolicy.DROP_OLDEST,
+                                                                           Duration.ofMillis( 5 ), 512,
+                                                                           Duration.ofMillis( 1 ) );
+        LocalLinkStore localLinkStore = new LocalLinkStore( redirectConfigCache, objectMapper, meterRegistry, false,
+                                                            "localhost:9092", "link-snapshots",
+                                                            Path.of( "link-store.snapshot" ), Duration.ofMinutes( 5 ),
+                                                            DataSize.ofKilobytes( 64 ), DataSize.ofMegabytes( 1 ) );
+        urlRedirectService = new UrlRedirectService( stub( UrlMappingRepository.class ),
+                                                     stub( RedirectRuleRepository.class ), redirectConfigCache,
+                                                     new GeoIpService( meterRegistry, 100_000, "none.mmdb" ),
+                                                     ruleEngine,
+                                                     kafkaEventPublisher, knownKeyFilter, meterRegistry,
+                                                     new UserAgentClassifier( meterRegistry, 10_000, 512 ),
+                                                     new HotKeyTracker( redirectConfigCache, meterRegistry, true, 100,
+                                                                        6, 4096, 4, 0.01, 600 ),
+                                                     new RedirectCachePolicy( Duration.ofDays( 1 ) ),
+                                                     localLinkStore,
+                                                     new RedirectStageMetrics( meterRegistry, stageSampleRate,
+                                                                               new Duration[] { Duration.ofMillis( 1 ) },
+                                                                               false ),
+                                                     // High enough that the benchmark measures the check, not rejections
+                                                     new ClientRateLimiter( null, meterRegistry, true, 65_536, 1e9,
+                                                                            1_000_000, 1e9, 1_000_000, false, 0,
+                                                                            Duration.ofMinutes( 1 ) ),
+                                                     redisGuard );
+        List<RedirectRuleDto> rules = new ArrayList<>( ruleCount );
+        for ( int i = 0; i < ruleCount; i++ )
+        {
+            rules.add( i % 5 == 4
+                    ? new RedirectRuleDto( RuleDimension.OS, i % 2 == 0 ? "iOS" : "Android",
+                                           "https://example.com/os/" + i, ruleCount - i )
+                    : new RedirectRuleDto( RuleDimension.COUNTRY, i < COUNTRIES.length ? COUNTRIES[i] : "Q" + i,
+                                           "https://example.com/country/" + i, ruleCount - i ) );
+        }
+        keys = new String[KEYS];
+        for ( int i = 0; i < KEYS; i++ )
+        {
+            keys[i] = "bench" + i;
+            redirectConfigCache.cacheLocalUrlConfig( keys[i], new RedirectConfigDto( "https://www.example.com/products/"
+                    + i + "?utm_source=zaplink", rules ) );
+        }
+        requests = new MockHttpServletRequest[USER_AGENTS.length * COUNTRIES.length];
+        for ( int i = 0; i < requests.length; i++ )
+        {
+            MockHttpServletRequest request = new MockHttpServletRequest( "GET", "/r/" + keys[i] );
+            request.addHeader( "User-Agent", USER_AGENTS[i % USER_AGENTS.length] );
+            request.addHeader( "CF-IPCountry", COUNTRIES[i / USER_AGENTS.length] );
+            request.addHeader( "X-Forwarded-For", "203.0.113." + i );
+            request.addHeader( "Referer", "https://news.example.org/article" );
+            requests[i] = request;
+        }
+        if ( !( urlRedirectService.resolveAndTrack( keys[0], requests[0] ) instanceof RedirectResult.Success ) )
+        {
+            throw new IllegalStateException( "Benchmark links did not resolve from L1" );
+        }
+    }
+
+    @Benchmark
+    public RedirectResult resolveAndTrack()
+    {
+        next++;
+        return urlRedirectService.resolveAndTrack( keys[next & ( KEYS - 1 )], requests[next % requests.length] );
+    }
+
+    /**
+     * The same requests on the path crawlers and HEAD requests take: no rules, no click event.
+     */
+    @Benchmark
+    public RedirectResult resolveUntracked()
+    {
+        next++;
+        return urlRedirectService.resolveUntracked( keys[next & ( KEYS - 1 )], requests[next % requests.length] );
+    }
+
+    /**
+     * A repository stub that fails on every query, so a benchmark that misses L1 stops instead of
+     * quietly measuring something else.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub( Class<T> repository )
+    {
+        return (T) Proxy.newProxyInstance( repository.getClassLoader(), new Class<?>[] { repository },
+                                           ( proxy, method, args ) -> switch ( method.getName() )
+                                           {
+                                               case "toString" -> repository.getSimpleName() + " stub";
+                                               case "hashCode" -> System.identityHashCode( proxy );
+                                               case "equals" -> proxy == args[0];
+                                               default -> throw new UnsupportedOperationException( method.getName()
+                                                       + " called on a benchmark stub" );
+                                           } );
+    }
+}
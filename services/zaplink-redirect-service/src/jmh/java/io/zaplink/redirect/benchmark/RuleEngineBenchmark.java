@@ -0,0 +1,82 @@
+package io.zaplink.redirect.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+import io.zaplink.redirect.service.CompiledRuleSet;
+import io.zaplink.redirect.service.RuleEngine;
+
+/**
+ * Measures {@link RuleEngine#evaluate} over links with 1, 10 and 200 rules, and the one-off cost
+ * of compiling them. Requests cycle through device, OS and country combinations that hit the
+ * first rule, a late rule and no rule at all.
+ *
+ * Run with: ./gradlew jmh -PjmhIncludes=RuleEngineBenchmark
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS) @Warmup(iterations = 3, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class RuleEngineBenchmark
+{
+    private static final String[]   COUNTRIES = { "US", "IN", "GB", "DE", "FR", "BR", "JP", "AU", "CA", "SG", "NL",
+            "ES", "IT", "MX", "KR", "SE", "CH", "PL", "TR", "ZA" };
+    private static final String[][] REQUESTS  = { { "Mobile", "iOS", "US" }, { "Desktop", "Windows", "IN" },
+            { "Mobile", "Android", "ZA" }, { "Tablet", "Android", "C9" }, { "Desktop", "Linux", "X1" },
+            { "Unknown", "Unknown", null } };
+    @Param(
+    { "1", "10", "200" })
+    private int                     ruleCount;
+    private RuleEngine              ruleEngine;
+    private List<RedirectRuleDto>   rules;
+    private CompiledRuleSet         compiled;
+    private int                     next;
+    @Setup
+    public void setup()
+    {
+        ruleEngine = new RuleEngine();
+        rules = new ArrayList<>( ruleCount );
+        // Mostly country rules, as in real campaigns, with a few device and OS rules mixed in
+        for ( int i = 0; i < ruleCount; i++ )
+        {
+            RedirectRuleDto rule = switch ( i % 10 )
+            {
+                case 3 -> new RedirectRuleDto( RuleDimension.OS, i % 20 == 3 ? "iOS" : "Android",
+                                               "https://example.com/os/" + i, ruleCount - i );
+                case 7 -> new RedirectRuleDto( RuleDimension.DEVICE_TYPE, "Tablet", "https://example.com/device/" + i,
+                                               ruleCount - i );
+                default -> new RedirectRuleDto( RuleDimension.COUNTRY,
+                                                i < COUNTRIES.length ? COUNTRIES[i] : "Q" + i,
+                                                "https://example.com/country/" + i, ruleCount - i );
+            };
+            rules.add( rule );
+        }
+        compiled = ruleEngine.compile( rules );
+    }
+
+    @Benchmark
+    public String evaluate()
+    {
+        next = ( next + 1 ) % REQUESTS.length;
+        String[] request = REQUESTS[next];
+        return ruleEngine.evaluate( compiled, request[0], request[1], request[2] );
+    }
+
+    @Benchmark
+    public CompiledRuleSet compile()
+    {
+        return ruleEngine.compile( rules );
+    }
+}
@@ -0,0 +1,73 @@
+package io.zaplink.redirect.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.enrichment.UaProfile;
+import io.zaplink.redirect.service.RequestUtils;
+import io.zaplink.redirect.service.UserAgentClassifier;
+
+/**
+ * Compares the per-attribute {@link RequestUtils} scans with the single-pass {@link UaProfile} parser
+ * and the memoized {@link UserAgentClassifier}. Each operation classifies one request the way a
+ * redirect with User-Agent rules does: device and OS for routing, then device and browser for the event.
+ *
+ * Run with: ./gradlew jmh -PjmhIncludes=UserAgentBenchmark
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS) @Warmup(iterations = 3, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class UserAgentBenchmark
+{
+    private static final String[] USER_AGENTS = {
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Mobile Safari/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 14_2) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Safari/605.1.15",
+            "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)" };
+    private UserAgentClassifier   classifier;
+    private int                   next;
+    @Setup
+    public void setup()
+    {
+        classifier = new UserAgentClassifier( new SimpleMeterRegistry(), 10_000, 512 );
+    }
+
+    @Benchmark
+    public void requestUtils( Blackhole blackhole )
+    {
+        String ua = nextUserAgent();
+        blackhole.consume( RequestUtils.extractDeviceType( ua ) );
+        blackhole.consume( RequestUtils.extractOS( ua ) );
+        blackhole.consume( RequestUtils.extractDeviceType( ua ) );
+        blackhole.consume( RequestUtils.extractBrowser( ua ) );
+    }
+
+    @Benchmark
+    public UaProfile singlePass()
+    {
+        return UaProfile.parse( nextUserAgent() );
+    }
+
+    @Benchmark
+    public UaProfile memoized()
+    {
+        return classifier.classify( nextUserAgent() );
+    }
+
+    private String nextUserAgent()
+    {
+        next = ( next + 1 ) % USER_AGENTS.length;
+        return USER_AGENTS[next];
+    }
+}
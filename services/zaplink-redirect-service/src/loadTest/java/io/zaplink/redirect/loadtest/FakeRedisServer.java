@@ -0,0 +1,555 @@
+package io.zaplink.redirect.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process stand-in for Redis that speaks RESP2 on a local port.
+ *
+ * It implements the commands the redirect service issues: strings with expiry, counters and
+ * pub/sub. Scripting is not supported, so seeded QR codes carry no scan limit. HELLO is rejected,
+ * which makes Lettuce fall back to RESP2. Keys are held as ISO-8859-1 strings so binary values
+ * round-trip unchanged. Each connection is served by a platform thread; Lettuce keeps only a few open.
+ */
+@Slf4j
+final class FakeRedisServer
+    implements
+    AutoCloseable
+{
+    private record Value( byte[] data, long expiresAtMillis )
+    {
+        boolean expired( long now )
+        {
+            return expiresAtMillis > 0 && expiresAtMillis <= now;
+        }
+    }
+    private static final byte[]      OK          = "+OK\r\n".getBytes( StandardCharsets.US_ASCII );
+    private static final byte[]      NULL_BULK   = "$-1\r\n".getBytes( StandardCharsets.US_ASCII );
+    private final ServerSocket       serverSocket;
+    private final Map<String, Value> data        = new ConcurrentHashMap<>();
+    private final List<Connection>   connections = new CopyOnWriteArrayList<>();
+    private volatile boolean         running     = true;
+    FakeRedisServer()
+        throws IOException
+    {
+        this.serverSocket = new ServerSocket( 0, 128, InetAddress.getLoopbackAddress() );
+        Thread.ofPlatform().name( "fake-redis-acceptor" ).daemon().start( this::acceptLoop );
+    }
+
+    int port()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        running = false;
+        serverSocket.close();
+        for ( Connection connection : connections )
+        {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop()
+    {
+        while ( running )
+        {
+            try
+            {
+                Connection connection = new Connection( serverSocket.accept() );
+                connections.add( connection );
+                // Platform threads keep the stand-in off the carriers the service's virtual threads run on
+                Thread.ofPlatform().name( "fake-redis-connection" ).daemon().start( connection::serve );
+            }
+            catch ( IOException e )
+            {
+                if ( running )
+                {
+                    log.warn( "Fake Redis accept failed: {}", e.getMessage() );
+                }
+            }
+        }
+    }
+
+    /**
+     * One client connection; replies are buffered and flushed once the pipelined input is drained.
+     */
+    private final class Connection
+    {
+        private final Socket               socket;
+        private final InputStream          in;
+        private final OutputStream         out;
+        private final Set<String>          channels = ConcurrentHashMap.newKeySet();
+        private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+        Connection( Socket socket )
+            throws IOException
+        {
+            this.socket = socket;
+            this.socket.setTcpNoDelay( true );
+            this.in = new BufferedInputStream( socket.getInputStream(), 16 * 1024 );
+            this.out = new BufferedOutputStream( socket.getOutputStream(), 16 * 1024 );
+        }
+
+        void serve()
+        {
+            try
+            {
+                while ( running )
+                {
+                    List<byte[]> command = readCommand();
+                    synchronized ( this )
+                    {
+                        if ( !execute( command ) )
+                        {
+                            out.flush();
+                            break;
+                        }
+                        if ( in.available() == 0 )
+                        {
+                            out.flush();
+                        }
+                    }
+                }
+            }
+            catch ( EOFException e )
+            {
+                // Client disconnected
+            }
+            catch ( IOException e )
+            {
+                if ( running )
+                {
+                    log.debug( "Fake Redis connection closed: {}", e.getMessage() );
+                }
+            }
+            finally
+            {
+                close();
+            }
+        }
+
+        void close()
+        {
+            connections.remove( this );
+            try
+            {
+                socket.close();
+            }
+            catch ( IOException e )
+            {
+                // Already closed
+            }
+        }
+
+        /**
+         * @return false if the connection should be closed
+         */
+        private boolean execute( List<byte[]> command )
+            throws IOException
+        {
+            String name = text( command.get( 0 ) ).toUpperCase( Locale.ROOT );
+            long now = System.currentTimeMillis();
+            switch ( name )
+            {
+                case "PING" ->
+                {
+                    if ( channels.isEmpty() && patterns.isEmpty() )
+                    {
+                        simple( "PONG" );
+                    }
+                    else
+                    {
+                        arrayHeader( 2 );
+                        bulk( "pong" );
+                        bulk( command.size() > 1 ? command.get( 1 ) : new byte[0] );
+                    }
+                }
+                case "CLIENT", "SELECT", "AUTH", "READONLY" -> out.write( OK );
+                case "QUIT" ->
+                {
+                    out.write( OK );
+                    return false;
+                }
+                case "INFO" -> bulk( "# Server\r\nredis_version:7.2.0\r\nredis_mode:standalone\r\n" );
+                case "GET" -> bulk( get( key( command, 1 ), now ) );
+                case "SET" -> set( command, now );
+                case "DEL", "UNLINK" ->
+                {
+                    long removed = 0;
+                    for ( int i = 1; i < command.size(); i++ )
+                    {
+                        Value previous = data.remove( key( command, i ) );
+                        removed += previous != null && !previous.expired( now ) ? 1 : 0;
+                    }
+                    integer( removed );
+                }
+                case "EXISTS" ->
+                {
+                    long present = 0;
+                    for ( int i = 1; i < command.size(); i++ )
+                    {
+                        present += get( key( command, i ), now ) != null ? 1 : 0;
+                    }
+                    integer( present );
+                }
+                case "EXPIRE", "PEXPIRE" ->
+                {
+                    long ttl = Long.parseLong( text( command.get( 2 ) ) );
+                    long ttlMillis = "EXPIRE".equals( name ) ? ttl * 1000 : ttl;
+                    byte[] current = get( key( command, 1 ), now );
+                    if ( current != null )
+                    {
+                        data.put( key( command, 1 ), new Value( current, now + ttlMillis ) );
+                    }
+                    integer( current != null ? 1 : 0 );
+                }
+                case "TTL", "PTTL" ->
+                {
+                    Value value = data.get( key( command, 1 ) );
+                    if ( value == null || value.expired( now ) )
+                    {
+                        integer( -2 );
+                    }
+                    else if ( value.expiresAtMillis() == 0 )
+                    {
+                        integer( -1 );
+                    }
+                    else
+                    {
+                        long remaining = value.expiresAtMillis() - now;
+                        integer( "TTL".equals( name ) ? remaining / 1000 : remaining );
+                    }
+                }
+                case "INCR", "INCRBY", "DECR", "DECRBY" ->
+                {
+                    long delta = command.size() > 2 ? Long.parseLong( text( command.get( 2 ) ) ) : 1;
+                    delta = name.startsWith( "DECR" ) ? -delta : delta;
+                    integer( increment( key( command, 1 ), delta, now ) );
+                }
+                case "PUBLISH" -> integer( publish( text( command.get( 1 ) ), command.get( 2 ) ) );
+                case "SUBSCRIBE" ->
+                {
+                    for ( int i = 1; i < command.size(); i++ )
+                    {
+                        channels.add( text( command.get( i ) ) );
+                        subscription( "subscribe", command.get( i ) );
+                    }
+                }
+                case "PSUBSCRIBE" ->
+                {
+                    for ( int i = 1; i < command.size(); i++ )
+                    {
+                        String pattern = text( command.get( i ) );
+                        patterns.put( pattern, glob( pattern ) );
+                        subscription( "psubscribe", command.get( i ) );
+                    }
+                }
+                case "UNSUBSCRIBE", "PUNSUBSCRIBE" ->
+                {
+                    boolean channel = "UNSUBSCRIBE".equals( name );
+                    List<String> targets = new ArrayList<>();
+                    for ( int i = 1; i < command.size(); i++ )
+                    {
+                        targets.add( text( command.get( i ) ) );
+                    }
+                    if ( targets.isEmpty() )
+                    {
+                        targets.addAll( channel ? channels : patterns.keySet() );
+                    }
+                    for ( String target : targets )
+                    {
+                        if ( channel )
+                        {
+                            channels.remove( target );
+                        }
+                        else
+                        {
+                            patterns.remove( target );
+                        }
+                        subscription( name.toLowerCase( Locale.ROOT ), target.getBytes( StandardCharsets.ISO_8859_1 ) );
+                    }
+                }
+                case "EVAL", "EVALSHA", "SCRIPT" -> error( "ERR scripting is not supported by the load-test Redis" );
+                default -> error( "ERR unknown command '" + name + "'" );
+            }
+            return true;
+        }
+
+        private void set( List<byte[]> command, long now )
+            throws IOException
+        {
+            String key = key( command, 1 );
+            long expiresAt = 0;
+            boolean nx = false;
+            boolean xx = false;
+            for ( int i = 3; i < command.size(); i++ )
+            {
+                switch ( text( command.get( i ) ).toUpperCase( Locale.ROOT ) )
+                {
+                    case "EX" -> expiresAt = now + Long.parseLong( text( command.get( ++i ) ) ) * 1000;
+                    case "PX" -> expiresAt = now + Long.parseLong( text( command.get( ++i ) ) );
+                    case "NX" -> nx = true;
+                    case "XX" -> xx = true;
+                    default ->
+                    {
+                        // KEEPTTL and GET are not used by the service
+                    }
+                }
+            }
+            boolean exists = get( key, now ) != null;
+            if ( ( nx && exists ) || ( xx && !exists ) )
+            {
+                out.write( NULL_BULK );
+                return;
+            }
+            data.put( key, new Value( command.get( 2 ), expiresAt ) );
+            out.write( OK );
+        }
+
+        private void subscription( String kind, byte[] target )
+            throws IOException
+        {
+            arrayHeader( 3 );
+            bulk( kind );
+            bulk( target );
+            integer( channels.size() + patterns.size() );
+        }
+
+        private void deliver( String channel, byte[] message )
+        {
+            try
+            {
+                synchronized ( this )
+                {
+                    if ( channels.contains( channel ) )
+                    {
+                        arrayHeader( 3 );
+                        bulk( "message" );
+                        bulk( channel );
+                        bulk( message );
+                    }
+                    for ( Map.Entry<String, Pattern> pattern : patterns.entrySet() )
+                    {
+                        if ( pattern.getValue().matcher( channel ).matches() )
+                        {
+                            arrayHeader( 4 );
+                            bulk( "pmessage" );
+                            bulk( pattern.getKey() );
+                            bulk( channel );
+                            bulk( message );
+                        }
+                    }
+                    out.flush();
+                }
+            }
+            catch ( IOException e )
+            {
+                close();
+            }
+        }
+
+        boolean subscribedTo( String channel )
+        {
+            if ( channels.contains( channel ) )
+            {
+                return true;
+            }
+            for ( Pattern pattern : patterns.values() )
+            {
+                if ( pattern.matcher( channel ).matches() )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<byte[]> readCommand()
+            throws IOException
+        {
+            int marker = in.read();
+            if ( marker < 0 )
+            {
+                throw new EOFException();
+            }
+            if ( marker != '*' )
+            {
+                throw new IOException( "Inline commands are not supported" );
+            }
+            int count = (int) readNumber();
+            List<byte[]> command = new ArrayList<>( count );
+            for ( int i = 0; i < count; i++ )
+            {
+                if ( in.read() != '$' )
+                {
+                    throw new IOException( "Expected a bulk string" );
+                }
+                int length = (int) readNumber();
+                command.add( in.readNBytes( length ) );
+                in.skipNBytes( 2 );
+            }
+            return command;
+        }
+
+        private long readNumber()
+            throws IOException
+        {
+            long value = 0;
+            boolean negative = false;
+            int b;
+            while ( ( b = in.read() ) != '\r' )
+            {
+                if ( b < 0 )
+                {
+                    throw new EOFException();
+                }
+                if ( b == '-' )
+                {
+                    negative = true;
+                }
+                else
+                {
+                    value = value * 10 + ( b - '0' );
+                }
+            }
+            in.read();
+            return negative ? -value : value;
+        }
+
+        private void simple( String value )
+            throws IOException
+        {
+            out.write( ( "+" + value + "\r\n" ).getBytes( StandardCharsets.US_ASCII ) );
+        }
+
+        private void error( String message )
+            throws IOException
+        {
+            out.write( ( "-" + message + "\r\n" ).getBytes( StandardCharsets.US_ASCII ) );
+        }
+
+        private void integer( long value )
+            throws IOException
+        {
+            out.write( ( ":" + value + "\r\n" ).getBytes( StandardCharsets.US_ASCII ) );
+        }
+
+        private void arrayHeader( int size )
+            throws IOException
+        {
+            out.write( ( "*" + size + "\r\n" ).getBytes( StandardCharsets.US_ASCII ) );
+        }
+
+        private void bulk( String value )
+            throws IOException
+        {
+            bulk( value.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        private void bulk( byte[] value )
+            throws IOException
+        {
+            if ( value == null )
+            {
+                out.write( NULL_BULK );
+                return;
+            }
+            out.write( ( "$" + value.length + "\r\n" ).getBytes( StandardCharsets.US_ASCII ) );
+            out.write( value );
+            out.write( '\r' );
+            out.write( '\n' );
+        }
+    }
+
+    private byte[] get( String key, long now )
+    {
+        Value value = data.get( key );
+        if ( value == null )
+        {
+            return null;
+        }
+        if ( value.expired( now ) )
+        {
+            data.remove( key, value );
+            return null;
+        }
+        return value.data();
+    }
+
+    private long increment( String key, long delta, long now )
+    {
+        long[] result = new long[1];
+        data.compute( key, ( k, current ) -> {
+            boolean live = current != null && !current.expired( now );
+            long next = ( live ? Long.parseLong( text( current.data() ) ) : 0 ) + delta;
+            result[0] = next;
+            return new Value( Long.toString( next ).getBytes( StandardCharsets.US_ASCII ),
+                              live ? current.expiresAtMillis() : 0 );
+        } );
+        return result[0];
+    }
+
+    private long publish( String channel, byte[] message )
+    {
+        long receivers = 0;
+        // A RESP2 connection in subscribed mode cannot publish, so two connections never wait on each other
+        for ( Connection connection : connections )
+        {
+            if ( connection.subscribedTo( channel ) )
+            {
+                connection.deliver( channel, message );
+                receivers++;
+            }
+        }
+        return receivers;
+    }
+
+    private static String key( List<byte[]> command, int index )
+    {
+        return text( command.get( index ) );
+    }
+
+    private static String text( byte[] bytes )
+    {
+        return new String( bytes, StandardCharsets.ISO_8859_1 );
+    }
+
+    /**
+     * Translate a Redis glob (*, ? and literal characters) into a regex.
+     */
+    private static Pattern glob( String pattern )
+    {
+        StringBuilder regex = new StringBuilder();
+        for ( char c : pattern.toCharArray() )
+        {
+            switch ( c )
+            {
+                case '*' -> regex.append( ".*" );
+                case '?' -> regex.append( '.' );
+                default -> regex.append( Pattern.quote( String.valueOf( c ) ) );
+            }
+        }
+        return Pattern.compile( regex.toString() );
+    }
+}
@@ -0,0 +1,189 @@
+package io.zaplink.redirect.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Seeds short URLs, dynamic QR codes and their rules over plain JDBC. The statements run on both
+ * H2 in PostgreSQL mode and PostgreSQL itself; existing rows are left alone, so seeding a shared
+ * database twice is harmless. Every tenth link gets country and OS rules so rule evaluation is
+ * part of the measured path.
+ */
+@Slf4j
+final class LinkSeeder
+{
+    private static final String URL_KEY_PREFIX = "lt";
+    private static final String QR_KEY_PREFIX  = "lq";
+    private static final int    BATCH_SIZE     = 1000;
+    private static final int    RULE_EVERY     = 10;
+    private final String        jdbcUrl;
+    private final String        user;
+    private final String        password;
+    LinkSeeder( String jdbcUrl, String user, String password )
+    {
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+    }
+
+    static String urlKey( int index )
+    {
+        return URL_KEY_PREFIX + Integer.toString( index, 36 );
+    }
+
+    static String qrKey( int index )
+    {
+        return QR_KEY_PREFIX + Integer.toString( index, 36 );
+    }
+
+    /**
+     * Create the redirect tables from loadtest-schema.sql; only for the in-memory database.
+     */
+    void createSchema()
+        throws SQLException, IOException
+    {
+        String script;
+        try (InputStream in = LinkSeeder.class.getResourceAsStream( "/loadtest-schema.sql" ))
+        {
+            script = new String( in.readAllBytes(), StandardCharsets.UTF_8 );
+        }
+        try (Connection connection = connect(); Statement statement = connection.createStatement())
+        {
+            for ( String sql : script.replaceAll( "(?m)^--.*$", "" ).split( ";" ) )
+            {
+                if ( !sql.isBlank() )
+                {
+                    statement.execute( sql );
+                }
+            }
+        }
+    }
+
+    void seed( int links, int qrCodes )
+        throws SQLException
+    {
+        long started = System.nanoTime();
+        Timestamp now = Timestamp.valueOf( LocalDateTime.now() );
+        try (Connection connection = connect())
+        {
+            connection.setAutoCommit( false );
+            try (PreparedStatement insert = connection.prepareStatement( """
+                    INSERT INTO core.url_mapping (short_url_key, original_url, short_url, created_at, click_count,
+                                                  status, track_analytics)
+                    VALUES (?, ?, ?, ?, ?, 'ACTIVE', TRUE) ON CONFLICT DO NOTHING""" ))
+            {
+                for ( int i = 0; i < links; i++ )
+                {
+                    insert.setString( 1, urlKey( i ) );
+                    insert.setString( 2, "https://www.example.com/products/" + i + "?utm_source=zaplink" );
+                    insert.setString( 3, "https://zaplink.app/r/" + urlKey( i ) );
+                    insert.setTimestamp( 4, now );
+                    // Click counts follow rank, so cache warmup picks the same keys Zipfian traffic hits
+                    insert.setLong( 5, links - i );
+                    addBatch( insert, connection, i );
+                }
+                insert.executeBatch();
+            }
+            try (PreparedStatement insert = connection.prepareStatement( """
+                    INSERT INTO core.dynamic_qr_codes (qr_key, qr_name, current_destination_url, is_active, created_at,
+                                                       updated_at, total_scans, track_analytics)
+                    VALUES (?, ?, ?, TRUE, ?, ?, 0, TRUE) ON CONFLICT DO NOTHING""" ))
+            {
+                for ( int i = 0; i < qrCodes; i++ )
+                {
+                    insert.setString( 1, qrKey( i ) );
+                    insert.setString( 2, "Load test " + i );
+                    insert.setString( 3, "https://www.example.com/menu/" + i );
+                    insert.setTimestamp( 4, now );
+                    insert.setTimestamp( 5, now );
+                    addBatch( insert, connection, i );
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            int rules = seedRules( connection, "url_mapping", "short_url_key", URL_KEY_PREFIX, "url_mapping_id", now )
+                    + seedRules( connection, "dynamic_qr_codes", "qr_key", QR_KEY_PREFIX, "dynamic_qr_code_id", now );
+            connection.commit();
+            log.info( "Seeded {} links, {} QR codes and {} rules in {} ms", links, qrCodes, rules,
+                      ( System.nanoTime() - started ) / 1_000_000 );
+        }
+    }
+
+    private int seedRules( Connection connection,
+                           String table,
+                           String keyColumn,
+                           String keyPrefix,
+                           String ownerColumn,
+                           Timestamp now )
+        throws SQLException
+    {
+        List<Long> owners = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement( "SELECT id FROM core." + table + " WHERE "
+                + keyColumn + " LIKE ? ORDER BY id" ))
+        {
+            select.setString( 1, keyPrefix + "%" );
+            try (ResultSet rows = select.executeQuery())
+            {
+                for ( int row = 0; rows.next(); row++ )
+                {
+                    if ( row % RULE_EVERY == 0 )
+                    {
+                        owners.add( rows.getLong( 1 ) );
+                    }
+                }
+            }
+        }
+        String[][] rules = { { "COUNTRY", "US", "3" }, { "COUNTRY", "IN", "2" }, { "OS", "iOS", "1" } };
+        int count = 0;
+        try (PreparedStatement insert = connection.prepareStatement( "INSERT INTO core.redirect_rules (" + ownerColumn
+                + ", dimension, value, destination_url, priority, created_at) VALUES (?, ?, ?, ?, ?, ?)"
+                + " ON CONFLICT DO NOTHING" ))
+        {
+            for ( Long owner : owners )
+            {
+                for ( String[] rule : rules )
+                {
+                    insert.setLong( 1, owner );
+                    insert.setString( 2, rule[0] );
+                    insert.setString( 3, rule[1] );
+                    insert.setString( 4, "https://www.example.com/" + rule[1].toLowerCase() + "/" + owner );
+                    insert.setInt( 5, Integer.parseInt( rule[2] ) );
+                    insert.setTimestamp( 6, now );
+                    addBatch( insert, connection, count++ );
+                }
+            }
+            insert.executeBatch();
+        }
+        return count;
+    }
+
+    private static void addBatch( PreparedStatement statement, Connection connection, int index )
+        throws SQLException
+    {
+        statement.addBatch();
+        if ( ( index + 1 ) % BATCH_SIZE == 0 )
+        {
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private Connection connect()
+        throws SQLException
+    {
+        return DriverManager.getConnection( jdbcUrl, user, password );
+    }
+}
@@ -0,0 +1,239 @@
+package io.zaplink.redirect.loadtest;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Open-model load generator: requests arrive on a Poisson schedule at the target rate whether or
+ * not earlier ones have completed, each on its own virtual thread. Latency is measured from the
+ * scheduled arrival time rather than the actual send, so a stalled service shows up in the
+ * percentiles instead of silently lowering the offered load (coordinated omission).
+ *
+ * Keys follow a Zipfian popularity distribution; User-Agents, client addresses and the
+ * Cloudflare country header are drawn from fixed mixes that include bots and header-less requests.
+ */
+@Slf4j
+final class LoadGenerator
+{
+    /**
+     * Latency and outcome counts for one route.
+     */
+    private static final class RouteStats
+    {
+        private final Histogram               latencyMicros = new ConcurrentHistogram( HIGHEST_LATENCY_US, 3 );
+        private final Map<Integer, LongAdder> statuses      = new ConcurrentHashMap<>();
+        private final LongAdder               errors        = new LongAdder();
+    }
+    private static final String[]         USER_AGENTS        = {
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Mobile Safari/537.36",
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 14_2) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Safari/605.1.15",
+            "Mozilla/5.0 (iPad; CPU OS 17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+            "facebookexternalhit/1.1 (+http://www.facebook.com/externalhit_uatext.php)", "curl/8.4.0" };
+    private static final int[]            USER_AGENT_WEIGHTS = { 30, 25, 20, 8, 4, 5, 3, 5 };
+    private static final String[]         COUNTRIES          = { "US", "IN", "GB", "DE", "BR", "JP", null };
+    private static final int[]            COUNTRY_WEIGHTS    = { 30, 20, 10, 8, 8, 4, 20 };
+    private static final int              CLIENT_ADDRESSES   = 50_000;
+    private static final long             HIGHEST_LATENCY_US = TimeUnit.MINUTES.toMicros( 1 );
+    private static final Duration         REQUEST_TIMEOUT    = Duration.ofSeconds( 10 );
+    private final LoadTestOptions         options;
+    private final URI                     target;
+    private final HttpClient              httpClient;
+    private final Semaphore               inFlight;
+    private final LongAdder               shed               = new LongAdder();
+    private final Map<String, RouteStats> routes             = new ConcurrentHashMap<>();
+    LoadGenerator( LoadTestOptions options, URI target )
+    {
+        this.options = options;
+        this.target = target;
+        this.httpClient = HttpClient.newBuilder().version( HttpClient.Version.HTTP_1_1 )
+                .followRedirects( HttpClient.Redirect.NEVER ).connectTimeout( Duration.ofSeconds( 5 ) )
+                .executor( Executors.newVirtualThreadPerTaskExecutor() ).build();
+        this.inFlight = new Semaphore( options.maxInFlight() );
+    }
+
+    /**
+     * Run the warmup and measured phases, then wait for outstanding requests.
+     */
+    void run( PrintStream report )
+        throws InterruptedException
+    {
+        SplittableRandom random = new SplittableRandom( options.seed() );
+        ZipfianGenerator urlKeys = new ZipfianGenerator( options.links(), options.zipfExponent() );
+        ZipfianGenerator qrKeys = options.qrCodes() > 0 ? new ZipfianGenerator( options.qrCodes(),
+                                                                                options.zipfExponent() ) : null;
+        String[] clientAddresses = new String[CLIENT_ADDRESSES];
+        for ( int i = 0; i < clientAddresses.length; i++ )
+        {
+            // 11.0.0.0 - 99.255.255.255: public space that avoids the private and shared ranges
+            clientAddresses[i] = ( 11 + random.nextInt( 89 ) ) + "." + random.nextInt( 256 ) + "."
+                    + random.nextInt( 256 ) + "." + ( 1 + random.nextInt( 254 ) );
+        }
+        int topOnePercent = Math.max( 1, options.links() / 100 );
+        log.info( "Top 1% of URL keys take {}% of URL traffic", Math.round( 100 * urlKeys.topShare( topOnePercent ) ) );
+        long warmupNanos = options.warmup().toNanos();
+        long totalNanos = warmupNanos + options.duration().toNanos();
+        long start = System.nanoTime();
+        double meanIntervalNanos = 1e9 / options.rate();
+        double offset = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            while ( true )
+            {
+                // Exponential inter-arrival times make a Poisson arrival process
+                offset += -Math.log( 1 - random.nextDouble() ) * meanIntervalNanos;
+                if ( offset >= totalNanos )
+                {
+                    break;
+                }
+                long intendedStart = start + (long) offset;
+                long wait = intendedStart - System.nanoTime();
+                if ( wait > 0 )
+                {
+                    LockSupport.parkNanos( wait );
+                }
+                boolean measured = offset >= warmupNanos;
+                String route;
+                String path;
+                double roll = random.nextDouble();
+                if ( roll < options.missingShare() )
+                {
+                    route = "missing";
+                    path = "/r/lx" + Long.toString( random.nextLong( Long.MAX_VALUE ), 36 );
+                }
+                else if ( qrKeys != null && roll < options.missingShare() + options.qrShare() )
+                {
+                    route = "/s/{key}";
+                    path = "/s/" + LinkSeeder.qrKey( qrKeys.next( random ) );
+                }
+                else
+                {
+                    route = "/r/{key}";
+                    path = "/r/" + LinkSeeder.urlKey( urlKeys.next( random ) );
+                }
+                HttpRequest.Builder request = HttpRequest.newBuilder( target.resolve( path ) )
+                        .timeout( REQUEST_TIMEOUT ).header( "User-Agent", pick( USER_AGENTS, USER_AGENT_WEIGHTS,
+                                                                                random ) )
+                        .header( "X-Forwarded-For", clientAddresses[random.nextInt( clientAddresses.length )] );
+                String country = pick( COUNTRIES, COUNTRY_WEIGHTS, random );
+                if ( country != null )
+                {
+                    request.header( "CF-IPCountry", country );
+                }
+                if ( !inFlight.tryAcquire() )
+                {
+                    if ( measured )
+                    {
+                        shed.increment();
+                    }
+                    continue;
+                }
+                RouteStats stats = measured ? routes.computeIfAbsent( route, r -> new RouteStats() ) : null;
+                executor.execute( () -> send( request.GET().build(), intendedStart, stats ) );
+            }
+        }
+        report( report, ( System.nanoTime() - start - warmupNanos ) / 1e9 );
+    }
+
+    private void send( HttpRequest request, long intendedStart, RouteStats stats )
+    {
+        try
+        {
+            HttpResponse<Void> response = httpClient.send( request, HttpResponse.BodyHandlers.discarding() );
+            if ( stats != null )
+            {
+                stats.latencyMicros.recordValue( Math.min( HIGHEST_LATENCY_US,
+                                                           ( System.nanoTime() - intendedStart ) / 1000 ) );
+                stats.statuses.computeIfAbsent( response.statusCode(), s -> new LongAdder() ).increment();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( Exception e )
+        {
+            if ( stats != null )
+            {
+                stats.errors.increment();
+            }
+            log.debug( "Request {} failed: {}", request.uri(), e.toString() );
+        }
+        finally
+        {
+            inFlight.release();
+        }
+    }
+
+    private void report( PrintStream out, double elapsedSeconds )
+    {
+        out.printf( "%nOffered %d req/s for %s (after %s warmup) against %s%n", options.rate(), options.duration(),
+                    options.warmup(), target );
+        out.printf( "%-10s %9s %9s %9s %9s %9s %9s %9s %7s  %s%n", "route", "requests", "req/s", "p50 ms", "p90 ms",
+                    "p99 ms", "p99.9 ms", "max ms", "errors", "statuses" );
+        List<String> names = new ArrayList<>( routes.keySet() );
+        names.sort( null );
+        for ( String name : names )
+        {
+            RouteStats stats = routes.get( name );
+            Histogram latency = stats.latencyMicros;
+            out.printf( "%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d  %s%n", name, latency.getTotalCount(),
+                        latency.getTotalCount() / elapsedSeconds, millis( latency.getValueAtPercentile( 50 ) ),
+                        millis( latency.getValueAtPercentile( 90 ) ), millis( latency.getValueAtPercentile( 99 ) ),
+                        millis( latency.getValueAtPercentile( 99.9 ) ), millis( latency.getMaxValue() ),
+                        stats.errors.sum(), new TreeMap<>( stats.statuses ) );
+        }
+        if ( shed.sum() > 0 )
+        {
+            out.printf( "Shed %d arrivals with %d requests already in flight; the client or service is saturated%n",
+                        shed.sum(), options.maxInFlight() );
+        }
+    }
+
+    private static double millis( long micros )
+    {
+        return micros / 1000.0;
+    }
+
+    private static <T> T pick( T[] values, int[] weights, SplittableRandom random )
+    {
+        int total = 0;
+        for ( int weight : weights )
+        {
+            total += weight;
+        }
+        int roll = random.nextInt( total );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            roll -= weights[i];
+            if ( roll < 0 )
+            {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+}
@@ -0,0 +1,74 @@
+package io.zaplink.redirect.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Command-line options of the load test, given as --name=value.
+ *
+ * @param rate          target arrival rate in requests per second, independent of response times
+ * @param duration      measured phase length
+ * @param warmup        unmeasured phase before it, at the same rate
+ * @param links         short URLs to seed
+ * @param qrCodes       dynamic QR codes to seed
+ * @param zipfExponent  skew of key popularity; around 1 matches typical link traffic
+ * @param qrShare       fraction of requests sent to /s/{key}
+ * @param missingShare  fraction of requests for keys that do not exist
+ * @param maxInFlight   requests allowed in flight before arrivals are shed and counted
+ * @param target        base URL of a running service; when absent, the service and its stand-ins run in process
+ * @param jdbcUrl       database to seed; defaults to in-memory H2 when running in process
+ * @param jdbcUser      database user
+ * @param jdbcPassword  database password
+ * @param seed          random seed, so runs with the same options send the same traffic
+ */
+record LoadTestOptions( int rate,
+                        Duration duration,
+                        Duration warmup,
+                        int links,
+                        int qrCodes,
+                        double zipfExponent,
+                        double qrShare,
+                        double missingShare,
+                        int maxInFlight,
+                        String target,
+                        String jdbcUrl,
+                        String jdbcUser,
+                        String jdbcPassword,
+                        long seed )
+{
+    private static final Set<String> NAMES = Set.of( "rate", "duration", "warmup", "links", "qr-codes", "zipf",
+                                                     "qr-share", "missing-share", "max-in-flight", "target",
+                                                     "jdbc-url", "jdbc-user", "jdbc-password", "seed" );
+    static LoadTestOptions parse( String[] args )
+    {
+        Map<String, String> values = new HashMap<>();
+        for ( String arg : args )
+        {
+            int separator = arg.indexOf( '=' );
+            String name = arg.startsWith( "--" ) && separator > 2 ? arg.substring( 2, separator ) : null;
+            if ( name == null || !NAMES.contains( name ) )
+            {
+                throw new IllegalArgumentException( "Unknown option " + arg + "; expected --name=value with name in "
+                        + NAMES );
+            }
+            values.put( name, arg.substring( separator + 1 ) );
+        }
+        return new LoadTestOptions( Integer.parseInt( values.getOrDefault( "rate", "1000" ) ),
+                                    DurationStyle.detectAndParse( values.getOrDefault( "duration", "30s" ) ),
+                                    DurationStyle.detectAndParse( values.getOrDefault( "warmup", "10s" ) ),
+                                    Integer.parseInt( values.getOrDefault( "links", "10000" ) ),
+                                    Integer.parseInt( values.getOrDefault( "qr-codes", "2000" ) ),
+                                    Double.parseDouble( values.getOrDefault( "zipf", "1.0" ) ),
+                                    Double.parseDouble( values.getOrDefault( "qr-share", "0.2" ) ),
+                                    Double.parseDouble( values.getOrDefault( "missing-share", "0.01" ) ),
+                                    Integer.parseInt( values.getOrDefault( "max-in-flight", "10000" ) ),
+                                    values.get( "target" ), values.get( "jdbc-url" ),
+                                    values.getOrDefault( "jdbc-user", "sa" ),
+                                    values.getOrDefault( "jdbc-password", "" ),
+                                    Long.parseLong( values.getOrDefault( "seed", "42" ) ) );
+    }
+}
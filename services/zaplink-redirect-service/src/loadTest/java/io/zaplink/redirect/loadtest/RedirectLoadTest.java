@@ -0,0 +1,112 @@
+package io.zaplink.redirect.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import io.zaplink.redirect.ZaplinkRedirectServiceApplication;
+import io.zaplink.redirect.common.constants.KafkaTopics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Load test for the redirect tier.
+ *
+ * Without --target, the service runs in this JVM against local stand-ins: an embedded Kafka broker,
+ * {@link FakeRedisServer} and an in-memory H2 database seeded by {@link LinkSeeder}. With --target,
+ * traffic goes to an already running service; pass --jdbc-url as well to seed its database first.
+ * Either way {@link LoadGenerator} drives /r/{key} and /s/{key} and prints latency percentiles.
+ *
+ * Run with: ./gradlew loadTest -PloadTestArgs="--rate=2000 --duration=60s"
+ */
+@Slf4j
+public final class RedirectLoadTest
+{
+    private static final String   H2_URL         = "jdbc:h2:mem:zaplink-loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1";
+    private static final Duration READY_TIMEOUT  = Duration.ofMinutes( 2 );
+    private RedirectLoadTest()
+    {
+        // Entry point only
+    }
+
+    public static void main( String[] args )
+        throws Exception
+    {
+        LoadTestOptions options = LoadTestOptions.parse( args );
+        if ( options.target() != null )
+        {
+            if ( options.jdbcUrl() != null )
+            {
+                new LinkSeeder( options.jdbcUrl(), options.jdbcUser(), options.jdbcPassword() )
+                        .seed( options.links(), options.qrCodes() );
+            }
+            new LoadGenerator( options, URI.create( options.target() ) ).run( System.out );
+            return;
+        }
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker( 1, 3, KafkaTopics.URL_CLICK_EVENTS,
+                                                                       KafkaTopics.QR_SCAN_EVENTS );
+        try (FakeRedisServer redis = new FakeRedisServer())
+        {
+            kafka.afterPropertiesSet();
+            String jdbcUrl = options.jdbcUrl() != null ? options.jdbcUrl() : H2_URL;
+            LinkSeeder seeder = new LinkSeeder( jdbcUrl, options.jdbcUser(), options.jdbcPassword() );
+            if ( options.jdbcUrl() == null )
+            {
+                seeder.createSchema();
+            }
+            seeder.seed( options.links(), options.qrCodes() );
+            String[] properties = { "--server.port=0",
+                                   "--spring.profiles.active=loadtest",
+                                   "--spring.datasource.url=" + jdbcUrl,
+                                   "--spring.datasource.username=" + options.jdbcUser(),
+                                   "--spring.datasource.password=" + options.jdbcPassword(),
+                                   "--spring.data.redis.host=localhost",
+                                   "--spring.data.redis.port=" + redis.port(),
+                                   "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                                   "--management.tracing.sampling.probability=0.0",
+                                   // application.yml pins the PostgreSQL dialect
+                                   "--spring.jpa.properties.hibernate.dialect=" + ( options.jdbcUrl() == null
+                                           ? "org.hibernate.dialect.H2Dialect"
+                                           : "org.hibernate.dialect.PostgreSQLDialect" ) };
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder( ZaplinkRedirectServiceApplication.class )
+                    .run( properties ))
+            {
+                URI target = URI.create( "http://localhost:"
+                        + context.getEnvironment().getProperty( "local.server.port" ) + "/" );
+                awaitReady( target );
+                new LoadGenerator( options, target ).run( System.out );
+            }
+        }
+        finally
+        {
+            kafka.destroy();
+        }
+    }
+
+    /**
+     * Wait until readiness reports UP, which includes cache warmup.
+     */
+    private static void awaitReady( URI target )
+        throws Exception
+    {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest readiness = HttpRequest.newBuilder( target.resolve( "/actuator/health/readiness" ) ).build();
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        while ( System.nanoTime() < deadline )
+        {
+            if ( client.send( readiness, HttpResponse.BodyHandlers.discarding() ).statusCode() == 200 )
+            {
+                log.info( "Redirect service ready at {}", target );
+                return;
+            }
+            Thread.sleep( 250 );
+        }
+        throw new IllegalStateException( "Redirect service not ready after " + READY_TIMEOUT );
+    }
+}
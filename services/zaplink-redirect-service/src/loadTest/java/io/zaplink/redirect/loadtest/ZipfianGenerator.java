@@ -0,0 +1,46 @@
+package io.zaplink.redirect.loadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks in [0, n) with probability proportional to 1 / (rank + 1)^exponent, so a few keys
+ * take most of the traffic like real link popularity. Sampling is a binary search over the
+ * precomputed cumulative distribution.
+ */
+final class ZipfianGenerator
+{
+    private final double[] cumulative;
+    ZipfianGenerator( int n, double exponent )
+    {
+        if ( n <= 0 )
+        {
+            throw new IllegalArgumentException( "n must be positive: " + n );
+        }
+        this.cumulative = new double[n];
+        double sum = 0;
+        for ( int rank = 0; rank < n; rank++ )
+        {
+            sum += 1 / Math.pow( rank + 1, exponent );
+            cumulative[rank] = sum;
+        }
+        for ( int rank = 0; rank < n; rank++ )
+        {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int next( SplittableRandom random )
+    {
+        int index = Arrays.binarySearch( cumulative, random.nextDouble() );
+        return Math.min( index >= 0 ? index : -index - 1, cumulative.length - 1 );
+    }
+
+    /**
+     * Share of all draws that land on the top given number of ranks.
+     */
+    double topShare( int ranks )
+    {
+        return cumulative[Math.min( ranks, cumulative.length ) - 1];
+    }
+}
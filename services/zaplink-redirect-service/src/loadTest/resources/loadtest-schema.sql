@@ -0,0 +1,57 @@
+-- Redirect-service tables for the in-memory load-test database (H2 in PostgreSQL mode).
+-- Mirrors the entities in io.zaplink.redirect.entity; core owns the real schema.
+CREATE SCHEMA IF NOT EXISTS core;
+
+CREATE TABLE IF NOT EXISTS core.url_mapping (
+    id                     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    short_url_key          VARCHAR(255)  NOT NULL UNIQUE,
+    original_url           VARCHAR(2048) NOT NULL,
+    short_url              VARCHAR(255)  NOT NULL,
+    user_email             VARCHAR(255),
+    trace_id               VARCHAR(255),
+    created_at             TIMESTAMP     NOT NULL,
+    expires_at             TIMESTAMP,
+    click_count            BIGINT        NOT NULL,
+    status                 VARCHAR(32)   NOT NULL,
+    track_analytics        BOOLEAN,
+    redirect_type          VARCHAR(32),
+    redirect_cache_max_age INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS core.dynamic_qr_codes (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    qr_key                  VARCHAR(255)  NOT NULL UNIQUE,
+    qr_name                 VARCHAR(255),
+    current_destination_url VARCHAR(2048) NOT NULL,
+    qr_config               JSON,
+    user_email              VARCHAR(255),
+    campaign_id             VARCHAR(255),
+    is_active               BOOLEAN       NOT NULL,
+    created_at              TIMESTAMP     NOT NULL,
+    updated_at              TIMESTAMP     NOT NULL,
+    total_scans             BIGINT        NOT NULL,
+    last_scanned            TIMESTAMP,
+    expiration_date         TIMESTAMP,
+    password                VARCHAR(255),
+    scan_limit              INTEGER,
+    allowed_domains         JSON,
+    track_analytics         BOOLEAN       NOT NULL,
+    redirect_type           VARCHAR(32),
+    redirect_cache_max_age  INTEGER
+);
+
+CREATE TABLE IF NOT EXISTS core.redirect_rules (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    url_mapping_id     BIGINT,
+    dynamic_qr_code_id BIGINT,
+    dimension          VARCHAR(32) NOT NULL,
+    value              VARCHAR(64) NOT NULL,
+    destination_url    TEXT        NOT NULL,
+    priority           INTEGER     NOT NULL,
+    created_at         TIMESTAMP   NOT NULL,
+    UNIQUE (url_mapping_id, dimension, value),
+    UNIQUE (dynamic_qr_code_id, dimension, value)
+);
+
+CREATE INDEX IF NOT EXISTS idx_redirect_rules_url_mapping ON core.redirect_rules (url_mapping_id);
+CREATE INDEX IF NOT EXISTS idx_redirect_rules_qr ON core.redirect_rules (dynamic_qr_code_id);
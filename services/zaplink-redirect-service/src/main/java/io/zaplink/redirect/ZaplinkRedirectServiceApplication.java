@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Zaplink Redirect Service Application.
@@ -15,7 +16,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
  * 
  * @author Zaplink Team
  */
-@EnableFeignClients @EnableAsync @SpringBootApplication
+@EnableFeignClients @EnableAsync @EnableScheduling @SpringBootApplication
 public class ZaplinkRedirectServiceApplication
 {
 	public static void main( String[] args )
@@ -0,0 +1,149 @@
+package io.zaplink.redirect.common.bloom;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over string keys.
+ *
+ * Bits live in an {@link AtomicLongArray}, so adds from the event listener and reads from
+ * request threads need no locking. Probe positions use double hashing (h1 + i * h2) over a
+ * single 64-bit hash of the key's characters, so a lookup does not allocate.
+ */
+public final class BloomFilter
+{
+    private final AtomicLongArray bits;
+    private final long            bitSize;
+    private final int             hashFunctions;
+    private final long            expectedInsertions;
+    private final double          fpp;
+    private BloomFilter( long bitSize, int hashFunctions, long expectedInsertions, double fpp )
+    {
+        this.bits = new AtomicLongArray( Math.toIntExact( ( bitSize + 63 ) >>> 6 ) );
+        this.bitSize = bits.length() * 64L;
+        this.hashFunctions = hashFunctions;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+    }
+
+    /**
+     * Create a filter sized for the expected number of keys and target false-positive probability.
+     *
+     * @param expectedInsertions expected number of keys
+     * @param fpp                target false-positive probability, between 0 and 1 (exclusive)
+     */
+    public static BloomFilter create( long expectedInsertions, double fpp )
+    {
+        if ( expectedInsertions <= 0 )
+        {
+            throw new IllegalArgumentException( "expectedInsertions must be positive: " + expectedInsertions );
+        }
+        if ( !( fpp > 0 && fpp < 1 ) )
+        {
+            throw new IllegalArgumentException( "fpp must be between 0 and 1: " + fpp );
+        }
+        long bitSize = (long) Math.ceil( -expectedInsertions * Math.log( fpp ) / ( Math.log( 2 ) * Math.log( 2 ) ) );
+        int hashFunctions = Math.max( 1, (int) Math.round( (double) bitSize / expectedInsertions * Math.log( 2 ) ) );
+        return new BloomFilter( Math.max( 64, bitSize ), hashFunctions, expectedInsertions, fpp );
+    }
+
+    public void put( String key )
+    {
+        long hash = hash( key );
+        long h1 = mix( hash );
+        long h2 = mix( hash ^ 0x9E3779B97F4A7C15L ) | 1;
+        for ( int i = 0; i < hashFunctions; i++ )
+        {
+            long bit = Long.remainderUnsigned( h1 + i * h2, bitSize );
+            int index = (int) ( bit >>> 6 );
+            long mask = 1L << bit;
+            long current = bits.get( index );
+            while ( ( current & mask ) == 0 && !bits.compareAndSet( index, current, current | mask ) )
+            {
+                current = bits.get( index );
+            }
+        }
+    }
+
+    /**
+     * @return false if the key was definitely never added, true if it probably was
+     */
+    public boolean mightContain( String key )
+    {
+        long hash = hash( key );
+        long h1 = mix( hash );
+        long h2 = mix( hash ^ 0x9E3779B97F4A7C15L ) | 1;
+        for ( int i = 0; i < hashFunctions; i++ )
+        {
+            long bit = Long.remainderUnsigned( h1 + i * h2, bitSize );
+            if ( ( bits.get( (int) ( bit >>> 6 ) ) & ( 1L << bit ) ) == 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fraction of bits set. Scans the whole array, so call it at scrape frequency only.
+     */
+    public double fillRatio()
+    {
+        long set = 0;
+        for ( int i = 0; i < bits.length(); i++ )
+        {
+            set += Long.bitCount( bits.get( i ) );
+        }
+        return (double) set / bitSize;
+    }
+
+    /**
+     * False-positive probability implied by the current fill ratio.
+     */
+    public double estimatedFpp()
+    {
+        return Math.pow( fillRatio(), hashFunctions );
+    }
+
+    public long memoryBytes()
+    {
+        return bitSize / 8;
+    }
+
+    public long expectedInsertions()
+    {
+        return expectedInsertions;
+    }
+
+    public double fpp()
+    {
+        return fpp;
+    }
+
+    public int hashFunctions()
+    {
+        return hashFunctions;
+    }
+
+    private static long hash( String key )
+    {
+        // FNV-1a over UTF-16 code units
+        long h = 0xcbf29ce484222325L;
+        for ( int i = 0; i < key.length(); i++ )
+        {
+            h ^= key.charAt( i );
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix( long h )
+    {
+        // MurmurHash3 64-bit finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb1a1e1fc4a7bL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
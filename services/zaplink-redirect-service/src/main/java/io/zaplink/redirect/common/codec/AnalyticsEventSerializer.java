@@ -0,0 +1,64 @@
+package io.zaplink.redirect.common.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import io.zaplink.events.proto.AnalyticsEventsProto.AnalyticsEvent;
+import io.zaplink.events.proto.AnalyticsEventsProto.QrScan;
+import io.zaplink.events.proto.AnalyticsEventsProto.UrlClick;
+import io.zaplink.redirect.dto.event.QrScanEvent;
+import io.zaplink.redirect.dto.event.UrlClickEvent;
+
+/**
+ * Kafka serializer writing analytics events as protobuf {@link AnalyticsEvent} envelopes.
+ *
+ * The envelope carries the schema version and the event type, so no type headers are needed.
+ * Its first byte is a protobuf field tag and never '{', which lets consumers tell it apart from
+ * the legacy JSON encoding during migration.
+ */
+public class AnalyticsEventSerializer
+    implements
+    Serializer<Object>
+{
+    /**
+     * Version written into every envelope; see analytics-events.proto for the rules.
+     */
+    public static final int CURRENT_SCHEMA_VERSION = 1;
+    @Override
+    public byte[] serialize( String topic, Object data )
+    {
+        if ( data == null )
+        {
+            return null;
+        }
+        AnalyticsEvent.Builder envelope = AnalyticsEvent.newBuilder().setSchemaVersion( CURRENT_SCHEMA_VERSION );
+        switch ( data )
+        {
+            case UrlClickEvent click -> envelope.setUrlClick( toProto( click ) );
+            case QrScanEvent scan -> envelope.setQrScan( toProto( scan ) );
+            default -> throw new SerializationException( "Unsupported analytics event type: " + data.getClass() );
+        }
+        return envelope.build().toByteArray();
+    }
+
+    private static UrlClick toProto( UrlClickEvent click )
+    {
+        return UrlClick.newBuilder().setUrlKey( orEmpty( click.urlKey() ) ).setIpAddress( orEmpty( click.ipAddress() ) )
+                .setUserAgent( orEmpty( click.userAgent() ) ).setReferrer( orEmpty( click.referrer() ) )
+                .setCountryHeader( orEmpty( click.countryHeader() ) )
+                .setTimestampMillis( click.timestamp().toEpochMilli() ).build();
+    }
+
+    private static QrScan toProto( QrScanEvent scan )
+    {
+        return QrScan.newBuilder().setQrKey( orEmpty( scan.qrKey() ) ).setIpAddress( orEmpty( scan.ipAddress() ) )
+                .setUserAgent( orEmpty( scan.userAgent() ) ).setReferrer( orEmpty( scan.referrer() ) )
+                .setCountryHeader( orEmpty( scan.countryHeader() ) )
+                .setTimestampMillis( scan.timestamp().toEpochMilli() ).build();
+    }
+
+    private static String orEmpty( String value )
+    {
+        return value != null ? value : "";
+    }
+}
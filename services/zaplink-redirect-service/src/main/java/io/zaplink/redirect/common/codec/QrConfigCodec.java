@@ -0,0 +1,121 @@
+package io.zaplink.redirect.common.codec;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zaplink.redirect.common.codec.RedirectConfigCodec.Reader;
+import io.zaplink.redirect.common.codec.RedirectConfigCodec.Writer;
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+/**
+ * Compact, versioned binary encoding for {@link QrConfigDto}, sharing the primitives and rule
+ * layout of {@link RedirectConfigCodec}.
+ *
+ * Layout (version 2):
+ * <pre>
+ * byte    version
+ * byte    flags (1 = active, 2 = password protected, 4 = track analytics, 8 = has expiration, 16 = has scan limit,
+ *                32 = permanent redirect, 64 = has cache max-age)
+ * varlong id + 1 (0 = null)
+ * string  destinationUrl
+ * varlong expirationDate as epoch millis of the local date-time read as UTC, if flagged
+ * varint  scanLimit, if flagged
+ * varint  domainCount, then domainCount x string
+ * rules   as in RedirectConfigCodec
+ * varint  cacheMaxAge, if flagged
+ * </pre>
+ * Version 1 payloads (without the redirect policy) are still decoded.
+ */
+public final class QrConfigCodec
+{
+    private QrConfigCodec()
+    {
+        // Utility class
+    }
+    public static final byte VERSION_1       = 1;
+    public static final byte VERSION_2       = 2;
+    private static final int FLAG_ACTIVE     = 1;
+    private static final int FLAG_PASSWORD   = 2;
+    private static final int FLAG_TRACK      = 4;
+    private static final int FLAG_EXPIRATION = 8;
+    private static final int FLAG_SCAN_LIMIT = 16;
+    private static final int FLAG_PERMANENT  = 32;
+    private static final int FLAG_MAX_AGE    = 64;
+    /**
+     * Encode a QR snapshot into its binary form.
+     */
+    public static byte[] encode( QrConfigDto config )
+    {
+        Writer out = new Writer( 96 + ( config.destinationUrl() != null ? config.destinationUrl().length() : 0 ) );
+        out.writeByte( VERSION_2 );
+        int flags = ( config.active() ? FLAG_ACTIVE : 0 ) | ( config.passwordProtected() ? FLAG_PASSWORD : 0 )
+                | ( config.trackAnalytics() ? FLAG_TRACK : 0 )
+                | ( config.expirationDate() != null ? FLAG_EXPIRATION : 0 )
+                | ( config.scanLimit() != null ? FLAG_SCAN_LIMIT : 0 )
+                | ( config.redirectType() == RedirectType.PERMANENT ? FLAG_PERMANENT : 0 )
+                | ( config.cacheMaxAge() != null ? FLAG_MAX_AGE : 0 );
+        out.writeByte( flags );
+        out.writeVarLong( config.id() != null ? config.id() + 1 : 0 );
+        out.writeString( config.destinationUrl() );
+        if ( config.expirationDate() != null )
+        {
+            out.writeVarLong( config.expirationDate().toInstant( ZoneOffset.UTC ).toEpochMilli() );
+        }
+        if ( config.scanLimit() != null )
+        {
+            out.writeVarInt( config.scanLimit() );
+        }
+        List<String> domains = config.allowedDomains() != null ? config.allowedDomains() : List.of();
+        out.writeVarInt( domains.size() );
+        for ( String domain : domains )
+        {
+            out.writeString( domain );
+        }
+        RedirectConfigCodec.writeRules( out, config.rules() );
+        if ( config.cacheMaxAge() != null )
+        {
+            out.writeVarInt( config.cacheMaxAge() );
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a QR snapshot from its binary form.
+     *
+     * @throws IllegalArgumentException if the payload is truncated or has an unknown version
+     */
+    public static QrConfigDto decode( byte[] bytes )
+    {
+        Reader in = new Reader( bytes );
+        byte version = in.readByte();
+        if ( version != VERSION_1 && version != VERSION_2 )
+        {
+            throw new IllegalArgumentException( "Unsupported QR config version: " + version );
+        }
+        int flags = in.readByte();
+        long id = in.readVarLong();
+        String destinationUrl = in.readString();
+        LocalDateTime expirationDate = ( flags & FLAG_EXPIRATION ) != 0
+                ? LocalDateTime.ofInstant( Instant.ofEpochMilli( in.readVarLong() ), ZoneOffset.UTC )
+                : null;
+        Integer scanLimit = ( flags & FLAG_SCAN_LIMIT ) != 0 ? in.readVarInt() : null;
+        int domainCount = in.readVarInt();
+        List<String> domains = new ArrayList<>( domainCount );
+        for ( int i = 0; i < domainCount; i++ )
+        {
+            domains.add( in.readString() );
+        }
+        List<RedirectRuleDto> rules = RedirectConfigCodec.readRules( in );
+        Integer cacheMaxAge = ( flags & FLAG_MAX_AGE ) != 0 ? in.readVarInt() : null;
+        return new QrConfigDto( id == 0 ? null : id - 1, destinationUrl, rules, ( flags & FLAG_ACTIVE ) != 0,
+                                expirationDate, scanLimit, List.copyOf( domains ), ( flags & FLAG_PASSWORD ) != 0,
+                                ( flags & FLAG_TRACK ) != 0,
+                                ( flags & FLAG_PERMANENT ) != 0 ? RedirectType.PERMANENT : RedirectType.TEMPORARY,
+                                cacheMaxAge );
+    }
+}
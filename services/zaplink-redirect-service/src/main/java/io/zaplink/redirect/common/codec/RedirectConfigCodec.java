@@ -0,0 +1,308 @@
+package io.zaplink.redirect.common.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+/**
+ * Compact, versioned binary encoding for {@link RedirectConfigDto}.
+ *
+ * Layout (version 3):
+ * <pre>
+ * byte    version
+ * string  originalUrl
+ * varint  ruleCount
+ * ruleCount x { byte dimension, string value, string destinationUrl, zigzag-varint priority }
+ * byte    flags (1 = permanent redirect, 2 = analytics off, 4 = has expiry, 8 = has cache max-age)
+ * varlong expiresAt as epoch millis of the local date-time read as UTC, if flagged
+ * varint  cacheMaxAge, if flagged
+ * byte    status (0 = active, 1 = deleted, 2 = expired, 3 = disabled)
+ * </pre>
+ * Version 1 payloads end after the rules and decode as a tracked, uncached temporary redirect;
+ * version 2 payloads end after the cache max-age. Both decode as active.
+ * Strings are a varint of (UTF-8 length + 1) followed by the bytes; a length of 0 encodes null.
+ * Dimensions and statuses use fixed codes rather than enum ordinals so reordering the enum cannot corrupt cached data.
+ */
+public final class RedirectConfigCodec
+{
+    private RedirectConfigCodec()
+    {
+        // Utility class
+    }
+    public static final byte VERSION_1       = 1;
+    public static final byte VERSION_2       = 2;
+    public static final byte VERSION_3       = 3;
+    private static final int FLAG_PERMANENT  = 1;
+    private static final int FLAG_NO_TRACK   = 2;
+    private static final int FLAG_EXPIRATION = 4;
+    private static final int FLAG_MAX_AGE    = 8;
+    /**
+     * Encode a config into its binary form.
+     */
+    public static byte[] encode( RedirectConfigDto config )
+    {
+        Writer out = new Writer( 64 + ( config.originalUrl() != null ? config.originalUrl().length() : 0 ) );
+        out.writeByte( VERSION_3 );
+        out.writeString( config.originalUrl() );
+        writeRules( out, config.rules() );
+        int flags = ( config.redirectType() == RedirectType.PERMANENT ? FLAG_PERMANENT : 0 )
+                | ( config.trackAnalytics() ? 0 : FLAG_NO_TRACK ) | ( config.expiresAt() != null ? FLAG_EXPIRATION : 0 )
+                | ( config.cacheMaxAge() != null ? FLAG_MAX_AGE : 0 );
+        out.writeByte( flags );
+        if ( config.expiresAt() != null )
+        {
+            out.writeVarLong( config.expiresAt().toInstant( ZoneOffset.UTC ).toEpochMilli() );
+        }
+        if ( config.cacheMaxAge() != null )
+        {
+            out.writeVarInt( config.cacheMaxAge() );
+        }
+        out.writeByte( statusCode( config.status() ) );
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a config from its binary form.
+     *
+     * @throws IllegalArgumentException if the payload is truncated or has an unknown version
+     */
+    public static RedirectConfigDto decode( byte[] bytes )
+    {
+        Reader in = new Reader( bytes );
+        byte version = in.readByte();
+        if ( version < VERSION_1 || version > VERSION_3 )
+        {
+            throw new IllegalArgumentException( "Unsupported redirect config version: " + version );
+        }
+        String originalUrl = in.readString();
+        List<RedirectRuleDto> rules = readRules( in );
+        if ( version == VERSION_1 )
+        {
+            return new RedirectConfigDto( originalUrl, rules );
+        }
+        int flags = in.readByte();
+        LocalDateTime expiresAt = ( flags & FLAG_EXPIRATION ) != 0
+                ? LocalDateTime.ofInstant( Instant.ofEpochMilli( in.readVarLong() ), ZoneOffset.UTC )
+                : null;
+        Integer cacheMaxAge = ( flags & FLAG_MAX_AGE ) != 0 ? in.readVarInt() : null;
+        UrlStatusEnum status = version == VERSION_3 ? statusOf( in.readByte() ) : UrlStatusEnum.ACTIVE;
+        return new RedirectConfigDto( originalUrl, rules,
+                                      ( flags & FLAG_PERMANENT ) != 0 ? RedirectType.PERMANENT
+                                              : RedirectType.TEMPORARY,
+                                      cacheMaxAge, ( flags & FLAG_NO_TRACK ) == 0, expiresAt, status );
+    }
+
+    static void writeRules( Writer out, List<RedirectRuleDto> rules )
+    {
+        List<RedirectRuleDto> safeRules = rules != null ? rules : List.of();
+        out.writeVarInt( safeRules.size() );
+        for ( RedirectRuleDto rule : safeRules )
+        {
+            out.writeByte( dimensionCode( rule.dimension() ) );
+            out.writeString( rule.value() );
+            out.writeString( rule.destinationUrl() );
+            out.writeVarInt( zigZag( rule.priority() ) );
+        }
+    }
+
+    static List<RedirectRuleDto> readRules( Reader in )
+    {
+        int ruleCount = in.readVarInt();
+        List<RedirectRuleDto> rules = new ArrayList<>( ruleCount );
+        for ( int i = 0; i < ruleCount; i++ )
+        {
+            RuleDimension dimension = dimensionOf( in.readByte() );
+            String value = in.readString();
+            String destinationUrl = in.readString();
+            int priority = unZigZag( in.readVarInt() );
+            rules.add( new RedirectRuleDto( dimension, value, destinationUrl, priority ) );
+        }
+        return List.copyOf( rules );
+    }
+
+    private static byte dimensionCode( RuleDimension dimension )
+    {
+        return switch ( dimension )
+        {
+            case DEVICE_TYPE -> 1;
+            case OS -> 2;
+            case COUNTRY -> 3;
+        };
+    }
+
+    private static RuleDimension dimensionOf( byte code )
+    {
+        return switch ( code )
+        {
+            case 1 -> RuleDimension.DEVICE_TYPE;
+            case 2 -> RuleDimension.OS;
+            case 3 -> RuleDimension.COUNTRY;
+            default -> throw new IllegalArgumentException( "Unknown rule dimension code: " + code );
+        };
+    }
+
+    private static byte statusCode( UrlStatusEnum status )
+    {
+        return switch ( status )
+        {
+            case ACTIVE -> 0;
+            case DELETED -> 1;
+            case EXPIRED -> 2;
+            case DISABLED -> 3;
+        };
+    }
+
+    private static UrlStatusEnum statusOf( byte code )
+    {
+        return switch ( code )
+        {
+            case 0 -> UrlStatusEnum.ACTIVE;
+            case 1 -> UrlStatusEnum.DELETED;
+            case 2 -> UrlStatusEnum.EXPIRED;
+            case 3 -> UrlStatusEnum.DISABLED;
+            default -> throw new IllegalArgumentException( "Unknown link status code: " + code );
+        };
+    }
+
+    private static int zigZag( int value )
+    {
+        return ( value << 1 ) ^ ( value >> 31 );
+    }
+
+    private static int unZigZag( int value )
+    {
+        return ( value >>> 1 ) ^ -( value & 1 );
+    }
+
+    /**
+     * Append-only writer over a growable byte array.
+     */
+    static final class Writer
+    {
+        private final ByteArrayOutputStream buffer;
+        Writer( int initialSize )
+        {
+            this.buffer = new ByteArrayOutputStream( initialSize );
+        }
+
+        void writeByte( int value )
+        {
+            buffer.write( value );
+        }
+
+        void writeVarInt( int value )
+        {
+            while ( ( value & ~0x7F ) != 0 )
+            {
+                buffer.write( ( value & 0x7F ) | 0x80 );
+                value >>>= 7;
+            }
+            buffer.write( value );
+        }
+
+        void writeVarLong( long value )
+        {
+            while ( ( value & ~0x7FL ) != 0 )
+            {
+                buffer.write( (int) ( ( value & 0x7F ) | 0x80 ) );
+                value >>>= 7;
+            }
+            buffer.write( (int) value );
+        }
+
+        void writeString( String value )
+        {
+            if ( value == null )
+            {
+                writeVarInt( 0 );
+                return;
+            }
+            byte[] utf8 = value.getBytes( StandardCharsets.UTF_8 );
+            writeVarInt( utf8.length + 1 );
+            buffer.write( utf8, 0, utf8.length );
+        }
+
+        byte[] toByteArray()
+        {
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * Bounds-checked cursor over an encoded payload.
+     */
+    static final class Reader
+    {
+        private final byte[] bytes;
+        private int          position;
+        Reader( byte[] bytes )
+        {
+            this.bytes = bytes;
+        }
+
+        byte readByte()
+        {
+            if ( position >= bytes.length )
+            {
+                throw new IllegalArgumentException( "Truncated redirect config payload" );
+            }
+            return bytes[position++];
+        }
+
+        int readVarInt()
+        {
+            int result = 0;
+            for ( int shift = 0; shift < 32; shift += 7 )
+            {
+                byte b = readByte();
+                result |= ( b & 0x7F ) << shift;
+                if ( ( b & 0x80 ) == 0 )
+                {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException( "Malformed varint in redirect config payload" );
+        }
+
+        long readVarLong()
+        {
+            long result = 0;
+            for ( int shift = 0; shift < 64; shift += 7 )
+            {
+                byte b = readByte();
+                result |= (long) ( b & 0x7F ) << shift;
+                if ( ( b & 0x80 ) == 0 )
+                {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException( "Malformed varlong in redirect config payload" );
+        }
+
+        String readString()
+        {
+            int length = readVarInt() - 1;
+            if ( length < 0 )
+            {
+                return null;
+            }
+            if ( length > bytes.length - position )
+            {
+                throw new IllegalArgumentException( "Truncated redirect config payload" );
+            }
+            String value = new String( bytes, position, length, StandardCharsets.UTF_8 );
+            position += length;
+            return value;
+        }
+    }
+}
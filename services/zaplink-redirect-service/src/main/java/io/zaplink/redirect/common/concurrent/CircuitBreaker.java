@@ -0,0 +1,236 @@
+package io.zaplink.redirect.common.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free circuit breaker that trips on errors and on latency.
+ *
+ * Outcomes of the last windowSize calls are kept in a ring together with their latencies. Once
+ * at least minimumCalls are recorded, the breaker opens if the share of failed calls or the share
+ * of calls slower than the slow-call threshold reaches its rate threshold. While open, calls are
+ * rejected without being attempted; after the open duration a few trial calls are let through
+ * (half-open), and the breaker closes with a fresh window if all of them succeed in time, or opens
+ * again on the first failure or slow call. The latencies in the window also give
+ * {@link #latencyQuantile}, which callers use to size timeouts and hedges.
+ *
+ * The state, its trial permits and its window form one immutable phase swapped by CAS, and each
+ * phase has a new generation. {@link #tryAcquire} hands out the generation a call was admitted
+ * under, and outcomes reported for an earlier generation are ignored, so a slow call admitted
+ * while closed cannot count as a trial of a later half-open phase.
+ */
+public final class CircuitBreaker
+{
+    /**
+     * Returned by {@link #tryAcquire} when the call must not be attempted.
+     */
+    public static final long REJECTED = -1;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN;
+    }
+
+    /**
+     * The last calls' outcomes; a new one is started on every close so old failures cannot re-trip it.
+     */
+    private static final class Window
+    {
+        private final AtomicLongArray entries;
+        private final AtomicLong      position = new AtomicLong();
+        private final AtomicInteger   calls    = new AtomicInteger();
+        private final AtomicInteger   failures = new AtomicInteger();
+        private final AtomicInteger   slow     = new AtomicInteger();
+        Window( int size )
+        {
+            this.entries = new AtomicLongArray( size );
+        }
+    }
+
+    /**
+     * One state of the breaker; trial counters are only used while half-open.
+     */
+    private static final class Phase
+    {
+        private final State         state;
+        private final long          generation;
+        private final long          openedAt;
+        private final Window        window;
+        private final AtomicInteger trialPermits;
+        private final AtomicInteger trialSuccesses = new AtomicInteger();
+        Phase( State state, long generation, long openedAt, Window window, int trialPermits )
+        {
+            this.state = state;
+            this.generation = generation;
+            this.openedAt = openedAt;
+            this.window = window;
+            this.trialPermits = new AtomicInteger( trialPermits );
+        }
+    }
+    private final int                    windowSize;
+    private final int                    minimumCalls;
+    private final double                 failureRateThreshold;
+    private final long                   slowCallNanos;
+    private final double                 slowCallRateThreshold;
+    private final long                   openNanos;
+    private final int                    halfOpenCalls;
+    private final Consumer<State>        onTransition;
+    private final AtomicReference<Phase> phase;
+    /**
+     * @param onTransition called with the new state after every transition
+     */
+    public CircuitBreaker( int windowSize,
+                           int minimumCalls,
+                           double failureRateThreshold,
+                           long slowCallNanos,
+                           double slowCallRateThreshold,
+                           long openNanos,
+                           int halfOpenCalls,
+                           Consumer<State> onTransition )
+    {
+        if ( windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenCalls < 1 )
+        {
+            throw new IllegalArgumentException( "need 1 <= minimumCalls <= windowSize and halfOpenCalls >= 1" );
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.onTransition = onTransition;
+        this.phase = new AtomicReference<>( new Phase( State.CLOSED, 0, 0, new Window( windowSize ), 0 ) );
+    }
+
+    public State state()
+    {
+        return phase.get().state;
+    }
+
+    /**
+     * Whether a call may be attempted now. A caller that is admitted must report the outcome with
+     * the returned generation.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return the generation the call is admitted under, or {@link #REJECTED}
+     */
+    public long tryAcquire( long now )
+    {
+        Phase current = phase.get();
+        if ( current.state == State.OPEN )
+        {
+            if ( now - current.openedAt < openNanos )
+            {
+                return REJECTED;
+            }
+            // Only the thread that wins the swap starts the trial; the others take permits from it
+            transition( current, new Phase( State.HALF_OPEN, current.generation + 1, current.openedAt,
+                                            current.window, halfOpenCalls ) );
+            current = phase.get();
+        }
+        return switch ( current.state )
+        {
+            case CLOSED -> current.generation;
+            case HALF_OPEN -> current.trialPermits.getAndDecrement() > 0 ? current.generation : REJECTED;
+            case OPEN -> REJECTED;
+        };
+    }
+
+    /**
+     * @param generation the value {@link #tryAcquire} admitted the call with
+     */
+    public void onSuccess( long generation, long latencyNanos, long now )
+    {
+        record( generation, latencyNanos, false, now );
+    }
+
+    /**
+     * @param generation the value {@link #tryAcquire} admitted the call with
+     */
+    public void onFailure( long generation, long latencyNanos, long now )
+    {
+        record( generation, latencyNanos, true, now );
+    }
+
+    /**
+     * Latency at the given quantile among successful calls in the window, or -1 with no data.
+     */
+    public long latencyQuantile( double quantile )
+    {
+        AtomicLongArray entries = phase.get().window.entries;
+        long[] latencies = new long[entries.length()];
+        int count = 0;
+        for ( int i = 0; i < latencies.length; i++ )
+        {
+            long entry = entries.get( i );
+            if ( entry > 0 )
+            {
+                latencies[count++] = entry - 1;
+            }
+        }
+        if ( count == 0 )
+        {
+            return -1;
+        }
+        Arrays.sort( latencies, 0, count );
+        return latencies[Math.min( count - 1, (int) Math.ceil( quantile * count ) - 1 )];
+    }
+
+    private void record( long generation, long latencyNanos, boolean failed, long now )
+    {
+        Phase current = phase.get();
+        if ( current.generation != generation )
+        {
+            // Admitted under an earlier phase; its outcome says nothing about this one
+            return;
+        }
+        boolean slow = latencyNanos >= slowCallNanos;
+        if ( current.state == State.HALF_OPEN )
+        {
+            if ( failed || slow )
+            {
+                transition( current, open( current, now ) );
+            }
+            else if ( current.trialSuccesses.incrementAndGet() >= halfOpenCalls )
+            {
+                transition( current, new Phase( State.CLOSED, generation + 1, 0, new Window( windowSize ), 0 ) );
+            }
+            return;
+        }
+        Window window = current.window;
+        // Failed calls are stored negated, successful ones positive; 0 marks a slot never written
+        long entry = failed ? -( latencyNanos + 1 ) : latencyNanos + 1;
+        int slot = (int) ( window.position.getAndIncrement() % windowSize );
+        long previous = window.entries.getAndSet( slot, entry );
+        int calls = previous == 0 ? window.calls.incrementAndGet() : window.calls.get();
+        int failures = window.failures.addAndGet( ( failed ? 1 : 0 ) - ( previous < 0 ? 1 : 0 ) );
+        int slowCalls = window.slow.addAndGet( ( slow ? 1 : 0 ) - ( isSlow( previous ) ? 1 : 0 ) );
+        if ( calls >= minimumCalls && ( failures >= failureRateThreshold * calls
+                || slowCalls >= slowCallRateThreshold * calls ) )
+        {
+            transition( current, open( current, now ) );
+        }
+    }
+
+    private Phase open( Phase from, long now )
+    {
+        return new Phase( State.OPEN, from.generation + 1, now, from.window, 0 );
+    }
+
+    private boolean isSlow( long entry )
+    {
+        return entry != 0 && Math.abs( entry ) - 1 >= slowCallNanos;
+    }
+
+    private void transition( Phase from, Phase to )
+    {
+        if ( phase.compareAndSet( from, to ) )
+        {
+            onTransition.accept( to.state );
+        }
+    }
+}
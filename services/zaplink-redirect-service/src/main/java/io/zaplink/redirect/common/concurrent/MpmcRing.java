@@ -0,0 +1,125 @@
+package io.zaplink.redirect.common.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free multi-producer multi-consumer ring buffer.
+ *
+ * Each slot carries a sequence number that tells producers and consumers whose turn it is
+ * (Vyukov's bounded MPMC queue), so an offer or poll is one CAS on the shared position plus a
+ * release store on the slot. Neither operation blocks or allocates; a full ring rejects the offer
+ * and an empty ring returns null.
+ */
+public final class MpmcRing<E>
+{
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray         sequences;
+    private final int                     mask;
+    private final AtomicLong              tail = new AtomicLong();
+    private final AtomicLong              head = new AtomicLong();
+    /**
+     * @param capacity requested capacity, rounded up to a power of two
+     */
+    public MpmcRing( int capacity )
+    {
+        if ( capacity < 2 || capacity > 1 << 30 )
+        {
+            throw new IllegalArgumentException( "capacity must be between 2 and 2^30: " + capacity );
+        }
+        int size = Integer.highestOneBit( capacity - 1 ) << 1;
+        this.slots = new AtomicReferenceArray<>( size );
+        this.sequences = new AtomicLongArray( size );
+        this.mask = size - 1;
+        for ( int i = 0; i < size; i++ )
+        {
+            sequences.set( i, i );
+        }
+    }
+
+    /**
+     * Add an element if there is room.
+     *
+     * @return false if the ring is full
+     */
+    public boolean offer( E element )
+    {
+        if ( element == null )
+        {
+            throw new NullPointerException( "element" );
+        }
+        long position = tail.get();
+        while ( true )
+        {
+            int index = (int) position & mask;
+            long difference = sequences.get( index ) - position;
+            if ( difference == 0 )
+            {
+                if ( tail.compareAndSet( position, position + 1 ) )
+                {
+                    slots.setPlain( index, element );
+                    sequences.setRelease( index, position + 1 );
+                    return true;
+                }
+                position = tail.get();
+            }
+            else if ( difference < 0 )
+            {
+                return false; // the slot still holds an element from the previous lap
+            }
+            else
+            {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Remove the oldest element.
+     *
+     * @return the element, or null if the ring is empty
+     */
+    public E poll()
+    {
+        long position = head.get();
+        while ( true )
+        {
+            int index = (int) position & mask;
+            long difference = sequences.get( index ) - ( position + 1 );
+            if ( difference == 0 )
+            {
+                if ( head.compareAndSet( position, position + 1 ) )
+                {
+                    E element = slots.getPlain( index );
+                    slots.setPlain( index, null );
+                    sequences.setRelease( index, position + mask + 1 );
+                    return element;
+                }
+                position = head.get();
+            }
+            else if ( difference < 0 )
+            {
+                return null; // not yet published
+            }
+            else
+            {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Approximate number of elements; exact when no offer or poll is in progress.
+     */
+    public int size()
+    {
+        long size = tail.get() - head.get();
+        return (int) Math.max( 0, Math.min( size, capacity() ) );
+    }
+
+    public int capacity()
+    {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,95 @@
+package io.zaplink.redirect.common.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-key request coalescing: while a load for a key is running, concurrent callers for the
+ * same key wait for it and share its result (or its exception) instead of loading again.
+ *
+ * Nothing is cached once the load completes; the next caller after that starts a new load.
+ */
+public final class SingleFlight<K, V>
+{
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight  = new ConcurrentHashMap<>();
+    private final LongAdder                                  coalesced = new LongAdder();
+    /**
+     * Run the loader for the key, or join the load already running for it.
+     */
+    public V execute( K key, Supplier<V> loader )
+    {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent( key, flight );
+        if ( existing != null )
+        {
+            coalesced.increment();
+            return join( existing );
+        }
+        try
+        {
+            V value = loader.get();
+            flight.complete( value );
+            return value;
+        }
+        catch ( RuntimeException | Error e )
+        {
+            flight.completeExceptionally( e );
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove( key, flight );
+        }
+    }
+
+    /**
+     * Run the loader unless a load for the key is already running.
+     *
+     * @return true if this call ran the loader
+     */
+    public boolean executeIfIdle( K key, Supplier<V> loader )
+    {
+        if ( inFlight.containsKey( key ) )
+        {
+            return false;
+        }
+        execute( key, loader );
+        return true;
+    }
+
+    /**
+     * Number of callers that joined another caller's load.
+     */
+    public long coalescedCount()
+    {
+        return coalesced.sum();
+    }
+
+    public int inFlightCount()
+    {
+        return inFlight.size();
+    }
+
+    private static <V> V join( CompletableFuture<V> flight )
+    {
+        try
+        {
+            return flight.join();
+        }
+        catch ( CompletionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException runtime )
+            {
+                throw runtime;
+            }
+            if ( e.getCause() instanceof Error error )
+            {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -13,35 +13,53 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
 
+import io.zaplink.redirect.common.codec.AnalyticsEventSerializer;
+import io.zaplink.redirect.common.enums.WireFormat;
+
 /**
  * Kafka producer configuration for analytics events.
  * 
- * Uses JacksonJsonSerializer (Spring Kafka 4.0+) with type headers enabled
- * for proper polymorphic deserialization in the consumer service.
+ * Events are written as versioned protobuf envelopes by default. The JSON format
+ * (JacksonJsonSerializer with type headers) remains selectable for consumers that
+ * have not been upgraded yet.
  */
 @Configuration
 public class KafkaConfig
 {
     @Value("${spring.kafka.bootstrap-servers}")
-    private String bootstrapServers;
+    private String     bootstrapServers;
+    @Value("${redirect.analytics.wire-format:PROTOBUF}")
+    private WireFormat wireFormat;
     @Bean
     public ProducerFactory<String, Object> producerFactory()
     {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put( ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers );
         configProps.put( ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class );
-        configProps.put( ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JacksonJsonSerializer.class );
         configProps.put( ProducerConfig.ACKS_CONFIG, "all" );
         configProps.put( ProducerConfig.RETRIES_CONFIG, 3 );
         configProps.put( ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true );
         configProps.put( ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5 );
-        // Configure type mappings via Kafka properties (Spring Kafka 4.0 way)
-        // The token (e.g., "urlClickEvent") is sent in the __TypeId__ header
-        // The consumer service maps the same token to its local class
-        configProps.put( JacksonJsonSerializer.ADD_TYPE_INFO_HEADERS, true );
-        configProps
-                .put( JacksonJsonSerializer.TYPE_MAPPINGS,
-                      "urlClickEvent:io.zaplink.redirect.dto.event.UrlClickEvent,qrScanEvent:io.zaplink.redirect.dto.event.QrScanEvent" );
+        // Events arrive from the analytics drainer in bursts; give the producer a moment to fill batches,
+        // and fail a send quickly when the broker is unreachable so the drainer keeps shedding load
+        configProps.put( ProducerConfig.LINGER_MS_CONFIG, 5 );
+        configProps.put( ProducerConfig.MAX_BLOCK_MS_CONFIG, 2000 );
+        if ( wireFormat == WireFormat.PROTOBUF )
+        {
+            // Versioned protobuf envelopes; the event type travels inside the payload
+            configProps.put( ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, AnalyticsEventSerializer.class );
+        }
+        else
+        {
+            configProps.put( ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JacksonJsonSerializer.class );
+            // Configure type mappings via Kafka properties (Spring Kafka 4.0 way)
+            // The token (e.g., "urlClickEvent") is sent in the __TypeId__ header
+            // The consumer service maps the same token to its local class
+            configProps.put( JacksonJsonSerializer.ADD_TYPE_INFO_HEADERS, true );
+            configProps
+                    .put( JacksonJsonSerializer.TYPE_MAPPINGS,
+                          "urlClickEvent:io.zaplink.redirect.dto.event.UrlClickEvent,qrScanEvent:io.zaplink.redirect.dto.event.QrScanEvent" );
+        }
         return new DefaultKafkaProducerFactory<>( configProps );
     }
 
@@ -3,7 +3,15 @@ package io.zaplink.redirect.common.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.service.CacheInvalidationListener;
+import io.zaplink.redirect.service.KnownKeyFilter;
 
 /**
  * Redis configuration for URL caching.
@@ -16,4 +24,37 @@ public class RedisConfig
     {
         return new StringRedisTemplate( connectionFactory );
     }
+
+    /**
+     * Template for binary-encoded redirect configs (String keys, raw byte[] values).
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> binaryRedisTemplate( RedisConnectionFactory connectionFactory )
+    {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory( connectionFactory );
+        template.setKeySerializer( RedisSerializer.string() );
+        template.setValueSerializer( RedisSerializer.byteArray() );
+        template.setEnableDefaultSerializer( false );
+        return template;
+    }
+
+    /**
+     * Listener container for cache invalidation and key creation messages published by core.
+     * Started by {@link CacheInvalidationListener} once the application is ready,
+     * so an unavailable Redis never blocks startup.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer( RedisConnectionFactory connectionFactory,
+                                                                        CacheInvalidationListener invalidationListener,
+                                                                        KnownKeyFilter knownKeyFilter )
+    {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory( connectionFactory );
+        container.setAutoStartup( false );
+        container.addMessageListener( invalidationListener,
+                                      new ChannelTopic( RedisConstants.CACHE_INVALIDATION_CHANNEL ) );
+        container.addMessageListener( knownKeyFilter, new ChannelTopic( RedisConstants.KEY_CREATED_CHANNEL ) );
+        return container;
+    }
 }
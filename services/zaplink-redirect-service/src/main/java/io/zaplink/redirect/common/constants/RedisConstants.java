@@ -11,8 +11,37 @@ public final class RedisConstants
     {
         // Utility class
     }
-    public static final String   URL_CACHE_PREFIX = "url:";
-    public static final String   QR_CACHE_PREFIX  = "qr:";
-    public static final Duration URL_CACHE_TTL    = Duration.ofHours( 24 );
-    public static final Duration QR_CACHE_TTL     = Duration.ofHours( 12 );
+    public static final String   URL_CACHE_PREFIX           = "url:";
+    public static final String   QR_CACHE_PREFIX            = "qr:";
+    /**
+     * Invalidation messages for public bio pages: prefix + username. Not stored in Redis.
+     */
+    public static final String   BIO_PAGE_CACHE_PREFIX      = "bio:";
+    public static final Duration URL_CACHE_TTL              = Duration.ofHours( 24 );
+    public static final Duration QR_CACHE_TTL               = Duration.ofHours( 12 );
+    /**
+     * Legacy JSON config entries: prefix + CONFIG_SEGMENT + key.
+     */
+    public static final String   CONFIG_SEGMENT             = "config:";
+    /**
+     * Binary config entries (see RedirectConfigCodec): prefix + BINARY_CONFIG_SEGMENT + key.
+     */
+    public static final String   BINARY_CONFIG_SEGMENT      = "cfg:";
+    /**
+     * Pub/sub channel on which core announces link changes.
+     * Messages are the cache prefix plus the key, e.g. "url:abc123", "qr:xyz789" or "bio:jane".
+     */
+    public static final String   CACHE_INVALIDATION_CHANNEL = "zaplink:cache:invalidate";
+    /**
+     * Pub/sub channel on which core announces newly created keys, in the same message format.
+     */
+    public static final String   KEY_CREATED_CHANNEL        = "zaplink:keys:created";
+    /**
+     * Cluster-wide scan counters used to enforce QR scan limits: prefix + qrKey.
+     */
+    public static final String   QR_SCAN_COUNTER_PREFIX     = "qr:scans:";
+    /**
+     * Cluster-wide per-client request counts for one rate-limit window: prefix + window + ":" + client address.
+     */
+    public static final String   RATE_LIMIT_PREFIX          = "ratelimit:";
 }
@@ -0,0 +1,13 @@
+package io.zaplink.redirect.common.enums;
+
+/**
+ * What to do with an analytics event when the in-process buffer is full.
+ */
+public enum OverflowPolicy {
+    /** Evict the oldest buffered event to make room; favours recent traffic. */
+    DROP_OLDEST,
+    /** Discard the incoming event. */
+    DROP_NEW,
+    /** Wait up to the configured timeout for room, then discard the incoming event. */
+    BLOCK;
+}
@@ -0,0 +1,11 @@
+package io.zaplink.redirect.common.enums;
+
+/**
+ * HTTP status a link redirects with when its redirect may be cached by clients.
+ */
+public enum RedirectType {
+    /** 302 Found. */
+    TEMPORARY,
+    /** 301 Moved Permanently. */
+    PERMANENT;
+}
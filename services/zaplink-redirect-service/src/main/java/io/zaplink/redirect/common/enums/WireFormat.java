@@ -0,0 +1,11 @@
+package io.zaplink.redirect.common.enums;
+
+/**
+ * Encoding of analytics events on Kafka.
+ */
+public enum WireFormat {
+    /** Jackson JSON with type headers; kept for consumers that predate protobuf support. */
+    JSON,
+    /** AnalyticsEvent envelope from analytics-events.proto. */
+    PROTOBUF;
+}
@@ -0,0 +1,201 @@
+package io.zaplink.redirect.common.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free table of per-key token buckets.
+ *
+ * Each bucket is one long, its theoretical arrival time (the generic cell rate algorithm): a
+ * request is admitted if, after adding one emission interval, the arrival time is at most burst
+ * intervals ahead of now. That is a token bucket of the same rate and burst, refilled by arithmetic
+ * on a single CAS instead of a separate token count and timestamp.
+ *
+ * Keys live in a fixed array of slots; a key may only occupy the PROBE slots starting at its hash,
+ * so a lookup reads at most that many adjacent slots and never locks. When all of them are taken,
+ * the bucket that has been idle longest (smallest arrival time) is replaced: approximate LRU. A
+ * bucket whose arrival time has passed is full, so evicting it loses nothing; evictions of
+ * buckets still in debt are counted separately. Two threads inserting the same new key at once
+ * may both create a bucket; the later one wins the slot or lands beside it, which at worst lets
+ * that key through one extra burst.
+ */
+public final class TokenBucketTable
+{
+    /**
+     * One key's bucket, plus the admissions not yet reported to a global budget.
+     */
+    public static final class Bucket
+    {
+        private final String        key;
+        private final AtomicLong    arrivalTime;
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long       blockedUntil;
+        private Bucket( String key, long now )
+        {
+            this.key = key;
+            this.arrivalTime = new AtomicLong( now );
+            this.blockedUntil = now;
+        }
+
+        public String key()
+        {
+            return key;
+        }
+
+        /**
+         * Take and reset the admissions counted since the last call.
+         */
+        public int drainPending()
+        {
+            return pending.getAndSet( 0 );
+        }
+
+        /**
+         * Reject every request for this key until the given time, whatever its local budget.
+         */
+        public void blockUntil( long nanos )
+        {
+            blockedUntil = nanos;
+        }
+    }
+    private static final int                   PROBE           = 8;
+    private final AtomicReferenceArray<Bucket> slots;
+    private final int                          mask;
+    private final long                         intervalNanos;
+    private final long                         toleranceNanos;
+    private final boolean                      countAdmissions;
+    private final LongAdder                    activeEvictions = new LongAdder();
+    /**
+     * @param capacity        requested number of buckets, rounded up to a power of two
+     * @param rate            sustained requests per second per key
+     * @param burst           requests a key may make at once after being idle
+     * @param countAdmissions keep per-bucket admission counts for {@link #forEachPending}
+     */
+    public TokenBucketTable( int capacity, double rate, int burst, boolean countAdmissions )
+    {
+        if ( capacity < PROBE || capacity > 1 << 30 )
+        {
+            throw new IllegalArgumentException( "capacity must be between " + PROBE + " and 2^30: " + capacity );
+        }
+        if ( rate <= 0 || burst < 1 )
+        {
+            throw new IllegalArgumentException( "rate must be positive and burst at least 1" );
+        }
+        int size = Integer.highestOneBit( capacity - 1 ) << 1;
+        this.slots = new AtomicReferenceArray<>( size );
+        this.mask = size - 1;
+        this.intervalNanos = Math.max( 1, (long) ( 1e9 / rate ) );
+        this.toleranceNanos = intervalNanos * burst;
+        this.countAdmissions = countAdmissions;
+    }
+
+    /**
+     * Take one token from the key's bucket.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return false if the bucket is empty or the key is blocked
+     */
+    public boolean tryAcquire( String key, long now )
+    {
+        Bucket bucket = bucket( key, now );
+        if ( bucket.blockedUntil - now > 0 )
+        {
+            return false;
+        }
+        while ( true )
+        {
+            long arrival = bucket.arrivalTime.get();
+            long next = Math.max( arrival, now ) + intervalNanos;
+            if ( next - now > toleranceNanos )
+            {
+                return false;
+            }
+            if ( bucket.arrivalTime.compareAndSet( arrival, next ) )
+            {
+                if ( countAdmissions )
+                {
+                    bucket.pending.incrementAndGet();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Visit every bucket with admissions not yet drained.
+     */
+    public void forEachPending( Consumer<Bucket> action )
+    {
+        for ( int i = 0; i < slots.length(); i++ )
+        {
+            Bucket bucket = slots.get( i );
+            if ( bucket != null && bucket.pending.get() > 0 )
+            {
+                action.accept( bucket );
+            }
+        }
+    }
+
+    /**
+     * Mark a key as over its global budget until the given time, creating its bucket if needed.
+     */
+    public void block( String key, long until, long now )
+    {
+        bucket( key, now ).blockUntil( until );
+    }
+
+    /**
+     * Buckets replaced while they still had requests to pay off; a steady rise means the table is too small.
+     */
+    public long activeEvictions()
+    {
+        return activeEvictions.sum();
+    }
+
+    private Bucket bucket( String key, long now )
+    {
+        int hash = key.hashCode();
+        int start = hash ^ ( hash >>> 16 );
+        while ( true )
+        {
+            int victim = -1;
+            Bucket victimBucket = null;
+            long victimArrival = 0;
+            for ( int i = 0; i < PROBE; i++ )
+            {
+                int index = ( start + i ) & mask;
+                Bucket bucket = slots.get( index );
+                if ( bucket == null )
+                {
+                    // Slots are never emptied, so the key cannot be further along
+                    victim = index;
+                    victimBucket = null;
+                    break;
+                }
+                if ( bucket.key.equals( key ) )
+                {
+                    return bucket;
+                }
+                long arrival = bucket.arrivalTime.get();
+                if ( victim < 0 || arrival - victimArrival < 0 )
+                {
+                    victim = index;
+                    victimBucket = bucket;
+                    victimArrival = arrival;
+                }
+            }
+            Bucket created = new Bucket( key, now );
+            if ( slots.compareAndSet( victim, victimBucket, created ) )
+            {
+                if ( victimBucket != null && victimArrival - now > 0 )
+                {
+                    activeEvictions.increment();
+                }
+                return created;
+            }
+        }
+    }
+}
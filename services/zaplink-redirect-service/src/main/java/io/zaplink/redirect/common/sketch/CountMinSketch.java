@@ -0,0 +1,160 @@
+package io.zaplink.redirect.common.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe count-min sketch over a sliding window of string keys.
+ *
+ * The window is split into slices, each with its own counter matrix. Adds go to the current
+ * slice; {@link #rotate()} clears the oldest slice and makes it current, so the window moves
+ * forward one slice at a time. Estimates never undercount and overcount by at most
+ * e / width of the window total with probability 1 - e^-depth.
+ */
+public final class CountMinSketch
+{
+    private final AtomicLongArray[] slices;
+    private final LongAdder[]       totals;
+    private final int               depth;
+    private final int               widthMask;
+    private volatile int            current;
+    /**
+     * @param width  counters per row, rounded up to a power of two
+     * @param depth  number of rows (hash functions)
+     * @param slices number of slices the window is divided into
+     */
+    public CountMinSketch( int width, int depth, int slices )
+    {
+        if ( width <= 0 || depth <= 0 || slices <= 0 )
+        {
+            throw new IllegalArgumentException( "width, depth and slices must be positive" );
+        }
+        int roundedWidth = Integer.highestOneBit( width ) == width ? width : Integer.highestOneBit( width ) << 1;
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+        this.slices = new AtomicLongArray[slices];
+        this.totals = new LongAdder[slices];
+        for ( int i = 0; i < slices; i++ )
+        {
+            this.slices[i] = new AtomicLongArray( depth * roundedWidth );
+            this.totals[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Count one occurrence of the key in the current slice.
+     *
+     * @return estimated count of the key in the current slice, including this occurrence
+     */
+    public long add( String key )
+    {
+        int slice = current;
+        AtomicLongArray counters = slices[slice];
+        totals[slice].increment();
+        long hash = hash( key );
+        long h1 = mix( hash );
+        long h2 = mix( hash ^ 0x9E3779B97F4A7C15L ) | 1;
+        long min = Long.MAX_VALUE;
+        for ( int row = 0; row < depth; row++ )
+        {
+            min = Math.min( min, counters.incrementAndGet( index( row, h1, h2 ) ) );
+        }
+        return min;
+    }
+
+    /**
+     * @return estimated count of the key in the current slice
+     */
+    public long estimateCurrent( String key )
+    {
+        AtomicLongArray counters = slices[current];
+        long hash = hash( key );
+        long h1 = mix( hash );
+        long h2 = mix( hash ^ 0x9E3779B97F4A7C15L ) | 1;
+        long min = Long.MAX_VALUE;
+        for ( int row = 0; row < depth; row++ )
+        {
+            min = Math.min( min, counters.get( index( row, h1, h2 ) ) );
+        }
+        return min;
+    }
+
+    /**
+     * @return estimated count of the key over the whole window
+     */
+    public long estimate( String key )
+    {
+        long hash = hash( key );
+        long h1 = mix( hash );
+        long h2 = mix( hash ^ 0x9E3779B97F4A7C15L ) | 1;
+        long min = Long.MAX_VALUE;
+        for ( int row = 0; row < depth; row++ )
+        {
+            int index = index( row, h1, h2 );
+            long sum = 0;
+            for ( AtomicLongArray counters : slices )
+            {
+                sum += counters.get( index );
+            }
+            min = Math.min( min, sum );
+        }
+        return min;
+    }
+
+    /**
+     * @return number of adds over the whole window
+     */
+    public long total()
+    {
+        long sum = 0;
+        for ( LongAdder total : totals )
+        {
+            sum += total.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * Drop the oldest slice and start counting into it. Call from a single thread; adds racing
+     * with the rotation may land in either slice.
+     */
+    public void rotate()
+    {
+        int next = ( current + 1 ) % slices.length;
+        AtomicLongArray counters = slices[next];
+        for ( int i = 0; i < counters.length(); i++ )
+        {
+            counters.set( i, 0 );
+        }
+        totals[next].reset();
+        current = next;
+    }
+
+    private int index( int row, long h1, long h2 )
+    {
+        return row * ( widthMask + 1 ) + (int) ( ( h1 + row * h2 ) & widthMask );
+    }
+
+    private static long hash( String key )
+    {
+        // FNV-1a over UTF-16 code units
+        long h = 0xcbf29ce484222325L;
+        for ( int i = 0; i < key.length(); i++ )
+        {
+            h ^= key.charAt( i );
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix( long h )
+    {
+        // MurmurHash3 64-bit finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb1a1e1fc4a7bL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
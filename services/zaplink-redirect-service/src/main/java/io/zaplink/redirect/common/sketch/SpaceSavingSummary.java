@@ -0,0 +1,96 @@
+package io.zaplink.redirect.common.sketch;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Space-saving summary of the most frequent keys: at most {@code capacity} keys are monitored,
+ * and an unmonitored key replaces the least frequent one once it overtakes it.
+ *
+ * Counts are not kept here but read from the caller's sketch, so monitored keys are checked
+ * with a lock-free set lookup. The lock is only taken when an unmonitored key's count is above
+ * the last observed minimum, which after warm-up is rare.
+ */
+public final class SpaceSavingSummary
+{
+    private final int         capacity;
+    private final Set<String> monitored = ConcurrentHashMap.newKeySet();
+    private volatile long     floor;
+    public SpaceSavingSummary( int capacity )
+    {
+        if ( capacity <= 0 )
+        {
+            throw new IllegalArgumentException( "capacity must be positive: " + capacity );
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Offer a key with its current count.
+     *
+     * @param counter current count of any key, used to find the least frequent monitored key
+     */
+    public void offer( String key, long count, ToLongFunction<String> counter )
+    {
+        if ( monitored.contains( key ) || ( monitored.size() >= capacity && count <= floor ) )
+        {
+            return;
+        }
+        synchronized ( this )
+        {
+            if ( monitored.contains( key ) )
+            {
+                return;
+            }
+            if ( monitored.size() < capacity )
+            {
+                monitored.add( key );
+                return;
+            }
+            String victim = null;
+            long min = Long.MAX_VALUE;
+            for ( String candidate : monitored )
+            {
+                long candidateCount = counter.applyAsLong( candidate );
+                if ( candidateCount < min )
+                {
+                    min = candidateCount;
+                    victim = candidate;
+                }
+            }
+            if ( count > min )
+            {
+                monitored.remove( victim );
+                monitored.add( key );
+            }
+            floor = min;
+        }
+    }
+
+    /**
+     * Forget the observed minimum, e.g. after the counts it was read from were reset.
+     */
+    public void resetFloor()
+    {
+        floor = 0;
+    }
+
+    /**
+     * Stop monitoring keys that match the predicate.
+     */
+    public synchronized void removeIf( Predicate<String> predicate )
+    {
+        monitored.removeIf( predicate );
+    }
+
+    /**
+     * @return a copy of the monitored keys
+     */
+    public List<String> keys()
+    {
+        return List.copyOf( monitored );
+    }
+}
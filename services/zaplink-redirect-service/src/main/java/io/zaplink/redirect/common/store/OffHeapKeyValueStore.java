@@ -0,0 +1,421 @@
+package io.zaplink.redirect.common.store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * String-keyed byte[] store kept entirely outside the Java heap.
+ *
+ * Records ({@code int keyLength, int valueLength, key, value}) are appended to direct-memory
+ * chunks and never modified, and an open-addressing table of record addresses, also in direct
+ * memory, indexes them by key. The heap holds only a handful of buffer references however many
+ * entries there are, so the store adds nothing to GC work.
+ *
+ * There is a single writer (calls to {@link #put}, {@link #remove} and {@link #load} must not
+ * overlap) and any number of lock-free readers. A slot is published with release semantics after
+ * its record is written, so a reader that sees the address also sees the bytes. Removals append
+ * a tombstone record. When dead records outweigh live ones, or the table gets half full, the live
+ * records are copied into fresh buffers and swapped in as a whole; readers still on the old
+ * buffers keep reading consistent, if momentarily stale, data.
+ */
+public final class OffHeapKeyValueStore
+{
+    private static final VarHandle SLOT         = MethodHandles.byteBufferViewVarHandle( long[].class,
+                                                                                          ByteOrder.nativeOrder() );
+    private static final int       HEADER_BYTES = 8;
+    private static final int       TOMBSTONE    = -1;
+    private static final int       MIN_CAPACITY = 1024;
+    /**
+     * Slot table and data chunks; replaced as a whole on rebuild. Chunk slots are filled in by the
+     * writer before any table slot points into them.
+     */
+    private record Segments( ByteBuffer slots, int mask, ByteBuffer[] chunks )
+    {
+    }
+    private final int         chunkSize;
+    private final int         maxChunks;
+    private volatile Segments segments;
+    // Writer state
+    private int               chunkCount;
+    private int               chunkPosition;
+    private int               usedSlots;
+    private int               size;
+    private long              liveBytes;
+    private long              deadBytes;
+    /**
+     * @param chunkSize bytes per data chunk; also the largest record that can be stored
+     * @param maxBytes  upper bound on data memory, rounded up to whole chunks
+     */
+    public OffHeapKeyValueStore( int chunkSize, long maxBytes )
+    {
+        if ( chunkSize < 1024 || maxBytes < chunkSize )
+        {
+            throw new IllegalArgumentException( "chunkSize must be at least 1 KiB and maxBytes at least one chunk" );
+        }
+        this.chunkSize = chunkSize;
+        this.maxChunks = (int) Math.min( Integer.MAX_VALUE, ( maxBytes + chunkSize - 1 ) / chunkSize );
+        this.segments = newSegments( MIN_CAPACITY );
+    }
+
+    /**
+     * @return the value stored for the key, or null
+     */
+    public byte[] get( String key )
+    {
+        byte[] keyBytes = key.getBytes( StandardCharsets.UTF_8 );
+        Segments current = segments;
+        long address = find( current, keyBytes );
+        if ( address < 0 )
+        {
+            return null;
+        }
+        ByteBuffer chunk = current.chunks()[chunkIndex( address )];
+        int position = chunkPosition( address );
+        int valueLength = chunk.getInt( position + 4 );
+        if ( valueLength == TOMBSTONE )
+        {
+            return null;
+        }
+        byte[] value = new byte[valueLength];
+        chunk.get( position + HEADER_BYTES + keyBytes.length, value );
+        return value;
+    }
+
+    /**
+     * Store a value, replacing any previous one.
+     *
+     * @throws IllegalStateException if the record does not fit in a chunk or the store is full
+     */
+    public void put( String key, byte[] value )
+    {
+        write( key.getBytes( StandardCharsets.UTF_8 ), value );
+    }
+
+    /**
+     * Remove the key, if present.
+     */
+    public void remove( String key )
+    {
+        byte[] keyBytes = key.getBytes( StandardCharsets.UTF_8 );
+        if ( find( segments, keyBytes ) >= 0 )
+        {
+            write( keyBytes, null );
+        }
+    }
+
+    /**
+     * @return number of live entries
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return bytes of direct memory held by data chunks and the slot table
+     */
+    public long allocatedBytes()
+    {
+        Segments current = segments;
+        return (long) chunkCount * chunkSize + current.slots().capacity();
+    }
+
+    /**
+     * @return bytes of live records
+     */
+    public long liveBytes()
+    {
+        return liveBytes;
+    }
+
+    /**
+     * Visit every live entry. Writer thread only.
+     */
+    public void forEach( BiConsumer<String, byte[]> action )
+    {
+        Segments current = segments;
+        for ( int slot = 0; slot <= current.mask(); slot++ )
+        {
+            long address = slotAddress( current, slot );
+            if ( address < 0 )
+            {
+                continue;
+            }
+            ByteBuffer chunk = current.chunks()[chunkIndex( address )];
+            int position = chunkPosition( address );
+            int keyLength = chunk.getInt( position );
+            int valueLength = chunk.getInt( position + 4 );
+            if ( valueLength == TOMBSTONE )
+            {
+                continue;
+            }
+            byte[] key = new byte[keyLength];
+            byte[] value = new byte[valueLength];
+            chunk.get( position + HEADER_BYTES, key );
+            chunk.get( position + HEADER_BYTES + keyLength, value );
+            action.accept( new String( key, StandardCharsets.UTF_8 ), value );
+        }
+    }
+
+    /**
+     * Write all live entries: an int count, then {@code UTF key, int length, bytes} per entry.
+     * Writer thread only.
+     */
+    public void writeTo( DataOutput out )
+        throws IOException
+    {
+        out.writeInt( size );
+        try
+        {
+            forEach( ( key, value ) -> {
+                try
+                {
+                    out.writeUTF( key );
+                    out.writeInt( value.length );
+                    out.write( value );
+                }
+                catch ( IOException e )
+                {
+                    throw new UncheckedIOException( e );
+                }
+            } );
+        }
+        catch ( UncheckedIOException e )
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Add the entries written by {@link #writeTo(DataOutput)}.
+     */
+    public void load( DataInput in )
+        throws IOException
+    {
+        int count = in.readInt();
+        for ( int i = 0; i < count; i++ )
+        {
+            String key = in.readUTF();
+            byte[] value = new byte[in.readInt()];
+            in.readFully( value );
+            put( key, value );
+        }
+    }
+
+    private void write( byte[] key, byte[] value )
+    {
+        int recordBytes = HEADER_BYTES + key.length + ( value != null ? value.length : 0 );
+        if ( recordBytes > chunkSize )
+        {
+            throw new IllegalStateException( "Record of " + recordBytes + " bytes exceeds chunk size " + chunkSize );
+        }
+        if ( ( usedSlots + 1 ) * 2L > segments.mask() + 1 || deadBytes > Math.max( liveBytes, chunkSize ) )
+        {
+            rebuild();
+        }
+        if ( chunkCount == maxChunks && chunkPosition + recordBytes > chunkSize && deadBytes > 0 )
+        {
+            rebuild();
+        }
+        Segments current = segments;
+        long previous = find( current, key );
+        if ( previous >= 0 && !isTombstone( current, previous ) )
+        {
+            int previousBytes = recordBytes( current, previous );
+            deadBytes += previousBytes;
+            liveBytes -= previousBytes;
+            size--;
+        }
+        else if ( previous < 0 )
+        {
+            usedSlots++;
+        }
+        if ( value != null )
+        {
+            liveBytes += recordBytes;
+            size++;
+        }
+        else
+        {
+            deadBytes += recordBytes;
+        }
+        append( current, key, value );
+    }
+
+    /**
+     * Append a record and point the key's slot at it.
+     */
+    private void append( Segments target, byte[] key, byte[] value )
+    {
+        int recordBytes = HEADER_BYTES + key.length + ( value != null ? value.length : 0 );
+        if ( chunkCount == 0 || chunkPosition + recordBytes > chunkSize )
+        {
+            if ( chunkCount == maxChunks )
+            {
+                throw new IllegalStateException( "Off-heap store is full (" + maxChunks + " chunks)" );
+            }
+            target.chunks()[chunkCount++] = ByteBuffer.allocateDirect( chunkSize );
+            chunkPosition = 0;
+        }
+        ByteBuffer chunk = target.chunks()[chunkCount - 1];
+        int position = chunkPosition;
+        chunk.putInt( position, key.length );
+        chunk.putInt( position + 4, value != null ? value.length : TOMBSTONE );
+        chunk.put( position + HEADER_BYTES, key );
+        if ( value != null )
+        {
+            chunk.put( position + HEADER_BYTES + key.length, value );
+        }
+        chunkPosition += recordBytes;
+        long address = (long) ( chunkCount - 1 ) * chunkSize + position;
+        SLOT.setRelease( target.slots(), probe( target, key ) * Long.BYTES, address + 1 );
+    }
+
+    /**
+     * Copy the live records into fresh buffers sized for them, then swap them in.
+     */
+    private void rebuild()
+    {
+        Segments old = segments;
+        int capacity = MIN_CAPACITY;
+        while ( capacity < ( size + 1 ) * 4L )
+        {
+            capacity <<= 1;
+        }
+        Segments fresh = newSegments( capacity );
+        chunkCount = 0;
+        chunkPosition = 0;
+        usedSlots = 0;
+        size = 0;
+        liveBytes = 0;
+        deadBytes = 0;
+        for ( int slot = 0; slot <= old.mask(); slot++ )
+        {
+            long address = slotAddress( old, slot );
+            if ( address < 0 || isTombstone( old, address ) )
+            {
+                continue;
+            }
+            ByteBuffer chunk = old.chunks()[chunkIndex( address )];
+            int position = chunkPosition( address );
+            byte[] key = new byte[chunk.getInt( position )];
+            byte[] value = new byte[chunk.getInt( position + 4 )];
+            chunk.get( position + HEADER_BYTES, key );
+            chunk.get( position + HEADER_BYTES + key.length, value );
+            append( fresh, key, value );
+            usedSlots++;
+            size++;
+            liveBytes += HEADER_BYTES + key.length + value.length;
+        }
+        // Readers move to the new buffers in one step; the old ones are freed once unreferenced
+        segments = fresh;
+    }
+
+    private Segments newSegments( int capacity )
+    {
+        ByteBuffer slots = ByteBuffer.allocateDirect( capacity * Long.BYTES ).order( ByteOrder.nativeOrder() );
+        return new Segments( slots, capacity - 1, new ByteBuffer[maxChunks] );
+    }
+
+    /**
+     * @return address of the key's record, or -1
+     */
+    private long find( Segments current, byte[] key )
+    {
+        return slotAddress( current, probe( current, key ) );
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it would go
+     */
+    private int probe( Segments current, byte[] key )
+    {
+        int slot = (int) mix( hash( key ) ) & current.mask();
+        while ( true )
+        {
+            long address = slotAddress( current, slot );
+            if ( address < 0 || keyEquals( current, address, key ) )
+            {
+                return slot;
+            }
+            slot = ( slot + 1 ) & current.mask();
+        }
+    }
+
+    private static long slotAddress( Segments current, int slot )
+    {
+        return (long) SLOT.getAcquire( current.slots(), slot * Long.BYTES ) - 1;
+    }
+
+    private boolean keyEquals( Segments current, long address, byte[] key )
+    {
+        ByteBuffer chunk = current.chunks()[chunkIndex( address )];
+        int position = chunkPosition( address );
+        if ( chunk.getInt( position ) != key.length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < key.length; i++ )
+        {
+            if ( chunk.get( position + HEADER_BYTES + i ) != key[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isTombstone( Segments current, long address )
+    {
+        return current.chunks()[chunkIndex( address )].getInt( chunkPosition( address ) + 4 ) == TOMBSTONE;
+    }
+
+    private int recordBytes( Segments current, long address )
+    {
+        ByteBuffer chunk = current.chunks()[chunkIndex( address )];
+        int position = chunkPosition( address );
+        int valueLength = chunk.getInt( position + 4 );
+        return HEADER_BYTES + chunk.getInt( position ) + ( valueLength == TOMBSTONE ? 0 : valueLength );
+    }
+
+    private int chunkIndex( long address )
+    {
+        return (int) ( address / chunkSize );
+    }
+
+    private int chunkPosition( long address )
+    {
+        return (int) ( address % chunkSize );
+    }
+
+    private static long hash( byte[] key )
+    {
+        // FNV-1a
+        long h = 0xcbf29ce484222325L;
+        for ( byte b : key )
+        {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix( long h )
+    {
+        // MurmurHash3 64-bit finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb1a1e1fc4a7bL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
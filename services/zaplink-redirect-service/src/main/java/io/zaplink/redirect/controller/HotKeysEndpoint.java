@@ -0,0 +1,31 @@
+package io.zaplink.redirect.controller;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import io.zaplink.redirect.service.HotKeyTracker;
+import io.zaplink.redirect.service.HotKeyTracker.HotKey;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Actuator endpoint listing the hottest URL keys of the current window (/actuator/hotkeys).
+ */
+@Component @Endpoint(id = "hotkeys") @RequiredArgsConstructor
+public class HotKeysEndpoint
+{
+    /**
+     * Endpoint response: hits over the window and the top-K keys, hottest first.
+     */
+    public record HotKeysReport( long windowHits, List<HotKey> topKeys )
+    {
+    }
+    private final HotKeyTracker hotKeyTracker;
+    @ReadOperation
+    public HotKeysReport hotKeys()
+    {
+        return new HotKeysReport( hotKeyTracker.windowHits(), hotKeyTracker.topKeys() );
+    }
+}
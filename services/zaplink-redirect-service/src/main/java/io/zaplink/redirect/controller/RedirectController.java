@@ -1,20 +1,26 @@
 package io.zaplink.redirect.controller;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import io.zaplink.redirect.service.BioPageCache;
+import io.zaplink.redirect.service.CrawlerDetector;
 import io.zaplink.redirect.service.QrRedirectService;
 import io.zaplink.redirect.service.QrRedirectService.QrRedirectResult;
+import io.zaplink.redirect.service.RedirectStageMetrics.LinkType;
 import io.zaplink.redirect.service.UrlRedirectService;
 import io.zaplink.redirect.service.UrlRedirectService.RedirectResult;
-import io.zaplink.redirect.client.ManagerServiceClient;
-import io.zaplink.redirect.dto.BioPageResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -28,13 +34,18 @@ import lombok.extern.slf4j.Slf4j;
  * - Virtual threads for high concurrency
  * - Pattern matching with switch expressions
  * - Sealed interfaces for result types
+ *
+ * Known crawlers and link-preview fetchers, and HEAD requests, take the untracked path: the
+ * redirect without rule evaluation or an analytics event. HEAD errors are sent as a bare status,
+ * without rendering an error page.
  */
 @RestController @RequestMapping("/") @RequiredArgsConstructor @Slf4j
 public class RedirectController
 {
     private final UrlRedirectService urlRedirectService;
     private final QrRedirectService  qrRedirectService;
-    private final ManagerServiceClient managerServiceClient;
+    private final BioPageCache       bioPageCache;
+    private final CrawlerDetector    crawlerDetector;
     /**
      * Redirect short URL to original destination.
      * Path: /r/{urlKey}
@@ -46,21 +57,26 @@ public class RedirectController
         throws IOException
     {
         log.debug( "URL redirect request for key: {}", urlKey );
-        RedirectResult result = urlRedirectService.resolveAndTrack( urlKey, request );
+        RedirectResult result = crawlerDetector.detect( request, LinkType.URL )
+                ? urlRedirectService.resolveUntracked( urlKey, request )
+                : urlRedirectService.resolveAndTrack( urlKey, request );
         // Pattern matching with switch expression (Java 21)
         switch ( result )
         {
             case RedirectResult.Success success -> {
-                response.sendRedirect( success.destinationUrl() );
+                sendRedirect( response, success.destinationUrl(), success.permanent(), success.maxAgeSeconds() );
             }
             case RedirectResult.NotFound() -> {
-                response.sendError( HttpStatus.NOT_FOUND.value(), "URL not found" );
+                sendError( request, response, HttpStatus.NOT_FOUND, "URL not found" );
             }
             case RedirectResult.Expired() -> {
                 response.sendRedirect( qrRedirectService.getErrorUrl( "expired" ) );
             }
             case RedirectResult.Inactive() -> {
-                response.sendError( HttpStatus.GONE.value(), "URL is no longer active" );
+                sendError( request, response, HttpStatus.GONE, "URL is no longer active" );
+            }
+            case RedirectResult.RateLimited() -> {
+                sendTooManyRequests( request, response );
             }
         }
     }
@@ -82,18 +98,20 @@ public class RedirectController
         throws IOException
     {
         log.debug( "QR redirect request for key: {}", qrKey );
-        QrRedirectResult result = qrRedirectService.resolveAndTrack( qrKey, request );
+        QrRedirectResult result = crawlerDetector.detect( request, LinkType.QR )
+                ? qrRedirectService.resolveUntracked( qrKey, request )
+                : qrRedirectService.resolveAndTrack( qrKey, request );
         // Pattern matching with switch expression (Java 21)
         switch ( result )
         {
             case QrRedirectResult.Success success -> {
-                response.sendRedirect( success.destinationUrl() );
+                sendRedirect( response, success.destinationUrl(), success.permanent(), success.maxAgeSeconds() );
             }
             case QrRedirectResult.NotFound() -> {
-                response.sendError( HttpStatus.NOT_FOUND.value(), "QR code not found" );
+                sendError( request, response, HttpStatus.NOT_FOUND, "QR code not found" );
             }
             case QrRedirectResult.Inactive() -> {
-                response.sendError( HttpStatus.GONE.value(), "QR code is no longer active" );
+                sendError( request, response, HttpStatus.GONE, "QR code is no longer active" );
             }
             case QrRedirectResult.Expired() -> {
                 response.sendRedirect( qrRedirectService.getErrorUrl( "expired" ) );
@@ -107,7 +125,51 @@ public class RedirectController
             case QrRedirectResult.PasswordRequired passwordRequired -> {
                 response.sendRedirect( passwordRequired.passwordUrl() );
             }
+            case QrRedirectResult.RateLimited() -> {
+                sendTooManyRequests( request, response );
+            }
+        }
+    }
+
+    /**
+     * Plain 302 unless the link's caching policy allows clients to keep the redirect, in which
+     * case it is sent as 301 or 302 with a public max-age.
+     */
+    private void sendRedirect( HttpServletResponse response, String location, boolean permanent, long maxAgeSeconds )
+        throws IOException
+    {
+        if ( maxAgeSeconds <= 0 )
+        {
+            response.sendRedirect( location );
+            return;
         }
+        response.setStatus( permanent ? HttpStatus.MOVED_PERMANENTLY.value() : HttpStatus.FOUND.value() );
+        response.setHeader( HttpHeaders.LOCATION, location );
+        response.setHeader( HttpHeaders.CACHE_CONTROL,
+                            CacheControl.maxAge( maxAgeSeconds, TimeUnit.SECONDS ).cachePublic().getHeaderValue() );
+    }
+
+    private void sendTooManyRequests( HttpServletRequest request, HttpServletResponse response )
+        throws IOException
+    {
+        response.setHeader( HttpHeaders.RETRY_AFTER, "1" );
+        sendError( request, response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests" );
+    }
+
+    /**
+     * sendError, except that a HEAD request gets only the status: the error page would be rendered
+     * and then thrown away.
+     */
+    private void sendError( HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                            String message )
+        throws IOException
+    {
+        if ( HttpMethod.HEAD.matches( request.getMethod() ) )
+        {
+            response.setStatus( status.value() );
+            return;
+        }
+        response.sendError( status.value(), message );
     }
 
     /**
@@ -122,21 +184,24 @@ public class RedirectController
     /**
      * Get BioPage by username.
      * Path: /v1/bio/{username}
+     *
+     * Served from the local bio page cache with a strong ETag; a matching If-None-Match gets 304.
      */
     @GetMapping("v1/bio/{username}")
-    public ResponseEntity<BioPageResponse> getBioPage(@PathVariable("username") String username) {
-        log.debug("Bio page request for username: {}", username);
-        
-        try {
-            BioPageResponse bioPage = managerServiceClient.getBioPageByUsername(username);
-            if (bioPage != null) {
-                return ResponseEntity.ok(bioPage);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            log.error("Error fetching bio page for username: {}", username, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    public ResponseEntity<byte[]> getBioPage( @PathVariable("username") String username )
+    {
+        log.debug( "Bio page request for username: {}", username );
+        try
+        {
+            return bioPageCache.get( username )
+                    .map( page -> ResponseEntity.ok().eTag( page.etag() ).cacheControl( bioPageCache.cacheControl() )
+                            .contentType( MediaType.APPLICATION_JSON ).body( page.body() ) )
+                    .orElseGet( () -> ResponseEntity.notFound().build() );
+        }
+        catch ( Exception e )
+        {
+            log.error( "Error fetching bio page for username: {}", username, e );
+            return ResponseEntity.status( HttpStatus.INTERNAL_SERVER_ERROR ).build();
         }
     }
 }
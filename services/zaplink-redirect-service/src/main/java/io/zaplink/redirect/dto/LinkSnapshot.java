@@ -0,0 +1,42 @@
+package io.zaplink.redirect.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+/**
+ * A link snapshot as published by core to the log-compacted link snapshot topic.
+ * Type is "url" or "qr"; the QR-only fields are empty for URLs.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record LinkSnapshot( String type,
+                            String key,
+                            Long id,
+                            String destinationUrl,
+                            List<RedirectRuleDto> rules,
+                            boolean active,
+                            LocalDateTime expiresAt,
+                            Integer scanLimit,
+                            List<String> allowedDomains,
+                            boolean passwordProtected,
+                            boolean trackAnalytics,
+                            RedirectType redirectType,
+                            Integer cacheMaxAge )
+{
+    public RedirectConfigDto toRedirectConfig()
+    {
+        return new RedirectConfigDto( destinationUrl, rules != null ? rules : List.of(), redirectType, cacheMaxAge,
+                                      trackAnalytics, expiresAt, null );
+    }
+
+    public QrConfigDto toQrConfig()
+    {
+        return new QrConfigDto( id, destinationUrl, rules != null ? rules : List.of(), active, expiresAt, scanLimit,
+                                allowedDomains != null ? allowedDomains : List.of(), passwordProtected,
+                                trackAnalytics, redirectType, cacheMaxAge );
+    }
+}
@@ -0,0 +1,33 @@
+package io.zaplink.redirect.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+import lombok.Builder;
+
+/**
+ * Cacheable snapshot of a dynamic QR code: everything needed to resolve a scan without the database.
+ * The password itself is never cached, only whether one is set. The scan count is not part of the
+ * snapshot because it changes on every scan. Redirect type and cache max-age are the QR's client
+ * caching policy, see RedirectCachePolicy.
+ */
+@Builder
+public record QrConfigDto( Long id,
+                           String destinationUrl,
+                           List<RedirectRuleDto> rules,
+                           boolean active,
+                           LocalDateTime expirationDate,
+                           Integer scanLimit,
+                           List<String> allowedDomains,
+                           boolean passwordProtected,
+                           boolean trackAnalytics,
+                           RedirectType redirectType,
+                           Integer cacheMaxAge )
+{
+    public QrConfigDto
+    {
+        redirectType = redirectType != null ? redirectType : RedirectType.TEMPORARY;
+    }
+}
@@ -1,16 +1,78 @@
 package io.zaplink.redirect.dto;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import io.zaplink.redirect.common.enums.RedirectType;
 import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
 import lombok.Builder;
 
 /**
- * Cacheable DTO containing the link profile (Original URL + Rules).
+ * Cacheable DTO containing the link profile (Original URL + Rules), its client caching policy,
+ * whether clicks are tracked, and the link's status and expiry. Missing fields (e.g. in legacy
+ * JSON entries) read as an active, tracked, uncached temporary redirect.
+ *
+ * Links in a terminal state are cached too, as negative entries without URL or rules, so their
+ * traffic is answered without the database.
  */
 @Builder
-public record RedirectConfigDto( String originalUrl, List<RedirectRuleDto> rules )
+public record RedirectConfigDto( String originalUrl,
+                                 List<RedirectRuleDto> rules,
+                                 RedirectType redirectType,
+                                 Integer cacheMaxAge,
+                                 Boolean trackAnalytics,
+                                 LocalDateTime expiresAt,
+                                 UrlStatusEnum status )
 {
+    public RedirectConfigDto
+    {
+        redirectType = redirectType != null ? redirectType : RedirectType.TEMPORARY;
+        trackAnalytics = trackAnalytics == null || trackAnalytics;
+        status = status != null ? status : UrlStatusEnum.ACTIVE;
+    }
+
+    public RedirectConfigDto( String originalUrl, List<RedirectRuleDto> rules )
+    {
+        this( originalUrl, rules, null, null, null, null, null );
+    }
+
+    /**
+     * Negative entry for a link in a terminal state.
+     */
+    public static RedirectConfigDto terminal( UrlStatusEnum status )
+    {
+        return new RedirectConfigDto( null, List.of(), null, null, null, null, status );
+    }
+
+    /**
+     * @return true if the link is active and, at the given time, not past its expiry
+     */
+    public boolean isRedirectable( LocalDateTime now )
+    {
+        return status == UrlStatusEnum.ACTIVE && ( expiresAt == null || expiresAt.isAfter( now ) );
+    }
+
+    /**
+     * How long this config may be cached: the given TTL, cut to the time left before the link
+     * expires. Links that are terminal or already expired get the negative TTL instead.
+     */
+    public Duration cacheTtl( Duration ttl, Duration negativeTtl )
+    {
+        LocalDateTime now = LocalDateTime.now();
+        if ( !isRedirectable( now ) )
+        {
+            return ttl.compareTo( negativeTtl ) < 0 ? ttl : negativeTtl;
+        }
+        if ( expiresAt != null )
+        {
+            Duration untilExpiry = Duration.between( now, expiresAt );
+            return untilExpiry.compareTo( ttl ) < 0 ? untilExpiry : ttl;
+        }
+        return ttl;
+    }
+
     @Builder
     public record RedirectRuleDto( RuleDimension dimension, String value, String destinationUrl, int priority )
     {
@@ -3,53 +3,33 @@ package io.zaplink.redirect.dto.event;
 import java.time.Instant;
 
 /**
- * QR scan event record for Kafka publishing.
- * Uses Java 21 record for immutable event data.
+ * Raw QR scan event record for Kafka publishing.
+ * Carries only what the request itself provides; geo, device, browser and bot
+ * enrichment happens in zaplink-processor-service.
  *
- * @param qrKey       the dynamic QR key
- * @param ipAddress   client IP address
- * @param userAgent   browser user agent
- * @param referrer    HTTP referer header
- * @param country     resolved country from GeoIP
- * @param city        resolved city from GeoIP
- * @param deviceType  extracted device type (Mobile/Desktop/Tablet)
- * @param browser     extracted browser name
- * @param timestamp   event timestamp
- * @param traceId     distributed tracing ID
+ * @param qrKey         the dynamic QR key
+ * @param ipAddress     client IP address
+ * @param userAgent     browser user agent
+ * @param referrer      HTTP referer header
+ * @param countryHeader country supplied by the edge proxy (CF-IPCountry), may be null
+ * @param timestamp     event timestamp
  */
 public record QrScanEvent( String qrKey,
                            String ipAddress,
                            String userAgent,
                            String referrer,
-                           String country,
-                           String city,
-                           String deviceType,
-                           String browser,
-                           Instant timestamp,
-                           String traceId )
+                           String countryHeader,
+                           Instant timestamp )
 {
     /**
-     * Builder-style factory method for creating QR scan events.
+     * Builder-style factory method stamping the event with the current time.
      */
     public static QrScanEvent of( String qrKey,
                                   String ipAddress,
                                   String userAgent,
                                   String referrer,
-                                  String country,
-                                  String city,
-                                  String deviceType,
-                                  String browser,
-                                  String traceId )
+                                  String countryHeader )
     {
-        return new QrScanEvent( qrKey,
-                                ipAddress,
-                                userAgent,
-                                referrer,
-                                country,
-                                city,
-                                deviceType,
-                                browser,
-                                Instant.now(),
-                                traceId );
+        return new QrScanEvent( qrKey, ipAddress, userAgent, referrer, countryHeader, Instant.now() );
     }
 }
@@ -5,8 +5,11 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
+import io.zaplink.redirect.common.enums.RedirectType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -58,4 +61,9 @@ public class DynamicQrCodeEntity
     private String        allowedDomains;
     @Column(name = "track_analytics", nullable = false)
     private Boolean       trackAnalytics;
+    // Client caching policy, honoured only for plain QR codes (see RedirectCachePolicy)
+    @Enumerated(EnumType.STRING) @Column(name = "redirect_type")
+    private RedirectType  redirectType;
+    @Column(name = "redirect_cache_max_age")
+    private Integer       redirectCacheMaxAge;
 }
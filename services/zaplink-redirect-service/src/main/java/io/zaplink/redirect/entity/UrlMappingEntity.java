@@ -2,6 +2,7 @@ package io.zaplink.redirect.entity;
 
 import java.time.LocalDateTime;
 
+import io.zaplink.redirect.common.enums.RedirectType;
 import io.zaplink.redirect.common.enums.UrlStatusEnum;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -43,4 +44,11 @@ public class UrlMappingEntity
     private Long          clickCount;
     @Enumerated(EnumType.STRING) @Column(name = "status", nullable = false)
     private UrlStatusEnum status;
+    @Column(name = "track_analytics")
+    private Boolean       trackAnalytics;
+    // Client caching policy, honoured only for links without rules and with analytics off
+    @Enumerated(EnumType.STRING) @Column(name = "redirect_type")
+    private RedirectType  redirectType;
+    @Column(name = "redirect_cache_max_age")
+    private Integer       redirectCacheMaxAge;
 }
@@ -1,11 +1,19 @@
 package io.zaplink.redirect.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import io.zaplink.redirect.entity.DynamicQrCodeEntity;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository for Dynamic QR code lookups.
@@ -24,4 +32,37 @@ public interface DynamicQrCodeRepository
      * @return Optional containing the QR entity if found
      */
     Optional<DynamicQrCodeEntity> findByQrKey( String qrKey );
+
+    /**
+     * Read only the current scan count, for scan-limit checks against a cached snapshot.
+     *
+     * @param id the QR code id
+     * @return total scans, or null if the QR code no longer exists
+     */
+    @Query("select e.totalScans from DynamicQrCodeEntity e where e.id = :id")
+    Long findTotalScansById( @Param("id") Long id );
+
+    /**
+     * Add a batch of scans to the persisted scan count.
+     *
+     * @param id          the QR code id
+     * @param count       number of scans to add
+     * @param lastScanned time of the latest scan in the batch
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("update DynamicQrCodeEntity e set e.totalScans = e.totalScans + :count, e.lastScanned = :lastScanned where e.id = :id")
+    int incrementTotalScans( @Param("id") Long id,
+                             @Param("count") long count,
+                             @Param("lastScanned") LocalDateTime lastScanned );
+
+    /**
+     * Stream every QR key without loading entities.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     *
+     * @return stream of QR keys
+     */
+    @Query("select e.qrKey from DynamicQrCodeEntity e")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    Stream<String> streamAllQrKeys();
 }
@@ -1,11 +1,19 @@
 package io.zaplink.redirect.repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
 import io.zaplink.redirect.entity.UrlMappingEntity;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository for URL mapping lookups.
@@ -24,4 +32,30 @@ public interface UrlMappingRepository
      * @return Optional containing the URL mapping if found
      */
     Optional<UrlMappingEntity> findByShortUrlKey( String shortUrlKey );
+
+    /**
+     * Stream every short URL key without loading entities.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     *
+     * @return stream of short URL keys
+     */
+    @Query("select e.shortUrlKey from UrlMappingEntity e")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    Stream<String> streamAllShortUrlKeys();
+
+    /**
+     * Stream the keys of links in the given status, most clicked first.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     */
+    @Query("select e.shortUrlKey from UrlMappingEntity e where e.status = :status order by e.clickCount desc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamMostClickedShortUrlKeys( @Param("status") UrlStatusEnum status, Limit limit );
+
+    /**
+     * Stream the keys of links in the given status, newest first.
+     * Must be consumed inside a read-only transaction and closed afterwards.
+     */
+    @Query("select e.shortUrlKey from UrlMappingEntity e where e.status = :status order by e.createdAt desc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamNewestShortUrlKeys( @Param("status") UrlStatusEnum status, Limit limit );
 }
@@ -0,0 +1,208 @@
+package io.zaplink.redirect.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable referer matcher compiled once from a QR code's allowed-domain list.
+ *
+ * Domains are stored as a trie of reversed labels (com -> example -> www), and only the host of
+ * the Referer is matched, walking its labels right to left without allocating. "example.com"
+ * allows the host itself and its subdomains; "*.example.com" allows only subdomains. Entries may
+ * be written as URLs, with ports or in any case. A host that merely contains an allowed domain
+ * elsewhere (evil.com/?x=example.com, example.com.evil.com) does not match.
+ */
+public final class AllowedDomains
+{
+    /**
+     * One label of the reversed-domain trie; only mutated while compiling.
+     */
+    private static final class Node
+    {
+        private String[] labels   = new String[0];
+        private Node[]   children = new Node[0];
+        private boolean  self;
+        private boolean  subdomains;
+        Node child( String host, int from, int to )
+        {
+            int length = to - from;
+            for ( int i = 0; i < labels.length; i++ )
+            {
+                if ( labels[i].length() == length && host.regionMatches( true, from, labels[i], 0, length ) )
+                {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node add( String label )
+        {
+            Node existing = child( label, 0, label.length() );
+            if ( existing != null )
+            {
+                return existing;
+            }
+            labels = Arrays.copyOf( labels, labels.length + 1 );
+            children = Arrays.copyOf( children, children.length + 1 );
+            labels[labels.length - 1] = label;
+            return children[children.length - 1] = new Node();
+        }
+    }
+    public static final AllowedDomains UNRESTRICTED = new AllowedDomains( null );
+    private final Node                 root;
+    private AllowedDomains( Node root )
+    {
+        this.root = root;
+    }
+
+    public static AllowedDomains compile( List<String> domains )
+    {
+        if ( domains == null || domains.isEmpty() )
+        {
+            return UNRESTRICTED;
+        }
+        Node root = new Node();
+        boolean any = false;
+        for ( String domain : domains )
+        {
+            String host = domain == null ? null : normalize( domain );
+            if ( host == null )
+            {
+                continue;
+            }
+            boolean wildcard = host.startsWith( "*." );
+            Node node = root;
+            int end = host.length();
+            int stop = wildcard ? 2 : 0;
+            while ( end > stop )
+            {
+                int dot = host.lastIndexOf( '.', end - 1 );
+                int start = Math.max( dot + 1, stop );
+                node = node.add( host.substring( start, end ) );
+                end = start - 1;
+            }
+            node.subdomains = true;
+            node.self |= !wildcard;
+            any = true;
+        }
+        return any ? new AllowedDomains( root ) : UNRESTRICTED;
+    }
+
+    public boolean isRestricted()
+    {
+        return root != null;
+    }
+
+    /**
+     * Whether the referer is allowed. A restricted QR code requires a referer.
+     */
+    public boolean allows( String referer )
+    {
+        if ( !isRestricted() )
+        {
+            return true;
+        }
+        if ( referer == null || referer.isEmpty() )
+        {
+            return false;
+        }
+        int hostStart = hostStart( referer );
+        int end = hostEnd( referer, hostStart );
+        if ( end > hostStart && referer.charAt( end - 1 ) == '.' )
+        {
+            end--;
+        }
+        Node node = root;
+        while ( end > hostStart )
+        {
+            int dot = referer.lastIndexOf( '.', end - 1 );
+            int start = Math.max( dot + 1, hostStart );
+            node = node.child( referer, start, end );
+            if ( node == null )
+            {
+                return false;
+            }
+            if ( start == hostStart )
+            {
+                return node.self;
+            }
+            if ( node.subdomains )
+            {
+                return true;
+            }
+            end = start - 1;
+        }
+        return false;
+    }
+
+    /**
+     * Lower-cased host of an allowed-domain entry, keeping a leading "*." wildcard; null if blank.
+     */
+    private static String normalize( String domain )
+    {
+        String value = domain.trim().toLowerCase( Locale.ROOT );
+        boolean wildcard = value.startsWith( "*." );
+        if ( wildcard )
+        {
+            value = value.substring( 2 );
+        }
+        int start = hostStart( value );
+        int end = hostEnd( value, start );
+        while ( start < end && value.charAt( start ) == '.' )
+        {
+            start++;
+        }
+        while ( end > start && value.charAt( end - 1 ) == '.' )
+        {
+            end--;
+        }
+        if ( start == end )
+        {
+            return null;
+        }
+        return ( wildcard ? "*." : "" ) + value.substring( start, end );
+    }
+
+    /**
+     * Index where the host starts: after the scheme and any user info.
+     */
+    private static int hostStart( String url )
+    {
+        int scheme = url.indexOf( "://" );
+        int start = scheme < 0 ? 0 : scheme + 3;
+        int end = authorityEnd( url, start );
+        int at = url.lastIndexOf( '@', end - 1 );
+        return at >= start ? at + 1 : start;
+    }
+
+    /**
+     * Index where the host ends: before the port, path, query or fragment.
+     */
+    private static int hostEnd( String url, int start )
+    {
+        int end = authorityEnd( url, start );
+        if ( start < end && url.charAt( start ) == '[' )
+        {
+            // IPv6 literal; matched as a single label
+            int close = url.indexOf( ']', start );
+            return close < 0 || close >= end ? end : close + 1;
+        }
+        int colon = url.indexOf( ':', start );
+        return colon >= 0 && colon < end ? colon : end;
+    }
+
+    private static int authorityEnd( String url, int start )
+    {
+        for ( int i = start; i < url.length(); i++ )
+        {
+            char c = url.charAt( i );
+            if ( c == '/' || c == '?' || c == '#' || c == '\\' )
+            {
+                return i;
+            }
+        }
+        return url.length();
+    }
+}
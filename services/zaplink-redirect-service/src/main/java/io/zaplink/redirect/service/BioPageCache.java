@@ -0,0 +1,171 @@
+package io.zaplink.redirect.service;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.zaplink.redirect.client.ManagerServiceClient;
+import io.zaplink.redirect.common.concurrent.SingleFlight;
+import io.zaplink.redirect.dto.BioPageResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serialized public bio pages keyed by username, in front of the manager service.
+ *
+ * A page is served from memory while fresh and revalidated against the manager once its fresh
+ * TTL has passed or core has announced a change to it. Each body carries a strong ETag derived
+ * from its bytes, so clients and CDNs can revalidate with If-None-Match. If the manager cannot
+ * be reached, the last good copy is served until the stale-if-error window runs out.
+ */
+@Service @Slf4j
+public class BioPageCache
+{
+    /**
+     * A serialized bio page, its ETag, and the System.nanoTime() until which it is fresh.
+     */
+    public record CachedBioPage( byte[] body, String etag, long freshUntil )
+    {
+        boolean isFresh()
+        {
+            return System.nanoTime() - freshUntil < 0;
+        }
+    }
+    private final ManagerServiceClient                          managerServiceClient;
+    private final ObjectWriter                                  writer;
+    private final Cache<String, CachedBioPage>                  pages;
+    private final SingleFlight<String, Optional<CachedBioPage>> loads = new SingleFlight<>();
+    private final long                                          freshTtlNanos;
+    private final CacheControl                                  cacheControl;
+    public BioPageCache( ManagerServiceClient managerServiceClient,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${redirect.bio.cache.max-size:10000}") long maxSize,
+                         @Value("${redirect.bio.cache.fresh-ttl:5m}") Duration freshTtl,
+                         @Value("${redirect.bio.cache.stale-if-error:1d}") Duration staleIfError,
+                         @Value("${redirect.bio.cache.max-age:60s}") Duration maxAge )
+    {
+        this.managerServiceClient = managerServiceClient;
+        // ISO-8601 dates, as the MVC message converter writes them
+        this.writer = objectMapper.writer().without( SerializationFeature.WRITE_DATES_AS_TIMESTAMPS );
+        this.pages = Caffeine.newBuilder().maximumSize( maxSize ).expireAfterWrite( freshTtl.plus( staleIfError ) )
+                .recordStats().build();
+        this.freshTtlNanos = freshTtl.toNanos();
+        this.cacheControl = CacheControl.maxAge( maxAge ).cachePublic().staleIfError( staleIfError );
+        CaffeineCacheMetrics.monitor( meterRegistry, pages, "redirect.bio" );
+    }
+
+    /**
+     * Get the bio page for a username, revalidating it against the manager if it is not fresh.
+     *
+     * @return the page, or empty if the manager has no page for the username
+     * @throws RuntimeException if the manager fails and no earlier copy is cached
+     */
+    public Optional<CachedBioPage> get( String username )
+    {
+        CachedBioPage cached = pages.getIfPresent( username );
+        if ( cached != null && cached.isFresh() )
+        {
+            return Optional.of( cached );
+        }
+        try
+        {
+            return loads.execute( username, () -> load( username ) );
+        }
+        catch ( RuntimeException e )
+        {
+            if ( cached == null )
+            {
+                throw e;
+            }
+            log.warn( "Manager unavailable, serving stale bio page for username {}: {}", username, e.getMessage() );
+            return Optional.of( cached );
+        }
+    }
+
+    /**
+     * Cache-Control for bio page responses.
+     */
+    public CacheControl cacheControl()
+    {
+        return cacheControl;
+    }
+
+    /**
+     * Mark the cached page stale so the next request revalidates it. The body is kept to be
+     * served if the manager is unavailable then.
+     */
+    public void onInvalidation( String username )
+    {
+        pages.asMap().computeIfPresent( username,
+                                        ( key, page ) -> new CachedBioPage( page.body(), page.etag(),
+                                                                            System.nanoTime() ) );
+        log.debug( "🗑️ Marked bio page stale for username: {}", username );
+    }
+
+    private Optional<CachedBioPage> load( String username )
+    {
+        BioPageResponse page;
+        try
+        {
+            page = managerServiceClient.getBioPageByUsername( username );
+        }
+        catch ( FeignException.NotFound e )
+        {
+            page = null;
+        }
+        if ( page == null )
+        {
+            pages.invalidate( username );
+            return Optional.empty();
+        }
+        byte[] body = serialize( page );
+        CachedBioPage cached = new CachedBioPage( body, etag( body ), System.nanoTime() + freshTtlNanos );
+        pages.put( username, cached );
+        return Optional.of( cached );
+    }
+
+    private byte[] serialize( BioPageResponse page )
+    {
+        try
+        {
+            return writer.writeValueAsBytes( page );
+        }
+        catch ( JsonProcessingException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Strong validator: the same body always yields the same ETag, on every node.
+     */
+    private static String etag( byte[] body )
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance( "SHA-256" ).digest( body );
+            return "\"" + HexFormat.of().formatHex( digest, 0, 16 ) + "\"";
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-256 not available", e );
+        }
+    }
+}
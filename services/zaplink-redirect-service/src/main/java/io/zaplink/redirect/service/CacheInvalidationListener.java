@@ -0,0 +1,92 @@
+package io.zaplink.redirect.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import io.zaplink.redirect.common.constants.RedisConstants;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Subscribes to link and bio page change notifications published by core and evicts local cache entries,
+ * including the changed link's copy in the {@link LocalLinkStore}.
+ */
+@Component @Slf4j
+public class CacheInvalidationListener
+    implements
+    MessageListener
+{
+    private final RedirectConfigCache                           redirectConfigCache;
+    private final BioPageCache                                  bioPageCache;
+    private final LocalLinkStore                                localLinkStore;
+    private final ObjectProvider<RedisMessageListenerContainer> containerProvider;
+    private final Duration                                      retryInterval;
+    public CacheInvalidationListener( RedirectConfigCache redirectConfigCache,
+                                      BioPageCache bioPageCache,
+                                      LocalLinkStore localLinkStore,
+                                      ObjectProvider<RedisMessageListenerContainer> containerProvider,
+                                      @Value("${redirect.cache.invalidation.retry-interval:5s}") Duration retryInterval )
+    {
+        this.redirectConfigCache = redirectConfigCache;
+        this.bioPageCache = bioPageCache;
+        this.localLinkStore = localLinkStore;
+        this.containerProvider = containerProvider;
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public void onMessage( Message message, byte[] pattern )
+    {
+        String body = new String( message.getBody(), StandardCharsets.UTF_8 );
+        if ( body.startsWith( RedisConstants.BIO_PAGE_CACHE_PREFIX ) )
+        {
+            bioPageCache.onInvalidation( body.substring( RedisConstants.BIO_PAGE_CACHE_PREFIX.length() ) );
+            return;
+        }
+        // Local store first, so an L1 reload cannot pick up the replaced copy again
+        localLinkStore.onInvalidation( body );
+        redirectConfigCache.onInvalidation( body );
+    }
+
+    /**
+     * Subscribe in the background, retrying until Redis is reachable.
+     * Until then local entries are bounded by the L1 TTL.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe()
+    {
+        RedisMessageListenerContainer container = containerProvider.getObject();
+        Thread.ofVirtual().name( "cache-invalidation-subscriber" ).start( () -> {
+            while ( !container.isRunning() )
+            {
+                try
+                {
+                    container.start();
+                    log.info( "Subscribed to cache invalidation channel" );
+                }
+                catch ( Exception e )
+                {
+                    log.warn( "Cache invalidation subscription failed, retrying in {}: {}", retryInterval,
+                              e.getMessage() );
+                    try
+                    {
+                        Thread.sleep( retryInterval );
+                    }
+                    catch ( InterruptedException ie )
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        } );
+    }
+}
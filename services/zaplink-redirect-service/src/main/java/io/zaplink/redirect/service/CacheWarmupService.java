@@ -0,0 +1,193 @@
+package io.zaplink.redirect.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
+import io.zaplink.redirect.repository.UrlMappingRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the hottest and newest links into L1 and Redis after startup.
+ *
+ * Keys are streamed from the database (most clicked, then most recently created) and loaded
+ * through the normal lookup path with bounded concurrency. The readiness group includes this
+ * indicator, so a fresh pod takes traffic only once the configured share of keys is warm or the
+ * time budget is spent; a failed or disabled warm-up never holds readiness back.
+ */
+@Service @Slf4j
+public class CacheWarmupService
+    implements
+    HealthIndicator
+{
+    private final UrlMappingRepository urlMappingRepository;
+    private final UrlRedirectService   urlRedirectService;
+    private final TransactionTemplate  readOnlyTransaction;
+    private final boolean              enabled;
+    private final int                  topKeys;
+    private final int                  recentKeys;
+    private final int                  concurrency;
+    private final Duration             timeBudget;
+    private final double               readyThreshold;
+    private final AtomicInteger        attempted = new AtomicInteger();
+    private final AtomicInteger        cached    = new AtomicInteger();
+    private volatile int               total     = -1;
+    private volatile boolean           ready;
+    public CacheWarmupService( UrlMappingRepository urlMappingRepository,
+                               UrlRedirectService urlRedirectService,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${redirect.warmup.enabled:true}") boolean enabled,
+                               @Value("${redirect.warmup.top-keys:10000}") int topKeys,
+                               @Value("${redirect.warmup.recent-keys:2000}") int recentKeys,
+                               @Value("${redirect.warmup.concurrency:8}") int concurrency,
+                               @Value("${redirect.warmup.time-budget:30s}") Duration timeBudget,
+                               @Value("${redirect.warmup.ready-threshold:0.9}") double readyThreshold )
+    {
+        this.urlMappingRepository = urlMappingRepository;
+        this.urlRedirectService = urlRedirectService;
+        this.readOnlyTransaction = new TransactionTemplate( transactionManager );
+        this.readOnlyTransaction.setReadOnly( true );
+        this.enabled = enabled;
+        this.topKeys = topKeys;
+        this.recentKeys = recentKeys;
+        this.concurrency = Math.max( 1, concurrency );
+        this.timeBudget = timeBudget;
+        this.readyThreshold = readyThreshold;
+        this.ready = !enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start()
+    {
+        if ( !enabled )
+        {
+            log.info( "Cache warm-up disabled" );
+            return;
+        }
+        Thread.ofVirtual().name( "cache-warmup" ).start( this::warmUp );
+    }
+
+    @Override
+    public Health health()
+    {
+        Health.Builder builder = ready ? Health.up() : Health.outOfService();
+        return builder.withDetail( "attempted", attempted.get() ).withDetail( "cached", cached.get() )
+                .withDetail( "total", Math.max( total, 0 ) ).build();
+    }
+
+    private void warmUp()
+    {
+        long start = System.nanoTime();
+        long deadline = start + timeBudget.toNanos();
+        try
+        {
+            List<String> keys = collectKeys();
+            total = keys.size();
+            Semaphore permits = new Semaphore( concurrency );
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            try
+            {
+                for ( String key : keys )
+                {
+                    long remaining = deadline - System.nanoTime();
+                    if ( remaining <= 0 || !permits.tryAcquire( remaining, TimeUnit.NANOSECONDS ) )
+                    {
+                        break;
+                    }
+                    executor.execute( () -> {
+                        try
+                        {
+                            load( key );
+                        }
+                        finally
+                        {
+                            permits.release();
+                        }
+                    } );
+                }
+            }
+            finally
+            {
+                executor.shutdown();
+            }
+            // Loads still running at the deadline finish in the background; readiness does not wait for them
+            executor.awaitTermination( Math.max( 0, deadline - System.nanoTime() ), TimeUnit.NANOSECONDS );
+            log.info( "🔥 Cache warm-up: {} of {} keys loaded ({} cached) in {} ms", attempted.get(), total,
+                      cached.get(), TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Cache warm-up failed, reporting ready with cold caches: {}", e.getMessage() );
+        }
+        finally
+        {
+            ready = true;
+        }
+    }
+
+    /**
+     * Most clicked keys first, then recently created ones not already included.
+     */
+    private List<String> collectKeys()
+    {
+        Set<String> keys = new LinkedHashSet<>();
+        collect( () -> urlMappingRepository.streamMostClickedShortUrlKeys( UrlStatusEnum.ACTIVE, Limit.of( topKeys ) ),
+                 keys );
+        collect( () -> urlMappingRepository.streamNewestShortUrlKeys( UrlStatusEnum.ACTIVE, Limit.of( recentKeys ) ),
+                 keys );
+        return new ArrayList<>( keys );
+    }
+
+    private void collect( Supplier<Stream<String>> source, Set<String> keys )
+    {
+        readOnlyTransaction.executeWithoutResult( status -> {
+            try ( Stream<String> stream = source.get() )
+            {
+                stream.forEach( keys::add );
+            }
+        } );
+    }
+
+    private void load( String key )
+    {
+        try
+        {
+            if ( urlRedirectService.warm( key ) )
+            {
+                cached.incrementAndGet();
+            }
+        }
+        catch ( Exception e )
+        {
+            log.debug( "Cache warm-up skipped key {}: {}", key, e.getMessage() );
+        }
+        if ( attempted.incrementAndGet() >= readyThreshold * total )
+        {
+            ready = true;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package io.zaplink.redirect.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.common.ratelimit.TokenBucketTable;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-client rate limiting for /r and /s, keyed by the address from
+ * {@link RequestUtils#getClientIpAddress}.
+ *
+ * Every node decides locally from two token-bucket tables: a generous budget for keys answered
+ * from L1 and a tighter one for keys that miss it, since only misses reach Redis and Postgres.
+ * With the global budget enabled, each node periodically adds its admissions per client to a
+ * Redis counter for the current window and blocks clients whose cluster-wide total is over the
+ * limit until the window ends; Redis is never on the request path, and if it is unavailable only
+ * the local limits apply.
+ */
+@Service @Slf4j
+public class ClientRateLimiter
+{
+    private final StringRedisTemplate redisTemplate;
+    private final boolean             enabled;
+    private final TokenBucketTable    hits;
+    private final TokenBucketTable    misses;
+    private final boolean             globalEnabled;
+    private final long                globalLimit;
+    private final Duration            globalWindow;
+    private final Counter             hitRejections;
+    private final Counter             missRejections;
+    private final Counter             globalBlocks;
+    public ClientRateLimiter( StringRedisTemplate redisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${redirect.rate-limit.enabled:true}") boolean enabled,
+                              @Value("${redirect.rate-limit.clients:65536}") int clients,
+                              @Value("${redirect.rate-limit.hit.rate:20}") double hitRate,
+                              @Value("${redirect.rate-limit.hit.burst:100}") int hitBurst,
+                              @Value("${redirect.rate-limit.miss.rate:2}") double missRate,
+                              @Value("${redirect.rate-limit.miss.burst:20}") int missBurst,
+                              @Value("${redirect.rate-limit.global.enabled:false}") boolean globalEnabled,
+                              @Value("${redirect.rate-limit.global.limit:3000}") long globalLimit,
+                              @Value("${redirect.rate-limit.global.window:1m}") Duration globalWindow )
+    {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.hits = new TokenBucketTable( clients, hitRate, hitBurst, globalEnabled );
+        this.misses = new TokenBucketTable( clients, missRate, missBurst, globalEnabled );
+        this.globalEnabled = globalEnabled;
+        this.globalLimit = globalLimit;
+        this.globalWindow = globalWindow;
+        this.hitRejections = Counter.builder( "redirect.rate-limit.rejections" ).tag( "budget", "hit" )
+                .description( "Requests rejected because the client exceeded its rate limit" )
+                .register( meterRegistry );
+        this.missRejections = Counter.builder( "redirect.rate-limit.rejections" ).tag( "budget", "miss" )
+                .description( "Requests rejected because the client exceeded its rate limit" )
+                .register( meterRegistry );
+        this.globalBlocks = Counter.builder( "redirect.rate-limit.global.blocks" )
+                .description( "Clients blocked for the rest of the window by the cluster-wide budget" )
+                .register( meterRegistry );
+        FunctionCounter.builder( "redirect.rate-limit.active-evictions", this,
+                                 l -> l.hits.activeEvictions() + l.misses.activeEvictions() )
+                .description( "Client buckets evicted before they refilled; a steady rise means too few buckets" )
+                .register( meterRegistry );
+    }
+
+    /**
+     * Admit one request from the client.
+     *
+     * @param cached whether the key was answered from L1; misses draw on the tighter budget
+     * @return false if the client is over its budget
+     */
+    public boolean tryAcquire( HttpServletRequest request, boolean cached )
+    {
+        if ( !enabled )
+        {
+            return true;
+        }
+        String client = RequestUtils.getClientIpAddress( request );
+        if ( client == null || client.isEmpty() )
+        {
+            return true;
+        }
+        long now = System.nanoTime();
+        if ( cached ? hits.tryAcquire( client, now ) : misses.tryAcquire( client, now ) )
+        {
+            return true;
+        }
+        ( cached ? hitRejections : missRejections ).increment();
+        return false;
+    }
+
+    /**
+     * Add this node's admissions to the cluster-wide counters and block clients over the global limit.
+     */
+    @Scheduled(fixedDelayString = "${redirect.rate-limit.global.sync-interval:1s}", initialDelayString = "${redirect.rate-limit.global.sync-interval:1s}")
+    void syncGlobalBudget()
+    {
+        if ( !enabled || !globalEnabled )
+        {
+            return;
+        }
+        Map<String, Integer> admitted = new HashMap<>();
+        hits.forEachPending( bucket -> admitted.merge( bucket.key(), bucket.drainPending(), Integer::sum ) );
+        misses.forEachPending( bucket -> admitted.merge( bucket.key(), bucket.drainPending(), Integer::sum ) );
+        if ( admitted.isEmpty() )
+        {
+            return;
+        }
+        long windowMillis = globalWindow.toMillis();
+        long nowMillis = System.currentTimeMillis();
+        long window = nowMillis / windowMillis;
+        List<String> clients = new ArrayList<>( admitted.keySet() );
+        try
+        {
+            List<Object> results = redisTemplate.executePipelined( (RedisCallback<Object>) connection -> {
+                for ( String client : clients )
+                {
+                    incrementWindow( connection, RedisConstants.RATE_LIMIT_PREFIX + window + ":" + client,
+                                     admitted.get( client ), windowMillis );
+                }
+                return null;
+            } );
+            long now = System.nanoTime();
+            long until = now + Duration.ofMillis( ( window + 1 ) * windowMillis - nowMillis ).toNanos();
+            for ( int i = 0; i < clients.size(); i++ )
+            {
+                if ( results.get( 2 * i ) instanceof Long total && total > globalLimit )
+                {
+                    hits.block( clients.get( i ), until, now );
+                    misses.block( clients.get( i ), until, now );
+                    globalBlocks.increment();
+                    log.info( "Client {} over the global rate limit ({} requests this window)", clients.get( i ),
+                              total );
+                }
+            }
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Redis error syncing the global rate limit; local limits still apply", e );
+        }
+    }
+
+    private static void incrementWindow( RedisConnection connection, String key, long delta, long windowMillis )
+    {
+        byte[] rawKey = key.getBytes( StandardCharsets.UTF_8 );
+        connection.stringCommands().incrBy( rawKey, delta );
+        // Outlive the window so late syncs from other nodes still land on a live counter
+        connection.keyCommands().pExpire( rawKey, 2 * windowMillis );
+    }
+}
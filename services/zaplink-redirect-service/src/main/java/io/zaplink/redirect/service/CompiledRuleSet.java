@@ -0,0 +1,196 @@
+package io.zaplink.redirect.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+/**
+ * Immutable decision structure compiled once from a link's rules.
+ *
+ * Rules keep their "first match in priority order wins" semantics: each rule is identified
+ * by its position in the priority-sorted list, and a lookup returns the lowest matching position.
+ * Per-dimension hash maps hold normalized rule values, and the combined device x OS answer is
+ * precomputed for the known User-Agent vocabulary, so evaluation is a few array reads and at most
+ * one hash probe per dimension with no allocation.
+ */
+public final class CompiledRuleSet
+{
+    /**
+     * Device types produced by {@link RequestUtils#extractDeviceType(String)}.
+     */
+    static final String[]               DEVICE_TYPES = { "Tablet", "Mobile", "Desktop", "Unknown" };
+    /**
+     * Operating systems produced by {@link RequestUtils#extractOS(String)}.
+     */
+    static final String[]               OS_NAMES     = { "Windows", "MacOS", "iOS", "Android", "Linux", "Unknown" };
+    private static final int            NO_MATCH     = Integer.MAX_VALUE;
+    public static final CompiledRuleSet EMPTY        = new CompiledRuleSet( new String[0], Map.of(), Map.of(),
+                                                                            Map.of() );
+    private final String[]              destinations;
+    private final Map<String, Integer>  deviceRules;
+    private final Map<String, Integer>  osRules;
+    private final Map<String, Integer>  countryRules;
+    private final int[]                 deviceOsTable;
+    private CompiledRuleSet( String[] destinations,
+                             Map<String, Integer> deviceRules,
+                             Map<String, Integer> osRules,
+                             Map<String, Integer> countryRules )
+    {
+        this.destinations = destinations;
+        this.deviceRules = deviceRules;
+        this.osRules = osRules;
+        this.countryRules = countryRules;
+        this.deviceOsTable = new int[DEVICE_TYPES.length * OS_NAMES.length];
+        for ( int d = 0; d < DEVICE_TYPES.length; d++ )
+        {
+            int deviceMatch = lookup( deviceRules, DEVICE_TYPES[d].toLowerCase( Locale.ROOT ) );
+            for ( int o = 0; o < OS_NAMES.length; o++ )
+            {
+                int osMatch = lookup( osRules, OS_NAMES[o].toLowerCase( Locale.ROOT ) );
+                deviceOsTable[d * OS_NAMES.length + o] = Math.min( deviceMatch, osMatch );
+            }
+        }
+    }
+
+    /**
+     * Compile priority-sorted rules. When two rules share a dimension and value, the earlier one wins.
+     *
+     * @param rules rules sorted by priority, highest first
+     * @return the compiled rule set, or {@link #EMPTY} if there are no usable rules
+     */
+    public static CompiledRuleSet compile( List<RedirectRuleDto> rules )
+    {
+        if ( rules == null || rules.isEmpty() )
+        {
+            return EMPTY;
+        }
+        String[] destinations = new String[rules.size()];
+        Map<String, Integer> deviceRules = new HashMap<>();
+        Map<String, Integer> osRules = new HashMap<>();
+        Map<String, Integer> countryRules = new HashMap<>();
+        for ( int i = 0; i < rules.size(); i++ )
+        {
+            RedirectRuleDto rule = rules.get( i );
+            destinations[i] = rule.destinationUrl();
+            if ( rule.value() == null || rule.dimension() == null )
+            {
+                continue;
+            }
+            switch ( rule.dimension() )
+            {
+                case DEVICE_TYPE -> deviceRules.putIfAbsent( rule.value().toLowerCase( Locale.ROOT ), i );
+                case OS -> osRules.putIfAbsent( rule.value().toLowerCase( Locale.ROOT ), i );
+                case COUNTRY -> countryRules.putIfAbsent( rule.value().toUpperCase( Locale.ROOT ), i );
+            }
+        }
+        if ( deviceRules.isEmpty() && osRules.isEmpty() && countryRules.isEmpty() )
+        {
+            return EMPTY;
+        }
+        return new CompiledRuleSet( destinations, Map.copyOf( deviceRules ), Map.copyOf( osRules ),
+                                    Map.copyOf( countryRules ) );
+    }
+
+    /**
+     * Find the destination of the highest-priority matching rule.
+     *
+     * @return destination URL, or null if no rule matches
+     */
+    public String match( String deviceType, String os, String country )
+    {
+        int deviceSlot = indexOf( DEVICE_TYPES, deviceType );
+        int osSlot = indexOf( OS_NAMES, os );
+        int best;
+        if ( deviceSlot >= 0 && osSlot >= 0 )
+        {
+            best = deviceOsTable[deviceSlot * OS_NAMES.length + osSlot];
+        }
+        else
+        {
+            // Value outside the known vocabulary: fall back to normalized hash probes
+            best = Math.min( lookup( deviceRules, deviceType != null ? deviceType.toLowerCase( Locale.ROOT ) : null ),
+                             lookup( osRules, os != null ? os.toLowerCase( Locale.ROOT ) : null ) );
+        }
+        if ( country != null && !countryRules.isEmpty() )
+        {
+            best = Math.min( best, lookup( countryRules, isUpperCase( country ) ? country
+                    : country.toUpperCase( Locale.ROOT ) ) );
+        }
+        return best == NO_MATCH ? null : destinations[best];
+    }
+
+    public boolean isEmpty()
+    {
+        return destinations.length == 0;
+    }
+
+    /**
+     * Whether any rule depends on the country, i.e. whether a GeoIP lookup is worth doing.
+     */
+    public boolean usesCountry()
+    {
+        return !countryRules.isEmpty();
+    }
+
+    /**
+     * Whether any rule depends on the User-Agent.
+     */
+    public boolean usesUserAgent()
+    {
+        return !deviceRules.isEmpty() || !osRules.isEmpty();
+    }
+
+    public int size()
+    {
+        return destinations.length;
+    }
+
+    private static int lookup( Map<String, Integer> rules, String normalizedValue )
+    {
+        if ( normalizedValue == null )
+        {
+            return NO_MATCH;
+        }
+        Integer index = rules.get( normalizedValue );
+        return index != null ? index : NO_MATCH;
+    }
+
+    private static int indexOf( String[] vocabulary, String value )
+    {
+        if ( value == null )
+        {
+            return -1;
+        }
+        for ( int i = 0; i < vocabulary.length; i++ )
+        {
+            if ( vocabulary[i].equals( value ) )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isUpperCase( String value )
+    {
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c >= 'a' && c <= 'z' || c > 0x7F )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompiledRuleSet[rules=" + destinations.length + ", devices=" + deviceRules.size() + ", os="
+                + osRules.size() + ", countries=" + countryRules.size() + "]";
+    }
+}
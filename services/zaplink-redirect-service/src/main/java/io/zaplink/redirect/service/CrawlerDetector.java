@@ -0,0 +1,139 @@
+package io.zaplink.redirect.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.redirect.service.RedirectStageMetrics.LinkType;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Recognizes link-preview fetchers and crawlers (Slackbot, facebookexternalhit, Twitterbot, ...)
+ * so their redirects can skip rule evaluation and analytics.
+ *
+ * The configured agent tokens are compiled once into a table indexed by their lower-case first
+ * character; a User-Agent is scanned once, and only the tokens starting with the current character
+ * are compared, case-insensitively and in place. Hits are counted in redirect.bot.hits at the
+ * stage-metrics sample rate, tagged with the link type and the matched token, or "head" for HEAD
+ * requests from other agents.
+ */
+@Component
+public class CrawlerDetector
+{
+    /**
+     * Link-preview fetchers of the common chat and social apps, and the major search crawlers.
+     */
+    private static final String          DEFAULT_AGENTS    = "facebookexternalhit,facebot,slackbot,twitterbot,"
+            + "whatsapp,telegrambot,discordbot,linkedinbot,skypeuripreview,googlebot,bingbot,applebot,yandexbot,"
+            + "duckduckbot,baiduspider,pinterestbot,redditbot,embedly";
+    private static final String          HEAD              = "head";
+    private final RedirectStageMetrics   stageMetrics;
+    private final boolean                enabled;
+    private final String[][]             tokensByFirstChar = new String[128][];
+    private final Map<String, Counter[]> hits              = new HashMap<>();
+    public CrawlerDetector( MeterRegistry meterRegistry,
+                            RedirectStageMetrics stageMetrics,
+                            @Value("${redirect.bots.enabled:true}") boolean enabled,
+                            @Value("${redirect.bots.agents:" + DEFAULT_AGENTS + "}") String[] agents )
+    {
+        this.stageMetrics = stageMetrics;
+        this.enabled = enabled;
+        List<List<String>> buckets = new ArrayList<>();
+        for ( int i = 0; i < tokensByFirstChar.length; i++ )
+        {
+            buckets.add( new ArrayList<>() );
+        }
+        for ( String agent : agents )
+        {
+            String token = agent.trim().toLowerCase( Locale.ROOT );
+            if ( token.isEmpty() || token.charAt( 0 ) >= tokensByFirstChar.length || hits.containsKey( token ) )
+            {
+                continue;
+            }
+            buckets.get( token.charAt( 0 ) ).add( token );
+            hits.put( token, counters( meterRegistry, token ) );
+        }
+        for ( int i = 0; i < tokensByFirstChar.length; i++ )
+        {
+            tokensByFirstChar[i] = buckets.get( i ).isEmpty() ? null : buckets.get( i ).toArray( String[]::new );
+        }
+        hits.put( HEAD, counters( meterRegistry, HEAD ) );
+    }
+
+    /**
+     * Whether the request should take the untracked path: a known crawler, or any HEAD request.
+     * Counts the hit, sampled, if so.
+     */
+    public boolean detect( HttpServletRequest request, LinkType type )
+    {
+        if ( !enabled )
+        {
+            return false;
+        }
+        String agent = match( request.getHeader( "User-Agent" ) );
+        if ( agent == null && HttpMethod.HEAD.matches( request.getMethod() ) )
+        {
+            agent = HEAD;
+        }
+        if ( agent == null )
+        {
+            return false;
+        }
+        stageMetrics.countSampled( hits.get( agent )[type.ordinal()] );
+        return true;
+    }
+
+    /**
+     * The configured token found in the User-Agent, or null.
+     */
+    String match( String userAgent )
+    {
+        if ( userAgent == null )
+        {
+            return null;
+        }
+        int length = userAgent.length();
+        for ( int i = 0; i < length; i++ )
+        {
+            char c = userAgent.charAt( i );
+            if ( c >= 'A' && c <= 'Z' )
+            {
+                c = (char) ( c + ( 'a' - 'A' ) );
+            }
+            String[] tokens = c < tokensByFirstChar.length ? tokensByFirstChar[c] : null;
+            if ( tokens == null )
+            {
+                continue;
+            }
+            for ( String token : tokens )
+            {
+                if ( userAgent.regionMatches( true, i, token, 0, token.length() ) )
+                {
+                    return token;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Counter[] counters( MeterRegistry meterRegistry, String agent )
+    {
+        Counter[] counters = new Counter[LinkType.values().length];
+        for ( LinkType type : LinkType.values() )
+        {
+            counters[type.ordinal()] = Counter.builder( "redirect.bot.hits" )
+                    .tag( "type", type.name().toLowerCase( Locale.ROOT ) ).tag( "agent", agent )
+                    .description( "Crawler and HEAD requests redirected without rules or analytics (sampled)" )
+                    .register( meterRegistry );
+        }
+        return counters;
+    }
+}
@@ -1,134 +1,58 @@
 package io.zaplink.redirect.service;
 
-import java.io.File;
-import java.io.IOException;
-import java.net.InetAddress;
-import java.util.HashMap;
-import java.util.Map;
-
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.maxmind.geoip2.DatabaseReader;
-import com.maxmind.geoip2.model.CityResponse;
-import com.maxmind.geoip2.record.City;
-import com.maxmind.geoip2.record.Country;
-
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.enrichment.GeoIpResolver;
+import io.zaplink.enrichment.GeoLocation;
 import jakarta.annotation.PreDestroy;
-import lombok.extern.slf4j.Slf4j;
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * GeoIP service for IP address geolocation using MaxMind GeoLite2.
- * Optimized for local lookup without external API calls.
+ * Lookups are done by the shared {@link GeoIpResolver}; this adds the per-request memo.
  */
-@Service @Slf4j
+@Service
 public class GeoIpService
 {
-    @Value("${geoip.db-path:classpath:GeoLite2-City.mmdb}")
-    private String         dbPath;
-    private DatabaseReader dbReader;
-    @PostConstruct
-    public void init()
+    /**
+     * Request attribute holding the location resolved for the current request.
+     */
+    static final String         LOCATION_ATTRIBUTE = GeoIpService.class.getName() + ".location";
+    private final GeoIpResolver resolver;
+    public GeoIpService( MeterRegistry meterRegistry,
+                         @Value("${geoip.cache-size:100000}") long cacheSize,
+                         @Value("${geoip.db-path:classpath:GeoLite2-City.mmdb}") String dbPath )
     {
-        try
-        {
-            File database = new File( dbPath );
-            if ( database.exists() )
-            {
-                dbReader = new DatabaseReader.Builder( database ).build();
-                log.info( "GeoIP Database loaded from: {}", dbPath );
-            }
-            else
-            {
-                // Try loading from classpath if file path not found (for Docker/Jar)
-                try (var stream = getClass().getClassLoader().getResourceAsStream( "GeoLite2-City.mmdb" ))
-                {
-                    if ( stream != null )
-                    {
-                        dbReader = new DatabaseReader.Builder( stream ).build();
-                        log.info( "GeoIP Database loaded from classpath" );
-                    }
-                    else
-                    {
-                        log.warn( "GeoIP Database not found at {} or in classpath. GeoIP features will be disabled.",
-                                  dbPath );
-                    }
-                }
-            }
-        }
-        catch ( IOException e )
-        {
-            log.error( "Failed to initialize GeoIP Database", e );
-        }
+        this.resolver = new GeoIpResolver( dbPath, cacheSize, meterRegistry );
     }
 
     @PreDestroy
     public void cleanup()
     {
-        if ( dbReader != null )
-        {
-            try
-            {
-                dbReader.close();
-            }
-            catch ( IOException e )
-            {
-                log.error( "Error closing GeoIP reader", e );
-            }
-        }
+        resolver.close();
     }
 
     /**
-     * Resolve location from IP address.
-     *
-     * @param ipAddress the IP address to resolve
-     * @return Map containing country and city
+     * Resolve the location of the request's client IP once; later calls for the same request reuse it.
      */
-    public Map<String, String> resolveLocation( String ipAddress )
+    public GeoLocation resolveLocation( HttpServletRequest request )
     {
-        Map<String, String> location = new HashMap<>();
-        location.put( "country", "Unknown" );
-        location.put( "city", "Unknown" );
-        // Skip check for private IPs for performance if needed, but MaxMind handles them gracefully (returns null)
-        if ( isLocalOrPrivate( ipAddress ) )
-        {
-            return location;
-        }
-        if ( dbReader == null )
+        if ( request.getAttribute( LOCATION_ATTRIBUTE ) instanceof GeoLocation location )
         {
             return location;
         }
-        try
-        {
-            InetAddress ip = InetAddress.getByName( ipAddress );
-            CityResponse response = dbReader.city( ip );
-            Country country = response.getCountry();
-            City city = response.getCity();
-            if ( country != null && country.getIsoCode() != null )
-            {
-                location.put( "country", country.getIsoCode() );
-            }
-            if ( city != null && city.getName() != null )
-            {
-                location.put( "city", city.getName() );
-            }
-        }
-        catch ( Exception e )
-        {
-            log.trace( "Failed to resolve location for {}: {}", ipAddress, e.getMessage() );
-        }
+        GeoLocation location = resolveLocation( RequestUtils.getClientIpAddress( request ) );
+        request.setAttribute( LOCATION_ATTRIBUTE, location );
         return location;
     }
 
     /**
-     * Check if IP is local or private.
+     * @return the location, or {@link GeoLocation#UNKNOWN} for private, invalid or unknown addresses
      */
-    private boolean isLocalOrPrivate( String ip )
+    public GeoLocation resolveLocation( String ipAddress )
     {
-        return ip == null || ip.equals( "127.0.0.1" ) || ip.equals( "0:0:0:0:0:0:0:1" ) || ip.equals( "::1" )
-                || ip.startsWith( "192.168." ) || ip.startsWith( "10." ) || ip.startsWith( "172.16." )
-                || ip.startsWith( "172.17." ) || ip.startsWith( "172.18." ) || ip.startsWith( "172.19." )
-                || ip.startsWith( "172.2" ) || ip.startsWith( "172.30." ) || ip.startsWith( "172.31." );
+        return resolver.resolveLocation( ipAddress );
     }
 }
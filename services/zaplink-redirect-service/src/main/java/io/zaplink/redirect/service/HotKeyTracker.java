@@ -0,0 +1,133 @@
+package io.zaplink.redirect.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.redirect.common.sketch.CountMinSketch;
+import io.zaplink.redirect.common.sketch.SpaceSavingSummary;
+
+/**
+ * Heavy-hitter detection over a sliding window of URL redirects.
+ *
+ * Every resolved key is counted in a windowed count-min sketch, and a space-saving summary keeps
+ * the current top-K candidates. Each time the window advances, the candidates are ranked by their
+ * window count and keys above both the share and the minimum-hits threshold are pinned in L1.
+ */
+@Service
+public class HotKeyTracker
+{
+    /**
+     * A top-K key with its estimated hits and share of all hits in the window.
+     */
+    public record HotKey( String key, long hits, double share, boolean pinned )
+    {
+    }
+    private final RedirectConfigCache redirectConfigCache;
+    private final boolean             enabled;
+    private final CountMinSketch      sketch;
+    private final SpaceSavingSummary  summary;
+    private final double              pinShare;
+    private final long                pinMinHits;
+    private volatile List<HotKey>     topKeys = List.of();
+    private volatile long             windowHits;
+    public HotKeyTracker( RedirectConfigCache redirectConfigCache,
+                          MeterRegistry meterRegistry,
+                          @Value("${redirect.hot-keys.enabled:true}") boolean enabled,
+                          @Value("${redirect.hot-keys.top-k:100}") int topK,
+                          @Value("${redirect.hot-keys.slices:6}") int slices,
+                          @Value("${redirect.hot-keys.sketch-width:4096}") int sketchWidth,
+                          @Value("${redirect.hot-keys.sketch-depth:4}") int sketchDepth,
+                          @Value("${redirect.hot-keys.pin-share:0.01}") double pinShare,
+                          @Value("${redirect.hot-keys.pin-min-hits:600}") long pinMinHits )
+    {
+        this.redirectConfigCache = redirectConfigCache;
+        this.enabled = enabled;
+        this.sketch = new CountMinSketch( sketchWidth, sketchDepth, slices );
+        this.summary = new SpaceSavingSummary( topK );
+        this.pinShare = pinShare;
+        this.pinMinHits = pinMinHits;
+        Gauge.builder( "redirect.hot-keys.pinned", this, t -> t.redirectConfigCache.pinnedUrlKeys().size() )
+                .description( "URL keys pinned in the local cache" ).register( meterRegistry );
+        Gauge.builder( "redirect.hot-keys.top.share", this,
+                       t -> t.topKeys.isEmpty() ? 0 : t.topKeys.get( 0 ).share() )
+                .description( "Share of window hits taken by the hottest key" ).register( meterRegistry );
+    }
+
+    /**
+     * Count one hit of a URL key.
+     */
+    public void record( String urlKey )
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        summary.offer( urlKey, sketch.add( urlKey ), sketch::estimateCurrent );
+    }
+
+    /**
+     * Current top-K keys, hottest first, as of the last window advance.
+     */
+    public List<HotKey> topKeys()
+    {
+        return topKeys;
+    }
+
+    /**
+     * Hits counted in the window as of the last advance.
+     */
+    public long windowHits()
+    {
+        return windowHits;
+    }
+
+    /**
+     * Rank the candidates over the full window, update the pinned set, then advance one slice.
+     */
+    @Scheduled(fixedRateString = "${redirect.hot-keys.slice:10s}", initialDelayString = "${redirect.hot-keys.slice:10s}")
+    public void advance()
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        long total = sketch.total();
+        List<HotKey> ranked = summary.keys().stream().map( key -> toHotKey( key, sketch.estimate( key ), total ) )
+                .filter( hotKey -> hotKey.hits() > 0 ).sorted( Comparator.comparingLong( HotKey::hits ).reversed() )
+                .toList();
+        Set<String> pinned = ranked.stream().filter( HotKey::pinned ).map( HotKey::key ).collect( Collectors.toSet() );
+        redirectConfigCache.pinUrlKeys( pinned );
+        topKeys = ranked;
+        windowHits = total;
+        sketch.rotate();
+        // Slice counts just restarted from zero, and keys with no hits left in the window are dropped
+        summary.resetFloor();
+        summary.removeIf( key -> sketch.estimate( key ) == 0 );
+    }
+
+    /**
+     * Keep pinned entries fresh and their Redis TTL from running out.
+     */
+    @Scheduled(fixedDelayString = "${redirect.hot-keys.refresh-interval:1m}", initialDelayString = "${redirect.hot-keys.refresh-interval:1m}")
+    public void refreshPinned()
+    {
+        if ( enabled )
+        {
+            redirectConfigCache.refreshPinnedUrlConfigs();
+        }
+    }
+
+    private HotKey toHotKey( String key, long hits, long total )
+    {
+        boolean pinned = hits >= pinMinHits && hits >= pinShare * total;
+        return new HotKey( key, hits, total > 0 ? (double) hits / total : 0, pinned );
+    }
+}
@@ -1,59 +1,226 @@
 package io.zaplink.redirect.service;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zaplink.redirect.common.concurrent.MpmcRing;
 import io.zaplink.redirect.common.constants.KafkaTopics;
+import io.zaplink.redirect.common.enums.OverflowPolicy;
 import io.zaplink.redirect.dto.event.QrScanEvent;
 import io.zaplink.redirect.dto.event.UrlClickEvent;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Kafka event publisher for analytics events.
- * Publishes click and scan events asynchronously for processing.
+ *
+ * Request threads only enqueue the immutable event into a bounded lock-free ring and return.
+ * A single drainer thread hands events to the Kafka producer in batches, so a slow or
+ * unreachable broker fills the ring (and then sheds events per the overflow policy)
+ * instead of adding latency to redirects.
  */
-@Service @Slf4j @RequiredArgsConstructor
+@Service @Slf4j
 public class KafkaEventPublisher
 {
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MpmcRing<Object>              ring;
+    private final OverflowPolicy                overflowPolicy;
+    private final long                          blockTimeoutNanos;
+    private final int                           batchSize;
+    private final long                          idleWaitNanos;
+    private final Counter                       droppedOldest;
+    private final Counter                       droppedNew;
+    private final Timer                         drainTimer;
+    private volatile boolean                    running = true;
+    private Thread                              drainer;
+    public KafkaEventPublisher( KafkaTemplate<String, Object> kafkaTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${redirect.analytics.buffer.capacity:65536}") int capacity,
+                                @Value("${redirect.analytics.buffer.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+                                @Value("${redirect.analytics.buffer.block-timeout:5ms}") Duration blockTimeout,
+                                @Value("${redirect.analytics.buffer.batch-size:512}") int batchSize,
+                                @Value("${redirect.analytics.buffer.idle-wait:1ms}") Duration idleWait )
+    {
+        this.kafkaTemplate = kafkaTemplate;
+        this.ring = new MpmcRing<>( capacity );
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.batchSize = batchSize;
+        this.idleWaitNanos = idleWait.toNanos();
+        Gauge.builder( "redirect.analytics.queue.depth", ring, MpmcRing::size )
+                .description( "Analytics events waiting for the Kafka producer" ).register( meterRegistry );
+        this.droppedOldest = Counter.builder( "redirect.analytics.dropped" ).tag( "reason", "evicted-oldest" )
+                .description( "Analytics events shed because the buffer was full" ).register( meterRegistry );
+        this.droppedNew = Counter.builder( "redirect.analytics.dropped" ).tag( "reason", "rejected-new" )
+                .description( "Analytics events shed because the buffer was full" ).register( meterRegistry );
+        this.drainTimer = Timer.builder( "redirect.analytics.drain" )
+                .description( "Time to hand one batch of analytics events to the Kafka producer" )
+                .register( meterRegistry );
+    }
+
+    @PostConstruct
+    void start()
+    {
+        drainer = Thread.ofPlatform().name( "analytics-drainer" ).daemon().start( this::drainLoop );
+    }
+
+    /**
+     * Stop the drainer and hand whatever is still buffered to the producer.
+     */
+    @PreDestroy
+    void shutdown()
+        throws InterruptedException
+    {
+        running = false;
+        LockSupport.unpark( drainer );
+        drainer.join( TimeUnit.SECONDS.toMillis( 5 ) );
+        // The producer factory closes (and flushes) the producer after this bean is destroyed
+        int remaining = drainBatch( Integer.MAX_VALUE );
+        log.info( "Analytics publisher stopped; handed off {} buffered events", remaining );
+    }
+
     /**
      * Publish URL click event to Kafka.
-     * Fire-and-forget pattern for non-blocking redirect.
+     * Fire-and-forget: the event is buffered and sent by the drainer thread.
      *
      * @param event the URL click event
      */
     public void publishUrlClickEvent( UrlClickEvent event )
     {
-        kafkaTemplate.send( KafkaTopics.URL_CLICK_EVENTS, event.urlKey(), event ).whenComplete( ( result, ex ) -> {
-            if ( ex != null )
-            {
-                log.error( "❌ Failed to publish URL click event for key: {}", event.urlKey(), ex );
-            }
-            else
-            {
-                log.debug( "✅ URL click event published for key: {}", event.urlKey() );
-            }
-        } );
+        enqueue( event );
     }
 
     /**
      * Publish QR scan event to Kafka.
-     * Fire-and-forget pattern for non-blocking redirect.
+     * Fire-and-forget: the event is buffered and sent by the drainer thread.
      *
      * @param event the QR scan event
      */
     public void publishQrScanEvent( QrScanEvent event )
     {
-        kafkaTemplate.send( KafkaTopics.QR_SCAN_EVENTS, event.qrKey(), event ).whenComplete( ( result, ex ) -> {
-            if ( ex != null )
+        enqueue( event );
+    }
+
+    private void enqueue( Object event )
+    {
+        if ( ring.offer( event ) )
+        {
+            return;
+        }
+        switch ( overflowPolicy )
+        {
+            case DROP_OLDEST ->
             {
-                log.error( "❌ Failed to publish QR scan event for key: {}", event.qrKey(), ex );
+                while ( !ring.offer( event ) )
+                {
+                    if ( ring.poll() != null )
+                    {
+                        droppedOldest.increment();
+                    }
+                }
             }
-            else
+            case DROP_NEW -> droppedNew.increment();
+            case BLOCK ->
+            {
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                while ( !ring.offer( event ) )
+                {
+                    if ( System.nanoTime() - deadline >= 0 )
+                    {
+                        droppedNew.increment();
+                        return;
+                    }
+                    LockSupport.parkNanos( 50_000 );
+                }
+            }
+        }
+    }
+
+    private void drainLoop()
+    {
+        while ( running )
+        {
+            try
+            {
+                if ( drainBatch( batchSize ) == 0 )
+                {
+                    LockSupport.parkNanos( idleWaitNanos );
+                }
+            }
+            catch ( Exception e )
+            {
+                log.error( "❌ Analytics drainer failed to hand off a batch", e );
+            }
+        }
+    }
+
+    /**
+     * Hand up to maxEvents buffered events to the producer, which batches them per partition.
+     *
+     * @return number of events handed off
+     */
+    private int drainBatch( int maxEvents )
+    {
+        long start = System.nanoTime();
+        int drained = 0;
+        Object event;
+        while ( drained < maxEvents && ( event = ring.poll() ) != null )
+        {
+            send( event );
+            drained++;
+        }
+        if ( drained > 0 )
+        {
+            drainTimer.record( System.nanoTime() - start, TimeUnit.NANOSECONDS );
+        }
+        return drained;
+    }
+
+    private void send( Object event )
+    {
+        try
+        {
+            switch ( event )
             {
-                log.debug( "✅ QR scan event published for key: {}", event.qrKey() );
+                case UrlClickEvent click -> kafkaTemplate.send( KafkaTopics.URL_CLICK_EVENTS, click.urlKey(), click )
+                        .whenComplete( ( result, ex ) -> {
+                            if ( ex != null )
+                            {
+                                log.error( "❌ Failed to publish URL click event for key: {}", click.urlKey(), ex );
+                            }
+                            else
+                            {
+                                log.debug( "✅ URL click event published for key: {}", click.urlKey() );
+                            }
+                        } );
+                case QrScanEvent scan -> kafkaTemplate.send( KafkaTopics.QR_SCAN_EVENTS, scan.qrKey(), scan )
+                        .whenComplete( ( result, ex ) -> {
+                            if ( ex != null )
+                            {
+                                log.error( "❌ Failed to publish QR scan event for key: {}", scan.qrKey(), ex );
+                            }
+                            else
+                            {
+                                log.debug( "✅ QR scan event published for key: {}", scan.qrKey() );
+                            }
+                        } );
+                default -> log.warn( "Dropping unsupported analytics event type: {}", event.getClass() );
             }
-        } );
+        }
+        catch ( Exception e )
+        {
+            // send() itself throws when the producer cannot get metadata within max.block.ms
+            log.error( "❌ Failed to hand analytics event to Kafka: {}", event, e );
+        }
     }
 }
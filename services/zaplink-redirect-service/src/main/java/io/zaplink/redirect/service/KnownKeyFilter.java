@@ -0,0 +1,267 @@
+package io.zaplink.redirect.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.zaplink.redirect.common.bloom.BloomFilter;
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.repository.DynamicQrCodeRepository;
+import io.zaplink.redirect.repository.UrlMappingRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filters of every existing short URL key and QR key.
+ *
+ * A negative answer means the key was never created, so the redirect can return NotFound
+ * without touching Redis or the database. The filters are rebuilt from a streaming DB scan
+ * once the creation channel is subscribed and then periodically, and are updated from the
+ * creation events published by core in between. Until the first build completes, or while
+ * the subscription is down, every key is reported as possibly present.
+ */
+@Service @Slf4j
+public class KnownKeyFilter
+    implements
+    MessageListener
+{
+    private record Filters( BloomFilter urlKeys, BloomFilter qrKeys )
+    {
+    }
+    private final UrlMappingRepository                          urlMappingRepository;
+    private final DynamicQrCodeRepository                       dynamicQrCodeRepository;
+    private final TransactionTemplate                           readOnlyTransaction;
+    private final ObjectProvider<RedisMessageListenerContainer> containerProvider;
+    private final boolean                                       enabled;
+    private final double                                        fpp;
+    private final long                                          expectedInsertions;
+    private final Counter                                       urlRejections;
+    private final Counter                                       qrRejections;
+    private final AtomicBoolean                                 rebuilding = new AtomicBoolean();
+    private volatile Filters                                    current;
+    private volatile Filters                                    building;
+    public KnownKeyFilter( UrlMappingRepository urlMappingRepository,
+                           DynamicQrCodeRepository dynamicQrCodeRepository,
+                           PlatformTransactionManager transactionManager,
+                           ObjectProvider<RedisMessageListenerContainer> containerProvider,
+                           MeterRegistry meterRegistry,
+                           @Value("${redirect.bloom.enabled:true}") boolean enabled,
+                           @Value("${redirect.bloom.fpp:0.01}") double fpp,
+                           @Value("${redirect.bloom.expected-insertions:1000000}") long expectedInsertions )
+    {
+        this.urlMappingRepository = urlMappingRepository;
+        this.dynamicQrCodeRepository = dynamicQrCodeRepository;
+        this.readOnlyTransaction = new TransactionTemplate( transactionManager );
+        this.readOnlyTransaction.setReadOnly( true );
+        this.containerProvider = containerProvider;
+        this.enabled = enabled;
+        this.fpp = fpp;
+        this.expectedInsertions = expectedInsertions;
+        this.urlRejections = Counter.builder( "redirect.bloom.rejections" ).tag( "type", "url" )
+                .description( "Lookups answered NotFound by the known-key filter" ).register( meterRegistry );
+        this.qrRejections = Counter.builder( "redirect.bloom.rejections" ).tag( "type", "qr" )
+                .description( "Lookups answered NotFound by the known-key filter" ).register( meterRegistry );
+        Gauge.builder( "redirect.bloom.ready", this, f -> f.isReady() ? 1 : 0 ).register( meterRegistry );
+        Gauge.builder( "redirect.bloom.configured.fpp", this, f -> f.fpp ).register( meterRegistry );
+        registerFilterGauges( meterRegistry, "url", Filters::urlKeys );
+        registerFilterGauges( meterRegistry, "qr", Filters::qrKeys );
+    }
+
+    /**
+     * @return false only if the short URL key definitely does not exist
+     */
+    public boolean mightContainUrlKey( String shortUrlKey )
+    {
+        Filters filters = current;
+        if ( filters == null || !isReady() || filters.urlKeys().mightContain( shortUrlKey ) )
+        {
+            return true;
+        }
+        urlRejections.increment();
+        return false;
+    }
+
+    /**
+     * @return false only if the QR key definitely does not exist
+     */
+    public boolean mightContainQrKey( String qrKey )
+    {
+        Filters filters = current;
+        if ( filters == null || !isReady() || filters.qrKeys().mightContain( qrKey ) )
+        {
+            return true;
+        }
+        qrRejections.increment();
+        return false;
+    }
+
+    public boolean isReady()
+    {
+        if ( !enabled || current == null )
+        {
+            return false;
+        }
+        // Creation events are missed while unsubscribed, so negatives cannot be trusted
+        RedisMessageListenerContainer container = containerProvider.getIfAvailable();
+        return container != null && container.isRunning();
+    }
+
+    /**
+     * Handle a key creation message ("url:<key>" or "qr:<key>").
+     */
+    @Override
+    public void onMessage( Message message, byte[] pattern )
+    {
+        String body = new String( message.getBody(), StandardCharsets.UTF_8 );
+        // Read the in-progress build first: it is cleared only after it has been published as current
+        add( building, body );
+        add( current, body );
+    }
+
+    /**
+     * Build the filters once the creation channel is subscribed, so no event can fall between
+     * the DB scan and the subscription.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildWhenSubscribed()
+    {
+        if ( !enabled )
+        {
+            log.info( "Known-key filter disabled" );
+            return;
+        }
+        Thread.ofVirtual().name( "known-key-filter-init" ).start( () -> {
+            try
+            {
+                RedisMessageListenerContainer container = containerProvider.getObject();
+                while ( !container.isRunning() )
+                {
+                    TimeUnit.SECONDS.sleep( 1 );
+                }
+                rebuild();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        } );
+    }
+
+    /**
+     * Rebuild both filters from the database and swap them in.
+     * Periodic rebuilds drop deleted keys and recover from any missed creation events.
+     */
+    @Scheduled(fixedDelayString = "${redirect.bloom.rebuild-interval:6h}", initialDelayString = "${redirect.bloom.rebuild-interval:6h}")
+    public void rebuild()
+    {
+        if ( !enabled || !rebuilding.compareAndSet( false, true ) )
+        {
+            return;
+        }
+        long start = System.nanoTime();
+        try
+        {
+            Filters next = new Filters( BloomFilter.create( capacity( urlMappingRepository.count() ), fpp ),
+                                        BloomFilter.create( capacity( dynamicQrCodeRepository.count() ), fpp ) );
+            building = next;
+            long urlCount = load( urlMappingRepository::streamAllShortUrlKeys, next.urlKeys() );
+            long qrCount = load( dynamicQrCodeRepository::streamAllQrKeys, next.qrKeys() );
+            current = next;
+            log.info( "🧮 Known-key filter rebuilt: {} URL keys, {} QR keys, {} KB in {} ms", urlCount, qrCount,
+                      ( next.urlKeys().memoryBytes() + next.qrKeys().memoryBytes() ) / 1024,
+                      TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start ) );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Known-key filter rebuild failed, keeping previous filter: {}", e.getMessage() );
+        }
+        finally
+        {
+            building = null;
+            rebuilding.set( false );
+        }
+    }
+
+    private long load( Supplier<Stream<String>> keys, BloomFilter filter )
+    {
+        return readOnlyTransaction.execute( status -> {
+            try ( Stream<String> stream = keys.get() )
+            {
+                long[] count = new long[1];
+                stream.forEach( key -> {
+                    filter.put( key );
+                    count[0]++;
+                } );
+                return count[0];
+            }
+        } );
+    }
+
+    /**
+     * Leave room for growth until the next rebuild.
+     */
+    private long capacity( long currentCount )
+    {
+        return Math.max( expectedInsertions, currentCount * 2 );
+    }
+
+    private static void add( Filters filters, String message )
+    {
+        if ( filters == null )
+        {
+            return;
+        }
+        if ( message.startsWith( RedisConstants.URL_CACHE_PREFIX ) )
+        {
+            filters.urlKeys().put( message.substring( RedisConstants.URL_CACHE_PREFIX.length() ) );
+        }
+        else if ( message.startsWith( RedisConstants.QR_CACHE_PREFIX ) )
+        {
+            filters.qrKeys().put( message.substring( RedisConstants.QR_CACHE_PREFIX.length() ) );
+        }
+        else
+        {
+            log.warn( "Ignoring unknown key creation message: {}", message );
+        }
+    }
+
+    private void registerFilterGauges( MeterRegistry meterRegistry,
+                                       String type,
+                                       Function<Filters, BloomFilter> select )
+    {
+        Gauge.builder( "redirect.bloom.memory", this, f -> f.gauge( select, BloomFilter::memoryBytes ) )
+                .tag( "type", type ).baseUnit( BaseUnits.BYTES ).register( meterRegistry );
+        Gauge.builder( "redirect.bloom.capacity", this, f -> f.gauge( select, BloomFilter::expectedInsertions ) )
+                .tag( "type", type ).register( meterRegistry );
+        Gauge.builder( "redirect.bloom.fill", this, f -> f.gauge( select, BloomFilter::fillRatio ) )
+                .tag( "type", type ).description( "Fraction of filter bits set" ).register( meterRegistry );
+        Gauge.builder( "redirect.bloom.estimated.fpp", this, f -> f.gauge( select, BloomFilter::estimatedFpp ) )
+                .tag( "type", type ).description( "False-positive probability implied by the current fill" )
+                .register( meterRegistry );
+    }
+
+    private double gauge( Function<Filters, BloomFilter> select, ToDoubleFunction<BloomFilter> value )
+    {
+        Filters filters = current;
+        return filters != null ? value.applyAsDouble( select.apply( filters ) ) : 0;
+    }
+}
@@ -0,0 +1,439 @@
+package io.zaplink.redirect.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.redirect.common.codec.QrConfigCodec;
+import io.zaplink.redirect.common.codec.RedirectConfigCodec;
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.common.store.OffHeapKeyValueStore;
+import io.zaplink.redirect.dto.LinkSnapshot;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-only local replica of every link, built from core's log-compacted link snapshot topic.
+ *
+ * A single replicator thread reads all partitions of the topic (no consumer group, every node
+ * needs every link) and applies each snapshot to an {@link OffHeapKeyValueStore} in the same
+ * binary form used in Redis. Active URLs and all QR codes are stored; tombstones and inactive
+ * URLs remove the key, leaving them to the Redis/database path. Lookups are served only once the
+ * replica has caught up with the end of the topic as of startup, so a fresh node never answers
+ * from an incomplete or outdated copy.
+ *
+ * The store and the consumed offsets are written to a snapshot file periodically and on shutdown;
+ * a restarting node loads it and replays only the tail of the topic.
+ */
+@Service @Slf4j
+public class LocalLinkStore
+{
+    private static final int                       SNAPSHOT_MAGIC   = 0x5A4C4B53;
+    private static final byte                      SNAPSHOT_VERSION = 1;
+    private static final Duration                  POLL_TIMEOUT     = Duration.ofMillis( 500 );
+    private static final Duration                  RETRY_DELAY      = Duration.ofSeconds( 5 );
+    private final RedirectConfigCache              redirectConfigCache;
+    private final ObjectMapper                     objectMapper;
+    private final boolean                          enabled;
+    private final String                           bootstrapServers;
+    private final String                           topic;
+    private final Path                             snapshotPath;
+    private final Duration                         snapshotInterval;
+    private final int                              chunkSize;
+    private final long                             maxSize;
+    /**
+     * Next offset to read per partition. Replicator thread only.
+     */
+    private final Map<Integer, Long>               offsets          = new HashMap<>();
+    /**
+     * Keys invalidated by core since their last applied snapshot; hidden from lookups, and dropped
+     * from the store by the replicator thread.
+     */
+    private final Set<String>                      invalidated      = ConcurrentHashMap.newKeySet();
+    private volatile OffHeapKeyValueStore          store;
+    private volatile boolean                       ready;
+    private volatile boolean                       running;
+    private volatile KafkaConsumer<String, byte[]> consumer;
+    private Thread                                 replicator;
+    private long                                   appliedSinceSnapshot;
+    public LocalLinkStore( RedirectConfigCache redirectConfigCache,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${redirect.link-store.enabled:false}") boolean enabled,
+                           @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+                           @Value("${redirect.link-store.topic:link-snapshots}") String topic,
+                           @Value("${redirect.link-store.snapshot-path:${java.io.tmpdir}/zaplink/link-store.snapshot}") Path snapshotPath,
+                           @Value("${redirect.link-store.snapshot-interval:5m}") Duration snapshotInterval,
+                           @Value("${redirect.link-store.chunk-size:8MB}") DataSize chunkSize,
+                           @Value("${redirect.link-store.max-size:2GB}") DataSize maxSize )
+    {
+        this.redirectConfigCache = redirectConfigCache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.bootstrapServers = bootstrapServers;
+        this.topic = topic;
+        this.snapshotPath = snapshotPath;
+        this.snapshotInterval = snapshotInterval;
+        this.chunkSize = (int) chunkSize.toBytes();
+        this.maxSize = maxSize.toBytes();
+        this.store = new OffHeapKeyValueStore( this.chunkSize, this.maxSize );
+        Gauge.builder( "redirect.link-store.entries", this, s -> s.store.size() )
+                .description( "Links held in the local replica" ).register( meterRegistry );
+        Gauge.builder( "redirect.link-store.allocated", this, s -> s.store.allocatedBytes() ).baseUnit( "bytes" )
+                .description( "Direct memory held by the local replica" ).register( meterRegistry );
+        Gauge.builder( "redirect.link-store.ready", this, s -> s.ready ? 1 : 0 )
+                .description( "Whether lookups are served from the local replica" ).register( meterRegistry );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start()
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        running = true;
+        // Platform thread: the Kafka client blocks in synchronized code, which would pin a virtual thread
+        replicator = Thread.ofPlatform().daemon().name( "link-store-replicator" ).start( this::replicate );
+    }
+
+    @PreDestroy
+    public void stop()
+        throws InterruptedException
+    {
+        running = false;
+        KafkaConsumer<String, byte[]> current = consumer;
+        if ( current != null )
+        {
+            current.wakeup();
+        }
+        if ( replicator != null )
+        {
+            replicator.join( Duration.ofSeconds( 10 ) );
+        }
+    }
+
+    /**
+     * @return the replicated config of an active URL, or empty to use the regular path; callers
+     *         check the config's expiry
+     */
+    public Optional<RedirectConfigDto> getUrlConfig( String shortUrlKey )
+    {
+        byte[] bytes = lookup( RedisConstants.URL_CACHE_PREFIX + shortUrlKey );
+        return bytes != null ? Optional.of( RedirectConfigCodec.decode( bytes ) ) : Optional.empty();
+    }
+
+    /**
+     * @return the replicated QR snapshot, or empty to use the regular path
+     */
+    public Optional<QrConfigDto> getQrConfig( String qrKey )
+    {
+        byte[] bytes = lookup( RedisConstants.QR_CACHE_PREFIX + qrKey );
+        return bytes != null ? Optional.of( QrConfigCodec.decode( bytes ) ) : Optional.empty();
+    }
+
+    /**
+     * Drop a link core has changed, so it is served from Redis and the database until its next
+     * snapshot is applied; a snapshot that failed to publish can then never leave a stale copy here.
+     * If the new snapshot happens to be applied before the invalidation arrives, the link stays on
+     * the regular path until its next change, which is slower but never stale.
+     *
+     * @param key cache prefix plus key, e.g. "url:abc123"
+     */
+    public void onInvalidation( String key )
+    {
+        if ( enabled && ( key.startsWith( RedisConstants.URL_CACHE_PREFIX )
+                || key.startsWith( RedisConstants.QR_CACHE_PREFIX ) ) )
+        {
+            invalidated.add( key );
+        }
+    }
+
+    private byte[] lookup( String key )
+    {
+        return enabled && ready && !invalidated.contains( key ) ? store.get( key ) : null;
+    }
+
+    private void replicate()
+    {
+        loadSnapshot();
+        while ( running )
+        {
+            try ( KafkaConsumer<String, byte[]> kafka = new KafkaConsumer<>( consumerProperties() ) )
+            {
+                consumer = kafka;
+                List<TopicPartition> partitions = assign( kafka );
+                Map<TopicPartition, Long> catchUpOffsets = ready ? Map.of() : kafka.endOffsets( partitions );
+                long lastSnapshot = System.nanoTime();
+                while ( running )
+                {
+                    ConsumerRecords<String, byte[]> records = kafka.poll( POLL_TIMEOUT );
+                    for ( ConsumerRecord<String, byte[]> record : records )
+                    {
+                        apply( record.key(), record.value() );
+                        offsets.put( record.partition(), record.offset() + 1 );
+                    }
+                    dropInvalidated();
+                    if ( !ready && caughtUp( kafka, catchUpOffsets ) )
+                    {
+                        ready = true;
+                        log.info( "📦 Local link store caught up with {}: {} links", topic, store.size() );
+                    }
+                    if ( ready && appliedSinceSnapshot > 0
+                            && System.nanoTime() - lastSnapshot >= snapshotInterval.toNanos() )
+                    {
+                        writeSnapshot();
+                        lastSnapshot = System.nanoTime();
+                    }
+                }
+            }
+            catch ( WakeupException e )
+            {
+                // Stopping
+            }
+            catch ( Exception e )
+            {
+                if ( !running )
+                {
+                    break;
+                }
+                log.warn( "Link store replication failed, retrying in {}: {}", RETRY_DELAY, e.getMessage() );
+                try
+                {
+                    Thread.sleep( RETRY_DELAY );
+                }
+                catch ( InterruptedException ie )
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            finally
+            {
+                consumer = null;
+            }
+        }
+        if ( ready && appliedSinceSnapshot > 0 )
+        {
+            writeSnapshot();
+        }
+    }
+
+    private Properties consumerProperties()
+    {
+        Properties props = new Properties();
+        props.put( ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers );
+        props.put( ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class );
+        props.put( ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class );
+        // Partitions are assigned manually and progress lives in the snapshot file, not in a group
+        props.put( ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false );
+        props.put( ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest" );
+        props.put( ConsumerConfig.CLIENT_ID_CONFIG, "zaplink-redirect-link-store" );
+        return props;
+    }
+
+    /**
+     * Assign every partition of the topic and resume from the known offsets.
+     */
+    private List<TopicPartition> assign( KafkaConsumer<String, byte[]> kafka )
+    {
+        List<PartitionInfo> infos = kafka.partitionsFor( topic, Duration.ofSeconds( 10 ) );
+        if ( infos == null || infos.isEmpty() )
+        {
+            throw new IllegalStateException( "Topic " + topic + " has no partitions" );
+        }
+        List<TopicPartition> partitions = infos.stream().map( info -> new TopicPartition( topic, info.partition() ) )
+                .toList();
+        kafka.assign( partitions );
+        for ( TopicPartition partition : partitions )
+        {
+            Long offset = offsets.get( partition.partition() );
+            if ( offset != null )
+            {
+                kafka.seek( partition, offset );
+            }
+            else
+            {
+                kafka.seekToBeginning( List.of( partition ) );
+            }
+        }
+        return partitions;
+    }
+
+    private static boolean caughtUp( KafkaConsumer<String, byte[]> kafka, Map<TopicPartition, Long> endOffsets )
+    {
+        for ( Map.Entry<TopicPartition, Long> end : endOffsets.entrySet() )
+        {
+            if ( kafka.position( end.getKey() ) < end.getValue() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Apply one snapshot: store the link in its binary form, or remove it.
+     * L1 is evicted so a copy loaded before this change does not outlive it.
+     */
+    private void apply( String key, byte[] value )
+    {
+        if ( key == null )
+        {
+            return;
+        }
+        try
+        {
+            LinkSnapshot snapshot = value != null ? objectMapper.readValue( value, LinkSnapshot.class ) : null;
+            if ( key.startsWith( RedisConstants.URL_CACHE_PREFIX ) )
+            {
+                if ( snapshot != null && snapshot.active() )
+                {
+                    store.put( key, RedirectConfigCodec.encode( snapshot.toRedirectConfig() ) );
+                }
+                else
+                {
+                    store.remove( key );
+                }
+            }
+            else if ( key.startsWith( RedisConstants.QR_CACHE_PREFIX ) )
+            {
+                if ( snapshot != null )
+                {
+                    store.put( key, QrConfigCodec.encode( snapshot.toQrConfig() ) );
+                }
+                else
+                {
+                    store.remove( key );
+                }
+            }
+            else
+            {
+                return;
+            }
+        }
+        catch ( Exception e )
+        {
+            // Never serve a stale copy of a link whose latest snapshot could not be applied
+            log.warn( "Skipping link snapshot for {}: {}", key, e.getMessage() );
+            store.remove( key );
+        }
+        // Stored before the mark is cleared, so readers never see the copy this snapshot replaced
+        invalidated.remove( key );
+        appliedSinceSnapshot++;
+        if ( ready )
+        {
+            redirectConfigCache.onInvalidation( key );
+        }
+    }
+
+    /**
+     * Remove invalidated links from the store, so the removal is also in the next snapshot file.
+     */
+    private void dropInvalidated()
+    {
+        for ( String key : invalidated )
+        {
+            store.remove( key );
+            invalidated.remove( key );
+            appliedSinceSnapshot++;
+        }
+    }
+
+    private void loadSnapshot()
+    {
+        if ( !Files.exists( snapshotPath ) )
+        {
+            return;
+        }
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( Files.newInputStream( snapshotPath ),
+                                                                                 1 << 16 ) ) )
+        {
+            if ( in.readInt() != SNAPSHOT_MAGIC || in.readByte() != SNAPSHOT_VERSION || !topic.equals( in.readUTF() ) )
+            {
+                log.info( "Ignoring link store snapshot {} written for another format or topic", snapshotPath );
+                return;
+            }
+            Map<Integer, Long> loadedOffsets = new HashMap<>();
+            int partitions = in.readInt();
+            for ( int i = 0; i < partitions; i++ )
+            {
+                loadedOffsets.put( in.readInt(), in.readLong() );
+            }
+            OffHeapKeyValueStore loaded = new OffHeapKeyValueStore( chunkSize, maxSize );
+            loaded.load( in );
+            store = loaded;
+            offsets.putAll( loadedOffsets );
+            log.info( "📦 Loaded link store snapshot: {} links, resuming {} partitions", loaded.size(), partitions );
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Could not load link store snapshot {}, replaying {} from the start: {}", snapshotPath, topic,
+                      e.getMessage() );
+        }
+    }
+
+    private void writeSnapshot()
+    {
+        Path temp = snapshotPath.resolveSibling( snapshotPath.getFileName() + ".tmp" );
+        try
+        {
+            Files.createDirectories( snapshotPath.toAbsolutePath().getParent() );
+            try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( Files.newOutputStream( temp ),
+                                                                                         1 << 16 ) ) )
+            {
+                out.writeInt( SNAPSHOT_MAGIC );
+                out.writeByte( SNAPSHOT_VERSION );
+                out.writeUTF( topic );
+                out.writeInt( offsets.size() );
+                for ( Map.Entry<Integer, Long> offset : offsets.entrySet() )
+                {
+                    out.writeInt( offset.getKey() );
+                    out.writeLong( offset.getValue() );
+                }
+                store.writeTo( out );
+            }
+            Files.move( temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+            appliedSinceSnapshot = 0;
+            log.debug( "💾 Wrote link store snapshot: {} links", store.size() );
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Could not write link store snapshot {}: {}", snapshotPath, e.getMessage() );
+        }
+    }
+}
@@ -1,22 +1,33 @@
 package io.zaplink.redirect.service;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.enrichment.UaProfile;
+import io.zaplink.redirect.common.concurrent.SingleFlight;
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
 import io.zaplink.redirect.dto.event.QrScanEvent;
 import io.zaplink.redirect.entity.DynamicQrCodeEntity;
 import io.zaplink.redirect.repository.DynamicQrCodeRepository;
 import io.zaplink.redirect.repository.RedirectRuleRepository;
+import io.zaplink.redirect.service.RedirectConfigCache.QrEntry;
+import io.zaplink.redirect.service.RedirectStageMetrics.LinkType;
+import io.zaplink.redirect.service.RedirectStageMetrics.Outcome;
+import io.zaplink.redirect.service.RedirectStageMetrics.Sample;
+import io.zaplink.redirect.service.RedirectStageMetrics.Stage;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,16 +39,33 @@ import lombok.extern.slf4j.Slf4j;
 @Service @Slf4j @RequiredArgsConstructor
 public class QrRedirectService
 {
-    private final DynamicQrCodeRepository dynamicQrCodeRepository;
-    private final RedirectRuleRepository  redirectRuleRepository;
-    private final GeoIpService            geoIpService;
-    private final KafkaEventPublisher     kafkaEventPublisher;
-    private final ObjectMapper            objectMapper;
-    private final RuleEngine              ruleEngine;
+    private static final TypeReference<List<String>>      DOMAIN_LIST = new TypeReference<>() {};
+    private final DynamicQrCodeRepository                 dynamicQrCodeRepository;
+    private final RedirectRuleRepository                  redirectRuleRepository;
+    private final GeoIpService                            geoIpService;
+    private final KafkaEventPublisher                     kafkaEventPublisher;
+    private final ObjectMapper                            objectMapper;
+    private final RuleEngine                              ruleEngine;
+    private final KnownKeyFilter                          knownKeyFilter;
+    private final MeterRegistry                           meterRegistry;
+    private final RedirectConfigCache                     redirectConfigCache;
+    private final QrScanLimiter                           qrScanLimiter;
+    private final QrScanBatchService                      qrScanBatchService;
+    private final UserAgentClassifier                     userAgentClassifier;
+    private final RedirectCachePolicy                     redirectCachePolicy;
+    private final LocalLinkStore                          localLinkStore;
+    private final RedirectStageMetrics                    stageMetrics;
+    private final ClientRateLimiter                       clientRateLimiter;
+    private final RedisGuard                              redisGuard;
+    /**
+     * Concurrent misses for the same key share one load; early refreshes are tracked separately.
+     */
+    private final SingleFlight<String, Optional<QrEntry>> qrLoads     = new SingleFlight<>();
+    private final SingleFlight<String, Optional<QrEntry>> qrRefreshes = new SingleFlight<>();
     @Value("${redirect.error.base-url:https://zaplink.app/error}")
-    private String                        errorBaseUrl;
+    private String                                        errorBaseUrl;
     @Value("${redirect.password-protect.base-url:https://zaplink.app/password-protect}")
-    private String                        passwordProtectBaseUrl;
+    private String                                        passwordProtectBaseUrl;
     /**
      * Result of QR redirect resolution using sealed interface (Java 21).
      */
@@ -49,12 +77,21 @@ public class QrRedirectService
         QrRedirectResult.Expired,
         QrRedirectResult.LimitReached,
         QrRedirectResult.Forbidden,
-        QrRedirectResult.PasswordRequired
+        QrRedirectResult.PasswordRequired,
+        QrRedirectResult.RateLimited
     {
-        record Success( String destinationUrl )
+        /**
+         * @param permanent     answer with 301 instead of 302; only honoured when maxAgeSeconds is positive
+         * @param maxAgeSeconds Cache-Control max-age for the redirect, 0 if it must not be cached
+         */
+        record Success( String destinationUrl, boolean permanent, long maxAgeSeconds )
             implements
             QrRedirectResult
         {
+            public Success( String destinationUrl )
+            {
+                this( destinationUrl, false, 0 );
+            }
         }
         record NotFound()
             implements
@@ -86,7 +123,23 @@ public class QrRedirectService
             QrRedirectResult
         {
         }
+        /**
+         * The client exceeded its rate limit; the scan is not counted and no analytics event is published.
+         */
+        record RateLimited()
+            implements
+            QrRedirectResult
+        {
+        }
     }
+    @PostConstruct
+    void registerMetrics()
+    {
+        FunctionCounter.builder( "redirect.singleflight.coalesced", qrLoads, SingleFlight::coalescedCount )
+                .tag( "type", "qr" ).description( "Cache misses that joined another request's load" )
+                .register( meterRegistry );
+    }
+
     /**
      * Resolve QR redirect with full validation and analytics.
      *
@@ -95,47 +148,78 @@ public class QrRedirectService
      * @return QrRedirectResult indicating success or failure reason
      */
     public QrRedirectResult resolveAndTrack( String qrKey, HttpServletRequest request )
+    {
+        Sample sample = stageMetrics.begin( LinkType.QR );
+        return sample.finish( resolve( qrKey, request, sample, true ) );
+    }
+
+    /**
+     * Resolve a QR redirect for a crawler, link-preview fetcher or HEAD request: the same checks,
+     * but always the default destination and no analytics event. The request still uses up a scan,
+     * since it is sent the destination; otherwise a spoofed User-Agent would bypass the scan limit.
+     */
+    public QrRedirectResult resolveUntracked( String qrKey, HttpServletRequest request )
+    {
+        Sample sample = stageMetrics.begin( LinkType.QR );
+        return sample.finish( resolve( qrKey, request, sample, false ) );
+    }
+
+    /**
+     * @param track evaluate the QR code's rules and publish a scan event; false for crawlers
+     */
+    private QrRedirectResult resolve( String qrKey, HttpServletRequest request, Sample sample, boolean track )
     {
         log.debug( "Resolving QR redirect for key: {}", qrKey );
-        // 1. Find QR entity
-        Optional<DynamicQrCodeEntity> entityOpt = dynamicQrCodeRepository.findByQrKey( qrKey );
-        if ( entityOpt.isEmpty() )
+        // 0. Keys that were never created are rejected without any I/O
+        if ( !knownKeyFilter.mightContainQrKey( qrKey ) )
         {
-            log.warn( "QR code not found for key: {}", qrKey );
+            log.debug( "QR key rejected by known-key filter: {}", qrKey );
             return new QrRedirectResult.NotFound();
         }
-        DynamicQrCodeEntity entity = entityOpt.get();
+        // 1. Try L1; on a miss, one request per key goes to Redis and then the database
+        long l1Start = sample.start();
+        QrEntry entry = redirectConfigCache.getLocalQrConfig( qrKey ).orElse( null );
+        sample.stop( Stage.CACHE_LOOKUP, entry != null ? Outcome.L1_HIT : Outcome.L1_MISS, l1Start );
+        // Clients over their budget are turned away before a miss can reach Redis or the database
+        if ( !clientRateLimiter.tryAcquire( request, entry != null ) )
+        {
+            return new QrRedirectResult.RateLimited();
+        }
+        if ( entry == null )
+        {
+            Optional<QrEntry> lookup = qrLoads.execute( qrKey, () -> lookupQr( qrKey ) );
+            if ( lookup.isEmpty() )
+            {
+                log.warn( "QR code not found for key: {}", qrKey );
+                return new QrRedirectResult.NotFound();
+            }
+            entry = lookup.get();
+        }
+        QrConfigDto qr = entry.config();
         // 2. Check if active
-        if ( !Boolean.TRUE.equals( entity.getIsActive() ) )
+        if ( !qr.active() )
         {
             log.info( "QR code inactive: {}", qrKey );
             return new QrRedirectResult.Inactive();
         }
         // 3. Check expiration
-        if ( entity.getExpirationDate() != null && entity.getExpirationDate().isBefore( LocalDateTime.now() ) )
+        if ( qr.expirationDate() != null && qr.expirationDate().isBefore( LocalDateTime.now() ) )
         {
             log.info( "QR code expired: {}", qrKey );
             return new QrRedirectResult.Expired();
         }
-        // 4. Check scan limit
-        if ( entity.getScanLimit() != null && entity.getScanLimit() > 0
-                && entity.getTotalScans() >= entity.getScanLimit() )
-        {
-            log.info( "QR code scan limit reached: {}", qrKey );
-            return new QrRedirectResult.LimitReached();
-        }
-        // 5. Check domain restriction
-        if ( entity.getAllowedDomains() != null && !entity.getAllowedDomains().isEmpty() )
+        // 4. Check domain restriction
+        if ( entry.allowedDomains().isRestricted() )
         {
             String referer = request.getHeader( "Referer" );
-            if ( !isDomainAllowed( referer, entity.getAllowedDomains() ) )
+            if ( !entry.allowedDomains().allows( referer ) )
             {
                 log.warn( "Access denied from referer: {}", referer );
                 return new QrRedirectResult.Forbidden();
             }
         }
-        // 6. Check password protection
-        if ( entity.getPassword() != null && !entity.getPassword().isEmpty() )
+        // 5. Check password protection
+        if ( qr.passwordProtected() )
         {
             String accessToken = request.getParameter( "access_token" );
             if ( accessToken == null )
@@ -145,80 +229,176 @@ public class QrRedirectService
             }
             // In production, verify accessToken against hashed password/session
         }
+        // 6. Count the scan against the scan limit (atomic across replicas)
+        if ( !qrScanLimiter.tryAcquire( qrKey, qr ) )
+        {
+            log.info( "QR code scan limit reached: {}", qrKey );
+            return new QrRedirectResult.LimitReached();
+        }
+        qrScanBatchService.recordScan( qr.id() );
         // --- SMART ROUTING START ---
-        // Fetch Rules (Lazy load or fetch from Repo)
-        // For QR, we fetch rules directly from repo for now as we don't have them in Entity yet
-        String finalDestination = entity.getCurrentDestinationUrl();
-        var rules = redirectRuleRepository.findByDynamicQrCodeIdOrderByPriorityDesc( entity.getId() );
-        if ( !rules.isEmpty() )
-        {
-            String ip = RequestUtils.getClientIpAddress( request );
-            String ua = RequestUtils.getUserAgent( request );
-            String country = request.getHeader( "CF-IPCountry" );
-            if ( country == null || country.isEmpty() )
+        String finalDestination = qr.destinationUrl();
+        CompiledRuleSet rules = entry.rules();
+        if ( track && !rules.isEmpty() )
+        {
+            // Only compute the attributes the QR's rules actually depend on
+            String deviceType = null;
+            String os = null;
+            if ( rules.usesUserAgent() )
             {
-                country = geoIpService.resolveLocation( ip ).get( "country" );
+                long uaStart = sample.start();
+                UaProfile ua = userAgentClassifier.classify( request );
+                sample.stop( Stage.UA_PARSING, ua.bot() ? Outcome.BOT : Outcome.HUMAN, uaStart );
+                deviceType = ua.deviceType();
+                os = ua.os();
             }
-            var context = RuleEngine.RoutingContext.builder().deviceType( RequestUtils.extractDeviceType( ua ) )
-                    .os( RequestUtils.extractOS( ua ) ).country( country ).build();
-            Optional<String> smartDest = ruleEngine.evaluate( rules, context );
-            if ( smartDest.isPresent() )
+            String country = null;
+            if ( rules.usesCountry() )
             {
-                finalDestination = smartDest.get();
+                long geoStart = sample.start();
+                country = request.getHeader( "CF-IPCountry" );
+                Outcome source = Outcome.HEADER;
+                if ( country == null || country.isEmpty() )
+                {
+                    country = geoIpService.resolveLocation( request ).country();
+                    source = Outcome.GEOIP;
+                }
+                sample.stop( Stage.GEO_LOOKUP, source, geoStart );
+            }
+            long evaluationStart = sample.start();
+            String smartDest = ruleEngine.evaluate( rules, deviceType, os, country );
+            sample.stop( Stage.RULE_EVALUATION, smartDest != null ? Outcome.MATCHED : Outcome.DEFAULT,
+                         evaluationStart );
+            if ( smartDest != null )
+            {
+                finalDestination = smartDest;
             }
         }
         // --- SMART ROUTING END ---
         // 7. Publish analytics event (if tracking enabled)
-        if ( Boolean.TRUE.equals( entity.getTrackAnalytics() ) )
+        if ( track && qr.trackAnalytics() )
         {
-            publishScanEvent( qrKey, request );
+            publishScanEvent( qrKey, request, sample );
         }
-        return new QrRedirectResult.Success( finalDestination );
+        return new QrRedirectResult.Success( finalDestination, qr.redirectType() == RedirectType.PERMANENT,
+                                             redirectCachePolicy.maxAge( qr ) );
+    }
+
+    /**
+     * Load a QR snapshot after an L1 miss: the local link store first, then Redis, then the database.
+     * A slow Redis read is hedged with the database lookup.
+     */
+    private Optional<QrEntry> lookupQr( String qrKey )
+    {
+        Sample loads = stageMetrics.always( LinkType.QR );
+        long start = loads.start();
+        Optional<QrConfigDto> replicated = localLinkStore.getQrConfig( qrKey );
+        if ( replicated.isPresent() )
+        {
+            loads.stop( Stage.CACHE_LOOKUP, Outcome.LOCAL_HIT, start );
+            return Optional.of( redirectConfigCache.cacheLocalQrConfig( qrKey, replicated.get() ) );
+        }
+        return redisGuard.hedge( () -> {
+            Optional<QrEntry> cached = redirectConfigCache.getQrConfig( qrKey, () -> refreshAhead( qrKey ) );
+            loads.stop( Stage.CACHE_LOOKUP, cached.isPresent() ? Outcome.REDIS_HIT : Outcome.MISS, start );
+            return cached.map( Optional::of );
+        }, () -> loadQr( qrKey ) );
+    }
+
+    /**
+     * Reload a QR snapshot from the database in the background before its Redis entry expires.
+     */
+    private void refreshAhead( String qrKey )
+    {
+        Thread.ofVirtual().name( "qr-refresh-ahead" ).start( () -> {
+            try
+            {
+                if ( qrRefreshes.executeIfIdle( qrKey, () -> loadQr( qrKey ) ) )
+                {
+                    log.debug( "🔄 Refreshed QR config ahead of expiry: {}", qrKey );
+                }
+            }
+            catch ( Exception e )
+            {
+                log.warn( "Early refresh failed for QR key: {}", qrKey, e );
+            }
+        } );
+    }
+
+    /**
+     * Build the QR snapshot from the database and cache it.
+     * Inactive and expired QR codes are cached too, so their scans stay off the database.
+     */
+    private Optional<QrEntry> loadQr( String qrKey )
+    {
+        Sample loads = stageMetrics.always( LinkType.QR );
+        long start = loads.start();
+        Optional<DynamicQrCodeEntity> entityOpt = dynamicQrCodeRepository.findByQrKey( qrKey );
+        if ( entityOpt.isEmpty() )
+        {
+            loads.stop( Stage.DB_FALLBACK, Outcome.NOT_FOUND, start );
+            return Optional.empty();
+        }
+        DynamicQrCodeEntity entity = entityOpt.get();
+        loads.stop( Stage.DB_FALLBACK, Boolean.TRUE.equals( entity.getIsActive() ) ? Outcome.FOUND : Outcome.INACTIVE,
+                    start );
+        long rulesStart = loads.start();
+        var rules = redirectRuleRepository.findByDynamicQrCodeIdOrderByPriorityDesc( entity.getId() ).stream()
+                .map( r -> RedirectRuleDto.builder().dimension( r.getDimension() ).value( r.getValue() )
+                        .destinationUrl( r.getDestinationUrl() ).priority( r.getPriority() ).build() )
+                .toList();
+        loads.stop( Stage.RULE_FETCH, rules.isEmpty() ? Outcome.NO_RULES : Outcome.FOUND, rulesStart );
+        QrConfigDto config = QrConfigDto.builder().id( entity.getId() )
+                .destinationUrl( entity.getCurrentDestinationUrl() ).rules( rules )
+                .active( Boolean.TRUE.equals( entity.getIsActive() ) ).expirationDate( entity.getExpirationDate() )
+                .scanLimit( entity.getScanLimit() ).allowedDomains( parseAllowedDomains( entity.getAllowedDomains() ) )
+                .passwordProtected( entity.getPassword() != null && !entity.getPassword().isEmpty() )
+                .trackAnalytics( Boolean.TRUE.equals( entity.getTrackAnalytics() ) )
+                .redirectType( entity.getRedirectType() ).cacheMaxAge( entity.getRedirectCacheMaxAge() ).build();
+        return Optional.of( redirectConfigCache.cacheQrConfig( qrKey, config ) );
     }
 
     /**
-     * Check if domain is allowed.
+     * Parse the allowed-domain JSON array once per load; the cache compiles it into an {@link AllowedDomains}.
      */
-    private boolean isDomainAllowed( String referer, String allowedDomainsJson )
+    private List<String> parseAllowedDomains( String allowedDomainsJson )
     {
-        if ( referer == null || referer.isEmpty() )
+        if ( allowedDomainsJson == null || allowedDomainsJson.isBlank() )
         {
-            return false; // Strict: require referer if domains are restricted
+            return List.of();
         }
         try
         {
-            List<String> domains = objectMapper.readValue( allowedDomainsJson, new TypeReference<List<String>>()
-            {} );
-            return domains.stream().anyMatch( referer::contains );
+            List<String> domains = objectMapper.readValue( allowedDomainsJson, DOMAIN_LIST );
+            return domains.stream().filter( d -> d != null && !d.isBlank() ).toList();
         }
         catch ( Exception e )
         {
-            // Fallback: simple string contains check
-            return allowedDomainsJson.contains( referer );
+            // Fallback: treat the value as a comma-separated list
+            return Arrays.stream( allowedDomainsJson.split( "," ) ).map( String::trim ).filter( d -> !d.isEmpty() )
+                    .toList();
         }
     }
 
     /**
-     * Publish QR scan event asynchronously to Kafka.
+     * Publish the raw scan to Kafka. Only request fields are captured here so the redirect
+     * does not wait on enrichment; the processor resolves geo, device and browser.
      */
-    @Async
-    private void publishScanEvent( String qrKey, HttpServletRequest request )
+    private void publishScanEvent( String qrKey, HttpServletRequest request, Sample sample )
     {
+        long start = sample.start();
         try
         {
-            String ipAddress = RequestUtils.getClientIpAddress( request );
-            String userAgent = RequestUtils.getUserAgent( request );
-            String referrer = RequestUtils.getReferrer( request );
-            // Resolve location
-            Map<String, String> location = geoIpService.resolveLocation( ipAddress );
-            QrScanEvent event = QrScanEvent.of( qrKey, ipAddress, userAgent, referrer, location.get( "country" ),
-                                                location.get( "city" ), RequestUtils.extractDeviceType( userAgent ),
-                                                RequestUtils.extractBrowser( userAgent ),
-                                                UUID.randomUUID().toString() );
+            QrScanEvent event = QrScanEvent.of( qrKey, RequestUtils.getClientIpAddress( request ),
+                                                RequestUtils.getUserAgent( request ),
+                                                RequestUtils.getReferrer( request ),
+                                                request.getHeader( "CF-IPCountry" ) );
             kafkaEventPublisher.publishQrScanEvent( event );
+            sample.stop( Stage.EVENT_PUBLISH, Outcome.QUEUED, start );
         }
         catch ( Exception e )
         {
+            sample.stop( Stage.EVENT_PUBLISH, Outcome.FAILED, start );
             log.error( "Error publishing scan event for key: {}", qrKey, e );
             // Don't fail redirect on analytics error
         }
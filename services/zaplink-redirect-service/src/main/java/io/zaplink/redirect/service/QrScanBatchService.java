@@ -0,0 +1,107 @@
+package io.zaplink.redirect.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.zaplink.redirect.repository.DynamicQrCodeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accumulates QR scans in memory and writes them back to total_scans/last_scanned in batches.
+ * Each replica adds only its own deltas with a relative UPDATE, so replicas never overwrite each other.
+ */
+@Service @Slf4j @RequiredArgsConstructor
+public class QrScanBatchService
+{
+    /**
+     * Scans not yet written back for one QR code.
+     */
+    private record ScanDelta( long count, LocalDateTime lastScanned )
+    {
+        ScanDelta merge( ScanDelta other )
+        {
+            return new ScanDelta( count + other.count,
+                                  lastScanned.isAfter( other.lastScanned ) ? lastScanned : other.lastScanned );
+        }
+    }
+    private final DynamicQrCodeRepository dynamicQrCodeRepository;
+    private final TransactionTemplate     transactionTemplate;
+    /**
+     * Key: QR code id. Values are immutable and replaced with merge(), and the flush takes each
+     * entry with remove(), so no scan recorded concurrently with a flush is lost.
+     */
+    private final Map<Long, ScanDelta>    pending = new ConcurrentHashMap<>();
+    /**
+     * Record one successful scan.
+     */
+    public void recordScan( Long qrId )
+    {
+        pending.merge( qrId, new ScanDelta( 1, LocalDateTime.now() ), ScanDelta::merge );
+    }
+
+    /**
+     * Scans recorded locally but not yet written back.
+     */
+    public long pendingScans( Long qrId )
+    {
+        ScanDelta delta = pending.get( qrId );
+        return delta != null ? delta.count() : 0;
+    }
+
+    @Scheduled(fixedRateString = "${redirect.qr.scan-flush-interval:5000}")
+    public void flush()
+    {
+        if ( pending.isEmpty() )
+        {
+            return;
+        }
+        int updated = 0;
+        long scans = 0;
+        for ( Long qrId : pending.keySet() )
+        {
+            ScanDelta delta = pending.remove( qrId );
+            if ( delta == null )
+            {
+                continue;
+            }
+            try
+            {
+                Integer rows = transactionTemplate.execute( status -> dynamicQrCodeRepository
+                        .incrementTotalScans( qrId, delta.count(), delta.lastScanned() ) );
+                if ( rows != null && rows > 0 )
+                {
+                    updated++;
+                    scans += delta.count();
+                }
+                else
+                {
+                    // QR code deleted since the scan; nothing to retry
+                    log.warn( "⚠️ QR code not found while writing back scans: {}", qrId );
+                }
+            }
+            catch ( Exception e )
+            {
+                log.error( "❌ Error writing back {} scans for QR code: {}", delta.count(), qrId, e );
+                // Re-add for retry in the next flush
+                pending.merge( qrId, delta, ScanDelta::merge );
+            }
+        }
+        log.debug( "✅ Wrote back {} scans for {} QR codes", scans, updated );
+    }
+
+    /**
+     * Flush pending scans before the application stops.
+     */
+    @PreDestroy
+    public void shutdown()
+    {
+        flush();
+    }
+}
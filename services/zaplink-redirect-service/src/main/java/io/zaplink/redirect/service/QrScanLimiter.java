@@ -0,0 +1,116 @@
+package io.zaplink.redirect.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.redirect.common.concurrent.CircuitBreaker;
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.repository.DynamicQrCodeRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Enforces QR scan limits with a cluster-wide Redis counter.
+ *
+ * The check and the increment run in one Lua script, so concurrent scans on any number of
+ * replicas can never push the count past the limit. A cold counter is seeded from the persisted
+ * total_scans plus this replica's scans that are not written back yet. If Redis is unavailable,
+ * or {@link RedisGuard} has opened its circuit breaker, the persisted count is checked instead.
+ */
+@Service @Slf4j
+public class QrScanLimiter
+{
+    private static final long             COLD_COUNTER  = -2;
+    private static final long             LIMIT_REACHED = -1;
+    private final StringRedisTemplate     redisTemplate;
+    private final DynamicQrCodeRepository dynamicQrCodeRepository;
+    private final QrScanBatchService      qrScanBatchService;
+    private final RedisGuard              redisGuard;
+    private final RedisScript<Long>       scanLimitScript;
+    private final String                  counterTtlSeconds;
+    private final Counter                 rejections;
+    public QrScanLimiter( StringRedisTemplate redisTemplate,
+                          DynamicQrCodeRepository dynamicQrCodeRepository,
+                          QrScanBatchService qrScanBatchService,
+                          RedisGuard redisGuard,
+                          MeterRegistry meterRegistry,
+                          @Value("${redirect.qr.scan-counter-ttl:30d}") Duration counterTtl )
+    {
+        this.redisTemplate = redisTemplate;
+        this.dynamicQrCodeRepository = dynamicQrCodeRepository;
+        this.qrScanBatchService = qrScanBatchService;
+        this.redisGuard = redisGuard;
+        this.scanLimitScript = RedisScript.of( new ClassPathResource( "redis/qr-scan-limit.lua" ), Long.class );
+        this.counterTtlSeconds = Long.toString( counterTtl.toSeconds() );
+        this.rejections = Counter.builder( "redirect.qr.scan.limit.rejections" )
+                .description( "QR scans rejected because the scan limit was reached" ).register( meterRegistry );
+    }
+
+    /**
+     * Count one scan against the QR code's limit.
+     *
+     * @return false if the limit has already been reached; true otherwise, including for QR codes without a limit
+     */
+    public boolean tryAcquire( String qrKey, QrConfigDto qr )
+    {
+        if ( qr.scanLimit() == null || qr.scanLimit() <= 0 )
+        {
+            return true;
+        }
+        long permit = redisGuard.tryAcquire();
+        if ( permit == CircuitBreaker.REJECTED )
+        {
+            return countAgainstDatabase( qr );
+        }
+        boolean allowed;
+        long start = System.nanoTime();
+        try
+        {
+            List<String> keys = List.of( RedisConstants.QR_SCAN_COUNTER_PREFIX + qrKey );
+            String limit = qr.scanLimit().toString();
+            Long result = redisTemplate.execute( scanLimitScript, keys, limit, counterTtlSeconds );
+            if ( result != null && result == COLD_COUNTER )
+            {
+                result = redisTemplate.execute( scanLimitScript, keys, limit, counterTtlSeconds,
+                                                Long.toString( persistedScans( qr.id() ) ) );
+            }
+            redisGuard.onSuccess( permit, start );
+            allowed = result == null || result != LIMIT_REACHED;
+        }
+        catch ( Exception e )
+        {
+            redisGuard.onFailure( permit, start );
+            log.warn( "Redis error enforcing scan limit for QR: {}, checking database", qrKey, e );
+            return countAgainstDatabase( qr );
+        }
+        if ( !allowed )
+        {
+            rejections.increment();
+        }
+        return allowed;
+    }
+
+    private boolean countAgainstDatabase( QrConfigDto qr )
+    {
+        boolean allowed = persistedScans( qr.id() ) < qr.scanLimit();
+        if ( !allowed )
+        {
+            rejections.increment();
+        }
+        return allowed;
+    }
+
+    private long persistedScans( Long qrId )
+    {
+        Long totalScans = dynamicQrCodeRepository.findTotalScansById( qrId );
+        return ( totalScans != null ? totalScans : 0 ) + qrScanBatchService.pendingScans( qrId );
+    }
+}
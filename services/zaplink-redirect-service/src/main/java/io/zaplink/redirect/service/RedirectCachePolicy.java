@@ -0,0 +1,71 @@
+package io.zaplink.redirect.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+
+/**
+ * Decides how long browsers and CDNs may cache a redirect.
+ *
+ * Only static links opt in: a cached redirect never reaches this service again, so links with
+ * rules, analytics, passwords, scan limits or referer checks always get an uncached 302. The
+ * max-age is capped by the configured limit and by the time left until the link expires, since
+ * a client-side copy cannot be purged when the link changes.
+ */
+@Component
+public class RedirectCachePolicy
+{
+    private final long maxAgeLimitSeconds;
+    public RedirectCachePolicy( @Value("${redirect.http-cache.max-age-limit:1d}") Duration maxAgeLimit )
+    {
+        this.maxAgeLimitSeconds = Math.max( 0, maxAgeLimit.toSeconds() );
+    }
+
+    /**
+     * @return seconds the URL redirect may be cached, 0 if it must not be
+     */
+    public long maxAge( RedirectConfigDto config )
+    {
+        boolean eligible = ( config.rules() == null || config.rules().isEmpty() ) && !config.trackAnalytics();
+        return eligible ? maxAge( config.redirectType(), config.cacheMaxAge(), config.expiresAt() ) : 0;
+    }
+
+    /**
+     * @return seconds the QR redirect may be cached, 0 if it must not be
+     */
+    public long maxAge( QrConfigDto qr )
+    {
+        boolean eligible = ( qr.rules() == null || qr.rules().isEmpty() ) && !qr.trackAnalytics()
+                && !qr.passwordProtected() && qr.scanLimit() == null
+                && ( qr.allowedDomains() == null || qr.allowedDomains().isEmpty() );
+        return eligible ? maxAge( qr.redirectType(), qr.cacheMaxAge(), qr.expirationDate() ) : 0;
+    }
+
+    /**
+     * Effective max-age: the link's own max-age (the limit for a permanent redirect without one),
+     * capped by the limit and by the seconds left until expiry.
+     */
+    long maxAge( RedirectType redirectType, Integer cacheMaxAge, LocalDateTime expiresAt )
+    {
+        long maxAge;
+        if ( cacheMaxAge != null )
+        {
+            maxAge = Math.min( cacheMaxAge, maxAgeLimitSeconds );
+        }
+        else
+        {
+            maxAge = redirectType == RedirectType.PERMANENT ? maxAgeLimitSeconds : 0;
+        }
+        if ( maxAge > 0 && expiresAt != null )
+        {
+            maxAge = Math.min( maxAge, Duration.between( LocalDateTime.now(), expiresAt ).toSeconds() );
+        }
+        return Math.max( 0, maxAge );
+    }
+}
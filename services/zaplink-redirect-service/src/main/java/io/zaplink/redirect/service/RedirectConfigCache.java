@@ -0,0 +1,302 @@
+package io.zaplink.redirect.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Two-tier cache for redirect configs and QR snapshots: a bounded in-process L1 in front of Redis.
+ *
+ * L1 hits are served without any network I/O. Entries are evicted by size,
+ * by a safety TTL, and by invalidation messages published by core.
+ * Each local entry carries the link's rules compiled once into a {@link CompiledRuleSet}.
+ *
+ * L1 lifetimes are jittered, and a Redis hit close to expiry may ask the caller to refresh the
+ * entry early (XFetch), so a popular key is reloaded by one request before it ever fully expires.
+ *
+ * Heavy-hitter URL keys can be pinned: they weigh nothing and never expire locally, so neither size
+ * nor time evicts them, and {@link #refreshPinnedUrlConfigs()} keeps them and their Redis TTL fresh.
+ */
+@Service @Slf4j
+public class RedirectConfigCache
+{
+    /**
+     * A cached config together with its compiled rules.
+     */
+    public record Entry( RedirectConfigDto config, CompiledRuleSet rules )
+    {
+    }
+    /**
+     * A cached QR snapshot together with its compiled rules and referer matcher.
+     */
+    public record QrEntry( QrConfigDto config, CompiledRuleSet rules, AllowedDomains allowedDomains )
+    {
+    }
+    private static final Duration        PINNED_TTL    = Duration.ofDays( 365 );
+    private final RedisService           redisService;
+    private final RuleEngine             ruleEngine;
+    private final Cache<String, Entry>   urlConfigs;
+    private final Cache<String, QrEntry> qrConfigs;
+    private final Duration               ttl;
+    private final Duration               negativeTtl;
+    private final double                 ttlJitter;
+    private final double                 earlyRefreshBeta;
+    private final Set<String>            pinnedUrlKeys = ConcurrentHashMap.newKeySet();
+    public RedirectConfigCache( RedisService redisService,
+                                RuleEngine ruleEngine,
+                                MeterRegistry meterRegistry,
+                                @Value("${redirect.cache.l1.max-size:100000}") long maxSize,
+                                @Value("${redirect.cache.l1.ttl:5m}") Duration ttl,
+                                @Value("${redirect.cache.negative-ttl:60s}") Duration negativeTtl,
+                                @Value("${redirect.cache.ttl-jitter:0.1}") double ttlJitter,
+                                @Value("${redirect.cache.early-refresh-beta:1.0}") double earlyRefreshBeta )
+    {
+        this.redisService = redisService;
+        this.ruleEngine = ruleEngine;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.ttlJitter = ttlJitter;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.urlConfigs = Caffeine.newBuilder().maximumWeight( maxSize )
+                .weigher( ( String key, Entry entry ) -> pinnedUrlKeys.contains( key ) ? 0 : 1 )
+                .expireAfter( Expiry.<String, Entry> writing( ( key, entry ) -> pinnedUrlKeys.contains( key )
+                        ? PINNED_TTL : entry.config().cacheTtl( jitteredTtl(), negativeTtl ) ) )
+                .recordStats().build();
+        this.qrConfigs = Caffeine.newBuilder().maximumSize( maxSize )
+                .expireAfter( Expiry.<String, QrEntry> writing( ( key, entry ) -> jitteredTtl() ) ).recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor( meterRegistry, urlConfigs, "redirect.l1.url" );
+        CaffeineCacheMetrics.monitor( meterRegistry, qrConfigs, "redirect.l1.qr" );
+    }
+
+    /**
+     * Get URL config from L1 only.
+     */
+    public Optional<Entry> getLocalUrlConfig( String shortUrlKey )
+    {
+        return Optional.ofNullable( urlConfigs.getIfPresent( shortUrlKey ) );
+    }
+
+    /**
+     * Get URL config from L1, falling back to Redis and populating L1 on a Redis hit.
+     *
+     * @param refreshAhead run when the Redis entry is close enough to expiry to be reloaded early
+     */
+    public Optional<Entry> getUrlConfig( String shortUrlKey, Runnable refreshAhead )
+    {
+        Entry local = urlConfigs.getIfPresent( shortUrlKey );
+        if ( local != null )
+        {
+            return Optional.of( local );
+        }
+        return redisService.getUrlConfig( shortUrlKey ).map( cached -> {
+            Entry entry = toEntry( cached.config() );
+            urlConfigs.put( shortUrlKey, entry );
+            if ( shouldRefreshEarly( cached.ttlMillis() ) )
+            {
+                refreshAhead.run();
+            }
+            return entry;
+        } );
+    }
+
+    /**
+     * Cache URL config in both tiers.
+     */
+    public Entry cacheUrlConfig( String shortUrlKey, RedirectConfigDto config )
+    {
+        Entry entry = toEntry( config );
+        urlConfigs.put( shortUrlKey, entry );
+        redisService.cacheUrlConfig( shortUrlKey, config );
+        return entry;
+    }
+
+    /**
+     * Cache URL config in L1 only, for configs that did not come from Redis or the database.
+     */
+    public Entry cacheLocalUrlConfig( String shortUrlKey, RedirectConfigDto config )
+    {
+        Entry entry = toEntry( config );
+        urlConfigs.put( shortUrlKey, entry );
+        return entry;
+    }
+
+    /**
+     * Replace the set of pinned URL keys. Entries already cached are re-weighed right away;
+     * keys not cached yet are pinned when they are next loaded.
+     */
+    public void pinUrlKeys( Set<String> keys )
+    {
+        for ( String key : pinnedUrlKeys )
+        {
+            if ( !keys.contains( key ) && pinnedUrlKeys.remove( key ) )
+            {
+                reinsert( key );
+                log.info( "📌 Unpinned URL key: {}", key );
+            }
+        }
+        for ( String key : keys )
+        {
+            if ( pinnedUrlKeys.add( key ) )
+            {
+                reinsert( key );
+                log.info( "📌 Pinned hot URL key: {}", key );
+            }
+        }
+    }
+
+    public Set<String> pinnedUrlKeys()
+    {
+        return Set.copyOf( pinnedUrlKeys );
+    }
+
+    /**
+     * Reload pinned entries from Redis, restarting their Redis TTL. Pinned entries never expire
+     * locally, so this also bounds how long one can outlive a missed invalidation message.
+     * A key gone from Redis is evicted and reloaded from the database by the next request.
+     */
+    public void refreshPinnedUrlConfigs()
+    {
+        for ( String key : pinnedUrlKeys )
+        {
+            redisService.touchUrlConfig( key ).ifPresentOrElse( config -> urlConfigs.put( key, toEntry( config ) ),
+                                                                 () -> urlConfigs.invalidate( key ) );
+        }
+    }
+
+    /**
+     * Re-put a cached entry so its weight and expiry are recomputed.
+     */
+    private void reinsert( String key )
+    {
+        urlConfigs.asMap().computeIfPresent( key, ( k, entry ) -> new Entry( entry.config(), entry.rules() ) );
+    }
+
+    /**
+     * Get QR snapshot from L1 only.
+     */
+    public Optional<QrEntry> getLocalQrConfig( String qrKey )
+    {
+        return Optional.ofNullable( qrConfigs.getIfPresent( qrKey ) );
+    }
+
+    /**
+     * Get QR snapshot from L1, falling back to Redis and populating L1 on a Redis hit.
+     *
+     * @param refreshAhead run when the Redis entry is close enough to expiry to be reloaded early
+     */
+    public Optional<QrEntry> getQrConfig( String qrKey, Runnable refreshAhead )
+    {
+        QrEntry local = qrConfigs.getIfPresent( qrKey );
+        if ( local != null )
+        {
+            return Optional.of( local );
+        }
+        return redisService.getQrConfig( qrKey ).map( cached -> {
+            QrEntry entry = toQrEntry( cached.config() );
+            qrConfigs.put( qrKey, entry );
+            if ( shouldRefreshEarly( cached.ttlMillis() ) )
+            {
+                refreshAhead.run();
+            }
+            return entry;
+        } );
+    }
+
+    /**
+     * Cache QR snapshot in both tiers.
+     */
+    public QrEntry cacheQrConfig( String qrKey, QrConfigDto config )
+    {
+        QrEntry entry = toQrEntry( config );
+        qrConfigs.put( qrKey, entry );
+        redisService.cacheQrConfig( qrKey, config );
+        return entry;
+    }
+
+    /**
+     * Cache QR snapshot in L1 only, for snapshots that did not come from Redis or the database.
+     */
+    public QrEntry cacheLocalQrConfig( String qrKey, QrConfigDto config )
+    {
+        QrEntry entry = toQrEntry( config );
+        qrConfigs.put( qrKey, entry );
+        return entry;
+    }
+
+    private Entry toEntry( RedirectConfigDto config )
+    {
+        return new Entry( config, ruleEngine.compile( config.rules() ) );
+    }
+
+    private QrEntry toQrEntry( QrConfigDto config )
+    {
+        return new QrEntry( config, ruleEngine.compile( config.rules() ),
+                            AllowedDomains.compile( config.allowedDomains() ) );
+    }
+
+    /**
+     * XFetch: refresh when remaining TTL &lt;= delta * beta * -ln(rand). A node only consults Redis
+     * once per L1 lifetime, so the L1 TTL is used as delta; the chance of an early refresh then
+     * rises smoothly over the last few L1 lifetimes of the Redis entry.
+     */
+    private boolean shouldRefreshEarly( long ttlMillis )
+    {
+        if ( ttlMillis <= 0 || earlyRefreshBeta <= 0 )
+        {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        return ttlMillis <= ttl.toMillis() * earlyRefreshBeta * -Math.log( random );
+    }
+
+    private Duration jitteredTtl()
+    {
+        if ( ttlJitter <= 0 )
+        {
+            return ttl;
+        }
+        double factor = 1 + ttlJitter * ( 2 * ThreadLocalRandom.current().nextDouble() - 1 );
+        return Duration.ofMillis( (long) ( ttl.toMillis() * factor ) );
+    }
+
+    /**
+     * Apply an invalidation message from the pub/sub channel.
+     * Only the local tier is evicted; core removes the Redis entry before publishing.
+     *
+     * @param message cache prefix plus key, e.g. "url:abc123"
+     */
+    public void onInvalidation( String message )
+    {
+        if ( message.startsWith( RedisConstants.URL_CACHE_PREFIX ) )
+        {
+            urlConfigs.invalidate( message.substring( RedisConstants.URL_CACHE_PREFIX.length() ) );
+        }
+        else if ( message.startsWith( RedisConstants.QR_CACHE_PREFIX ) )
+        {
+            qrConfigs.invalidate( message.substring( RedisConstants.QR_CACHE_PREFIX.length() ) );
+        }
+        else
+        {
+            log.warn( "Ignoring unknown cache invalidation message: {}", message );
+            return;
+        }
+        log.debug( "🗑️ Evicted L1 entry for: {}", message );
+    }
+}
@@ -0,0 +1,206 @@
+package io.zaplink.redirect.service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Per-stage latency of redirect resolution: redirect.stage timers tagged with stage, type (url/qr)
+ * and result, plus redirect.resolve timers and redirect.resolve.results counters per result type.
+ *
+ * Hot-path stages (L1 lookup, UA parsing, geo lookup, rule evaluation, event publish) are timed
+ * only for a sampled fraction of requests, decided once per request, so unsampled requests pay one
+ * random draw and no clock reads. Miss-path stages (Redis and local-store lookups, database
+ * fallback, rule fetch) are always timed; the database dwarfs the clock reads. Result counters are
+ * always exact; other per-request counters go through {@link #countSampled}. All tag values come
+ * from fixed sets and every meter is created once.
+ */
+@Service
+public class RedirectStageMetrics
+{
+    public enum LinkType {
+        URL, QR;
+
+        private final String tag = name().toLowerCase( Locale.ROOT );
+    }
+
+    public enum Stage {
+        CACHE_LOOKUP, DB_FALLBACK, RULE_FETCH, RULE_EVALUATION, GEO_LOOKUP, UA_PARSING, EVENT_PUBLISH;
+
+        private final String tag = name().toLowerCase( Locale.ROOT ).replace( '_', '-' );
+    }
+
+    public enum Outcome {
+        L1_HIT, L1_MISS, LOCAL_HIT, REDIS_HIT,
+        /** Neither the local store nor Redis had the key; the database is next. */
+        MISS,
+        FOUND, NOT_FOUND, INACTIVE, NO_RULES, MATCHED, DEFAULT,
+        /** Country taken from the CDN header. */
+        HEADER,
+        GEOIP, HUMAN, BOT, QUEUED, FAILED;
+
+        private final String tag = name().toLowerCase( Locale.ROOT ).replace( '_', '-' );
+    }
+
+    /**
+     * Stage timings for one request; {@link #start()} returns 0 and {@link #stop} does nothing
+     * when the request is not sampled.
+     */
+    public final class Sample
+    {
+        private final LinkType type;
+        private final boolean  sampled;
+        private final long     started;
+        private Sample( LinkType type, boolean sampled )
+        {
+            this.type = type;
+            this.sampled = sampled;
+            this.started = sampled ? System.nanoTime() : 0;
+        }
+
+        public long start()
+        {
+            return sampled ? System.nanoTime() : 0;
+        }
+
+        public void stop( Stage stage, Outcome outcome, long start )
+        {
+            if ( sampled )
+            {
+                stageTimer( stage, type, outcome ).record( System.nanoTime() - start, TimeUnit.NANOSECONDS );
+            }
+        }
+
+        /**
+         * Count the request's result and, if sampled, time the whole resolution.
+         */
+        public <R> R finish( R result )
+        {
+            ResultMeters meters = resultMeters[type.ordinal()].get( result.getClass() );
+            meters.results.increment();
+            if ( sampled )
+            {
+                meters.latency.record( System.nanoTime() - started, TimeUnit.NANOSECONDS );
+            }
+            return result;
+        }
+    }
+
+    private record ResultMeters( Counter results, Timer latency )
+    {
+    }
+    private static final int                  OUTCOMES = Outcome.values().length;
+    private static final int                  TYPES    = LinkType.values().length;
+    private final MeterRegistry               meterRegistry;
+    private final Duration[]                  slos;
+    private final boolean                     percentileHistogram;
+    private final double                      sampleRate;
+    private final AtomicReferenceArray<Timer> stageTimers;
+    private final ClassValue<ResultMeters>[]  resultMeters;
+    private final Sample[]                    unsampled;
+    private final Sample[]                    always;
+    @SuppressWarnings("unchecked")
+    public RedirectStageMetrics( MeterRegistry meterRegistry,
+                                 @Value("${redirect.metrics.sample-rate:0.1}") double sampleRate,
+                                 @Value("${redirect.metrics.slo:100us,500us,1ms,5ms,10ms,50ms,100ms}") Duration[] slos,
+                                 @Value("${redirect.metrics.percentile-histogram:false}") boolean percentileHistogram )
+    {
+        this.meterRegistry = meterRegistry;
+        this.slos = slos;
+        this.percentileHistogram = percentileHistogram;
+        this.sampleRate = sampleRate;
+        this.stageTimers = new AtomicReferenceArray<>( Stage.values().length * TYPES * OUTCOMES );
+        this.resultMeters = new ClassValue[TYPES];
+        this.unsampled = new Sample[TYPES];
+        this.always = new Sample[TYPES];
+        for ( LinkType type : LinkType.values() )
+        {
+            resultMeters[type.ordinal()] = new ClassValue<>()
+            {
+                @Override
+                protected ResultMeters computeValue( Class<?> resultType )
+                {
+                    return registerResultMeters( type, resultType );
+                }
+            };
+            unsampled[type.ordinal()] = new Sample( type, false );
+            always[type.ordinal()] = new Sample( type, true );
+        }
+    }
+
+    /**
+     * Start timing one request; whether its stages are timed is decided here.
+     */
+    public Sample begin( LinkType type )
+    {
+        return sample() ? new Sample( type, true ) : unsampled[type.ordinal()];
+    }
+
+    /**
+     * Count one event on a per-request counter at the sample rate: a sampled event adds
+     * 1 / sample-rate, so the counter estimates the total without every request touching it.
+     */
+    public void countSampled( Counter counter )
+    {
+        if ( sample() )
+        {
+            counter.increment( 1 / sampleRate );
+        }
+    }
+
+    /**
+     * A sample that always times; for miss-path stages and work that runs outside a request.
+     * Its {@link Sample#finish} timing is meaningless, so only use it for stages.
+     */
+    public Sample always( LinkType type )
+    {
+        return always[type.ordinal()];
+    }
+
+    private boolean sample()
+    {
+        return sampleRate >= 1.0 || ( sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate );
+    }
+
+    private Timer stageTimer( Stage stage, LinkType type, Outcome outcome )
+    {
+        int index = ( stage.ordinal() * TYPES + type.ordinal() ) * OUTCOMES + outcome.ordinal();
+        Timer timer = stageTimers.get( index );
+        if ( timer == null )
+        {
+            // The registry returns the existing timer if two requests race here
+            timer = histogram( Timer.builder( "redirect.stage" ) ).tag( "stage", stage.tag ).tag( "type", type.tag )
+                    .tag( "result", outcome.tag ).description( "Time spent in one stage of redirect resolution" )
+                    .register( meterRegistry );
+            stageTimers.set( index, timer );
+        }
+        return timer;
+    }
+
+    private ResultMeters registerResultMeters( LinkType type, Class<?> resultType )
+    {
+        // Success -> success, LimitReached -> limit-reached
+        String result = resultType.getSimpleName().replaceAll( "([a-z])([A-Z])", "$1-$2" )
+                .toLowerCase( Locale.ROOT );
+        Counter results = Counter.builder( "redirect.resolve.results" ).tag( "type", type.tag )
+                .tag( "result", result ).description( "Redirect resolutions by result" ).register( meterRegistry );
+        Timer latency = histogram( Timer.builder( "redirect.resolve" ) ).tag( "type", type.tag )
+                .tag( "result", result ).description( "Time to resolve a redirect (sampled)" )
+                .register( meterRegistry );
+        return new ResultMeters( results, latency );
+    }
+
+    private Timer.Builder histogram( Timer.Builder builder )
+    {
+        return builder.serviceLevelObjectives( slos ).publishPercentileHistogram( percentileHistogram );
+    }
+}
@@ -0,0 +1,257 @@
+package io.zaplink.redirect.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.redirect.common.concurrent.CircuitBreaker;
+import io.zaplink.redirect.common.concurrent.CircuitBreaker.State;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker and hedged reads for the Redis calls on the redirect path.
+ *
+ * A Redis command may take up to spring.data.redis.timeout, far longer than a redirect can wait.
+ * Every redirect-side Redis call asks {@link #tryAcquire()} first and reports how it went; once
+ * enough of the recent calls fail or are slow the breaker opens, and callers skip Redis and go
+ * straight to the database until a few trial calls show it has recovered.
+ *
+ * Reads are also hedged: {@link #hedge} gives Redis its recent p99 latency (within bounds) to
+ * answer, then starts the database lookup beside it and returns whichever result arrives first,
+ * so while the breaker is still deciding a Redis stall costs a redirect the hedge delay rather
+ * than the command timeout.
+ */
+@Service @Slf4j
+public class RedisGuard
+{
+    private final CircuitBreaker  breaker;
+    private final boolean         hedgeEnabled;
+    private final double          hedgeQuantile;
+    private final long            hedgeMinNanos;
+    private final long            hedgeMaxNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter         rejections;
+    private final Counter         redisWins;
+    private final Counter         databaseWins;
+    private volatile long         hedgeDelayNanos;
+    public RedisGuard( MeterRegistry meterRegistry,
+                       @Value("${redirect.redis.breaker.window-size:100}") int windowSize,
+                       @Value("${redirect.redis.breaker.minimum-calls:20}") int minimumCalls,
+                       @Value("${redirect.redis.breaker.failure-rate:0.5}") double failureRate,
+                       @Value("${redirect.redis.breaker.slow-call-threshold:100ms}") Duration slowCallThreshold,
+                       @Value("${redirect.redis.breaker.slow-call-rate:0.5}") double slowCallRate,
+                       @Value("${redirect.redis.breaker.open-duration:5s}") Duration openDuration,
+                       @Value("${redirect.redis.breaker.half-open-calls:5}") int halfOpenCalls,
+                       @Value("${redirect.redis.hedge.enabled:true}") boolean hedgeEnabled,
+                       @Value("${redirect.redis.hedge.quantile:0.99}") double hedgeQuantile,
+                       @Value("${redirect.redis.hedge.min-delay:2ms}") Duration hedgeMinDelay,
+                       @Value("${redirect.redis.hedge.max-delay:50ms}") Duration hedgeMaxDelay )
+    {
+        Counter.Builder transitions = Counter.builder( "redirect.redis.breaker.transitions" )
+                .description( "Redis circuit breaker state changes, by the state entered" );
+        Counter opened = transitions.tag( "state", "open" ).register( meterRegistry );
+        Counter halfOpened = transitions.tag( "state", "half-open" ).register( meterRegistry );
+        Counter closed = transitions.tag( "state", "closed" ).register( meterRegistry );
+        this.breaker = new CircuitBreaker( windowSize, minimumCalls, failureRate, slowCallThreshold.toNanos(),
+                                           slowCallRate, openDuration.toNanos(), halfOpenCalls, state -> {
+                                               switch ( state )
+                                               {
+                                                   case OPEN -> opened.increment();
+                                                   case HALF_OPEN -> halfOpened.increment();
+                                                   case CLOSED -> closed.increment();
+                                               }
+                                               log.warn( "Redis circuit breaker is now {}", state );
+                                           } );
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeQuantile = hedgeQuantile;
+        this.hedgeMinNanos = hedgeMinDelay.toNanos();
+        this.hedgeMaxNanos = hedgeMaxDelay.toNanos();
+        this.hedgeDelayNanos = hedgeMaxNanos;
+        for ( State state : State.values() )
+        {
+            Gauge.builder( "redirect.redis.breaker.state", breaker, b -> b.state() == state ? 1 : 0 )
+                    .tag( "state", state.name().toLowerCase().replace( '_', '-' ) )
+                    .description( "1 for the Redis circuit breaker's current state, 0 otherwise" )
+                    .register( meterRegistry );
+        }
+        this.rejections = Counter.builder( "redirect.redis.breaker.rejections" )
+                .description( "Redis calls skipped because the circuit breaker was open" ).register( meterRegistry );
+        Counter.Builder hedges = Counter.builder( "redirect.redis.hedges" )
+                .description( "Reads that outlasted the hedge delay, by which lookup answered first" );
+        this.redisWins = hedges.tag( "winner", "redis" ).register( meterRegistry );
+        this.databaseWins = hedges.tag( "winner", "database" ).register( meterRegistry );
+        Gauge.builder( "redirect.redis.hedge.delay", this, g -> g.hedgeDelayNanos / 1e9 ).baseUnit( "seconds" )
+                .description( "How long a read waits for Redis before starting the database lookup" )
+                .register( meterRegistry );
+    }
+
+    /**
+     * Whether a Redis call may be made now. A caller that is admitted must report the outcome with
+     * {@link #onSuccess} or {@link #onFailure}, passing the returned permit.
+     *
+     * @return the permit for the call, or {@link CircuitBreaker#REJECTED}
+     */
+    public long tryAcquire()
+    {
+        long permit = breaker.tryAcquire( System.nanoTime() );
+        if ( permit == CircuitBreaker.REJECTED )
+        {
+            rejections.increment();
+        }
+        return permit;
+    }
+
+    /**
+     * @param start {@link System#nanoTime()} before the call
+     */
+    public void onSuccess( long permit, long start )
+    {
+        long now = System.nanoTime();
+        breaker.onSuccess( permit, now - start, now );
+    }
+
+    /**
+     * @param start {@link System#nanoTime()} before the call
+     */
+    public void onFailure( long permit, long start )
+    {
+        long now = System.nanoTime();
+        breaker.onFailure( permit, now - start, now );
+    }
+
+    public State state()
+    {
+        return breaker.state();
+    }
+
+    /**
+     * Read through Redis, starting the fallback lookup if Redis has not answered within the hedge delay.
+     *
+     * @param read     the Redis read; an empty result means a miss
+     * @param fallback the database lookup, run after a miss or alongside a slow read
+     */
+    public <T> T hedge( Supplier<Optional<T>> read, Supplier<T> fallback )
+    {
+        if ( !hedgeEnabled || breaker.state() == State.OPEN )
+        {
+            // An open breaker makes the read return empty at once; no need to hand it to another thread
+            return read.get().orElseGet( fallback );
+        }
+        CompletableFuture<Optional<T>> pending = CompletableFuture.supplyAsync( read, executor );
+        Optional<T> result;
+        try
+        {
+            result = pending.get( hedgeDelayNanos, TimeUnit.NANOSECONDS );
+        }
+        catch ( TimeoutException e )
+        {
+            return race( pending, fallback );
+        }
+        catch ( ExecutionException e )
+        {
+            throw rethrow( e.getCause() );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted waiting for Redis", e );
+        }
+        return result.orElseGet( fallback );
+    }
+
+    /**
+     * Recompute the hedge delay from the latency of recent successful calls.
+     */
+    @Scheduled(fixedDelayString = "${redirect.redis.hedge.refresh-interval:1s}")
+    void updateHedgeDelay()
+    {
+        long latency = breaker.latencyQuantile( hedgeQuantile );
+        hedgeDelayNanos = latency < 0 ? hedgeMaxNanos : Math.clamp( latency, hedgeMinNanos, hedgeMaxNanos );
+    }
+
+    @PreDestroy
+    void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The first value from either lookup; fails only once Redis has missed or failed and the
+     * fallback has failed too, so a slow Redis hit still answers while the database is erroring.
+     */
+    private <T> T race( CompletableFuture<Optional<T>> pending, Supplier<T> fallback )
+    {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        // Lookups that have not produced a value yet; the fallback's error is passed on once both are done
+        AtomicInteger unanswered = new AtomicInteger( 2 );
+        AtomicReference<Throwable> fallbackError = new AtomicReference<>();
+        Runnable giveUp = () -> {
+            if ( unanswered.decrementAndGet() == 0 )
+            {
+                winner.completeExceptionally( fallbackError.get() );
+            }
+        };
+        pending.whenComplete( ( result, error ) -> {
+            if ( error == null && result.isPresent() )
+            {
+                if ( winner.complete( result.get() ) )
+                {
+                    redisWins.increment();
+                }
+            }
+            else
+            {
+                giveUp.run();
+            }
+        } );
+        CompletableFuture.supplyAsync( fallback, executor ).whenComplete( ( value, error ) -> {
+            if ( error != null )
+            {
+                fallbackError.set( error );
+                giveUp.run();
+            }
+            else if ( winner.complete( value ) )
+            {
+                databaseWins.increment();
+            }
+        } );
+        try
+        {
+            return winner.join();
+        }
+        catch ( CompletionException e )
+        {
+            throw rethrow( e.getCause() );
+        }
+    }
+
+    private static RuntimeException rethrow( Throwable cause )
+    {
+        if ( cause instanceof RuntimeException runtime )
+        {
+            return runtime;
+        }
+        if ( cause instanceof Error error )
+        {
+            throw error;
+        }
+        return new IllegalStateException( cause );
+    }
+}
@@ -1,107 +1,265 @@
 package io.zaplink.redirect.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import io.zaplink.redirect.common.codec.QrConfigCodec;
+import io.zaplink.redirect.common.codec.RedirectConfigCodec;
+import io.zaplink.redirect.common.concurrent.CircuitBreaker;
 import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.dto.QrConfigDto;
 import io.zaplink.redirect.dto.RedirectConfigDto;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Redis service for URL and QR code caching.
  * Provides fast lookups for redirect resolution.
+ *
+ * Every config read and write goes through {@link RedisGuard}: while its circuit breaker is open
+ * reads report a miss and writes are dropped without touching Redis. Cache fills are written
+ * before the request returns, so none can land after core's invalidation of the same key; the
+ * breaker bounds what a slow Redis costs them.
  */
-@Service @Slf4j @RequiredArgsConstructor
+@Service @Slf4j
 public class RedisService
 {
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper        objectMapper;
+    /**
+     * A cached config and the remaining TTL of its Redis entry, or -1 if unknown.
+     */
+    public record CachedConfig<T>( T config, long ttlMillis )
+    {
+    }
+    private final StringRedisTemplate           redisTemplate;
+    private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+    private final ObjectMapper                  objectMapper;
+    private final RedisGuard                    redisGuard;
+    private final boolean                       legacyJsonRead;
+    private final double                        ttlJitter;
+    private final Duration                      negativeTtl;
+    public RedisService( StringRedisTemplate redisTemplate,
+                         RedisTemplate<String, byte[]> binaryRedisTemplate,
+                         ObjectMapper objectMapper,
+                         RedisGuard redisGuard,
+                         @Value("${redirect.cache.legacy-json-read:true}") boolean legacyJsonRead,
+                         @Value("${redirect.cache.ttl-jitter:0.1}") double ttlJitter,
+                         @Value("${redirect.cache.negative-ttl:60s}") Duration negativeTtl )
+    {
+        this.redisTemplate = redisTemplate;
+        this.binaryRedisTemplate = binaryRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisGuard = redisGuard;
+        this.legacyJsonRead = legacyJsonRead;
+        this.ttlJitter = ttlJitter;
+        this.negativeTtl = negativeTtl;
+    }
+
     /**
      * Get cached URL config (original URL + rules) by short URL key.
      */
-    public Optional<RedirectConfigDto> getUrlConfig( String shortUrlKey )
+    public Optional<CachedConfig<RedirectConfigDto>> getUrlConfig( String shortUrlKey )
     {
+        Optional<CachedConfig<RedirectConfigDto>> cached = getConfig( RedisConstants.URL_CACHE_PREFIX, shortUrlKey,
+                                                                      RedirectConfigCodec::decode );
+        if ( cached.isEmpty() && legacyJsonRead )
+        {
+            return getLegacyUrlConfig( shortUrlKey );
+        }
+        return cached;
+    }
+
+    /**
+     * Cache URL Configuration. The entry never outlives the link's expiry, and terminal links are
+     * kept only for the negative TTL.
+     */
+    public void cacheUrlConfig( String shortUrlKey, RedirectConfigDto config )
+    {
+        cacheConfig( RedisConstants.URL_CACHE_PREFIX, shortUrlKey, RedirectConfigCodec.encode( config ),
+                     config.cacheTtl( jittered( RedisConstants.URL_CACHE_TTL ), negativeTtl ) );
+    }
+
+    /**
+     * Read a URL config and restart its TTL, so a pinned key never expires while its link is live.
+     * The new TTL follows the config as in {@link #cacheUrlConfig}: cut to the link's expiry, and
+     * not restarted at all for terminal or expired links, which keep their negative TTL.
+     */
+    public Optional<RedirectConfigDto> touchUrlConfig( String shortUrlKey )
+    {
+        long permit = redisGuard.tryAcquire();
+        if ( permit == CircuitBreaker.REJECTED )
+        {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
         try
         {
-            String key = RedisConstants.URL_CACHE_PREFIX + "config:" + shortUrlKey;
-            String value = redisTemplate.opsForValue().get( key );
-            if ( value != null )
+            String key = RedisConstants.URL_CACHE_PREFIX + RedisConstants.BINARY_CONFIG_SEGMENT + shortUrlKey;
+            byte[] bytes = binaryRedisTemplate.opsForValue().get( key );
+            if ( bytes == null )
             {
-                log.debug( "🔵 Cache HIT for URL config: {}", shortUrlKey );
-                return Optional.of( objectMapper.readValue( value, RedirectConfigDto.class ) );
+                redisGuard.onSuccess( permit, start );
+                return Optional.empty();
             }
-            log.debug( "🔴 Cache MISS for URL config: {}", shortUrlKey );
-            return Optional.empty();
+            RedirectConfigDto config = RedirectConfigCodec.decode( bytes );
+            if ( config.isRedirectable( LocalDateTime.now() ) )
+            {
+                Duration ttl = config.cacheTtl( jittered( RedisConstants.URL_CACHE_TTL ), negativeTtl );
+                if ( ttl.toMillis() > 0 )
+                {
+                    binaryRedisTemplate.expire( key, ttl );
+                }
+            }
+            redisGuard.onSuccess( permit, start );
+            return Optional.of( config );
         }
         catch ( Exception e )
         {
-            log.warn( "Redis error fetching URL config: {}", shortUrlKey, e );
+            redisGuard.onFailure( permit, start );
+            log.warn( "Redis error touching url:config: {}", shortUrlKey, e );
             return Optional.empty();
         }
     }
 
     /**
-     * Cache URL Configuration.
+     * Get cached QR snapshot by QR key.
      */
-    public void cacheUrlConfig( String shortUrlKey, RedirectConfigDto config )
+    public Optional<CachedConfig<QrConfigDto>> getQrConfig( String qrKey )
     {
+        return getConfig( RedisConstants.QR_CACHE_PREFIX, qrKey, QrConfigCodec::decode );
+    }
+
+    /**
+     * Cache QR snapshot.
+     */
+    public void cacheQrConfig( String qrKey, QrConfigDto config )
+    {
+        cacheConfig( RedisConstants.QR_CACHE_PREFIX, qrKey, QrConfigCodec.encode( config ),
+                     jittered( RedisConstants.QR_CACHE_TTL ) );
+    }
+
+    /**
+     * Read the binary entry and its remaining TTL in one round trip.
+     */
+    private <T> Optional<CachedConfig<T>> getConfig( String prefix, String key, Function<byte[], T> decoder )
+    {
+        long permit = redisGuard.tryAcquire();
+        if ( permit == CircuitBreaker.REJECTED )
+        {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
         try
         {
-            String key = RedisConstants.URL_CACHE_PREFIX + "config:" + shortUrlKey;
-            String json = objectMapper.writeValueAsString( config );
-            redisTemplate.opsForValue().set( key, json, RedisConstants.URL_CACHE_TTL );
-            log.debug( "📝 Cached URL config for key: {}", shortUrlKey );
+            byte[] binaryKey = ( prefix + RedisConstants.BINARY_CONFIG_SEGMENT + key )
+                    .getBytes( StandardCharsets.UTF_8 );
+            List<Object> results = binaryRedisTemplate.executePipelined( (RedisCallback<Object>) connection -> {
+                connection.stringCommands().get( binaryKey );
+                connection.keyCommands().pTtl( binaryKey );
+                return null;
+            } );
+            if ( results.get( 0 ) instanceof byte[] bytes )
+            {
+                log.debug( "🔵 Cache HIT for {}config: {}", prefix, key );
+                long ttlMillis = results.get( 1 ) instanceof Long pttl ? pttl : -1;
+                CachedConfig<T> cached = new CachedConfig<>( decoder.apply( bytes ), ttlMillis );
+                redisGuard.onSuccess( permit, start );
+                return Optional.of( cached );
+            }
+            redisGuard.onSuccess( permit, start );
+            log.debug( "🔴 Cache MISS for {}config: {}", prefix, key );
+            return Optional.empty();
         }
         catch ( Exception e )
         {
-            log.warn( "Redis error caching URL config: {}", shortUrlKey, e );
+            redisGuard.onFailure( permit, start );
+            log.warn( "Redis error fetching {}config: {}", prefix, key, e );
+            return Optional.empty();
         }
     }
 
     /**
-     * Get cached QR config by QR key.
+     * Fall back to the legacy JSON URL entry during migration.
+     * A legacy hit is re-written in binary form so later reads take the fast path.
      */
-    public Optional<RedirectConfigDto> getQrConfig( String qrKey )
+    private Optional<CachedConfig<RedirectConfigDto>> getLegacyUrlConfig( String shortUrlKey )
     {
+        long permit = redisGuard.tryAcquire();
+        if ( permit == CircuitBreaker.REJECTED )
+        {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
         try
         {
-            String key = RedisConstants.QR_CACHE_PREFIX + "config:" + qrKey;
-            String value = redisTemplate.opsForValue().get( key );
-            if ( value != null )
+            String json = redisTemplate.opsForValue()
+                    .get( RedisConstants.URL_CACHE_PREFIX + RedisConstants.CONFIG_SEGMENT + shortUrlKey );
+            if ( json == null )
             {
-                log.debug( "🔵 Cache HIT for QR config: {}", qrKey );
-                return Optional.of( objectMapper.readValue( value, RedirectConfigDto.class ) );
+                redisGuard.onSuccess( permit, start );
+                return Optional.empty();
             }
-            log.debug( "🔴 Cache MISS for QR config: {}", qrKey );
-            return Optional.empty();
+            log.debug( "🔵 Legacy JSON cache HIT for url:config: {}", shortUrlKey );
+            RedirectConfigDto config = objectMapper.readValue( json, RedirectConfigDto.class );
+            redisGuard.onSuccess( permit, start );
+            cacheUrlConfig( shortUrlKey, config );
+            return Optional.of( new CachedConfig<>( config, -1 ) );
         }
         catch ( Exception e )
         {
-            log.warn( "Redis error fetching QR config: {}", qrKey, e );
+            redisGuard.onFailure( permit, start );
+            log.warn( "Redis error fetching legacy url:config: {}", shortUrlKey, e );
             return Optional.empty();
         }
     }
 
-    /**
-     * Cache QR Config.
-     */
-    public void cacheQrConfig( String qrKey, RedirectConfigDto config )
+    private void cacheConfig( String prefix, String key, byte[] payload, Duration ttl )
     {
+        if ( ttl.toMillis() <= 0 )
+        {
+            return;
+        }
+        long permit = redisGuard.tryAcquire();
+        if ( permit == CircuitBreaker.REJECTED )
+        {
+            return;
+        }
+        long start = System.nanoTime();
         try
         {
-            String key = RedisConstants.QR_CACHE_PREFIX + "config:" + qrKey;
-            String json = objectMapper.writeValueAsString( config );
-            redisTemplate.opsForValue().set( key, json, RedisConstants.QR_CACHE_TTL );
-            log.debug( "📝 Cached QR config for key: {}", qrKey );
+            binaryRedisTemplate.opsForValue().set( prefix + RedisConstants.BINARY_CONFIG_SEGMENT + key, payload,
+                                                   ttl );
+            redisGuard.onSuccess( permit, start );
+            log.debug( "📝 Cached {}config for key: {}", prefix, key );
         }
         catch ( Exception e )
         {
-            log.warn( "Redis error caching QR config: {}", qrKey, e );
+            redisGuard.onFailure( permit, start );
+            log.warn( "Redis error caching {}config: {}", prefix, key, e );
+        }
+    }
+
+    /**
+     * Spread expirations by +/- ttlJitter so entries written together do not expire together.
+     */
+    private Duration jittered( Duration ttl )
+    {
+        if ( ttlJitter <= 0 )
+        {
+            return ttl;
         }
+        double factor = 1 + ttlJitter * ( 2 * ThreadLocalRandom.current().nextDouble() - 1 );
+        return Duration.ofMillis( (long) ( ttl.toMillis() * factor ) );
     }
 
     /**
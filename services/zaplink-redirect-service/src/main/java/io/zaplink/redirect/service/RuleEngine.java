@@ -5,12 +5,14 @@ import java.util.Optional;
 
 import org.springframework.stereotype.Component;
 
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
 import io.zaplink.redirect.entity.RedirectRuleEntity;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Deterministic engine for evaluating routing rules.
+ * Rules are compiled once per link into a {@link CompiledRuleSet} and evaluated with hash probes.
  */
 @Component @Slf4j
 public class RuleEngine
@@ -25,6 +27,36 @@ public class RuleEngine
     )
     {
     }
+    /**
+     * Compile priority-sorted rules into an immutable decision structure.
+     *
+     * @param rules Sorted list of rules
+     * @return compiled rules, safe to cache and share between threads
+     */
+    public CompiledRuleSet compile( List<RedirectRuleDto> rules )
+    {
+        return CompiledRuleSet.compile( rules );
+    }
+
+    /**
+     * Evaluate compiled rules against the request attributes. Allocation-free.
+     *
+     * @return destination URL of the best matching rule, or null if none matches
+     */
+    public String evaluate( CompiledRuleSet rules, String deviceType, String os, String country )
+    {
+        if ( rules.isEmpty() )
+        {
+            return null;
+        }
+        String destination = rules.match( deviceType, os, country );
+        if ( destination != null && log.isDebugEnabled() )
+        {
+            log.debug( "Rule matched ({}, {}, {}) -> {}", deviceType, os, country, destination );
+        }
+        return destination;
+    }
+
     /**
      * Evaluate rules against the context to find the best matching destination.
      * Rules are expected to be pre-sorted by priority.
@@ -39,27 +71,10 @@ public class RuleEngine
         {
             return Optional.empty();
         }
-        for ( RedirectRuleEntity rule : rules )
-        {
-            if ( matches( rule, context ) )
-            {
-                log.debug( "Rule matched: {} -> {}", rule.getDimension(), rule.getDestinationUrl() );
-                return Optional.of( rule.getDestinationUrl() );
-            }
-        }
-        return Optional.empty();
-    }
-
-    private boolean matches( RedirectRuleEntity rule, RoutingContext context )
-    {
-        String ruleValue = rule.getValue();
-        if ( ruleValue == null )
-            return false;
-        return switch ( rule.getDimension() )
-        {
-            case DEVICE_TYPE -> ruleValue.equalsIgnoreCase( context.deviceType() );
-            case OS -> ruleValue.equalsIgnoreCase( context.os() );
-            case COUNTRY -> ruleValue.equalsIgnoreCase( context.country() );
-        };
+        CompiledRuleSet compiled = compile( rules.stream()
+                .map( r -> new RedirectRuleDto( r.getDimension(), r.getValue(), r.getDestinationUrl(),
+                                                r.getPriority() != null ? r.getPriority() : 0 ) )
+                .toList() );
+        return Optional.ofNullable( evaluate( compiled, context.deviceType(), context.os(), context.country() ) );
     }
 }
@@ -1,21 +1,27 @@
 package io.zaplink.redirect.service;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zaplink.enrichment.UaProfile;
+import io.zaplink.redirect.common.concurrent.SingleFlight;
+import io.zaplink.redirect.common.enums.RedirectType;
 import io.zaplink.redirect.common.enums.UrlStatusEnum;
 import io.zaplink.redirect.dto.RedirectConfigDto;
 import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
 import io.zaplink.redirect.dto.event.UrlClickEvent;
-import io.zaplink.redirect.entity.RedirectRuleEntity;
 import io.zaplink.redirect.entity.UrlMappingEntity;
 import io.zaplink.redirect.repository.RedirectRuleRepository;
 import io.zaplink.redirect.repository.UrlMappingRepository;
+import io.zaplink.redirect.service.RedirectStageMetrics.LinkType;
+import io.zaplink.redirect.service.RedirectStageMetrics.Outcome;
+import io.zaplink.redirect.service.RedirectStageMetrics.Sample;
+import io.zaplink.redirect.service.RedirectStageMetrics.Stage;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,12 +33,40 @@ import lombok.extern.slf4j.Slf4j;
 @Service @Slf4j @RequiredArgsConstructor
 public class UrlRedirectService
 {
-    private final UrlMappingRepository   urlMappingRepository;
-    private final RedirectRuleRepository redirectRuleRepository;
-    private final RedisService           redisService;
-    private final GeoIpService           geoIpService;
-    private final RuleEngine             ruleEngine;
-    private final KafkaEventPublisher    kafkaEventPublisher;
+    private final UrlMappingRepository            urlMappingRepository;
+    private final RedirectRuleRepository          redirectRuleRepository;
+    private final RedirectConfigCache             redirectConfigCache;
+    private final GeoIpService                    geoIpService;
+    private final RuleEngine                      ruleEngine;
+    private final KafkaEventPublisher             kafkaEventPublisher;
+    private final KnownKeyFilter                  knownKeyFilter;
+    private final MeterRegistry                   meterRegistry;
+    private final UserAgentClassifier             userAgentClassifier;
+    private final HotKeyTracker                   hotKeyTracker;
+    private final RedirectCachePolicy             redirectCachePolicy;
+    private final LocalLinkStore                  localLinkStore;
+    private final RedirectStageMetrics            stageMetrics;
+    private final ClientRateLimiter               clientRateLimiter;
+    private final RedisGuard                      redisGuard;
+    /**
+     * Concurrent misses for the same key share one load; early refreshes are tracked separately.
+     */
+    private final SingleFlight<String, UrlLookup> urlLoads     = new SingleFlight<>();
+    private final SingleFlight<String, UrlLookup> urlRefreshes = new SingleFlight<>();
+    /**
+     * Outcome of loading a link after an L1 miss: a cache entry, or the result to return instead.
+     */
+    private record UrlLookup( RedirectConfigCache.Entry entry, RedirectResult failure )
+    {
+    }
+    @PostConstruct
+    void registerMetrics()
+    {
+        FunctionCounter.builder( "redirect.singleflight.coalesced", urlLoads, SingleFlight::coalescedCount )
+                .tag( "type", "url" ).description( "Cache misses that joined another request's load" )
+                .register( meterRegistry );
+    }
+
     /**
      * Result of URL redirect resolution.
      */
@@ -41,12 +75,21 @@ public class UrlRedirectService
         RedirectResult.Success,
         RedirectResult.NotFound,
         RedirectResult.Expired,
-        RedirectResult.Inactive
+        RedirectResult.Inactive,
+        RedirectResult.RateLimited
     {
-        record Success( String destinationUrl )
+        /**
+         * @param permanent     answer with 301 instead of 302; only honoured when maxAgeSeconds is positive
+         * @param maxAgeSeconds Cache-Control max-age for the redirect, 0 if it must not be cached
+         */
+        record Success( String destinationUrl, boolean permanent, long maxAgeSeconds )
             implements
             RedirectResult
         {
+            public Success( String destinationUrl )
+            {
+                this( destinationUrl, false, 0 );
+            }
         }
         record NotFound()
             implements
@@ -63,6 +106,14 @@ public class UrlRedirectService
             RedirectResult
         {
         }
+        /**
+         * The client exceeded its rate limit; no analytics event is published.
+         */
+        record RateLimited()
+            implements
+            RedirectResult
+        {
+        }
     }
     /**
      * Resolve URL redirect and publish analytics event.
@@ -72,111 +123,228 @@ public class UrlRedirectService
      * @return RedirectResult indicating success or failure reason
      */
     public RedirectResult resolveAndTrack( String urlKey, HttpServletRequest request )
+    {
+        Sample sample = stageMetrics.begin( LinkType.URL );
+        return sample.finish( resolve( urlKey, request, sample, true ) );
+    }
+
+    /**
+     * Resolve a URL redirect for a crawler, link-preview fetcher or HEAD request: the same checks,
+     * but always the link's default destination and no analytics event.
+     */
+    public RedirectResult resolveUntracked( String urlKey, HttpServletRequest request )
+    {
+        Sample sample = stageMetrics.begin( LinkType.URL );
+        return sample.finish( resolve( urlKey, request, sample, false ) );
+    }
+
+    /**
+     * @param track evaluate the link's rules and publish a click event; false for crawlers
+     */
+    private RedirectResult resolve( String urlKey, HttpServletRequest request, Sample sample, boolean track )
     {
         log.debug( "Resolving URL redirect for key: {}", urlKey );
-        // 1. Try Redis cache (New Config format)
-        Optional<RedirectConfigDto> cachedConfig = redisService.getUrlConfig( urlKey );
-        RedirectConfigDto config = null;
-        if ( cachedConfig.isPresent() )
+        // 0. Keys that were never created are rejected without any I/O
+        if ( !knownKeyFilter.mightContainUrlKey( urlKey ) )
         {
-            config = cachedConfig.get();
+            log.debug( "URL key rejected by known-key filter: {}", urlKey );
+            return new RedirectResult.NotFound();
         }
-        else
+        hotKeyTracker.record( urlKey );
+        // 1. Try L1; on a miss, one request per key goes to Redis and then the database
+        long l1Start = sample.start();
+        RedirectConfigCache.Entry entry = redirectConfigCache.getLocalUrlConfig( urlKey ).orElse( null );
+        sample.stop( Stage.CACHE_LOOKUP, entry != null ? Outcome.L1_HIT : Outcome.L1_MISS, l1Start );
+        // Clients over their budget are turned away before a miss can reach Redis or the database
+        if ( !clientRateLimiter.tryAcquire( request, entry != null ) )
         {
-            // 2. Cache miss - query database
-            // Try legacy string cache first (migration path)? No, just hit DB.
-            Optional<UrlMappingEntity> entityOpt = urlMappingRepository.findByShortUrlKey( urlKey );
-            if ( entityOpt.isEmpty() )
-            {
-                log.warn( "URL not found for key: {}", urlKey );
-                return new RedirectResult.NotFound();
-            }
-            UrlMappingEntity entity = entityOpt.get();
-            // Check status
-            if ( entity.getStatus() != UrlStatusEnum.ACTIVE )
+            return new RedirectResult.RateLimited();
+        }
+        if ( entry == null )
+        {
+            UrlLookup lookup = urlLoads.execute( urlKey, () -> lookupUrl( urlKey ) );
+            if ( lookup.failure() != null )
             {
-                return switch ( entity.getStatus() )
-                {
-                    case EXPIRED -> new RedirectResult.Expired();
-                    case DELETED, DISABLED -> new RedirectResult.Inactive();
-                    default -> new RedirectResult.Inactive();
-                };
+                return lookup.failure();
             }
-            // Check expiration
-            if ( entity.getExpiresAt() != null && entity.getExpiresAt().isBefore( LocalDateTime.now() ) )
+            entry = lookup.entry();
+        }
+        // 2. Check status and expiration; the cached entry may outlive the link by up to the negative TTL
+        RedirectConfigDto config = entry.config();
+        if ( !config.isRedirectable( LocalDateTime.now() ) )
+        {
+            return switch ( config.status() )
             {
-                log.info( "URL expired for key: {}", urlKey );
-                return new RedirectResult.Expired();
-            }
-            // Fetch Rules
-            var rules = redirectRuleRepository.findByUrlMappingIdOrderByPriorityDesc( entity.getId() ).stream()
-                    .map( r -> RedirectRuleDto.builder().dimension( r.getDimension() ).value( r.getValue() )
-                            .destinationUrl( r.getDestinationUrl() ).priority( r.getPriority() ).build() )
-                    .toList();
-            config = RedirectConfigDto.builder().originalUrl( entity.getOriginalUrl() ).rules( rules ).build();
-            // Cache it
-            redisService.cacheUrlConfig( urlKey, config );
+                case ACTIVE, EXPIRED -> new RedirectResult.Expired();
+                case DELETED, DISABLED -> new RedirectResult.Inactive();
+            };
         }
         // 3. Smart Resolution
         String finalDestination = config.originalUrl();
-        // Build Context
-        // Build Context
         // TODO: Validate Business Plan Plan (Mock for now - implementation requires fetching User Plan from DB/Cache)
         boolean hasBusinessPlan = true;
-        if ( !config.rules().isEmpty() && hasBusinessPlan )
+        CompiledRuleSet rules = entry.rules();
+        if ( track && !rules.isEmpty() && hasBusinessPlan )
+        {
+            // Only compute the attributes the link's rules actually depend on
+            String deviceType = null;
+            String os = null;
+            if ( rules.usesUserAgent() )
+            {
+                long uaStart = sample.start();
+                UaProfile ua = userAgentClassifier.classify( request );
+                sample.stop( Stage.UA_PARSING, ua.bot() ? Outcome.BOT : Outcome.HUMAN, uaStart );
+                deviceType = ua.deviceType();
+                os = ua.os();
+            }
+            String country = null;
+            if ( rules.usesCountry() )
+            {
+                long geoStart = sample.start();
+                // Extract Country from Cloudflare Header or GeoIP
+                country = request.getHeader( "CF-IPCountry" );
+                Outcome source = Outcome.HEADER;
+                if ( country == null || country.isEmpty() )
+                {
+                    country = geoIpService.resolveLocation( request ).country();
+                    source = Outcome.GEOIP;
+                }
+                sample.stop( Stage.GEO_LOOKUP, source, geoStart );
+            }
+            long evaluationStart = sample.start();
+            String smartDest = ruleEngine.evaluate( rules, deviceType, os, country );
+            sample.stop( Stage.RULE_EVALUATION, smartDest != null ? Outcome.MATCHED : Outcome.DEFAULT,
+                         evaluationStart );
+            if ( smartDest != null )
+            {
+                finalDestination = smartDest;
+            }
+        }
+        if ( track && config.trackAnalytics() )
+        {
+            publishClickEvent( urlKey, request, sample );
+        }
+        return new RedirectResult.Success( finalDestination, config.redirectType() == RedirectType.PERMANENT,
+                                           redirectCachePolicy.maxAge( config ) );
+    }
+
+    /**
+     * Load a link into L1 (and Redis, if it was not there) ahead of traffic.
+     *
+     * @return true if the key resolved to an active link that is now cached
+     */
+    public boolean warm( String urlKey )
+    {
+        RedirectConfigCache.Entry entry = urlLoads.execute( urlKey, () -> lookupUrl( urlKey ) ).entry();
+        return entry != null && entry.config().isRedirectable( LocalDateTime.now() );
+    }
+
+    /**
+     * Load a link after an L1 miss: the local link store first, then Redis, then the database.
+     * A slow Redis read is hedged with the database lookup.
+     */
+    private UrlLookup lookupUrl( String urlKey )
+    {
+        Sample loads = stageMetrics.always( LinkType.URL );
+        long start = loads.start();
+        Optional<RedirectConfigDto> replicated = localLinkStore.getUrlConfig( urlKey );
+        if ( replicated.isPresent() )
         {
-            String ip = RequestUtils.getClientIpAddress( request );
-            String ua = RequestUtils.getUserAgent( request );
-            // Extract Country from Cloudflare Header or GeoIP
-            String country = request.getHeader( "CF-IPCountry" );
-            if ( country == null || country.isEmpty() )
+            loads.stop( Stage.CACHE_LOOKUP, Outcome.LOCAL_HIT, start );
+            return new UrlLookup( redirectConfigCache.cacheLocalUrlConfig( urlKey, replicated.get() ), null );
+        }
+        return redisGuard.hedge( () -> {
+            Optional<RedirectConfigCache.Entry> cached = redirectConfigCache
+                    .getUrlConfig( urlKey, () -> refreshAhead( urlKey ) );
+            loads.stop( Stage.CACHE_LOOKUP, cached.isPresent() ? Outcome.REDIS_HIT : Outcome.MISS, start );
+            return cached.map( entry -> new UrlLookup( entry, null ) );
+        }, () -> loadUrl( urlKey ) );
+    }
+
+    /**
+     * Reload a link from the database in the background before its Redis entry expires.
+     */
+    private void refreshAhead( String urlKey )
+    {
+        Thread.ofVirtual().name( "url-refresh-ahead" ).start( () -> {
+            try
             {
-                country = geoIpService.resolveLocation( ip ).get( "country" );
+                if ( urlRefreshes.executeIfIdle( urlKey, () -> loadUrl( urlKey ) ) )
+                {
+                    log.debug( "🔄 Refreshed URL config ahead of expiry: {}", urlKey );
+                }
             }
-            var context = RuleEngine.RoutingContext.builder().deviceType( RequestUtils.extractDeviceType( ua ) )
-                    .os( RequestUtils.extractOS( ua ) ).country( country ).build();
-            // Map DTO rules to Entity rules for Engine (or overload Engine to take DTO)
-            // I'll overload Engine to take DTO or map back. Mapping back is silly.
-            // I should update RuleEngine to be generic or take DTO.
-            // For now, I'll map DTO back to Entity or creates a simple adapter?
-            // Actually RuleEngine takes List<RedirectRuleEntity>.
-            // I will modify RuleEngine to take List<? extends Rule> interface?
-            // Or i'll just create dummy entities from DTO.
-            var entityRules = config
-                    .rules().stream().map( r -> RedirectRuleEntity.builder().dimension( r.dimension() )
-                            .value( r.value() ).destinationUrl( r.destinationUrl() ).priority( r.priority() ).build() )
-                    .toList();
-            Optional<String> smartDest = ruleEngine.evaluate( entityRules, context );
-            if ( smartDest.isPresent() )
+            catch ( Exception e )
             {
-                finalDestination = smartDest.get();
+                log.warn( "Early refresh failed for key: {}", urlKey, e );
             }
+        } );
+    }
+
+    /**
+     * Cache miss - query database and cache the link's config, or a negative entry if it is no
+     * longer active.
+     */
+    private UrlLookup loadUrl( String urlKey )
+    {
+        Sample loads = stageMetrics.always( LinkType.URL );
+        long start = loads.start();
+        Optional<UrlMappingEntity> entityOpt = urlMappingRepository.findByShortUrlKey( urlKey );
+        if ( entityOpt.isEmpty() )
+        {
+            loads.stop( Stage.DB_FALLBACK, Outcome.NOT_FOUND, start );
+            log.warn( "URL not found for key: {}", urlKey );
+            return new UrlLookup( null, new RedirectResult.NotFound() );
+        }
+        UrlMappingEntity entity = entityOpt.get();
+        // Terminal and expired links are cached as short-lived negative entries
+        UrlStatusEnum status = entity.getStatus();
+        if ( status == UrlStatusEnum.ACTIVE && entity.getExpiresAt() != null
+                && entity.getExpiresAt().isBefore( LocalDateTime.now() ) )
+        {
+            log.info( "URL expired for key: {}", urlKey );
+            status = UrlStatusEnum.EXPIRED;
+        }
+        loads.stop( Stage.DB_FALLBACK, status == UrlStatusEnum.ACTIVE ? Outcome.FOUND : Outcome.INACTIVE, start );
+        if ( status != UrlStatusEnum.ACTIVE )
+        {
+            return new UrlLookup( redirectConfigCache.cacheUrlConfig( urlKey, RedirectConfigDto.terminal( status ) ),
+                                  null );
         }
-        publishClickEvent( urlKey, request );
-        return new RedirectResult.Success( finalDestination );
+        // Fetch Rules
+        long rulesStart = loads.start();
+        var rules = redirectRuleRepository.findByUrlMappingIdOrderByPriorityDesc( entity.getId() ).stream()
+                .map( r -> RedirectRuleDto.builder().dimension( r.getDimension() ).value( r.getValue() )
+                        .destinationUrl( r.getDestinationUrl() ).priority( r.getPriority() ).build() )
+                .toList();
+        loads.stop( Stage.RULE_FETCH, rules.isEmpty() ? Outcome.NO_RULES : Outcome.FOUND, rulesStart );
+        RedirectConfigDto config = RedirectConfigDto.builder().originalUrl( entity.getOriginalUrl() ).rules( rules )
+                .redirectType( entity.getRedirectType() ).cacheMaxAge( entity.getRedirectCacheMaxAge() )
+                .trackAnalytics( entity.getTrackAnalytics() ).expiresAt( entity.getExpiresAt() ).status( status )
+                .build();
+        // Cache it (rules are compiled once here and reused by every hit)
+        return new UrlLookup( redirectConfigCache.cacheUrlConfig( urlKey, config ), null );
     }
 
     /**
-     * Publish click event asynchronously to Kafka.
+     * Publish the raw click to Kafka. Only request fields are captured here so the redirect
+     * does not wait on enrichment; the processor resolves geo, device and browser.
      */
-    @Async
-    public void publishClickEvent( String urlKey, HttpServletRequest request )
+    private void publishClickEvent( String urlKey, HttpServletRequest request, Sample sample )
     {
+        long start = sample.start();
         try
         {
-            String ipAddress = RequestUtils.getClientIpAddress( request );
-            String userAgent = RequestUtils.getUserAgent( request );
-            String referrer = RequestUtils.getReferrer( request );
-            // Resolve location
-            Map<String, String> location = geoIpService.resolveLocation( ipAddress );
-            UrlClickEvent event = UrlClickEvent.of( urlKey, ipAddress, userAgent, referrer, location.get( "country" ),
-                                                    location.get( "city" ), RequestUtils.extractDeviceType( userAgent ),
-                                                    RequestUtils.extractBrowser( userAgent ),
-                                                    UUID.randomUUID().toString() );
+            UrlClickEvent event = UrlClickEvent.of( urlKey, RequestUtils.getClientIpAddress( request ),
+                                                    RequestUtils.getUserAgent( request ),
+                                                    RequestUtils.getReferrer( request ),
+                                                    request.getHeader( "CF-IPCountry" ) );
             kafkaEventPublisher.publishUrlClickEvent( event );
+            sample.stop( Stage.EVENT_PUBLISH, Outcome.QUEUED, start );
         }
         catch ( Exception e )
         {
+            sample.stop( Stage.EVENT_PUBLISH, Outcome.FAILED, start );
             log.error( "Error publishing click event for key: {}", urlKey, e );
             // Don't fail redirect on analytics error
         }
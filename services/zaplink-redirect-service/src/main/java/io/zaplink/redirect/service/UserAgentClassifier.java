@@ -0,0 +1,58 @@
+package io.zaplink.redirect.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.zaplink.enrichment.UaProfile;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Memoizing front of {@link UaProfile#parse(String)}.
+ *
+ * Real traffic comes from a small set of distinct User-Agent strings, so a bounded cache keyed by
+ * the raw header answers almost every request with one hash lookup. Unusually long headers are
+ * classified but not cached, so they cannot crowd out the common ones.
+ */
+@Component
+public class UserAgentClassifier
+{
+    private final Cache<String, UaProfile> profiles;
+    private final int                      maxCachedLength;
+    public UserAgentClassifier( MeterRegistry meterRegistry,
+                                @Value("${redirect.user-agent.cache-size:10000}") long cacheSize,
+                                @Value("${redirect.user-agent.max-cached-length:512}") int maxCachedLength )
+    {
+        this.maxCachedLength = maxCachedLength;
+        this.profiles = Caffeine.newBuilder().maximumSize( cacheSize ).recordStats().build();
+        CaffeineCacheMetrics.monitor( meterRegistry, profiles, "redirect.user-agent" );
+    }
+
+    /**
+     * Classify the request's User-Agent header.
+     */
+    public UaProfile classify( HttpServletRequest request )
+    {
+        return classify( RequestUtils.getUserAgent( request ) );
+    }
+
+    /**
+     * Classify a raw User-Agent string, may be null.
+     */
+    public UaProfile classify( String userAgent )
+    {
+        if ( userAgent == null )
+        {
+            return UaProfile.UNKNOWN;
+        }
+        if ( userAgent.length() > maxCachedLength )
+        {
+            return UaProfile.parse( userAgent );
+        }
+        return profiles.get( userAgent, UaProfile::parse );
+    }
+}
@@ -0,0 +1,21 @@
+-- Atomically counts one QR scan against its scan limit.
+-- KEYS[1]  scan counter key
+-- ARGV[1]  scan limit
+-- ARGV[2]  counter TTL in seconds
+-- ARGV[3]  optional seed: the persisted scan count, used when the counter does not exist yet
+-- Returns the new count, -1 if the limit was already reached, or -2 if the counter is cold and no seed was given.
+local current = redis.call('GET', KEYS[1])
+if not current then
+    if not ARGV[3] then
+        return -2
+    end
+    current = ARGV[3]
+    -- Expire the seed too: an exhausted counter returns below without reaching the EXPIRE
+    redis.call('SET', KEYS[1], current, 'EX', ARGV[2])
+end
+if tonumber(current) >= tonumber(ARGV[1]) then
+    return -1
+end
+local count = redis.call('INCR', KEYS[1])
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return count
@@ -0,0 +1,57 @@
+package io.zaplink.redirect.common.bloom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest
+{
+    @Test
+    void mightContain_NoFalseNegatives()
+    {
+        BloomFilter filter = BloomFilter.create( 10_000, 0.01 );
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            filter.put( "key-" + i );
+        }
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            assertTrue( filter.mightContain( "key-" + i ) );
+        }
+    }
+
+    @Test
+    void mightContain_FalsePositiveRateNearTarget()
+    {
+        BloomFilter filter = BloomFilter.create( 10_000, 0.01 );
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            filter.put( "key-" + i );
+        }
+        int falsePositives = 0;
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            if ( filter.mightContain( "absent-" + i ) )
+            {
+                falsePositives++;
+            }
+        }
+        assertTrue( falsePositives < 2_000, "false positives: " + falsePositives );
+        assertTrue( filter.estimatedFpp() < 0.02 );
+    }
+
+    @Test
+    void create_SizesFromTargetFpp()
+    {
+        BloomFilter filter = BloomFilter.create( 1_000_000, 0.01 );
+        // ~9.6 bits per key and 7 hash functions for 1%
+        assertEquals( 7, filter.hashFunctions() );
+        assertTrue( filter.memoryBytes() > 1_100_000 && filter.memoryBytes() < 1_300_000 );
+        assertFalse( BloomFilter.create( 10, 0.01 ).mightContain( "anything" ) );
+        assertThrows( IllegalArgumentException.class, () -> BloomFilter.create( 0, 0.01 ) );
+        assertThrows( IllegalArgumentException.class, () -> BloomFilter.create( 10, 1.5 ) );
+    }
+}
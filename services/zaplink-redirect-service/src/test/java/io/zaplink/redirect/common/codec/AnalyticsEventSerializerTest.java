@@ -0,0 +1,34 @@
+package io.zaplink.redirect.common.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+import io.zaplink.events.proto.AnalyticsEventsProto.AnalyticsEvent;
+import io.zaplink.redirect.dto.event.QrScanEvent;
+import io.zaplink.redirect.dto.event.UrlClickEvent;
+
+class AnalyticsEventSerializerTest
+{
+    private final AnalyticsEventSerializer serializer = new AnalyticsEventSerializer();
+    @Test
+    void serialize_WritesVersionedEnvelope()
+        throws Exception
+    {
+        UrlClickEvent click = UrlClickEvent.of( "abc123", "203.0.113.7", "curl/8.4.0", "", null );
+        byte[] bytes = serializer.serialize( "url-click-events", click );
+        assertNotEquals( '{', bytes[0] );
+        AnalyticsEvent envelope = AnalyticsEvent.parseFrom( bytes );
+        assertEquals( AnalyticsEventSerializer.CURRENT_SCHEMA_VERSION, envelope.getSchemaVersion() );
+        assertEquals( AnalyticsEvent.EventCase.URL_CLICK, envelope.getEventCase() );
+        assertEquals( "abc123", envelope.getUrlClick().getUrlKey() );
+        assertEquals( "", envelope.getUrlClick().getCountryHeader() );
+        assertEquals( click.timestamp().toEpochMilli(), envelope.getUrlClick().getTimestampMillis() );
+        AnalyticsEvent scan = AnalyticsEvent
+                .parseFrom( serializer.serialize( "qr-scan-events",
+                                                  QrScanEvent.of( "qr1", "203.0.113.7", "", "", "DE" ) ) );
+        assertEquals( "qr1", scan.getQrScan().getQrKey() );
+        assertEquals( "DE", scan.getQrScan().getCountryHeader() );
+    }
+}
@@ -0,0 +1,46 @@
+package io.zaplink.redirect.common.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+class QrConfigCodecTest
+{
+    @Test
+    void roundTrip_PreservesAllFields()
+    {
+        QrConfigDto config = new QrConfigDto( 42L, "https://example.com/menu",
+                                              List.of( new RedirectRuleDto( RuleDimension.OS, "iOS",
+                                                                            "https://apps.apple.com/x", 2 ) ),
+                                              true, LocalDateTime.of( 2027, 1, 31, 23, 59, 59, 123_000_000 ), 500,
+                                              List.of( "example.com", "partner.io" ), true, false,
+                                              RedirectType.PERMANENT, 3600 );
+        assertEquals( config, QrConfigCodec.decode( QrConfigCodec.encode( config ) ) );
+    }
+
+    @Test
+    void roundTrip_OptionalFieldsAbsent()
+    {
+        QrConfigDto config = new QrConfigDto( null, "https://example.com", List.of(), false, null, null, List.of(),
+                                              false, true, null, null );
+        assertEquals( config, QrConfigCodec.decode( QrConfigCodec.encode( config ) ) );
+    }
+
+    @Test
+    void decode_RejectsUnknownVersion()
+    {
+        byte[] encoded = QrConfigCodec.encode( new QrConfigDto( 1L, "https://example.com", List.of(), true, null,
+                                                                null, List.of(), false, true, null, null ) );
+        encoded[0] = 7;
+        assertThrows( IllegalArgumentException.class, () -> QrConfigCodec.decode( encoded ) );
+    }
+}
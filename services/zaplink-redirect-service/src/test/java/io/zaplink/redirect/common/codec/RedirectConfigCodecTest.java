@@ -0,0 +1,108 @@
+package io.zaplink.redirect.common.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+class RedirectConfigCodecTest
+{
+    @Test
+    void roundTrip_PreservesAllFields()
+    {
+        RedirectConfigDto config = new RedirectConfigDto( "https://example.com/ünïcode?q=1",
+                                                          List.of( new RedirectRuleDto( RuleDimension.COUNTRY, "US",
+                                                                                        "https://us.example.com", 10 ),
+                                                                   new RedirectRuleDto( RuleDimension.OS, "iOS",
+                                                                                        "https://ios.example.com",
+                                                                                        -5 ),
+                                                                   new RedirectRuleDto( RuleDimension.DEVICE_TYPE,
+                                                                                        null, "", 0 ) ) );
+        assertEquals( config, RedirectConfigCodec.decode( RedirectConfigCodec.encode( config ) ) );
+    }
+
+    @Test
+    void roundTrip_PreservesRedirectPolicy()
+    {
+        RedirectConfigDto config = new RedirectConfigDto( "https://example.com", List.of(), RedirectType.PERMANENT,
+                                                          86400, false,
+                                                          LocalDateTime.of( 2027, 3, 1, 12, 0, 0, 500_000_000 ),
+                                                          null );
+        assertEquals( config, RedirectConfigCodec.decode( RedirectConfigCodec.encode( config ) ) );
+    }
+
+    @Test
+    void roundTrip_PreservesTerminalStatus()
+    {
+        for ( UrlStatusEnum status : UrlStatusEnum.values() )
+        {
+            RedirectConfigDto config = RedirectConfigDto.terminal( status );
+            assertEquals( config, RedirectConfigCodec.decode( RedirectConfigCodec.encode( config ) ) );
+        }
+    }
+
+    @Test
+    void decode_ReadsVersion1AsTrackedTemporaryRedirect()
+    {
+        // version 1, originalUrl "a", no rules
+        RedirectConfigDto decoded = RedirectConfigCodec.decode( new byte[] { 1, 2, 'a', 0 } );
+        assertEquals( new RedirectConfigDto( "a", List.of() ), decoded );
+        assertEquals( RedirectType.TEMPORARY, decoded.redirectType() );
+        assertTrue( decoded.trackAnalytics() );
+        assertEquals( UrlStatusEnum.ACTIVE, decoded.status() );
+    }
+
+    @Test
+    void decode_ReadsVersion2AsActive()
+    {
+        // version 2, originalUrl "a", no rules, flags = permanent
+        RedirectConfigDto decoded = RedirectConfigCodec.decode( new byte[] { 2, 2, 'a', 0, 1 } );
+        assertEquals( RedirectType.PERMANENT, decoded.redirectType() );
+        assertEquals( UrlStatusEnum.ACTIVE, decoded.status() );
+    }
+
+    @Test
+    void roundTrip_NullRulesDecodeAsEmpty()
+    {
+        RedirectConfigDto decoded = RedirectConfigCodec
+                .decode( RedirectConfigCodec.encode( new RedirectConfigDto( "https://example.com", null ) ) );
+        assertEquals( "https://example.com", decoded.originalUrl() );
+        assertTrue( decoded.rules().isEmpty() );
+    }
+
+    @Test
+    void encode_IsSmallerThanJson()
+        throws Exception
+    {
+        RedirectConfigDto config = new RedirectConfigDto( "https://example.com/landing",
+                                                          List.of( new RedirectRuleDto( RuleDimension.COUNTRY, "IN",
+                                                                                        "https://in.example.com",
+                                                                                        1 ) ) );
+        int jsonSize = new ObjectMapper().writeValueAsBytes( config ).length;
+        assertTrue( RedirectConfigCodec.encode( config ).length < jsonSize );
+    }
+
+    @Test
+    void decode_RejectsUnknownVersionAndTruncatedPayload()
+    {
+        byte[] encoded = RedirectConfigCodec.encode( new RedirectConfigDto( "https://example.com", List.of() ) );
+        byte[] wrongVersion = encoded.clone();
+        wrongVersion[0] = 99;
+        assertThrows( IllegalArgumentException.class, () -> RedirectConfigCodec.decode( wrongVersion ) );
+        assertThrows( IllegalArgumentException.class,
+                      () -> RedirectConfigCodec.decode( Arrays.copyOf( encoded, encoded.length - 3 ) ) );
+    }
+}
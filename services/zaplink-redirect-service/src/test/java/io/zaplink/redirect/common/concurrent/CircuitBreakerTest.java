@@ -0,0 +1,186 @@
+package io.zaplink.redirect.common.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.zaplink.redirect.common.concurrent.CircuitBreaker.State;
+
+class CircuitBreakerTest
+{
+    private static final long    MILLI       = TimeUnit.MILLISECONDS.toNanos( 1 );
+    private static final long    SECOND      = TimeUnit.SECONDS.toNanos( 1 );
+    private final List<State>    transitions = new ArrayList<>();
+    private final CircuitBreaker breaker     = new CircuitBreaker( 10, 4, 0.5, 100 * MILLI, 0.5, 5 * SECOND, 2,
+                                                                   transitions::add );
+    @Test
+    void slowCalls_OpenTheBreakerWithoutAnyFailure()
+    {
+        long now = -42 * SECOND;
+        succeed( MILLI, now );
+        succeed( MILLI, now );
+        succeed( 300 * MILLI, now );
+        assertEquals( State.CLOSED, breaker.state(), "fewer than minimumCalls never trip it" );
+        succeed( 300 * MILLI, now );
+        assertEquals( State.OPEN, breaker.state() );
+        assertEquals( CircuitBreaker.REJECTED, breaker.tryAcquire( now + SECOND ) );
+    }
+
+    @Test
+    void failures_AgeOutOfTheWindow()
+    {
+        for ( int i = 0; i < 4; i++ )
+        {
+            succeed( MILLI, 0 );
+        }
+        for ( int i = 0; i < 3; i++ )
+        {
+            fail( 0 );
+        }
+        assertEquals( State.CLOSED, breaker.state(), "3 failures in 7 calls" );
+        for ( int i = 0; i < 20; i++ )
+        {
+            succeed( MILLI, 0 );
+        }
+        fail( 0 );
+        fail( 0 );
+        assertEquals( State.CLOSED, breaker.state(), "2 failures in the last 10 calls" );
+        fail( 0 );
+        fail( 0 );
+        fail( 0 );
+        assertEquals( State.OPEN, breaker.state() );
+    }
+
+    @Test
+    void halfOpen_ClosesAfterFastTrialsAndReopensOnASlowOne()
+    {
+        for ( int i = 0; i < 4; i++ )
+        {
+            fail( 0 );
+        }
+        assertEquals( CircuitBreaker.REJECTED, breaker.tryAcquire( 5 * SECOND - 1 ) );
+        // Two trial calls once the open duration is over, and no more until they report
+        long first = breaker.tryAcquire( 5 * SECOND );
+        long second = breaker.tryAcquire( 5 * SECOND );
+        assertNotEquals( CircuitBreaker.REJECTED, first );
+        assertNotEquals( CircuitBreaker.REJECTED, second );
+        assertEquals( CircuitBreaker.REJECTED, breaker.tryAcquire( 5 * SECOND ) );
+        breaker.onSuccess( first, MILLI, 5 * SECOND );
+        breaker.onSuccess( second, 200 * MILLI, 5 * SECOND );
+        assertEquals( State.OPEN, breaker.state() );
+        assertEquals( CircuitBreaker.REJECTED, breaker.tryAcquire( 9 * SECOND ) );
+        first = breaker.tryAcquire( 10 * SECOND );
+        second = breaker.tryAcquire( 10 * SECOND );
+        breaker.onSuccess( first, MILLI, 10 * SECOND );
+        breaker.onSuccess( second, MILLI, 10 * SECOND );
+        assertEquals( State.CLOSED, breaker.state() );
+        assertEquals( List.of( State.OPEN, State.HALF_OPEN, State.OPEN, State.HALF_OPEN, State.CLOSED ),
+                      transitions );
+        // The window starts empty, so the failures that opened it cannot trip it again
+        fail( 10 * SECOND );
+        assertEquals( State.CLOSED, breaker.state() );
+    }
+
+    @Test
+    void outcomesOfEarlierPhases_AreIgnored()
+    {
+        long admittedWhileClosed = breaker.tryAcquire( 0 );
+        for ( int i = 0; i < 4; i++ )
+        {
+            fail( 0 );
+        }
+        long trial = breaker.tryAcquire( 5 * SECOND );
+        assertEquals( State.HALF_OPEN, breaker.state() );
+        // A call from before the trip finishes late; it is neither a failed nor a successful trial
+        breaker.onFailure( admittedWhileClosed, 2 * SECOND, 5 * SECOND );
+        breaker.onSuccess( admittedWhileClosed, MILLI, 5 * SECOND );
+        assertEquals( State.HALF_OPEN, breaker.state() );
+        breaker.onSuccess( trial, MILLI, 5 * SECOND );
+        assertEquals( State.HALF_OPEN, breaker.state(), "one of two trials has succeeded" );
+        breaker.onSuccess( breaker.tryAcquire( 5 * SECOND ), MILLI, 5 * SECOND );
+        assertEquals( State.CLOSED, breaker.state() );
+    }
+
+    @Test
+    void halfOpen_AdmitsExactlyTheTrialCallsUnderContention()
+        throws InterruptedException
+    {
+        int threads = 8;
+        try ( ExecutorService executor = Executors.newFixedThreadPool( threads ) )
+        {
+            for ( int round = 0; round < 200; round++ )
+            {
+                CircuitBreaker contended = new CircuitBreaker( 10, 4, 0.5, 100 * MILLI, 0.5, 5 * SECOND, 2,
+                                                               state -> {
+                                                               } );
+                for ( int i = 0; i < 4; i++ )
+                {
+                    contended.onFailure( contended.tryAcquire( 0 ), MILLI, 0 );
+                }
+                CountDownLatch start = new CountDownLatch( 1 );
+                CountDownLatch done = new CountDownLatch( threads );
+                AtomicInteger admitted = new AtomicInteger();
+                for ( int t = 0; t < threads; t++ )
+                {
+                    executor.execute( () -> {
+                        try
+                        {
+                            start.await();
+                            for ( int i = 0; i < 10; i++ )
+                            {
+                                if ( contended.tryAcquire( 5 * SECOND ) != CircuitBreaker.REJECTED )
+                                {
+                                    admitted.incrementAndGet();
+                                }
+                            }
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                        finally
+                        {
+                            done.countDown();
+                        }
+                    } );
+                }
+                start.countDown();
+                done.await();
+                assertEquals( 2, admitted.get(), "round " + round );
+                assertEquals( State.HALF_OPEN, contended.state() );
+            }
+        }
+    }
+
+    @Test
+    void latencyQuantile_IgnoresFailedCalls()
+    {
+        assertEquals( -1, breaker.latencyQuantile( 0.99 ) );
+        for ( int i = 1; i <= 5; i++ )
+        {
+            succeed( i * MILLI, 0 );
+        }
+        breaker.onFailure( breaker.tryAcquire( 0 ), 90 * MILLI, 0 );
+        assertEquals( 5 * MILLI, breaker.latencyQuantile( 0.99 ) );
+        assertEquals( 3 * MILLI, breaker.latencyQuantile( 0.5 ) );
+    }
+
+    private void succeed( long latencyNanos, long now )
+    {
+        breaker.onSuccess( breaker.tryAcquire( now ), latencyNanos, now );
+    }
+
+    private void fail( long now )
+    {
+        breaker.onFailure( breaker.tryAcquire( now ), MILLI, now );
+    }
+}
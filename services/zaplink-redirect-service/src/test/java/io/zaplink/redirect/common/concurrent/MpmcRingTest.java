@@ -0,0 +1,91 @@
+package io.zaplink.redirect.common.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class MpmcRingTest
+{
+    @Test
+    void offerAndPoll_AreFifoAndBounded()
+    {
+        MpmcRing<Integer> ring = new MpmcRing<>( 3 );
+        assertEquals( 4, ring.capacity() );
+        for ( int i = 0; i < 4; i++ )
+        {
+            assertTrue( ring.offer( i ) );
+        }
+        assertFalse( ring.offer( 4 ) );
+        assertEquals( 4, ring.size() );
+        assertEquals( 0, ring.poll() );
+        assertTrue( ring.offer( 4 ) );
+        for ( int i = 1; i <= 4; i++ )
+        {
+            assertEquals( i, ring.poll() );
+        }
+        assertNull( ring.poll() );
+        assertEquals( 0, ring.size() );
+    }
+
+    @Test
+    void concurrentProducersAndConsumers_DeliverEveryElementOnce()
+        throws Exception
+    {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpmcRing<Integer> ring = new MpmcRing<>( 1024 );
+        ConcurrentHashMap<Integer, Boolean> seen = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger received = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch( producers );
+        List<Thread> threads = new ArrayList<>();
+        for ( int p = 0; p < producers; p++ )
+        {
+            int base = p * perProducer;
+            threads.add( Thread.ofPlatform().start( () -> {
+                for ( int i = 0; i < perProducer; i++ )
+                {
+                    while ( !ring.offer( base + i ) )
+                    {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            } ) );
+        }
+        for ( int c = 0; c < 2; c++ )
+        {
+            threads.add( Thread.ofPlatform().start( () -> {
+                while ( done.getCount() > 0 || ring.size() > 0 )
+                {
+                    Integer value = ring.poll();
+                    if ( value == null )
+                    {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    if ( seen.put( value, Boolean.TRUE ) != null )
+                    {
+                        duplicates.incrementAndGet();
+                    }
+                    received.incrementAndGet();
+                }
+            } ) );
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join( 30_000 );
+        }
+        assertEquals( 0, duplicates.get() );
+        assertEquals( producers * perProducer, received.get() );
+    }
+}
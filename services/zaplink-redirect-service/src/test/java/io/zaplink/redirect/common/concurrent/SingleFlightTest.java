@@ -0,0 +1,92 @@
+package io.zaplink.redirect.common.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest
+{
+    @Test
+    void execute_ConcurrentCallersShareOneLoad()
+        throws Exception
+    {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch( 1 );
+        try ( ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() )
+        {
+            List<Future<String>> results = new ArrayList<>();
+            for ( int i = 0; i < 50; i++ )
+            {
+                results.add( executor.submit( () -> flight.execute( "key", () -> {
+                    loads.incrementAndGet();
+                    await( release );
+                    return "value";
+                } ) ) );
+            }
+            // Let every caller reach the flight before the loader finishes
+            while ( flight.coalescedCount() < 49 )
+            {
+                Thread.sleep( 1 );
+            }
+            release.countDown();
+            for ( Future<String> result : results )
+            {
+                assertEquals( "value", result.get( 5, TimeUnit.SECONDS ) );
+            }
+        }
+        assertEquals( 1, loads.get() );
+        assertEquals( 0, flight.inFlightCount() );
+    }
+
+    @Test
+    void execute_FailureIsSharedAndNotRemembered()
+    {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        assertThrows( IllegalStateException.class, () -> flight.execute( "key", () -> {
+            throw new IllegalStateException( "db down" );
+        } ) );
+        assertEquals( "recovered", flight.execute( "key", () -> "recovered" ) );
+    }
+
+    @Test
+    void executeIfIdle_SkipsWhenLoadIsRunning()
+        throws Exception
+    {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        Thread loader = Thread.ofVirtual().start( () -> flight.execute( "key", () -> {
+            started.countDown();
+            await( release );
+            return "value";
+        } ) );
+        started.await();
+        assertFalse( flight.executeIfIdle( "key", () -> "other" ) );
+        release.countDown();
+        loader.join();
+    }
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.zaplink.redirect.common.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTableTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos( 1 );
+    @Test
+    void tryAcquire_AllowsBurstThenRefillsAtRate()
+    {
+        TokenBucketTable table = new TokenBucketTable( 64, 10, 5, false );
+        long now = -123 * SECOND;
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertTrue( table.tryAcquire( "203.0.113.1", now ) );
+        }
+        assertFalse( table.tryAcquire( "203.0.113.1", now ) );
+        assertTrue( table.tryAcquire( "203.0.113.2", now ), "other clients have their own bucket" );
+        // 10 per second: one token back after 100 ms
+        assertFalse( table.tryAcquire( "203.0.113.1", now + SECOND / 20 ) );
+        assertTrue( table.tryAcquire( "203.0.113.1", now + SECOND / 10 ) );
+        assertFalse( table.tryAcquire( "203.0.113.1", now + SECOND / 10 ) );
+        // Idle for long enough, the bucket is full again but holds no more than the burst
+        long later = now + 60 * SECOND;
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertTrue( table.tryAcquire( "203.0.113.1", later ) );
+        }
+        assertFalse( table.tryAcquire( "203.0.113.1", later ) );
+    }
+
+    @Test
+    void fullTable_EvictsTheBucketClosestToFull()
+    {
+        TokenBucketTable table = new TokenBucketTable( 8, 1, 3, false );
+        // An abusive client empties its bucket; clients that made one request are only one token down
+        for ( int i = 0; i < 3; i++ )
+        {
+            assertTrue( table.tryAcquire( "abuser", 0 ) );
+        }
+        for ( int i = 0; i < 100; i++ )
+        {
+            table.tryAcquire( "client-" + i, 0 );
+        }
+        // Churn through a table of 8 buckets replaced the light clients, never the abuser
+        assertFalse( table.tryAcquire( "abuser", 0 ) );
+        assertTrue( table.activeEvictions() > 0 );
+    }
+
+    @Test
+    void pendingAdmissions_AreDrainedAndBlockRejects()
+    {
+        TokenBucketTable table = new TokenBucketTable( 64, 100, 100, true );
+        for ( int i = 0; i < 3; i++ )
+        {
+            table.tryAcquire( "a", 0 );
+        }
+        table.tryAcquire( "b", 0 );
+        Map<String, Integer> pending = new HashMap<>();
+        table.forEachPending( bucket -> pending.put( bucket.key(), bucket.drainPending() ) );
+        assertEquals( Map.of( "a", 3, "b", 1 ), pending );
+        table.forEachPending( bucket -> pending.put( bucket.key(), -1 ) );
+        assertEquals( Map.of( "a", 3, "b", 1 ), pending, "drained counts are not reported twice" );
+        table.block( "a", SECOND, 0 );
+        assertFalse( table.tryAcquire( "a", SECOND / 2 ) );
+        assertTrue( table.tryAcquire( "a", SECOND ) );
+    }
+}
@@ -0,0 +1,60 @@
+package io.zaplink.redirect.common.sketch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CountMinSketchTest
+{
+    @Test
+    void estimate_NeverUndercounts()
+    {
+        CountMinSketch sketch = new CountMinSketch( 1024, 4, 1 );
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            for ( int j = 0; j <= i % 10; j++ )
+            {
+                sketch.add( "key-" + i );
+            }
+        }
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            assertTrue( sketch.estimate( "key-" + i ) >= i % 10 + 1 );
+        }
+        assertEquals( 27_500, sketch.total() );
+    }
+
+    @Test
+    void rotate_DropsOldestSlice()
+    {
+        CountMinSketch sketch = new CountMinSketch( 1024, 4, 2 );
+        sketch.add( "old" );
+        sketch.rotate();
+        sketch.add( "new" );
+        assertEquals( 1, sketch.estimate( "old" ) );
+        assertEquals( 0, sketch.estimateCurrent( "old" ) );
+        sketch.rotate();
+        assertEquals( 0, sketch.estimate( "old" ) );
+        assertEquals( 1, sketch.estimate( "new" ) );
+        assertEquals( 1, sketch.total() );
+    }
+
+    @Test
+    void spaceSaving_KeepsHeavyHitters()
+    {
+        CountMinSketch sketch = new CountMinSketch( 4096, 4, 1 );
+        SpaceSavingSummary summary = new SpaceSavingSummary( 5 );
+        for ( int i = 0; i < 50_000; i++ )
+        {
+            String key = i % 2 == 0 ? "viral" : i % 10 == 1 ? "popular" : "tail-" + i;
+            summary.offer( key, sketch.add( key ), sketch::estimateCurrent );
+        }
+        List<String> keys = summary.keys();
+        assertTrue( keys.size() <= 5 );
+        assertTrue( keys.contains( "viral" ) );
+        assertTrue( keys.contains( "popular" ) );
+    }
+}
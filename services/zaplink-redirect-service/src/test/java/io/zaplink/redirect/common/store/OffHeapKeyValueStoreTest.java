@@ -0,0 +1,67 @@
+package io.zaplink.redirect.common.store;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapKeyValueStoreTest
+{
+    @Test
+    void put_ReplacesAndRemovesAcrossRebuilds()
+    {
+        OffHeapKeyValueStore store = new OffHeapKeyValueStore( 4096, 1 << 20 );
+        for ( int i = 0; i < 5_000; i++ )
+        {
+            store.put( "url:" + i, bytes( "v1-" + i ) );
+        }
+        for ( int i = 0; i < 5_000; i += 2 )
+        {
+            store.put( "url:" + i, bytes( "v2-" + i ) );
+        }
+        for ( int i = 1; i < 5_000; i += 4 )
+        {
+            store.remove( "url:" + i );
+        }
+        assertEquals( 3_750, store.size() );
+        assertArrayEquals( bytes( "v2-0" ), store.get( "url:0" ) );
+        assertNull( store.get( "url:1" ) );
+        assertArrayEquals( bytes( "v1-3" ), store.get( "url:3" ) );
+        assertNull( store.get( "qr:0" ) );
+        // Overwrites and tombstones are compacted away instead of growing without bound
+        assertTrue( store.allocatedBytes() < 1 << 20, "allocated " + store.allocatedBytes() );
+    }
+
+    @Test
+    void writeTo_RoundTripsLiveEntries()
+        throws IOException
+    {
+        OffHeapKeyValueStore store = new OffHeapKeyValueStore( 4096, 1 << 20 );
+        store.put( "url:a", bytes( "https://example.com/ä" ) );
+        store.put( "qr:b", new byte[0] );
+        store.put( "url:c", bytes( "gone" ) );
+        store.remove( "url:c" );
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        store.writeTo( new DataOutputStream( buffer ) );
+        OffHeapKeyValueStore restored = new OffHeapKeyValueStore( 4096, 1 << 20 );
+        restored.load( new DataInputStream( new ByteArrayInputStream( buffer.toByteArray() ) ) );
+        assertEquals( 2, restored.size() );
+        assertArrayEquals( bytes( "https://example.com/ä" ), restored.get( "url:a" ) );
+        assertArrayEquals( new byte[0], restored.get( "qr:b" ) );
+        assertNull( restored.get( "url:c" ) );
+    }
+
+    private static byte[] bytes( String value )
+    {
+        return value.getBytes( StandardCharsets.UTF_8 );
+    }
+}
@@ -0,0 +1,42 @@
+package io.zaplink.redirect.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
+
+class RedirectConfigDtoTest
+{
+    private static final Duration TTL          = Duration.ofHours( 24 );
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds( 60 );
+    @Test
+    void cacheTtl_NeverOutlivesExpiry()
+    {
+        RedirectConfigDto config = RedirectConfigDto.builder().originalUrl( "https://example.com" ).rules( List.of() )
+                .expiresAt( LocalDateTime.now().plusMinutes( 10 ) ).build();
+        Duration ttl = config.cacheTtl( TTL, NEGATIVE_TTL );
+        assertTrue( ttl.compareTo( Duration.ofMinutes( 10 ) ) <= 0, "ttl " + ttl );
+        assertTrue( ttl.compareTo( Duration.ofMinutes( 9 ) ) > 0, "ttl " + ttl );
+        assertEquals( TTL, new RedirectConfigDto( "https://example.com", List.of() ).cacheTtl( TTL, NEGATIVE_TTL ) );
+    }
+
+    @Test
+    void cacheTtl_UsesNegativeTtlForTerminalAndExpiredLinks()
+    {
+        RedirectConfigDto expired = RedirectConfigDto.builder().originalUrl( "https://example.com" )
+                .rules( List.of() ).expiresAt( LocalDateTime.now().minusMinutes( 1 ) ).build();
+        assertFalse( expired.isRedirectable( LocalDateTime.now() ) );
+        assertEquals( NEGATIVE_TTL, expired.cacheTtl( TTL, NEGATIVE_TTL ) );
+        RedirectConfigDto disabled = RedirectConfigDto.terminal( UrlStatusEnum.DISABLED );
+        assertFalse( disabled.isRedirectable( LocalDateTime.now() ) );
+        assertEquals( NEGATIVE_TTL, disabled.cacheTtl( TTL, NEGATIVE_TTL ) );
+        assertEquals( Duration.ofSeconds( 5 ), disabled.cacheTtl( Duration.ofSeconds( 5 ), NEGATIVE_TTL ) );
+    }
+}
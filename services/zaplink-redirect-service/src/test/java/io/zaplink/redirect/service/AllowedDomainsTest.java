@@ -0,0 +1,52 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class AllowedDomainsTest
+{
+    private final AllowedDomains domains = AllowedDomains.compile( List.of( "good.com", "*.partner.io",
+                                                                            "https://Shop.Example.org:8443/path" ) );
+    @Test
+    void allows_HostAndSubdomains()
+    {
+        assertTrue( domains.allows( "https://good.com/page" ) );
+        assertTrue( domains.allows( "https://www.GOOD.com./page?x=1" ) );
+        assertTrue( domains.allows( "http://a.b.good.com:8080" ) );
+        assertTrue( domains.allows( "https://shop.example.org/" ) );
+        assertTrue( domains.allows( "https://eu.shop.example.org/" ) );
+    }
+
+    @Test
+    void allows_WildcardExcludesApex()
+    {
+        assertTrue( domains.allows( "https://app.partner.io/" ) );
+        assertFalse( domains.allows( "https://partner.io/" ) );
+    }
+
+    @Test
+    void allows_RejectsDomainOutsideTheHost()
+    {
+        assertFalse( domains.allows( "https://evil.com/?x=good.com" ) );
+        assertFalse( domains.allows( "https://good.com.evil.com/" ) );
+        assertFalse( domains.allows( "https://notgood.com/" ) );
+        assertFalse( domains.allows( "https://good.com@evil.com/" ) );
+        assertFalse( domains.allows( "https://example.org/" ) );
+        assertFalse( domains.allows( "https://com/" ) );
+        assertFalse( domains.allows( "" ) );
+        assertFalse( domains.allows( null ) );
+    }
+
+    @Test
+    void compile_BlankListIsUnrestricted()
+    {
+        assertSame( AllowedDomains.UNRESTRICTED, AllowedDomains.compile( Arrays.asList( " ", null, "*." ) ) );
+        assertTrue( AllowedDomains.compile( List.of() ).allows( null ) );
+    }
+}
@@ -0,0 +1,73 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.redirect.client.ManagerServiceClient;
+import io.zaplink.redirect.dto.BioPageResponse;
+
+class BioPageCacheTest
+{
+    private ManagerServiceClient managerServiceClient;
+    private BioPageCache         cache;
+    @BeforeEach
+    void setUp()
+    {
+        managerServiceClient = mock( ManagerServiceClient.class );
+        cache = new BioPageCache( managerServiceClient, new ObjectMapper(), new SimpleMeterRegistry(), 100,
+                                  Duration.ofMinutes( 5 ), Duration.ofDays( 1 ), Duration.ofSeconds( 60 ) );
+    }
+
+    @Test
+    void get_ServesFreshCopyWithoutCallingManager()
+    {
+        when( managerServiceClient.getBioPageByUsername( "jane" ) ).thenReturn( page( "hello" ) );
+        String etag = cache.get( "jane" ).orElseThrow().etag();
+        assertEquals( etag, cache.get( "jane" ).orElseThrow().etag() );
+        verify( managerServiceClient, times( 1 ) ).getBioPageByUsername( "jane" );
+    }
+
+    @Test
+    void onInvalidation_RevalidatesAndChangesEtag()
+    {
+        when( managerServiceClient.getBioPageByUsername( "jane" ) ).thenReturn( page( "hello" ), page( "updated" ) );
+        String before = cache.get( "jane" ).orElseThrow().etag();
+        cache.onInvalidation( "jane" );
+        String after = cache.get( "jane" ).orElseThrow().etag();
+        assertNotEquals( before, after );
+        assertTrue( after.startsWith( "\"" ) && after.endsWith( "\"" ) );
+    }
+
+    @Test
+    void get_ServesStaleCopyWhenManagerFails()
+    {
+        when( managerServiceClient.getBioPageByUsername( "jane" ) ).thenReturn( page( "hello" ) )
+                .thenThrow( new IllegalStateException( "manager down" ) );
+        String etag = cache.get( "jane" ).orElseThrow().etag();
+        cache.onInvalidation( "jane" );
+        assertEquals( etag, cache.get( "jane" ).orElseThrow().etag() );
+        when( managerServiceClient.getBioPageByUsername( "john" ) )
+                .thenThrow( new IllegalStateException( "manager down" ) );
+        assertThrows( IllegalStateException.class, () -> cache.get( "john" ) );
+    }
+
+    private static BioPageResponse page( String bioText )
+    {
+        return new BioPageResponse( 1L, "jane", "owner", null, null, bioText, null, null, List.of() );
+    }
+}
@@ -0,0 +1,70 @@
+package io.zaplink.redirect.service;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import io.zaplink.redirect.common.constants.RedisConstants;
+
+class CacheInvalidationListenerTest
+{
+    private RedirectConfigCache       redirectConfigCache;
+    private BioPageCache              bioPageCache;
+    private LocalLinkStore            localLinkStore;
+    private CacheInvalidationListener listener;
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp()
+    {
+        redirectConfigCache = mock( RedirectConfigCache.class );
+        bioPageCache = mock( BioPageCache.class );
+        localLinkStore = mock( LocalLinkStore.class );
+        listener = new CacheInvalidationListener( redirectConfigCache, bioPageCache, localLinkStore,
+                                                  mock( ObjectProvider.class ), Duration.ofSeconds( 5 ) );
+    }
+
+    @Test
+    void onMessage_LinkChange_DropsTheLocalStoreCopyBeforeL1()
+    {
+        publish( "url:abc" );
+        publish( "qr:xyz" );
+        InOrder order = inOrder( localLinkStore, redirectConfigCache );
+        order.verify( localLinkStore ).onInvalidation( "url:abc" );
+        order.verify( redirectConfigCache ).onInvalidation( "url:abc" );
+        order.verify( localLinkStore ).onInvalidation( "qr:xyz" );
+        order.verify( redirectConfigCache ).onInvalidation( "qr:xyz" );
+        verifyNoInteractions( bioPageCache );
+    }
+
+    @Test
+    void onMessage_BioPageChange_GoesOnlyToTheBioPageCache()
+    {
+        publish( "bio:jane" );
+        verify( bioPageCache ).onInvalidation( "jane" );
+        verifyNoInteractions( redirectConfigCache, localLinkStore );
+    }
+
+    @Test
+    void onMessage_DecodesTheBodyAsUtf8()
+    {
+        publish( "bio:zoë" );
+        verify( bioPageCache ).onInvalidation( "zoë" );
+    }
+
+    private void publish( String body )
+    {
+        byte[] channel = RedisConstants.CACHE_INVALIDATION_CHANNEL.getBytes( StandardCharsets.UTF_8 );
+        listener.onMessage( new DefaultMessage( channel, body.getBytes( StandardCharsets.UTF_8 ) ), null );
+    }
+}
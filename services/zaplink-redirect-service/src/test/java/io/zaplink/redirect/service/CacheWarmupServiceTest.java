@@ -0,0 +1,115 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
+import io.zaplink.redirect.repository.UrlMappingRepository;
+
+class CacheWarmupServiceTest
+{
+    private UrlMappingRepository urlMappingRepository;
+    private UrlRedirectService   urlRedirectService;
+    private final CountDownLatch release = new CountDownLatch( 1 );
+    @BeforeEach
+    void setUp()
+    {
+        urlMappingRepository = mock( UrlMappingRepository.class );
+        urlRedirectService = mock( UrlRedirectService.class );
+        when( urlMappingRepository.streamMostClickedShortUrlKeys( any( UrlStatusEnum.class ), any() ) )
+                .thenAnswer( invocation -> Stream.of( "a", "b" ) );
+        when( urlMappingRepository.streamNewestShortUrlKeys( any( UrlStatusEnum.class ), any() ) )
+                .thenAnswer( invocation -> Stream.of( "b", "c" ) );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        release.countDown();
+    }
+
+    @Test
+    void readiness_StaysDownUntilWarmUpFinishes()
+        throws InterruptedException
+    {
+        CountDownLatch loading = new CountDownLatch( 3 );
+        when( urlRedirectService.warm( anyString() ) ).thenAnswer( invocation -> {
+            loading.countDown();
+            return release.await( 10, TimeUnit.SECONDS );
+        } );
+        CacheWarmupService warmup = warmup( true, Duration.ofSeconds( 30 ) );
+        assertEquals( Status.OUT_OF_SERVICE, warmup.health().getStatus(), "down before the warm-up starts" );
+        warmup.start();
+        assertTrue( loading.await( 5, TimeUnit.SECONDS ) );
+        assertEquals( Status.OUT_OF_SERVICE, warmup.health().getStatus(), "down while keys are loading" );
+        release.countDown();
+        Health health = awaitUp( warmup );
+        assertEquals( 3, health.getDetails().get( "total" ), "keys in both lists are loaded once" );
+        assertEquals( 3, health.getDetails().get( "cached" ) );
+    }
+
+    @Test
+    void failedWarmUp_ReportsReadyWithColdCaches()
+    {
+        when( urlMappingRepository.streamMostClickedShortUrlKeys( any( UrlStatusEnum.class ), any() ) )
+                .thenThrow( new IllegalStateException( "database down" ) );
+        CacheWarmupService warmup = warmup( true, Duration.ofSeconds( 30 ) );
+        warmup.start();
+        Health health = awaitUp( warmup );
+        assertEquals( 0, health.getDetails().get( "attempted" ) );
+    }
+
+    @Test
+    void warmUpPastItsTimeBudget_ReportsReadyWithoutWaitingForLoads()
+    {
+        when( urlRedirectService.warm( anyString() ) )
+                .thenAnswer( invocation -> release.await( 10, TimeUnit.SECONDS ) );
+        CacheWarmupService warmup = warmup( true, Duration.ofMillis( 200 ) );
+        warmup.start();
+        Health health = awaitUp( warmup );
+        assertEquals( 0, health.getDetails().get( "attempted" ), "the hung loads are still running" );
+    }
+
+    @Test
+    void disabledWarmUp_IsReadyAtOnce()
+    {
+        CacheWarmupService warmup = warmup( false, Duration.ofSeconds( 30 ) );
+        assertEquals( Status.UP, warmup.health().getStatus() );
+    }
+
+    private CacheWarmupService warmup( boolean enabled, Duration timeBudget )
+    {
+        return new CacheWarmupService( urlMappingRepository, urlRedirectService,
+                                       mock( PlatformTransactionManager.class ), enabled, 10, 10, 8, timeBudget,
+                                       1.0 );
+    }
+
+    private static Health awaitUp( CacheWarmupService warmup )
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 5 );
+        Health health = warmup.health();
+        while ( health.getStatus() != Status.UP && System.nanoTime() < deadline )
+        {
+            Thread.onSpinWait();
+            health = warmup.health();
+        }
+        assertEquals( Status.UP, health.getStatus() );
+        return health;
+    }
+}
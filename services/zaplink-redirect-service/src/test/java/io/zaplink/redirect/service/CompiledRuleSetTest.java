@@ -0,0 +1,65 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+class CompiledRuleSetTest
+{
+    @Test
+    void match_HighestPriorityRuleWinsAcrossDimensions()
+    {
+        CompiledRuleSet rules = CompiledRuleSet
+                .compile( List.of( new RedirectRuleDto( RuleDimension.COUNTRY, "us", "https://us", 30 ),
+                                   new RedirectRuleDto( RuleDimension.OS, "iOS", "https://ios", 20 ),
+                                   new RedirectRuleDto( RuleDimension.DEVICE_TYPE, "mobile", "https://mobile", 10 ) ) );
+        assertEquals( "https://us", rules.match( "Mobile", "iOS", "US" ) );
+        assertEquals( "https://ios", rules.match( "Mobile", "iOS", "IN" ) );
+        assertEquals( "https://mobile", rules.match( "Mobile", "Android", null ) );
+        assertNull( rules.match( "Desktop", "Windows", "IN" ) );
+        assertTrue( rules.usesCountry() );
+        assertTrue( rules.usesUserAgent() );
+    }
+
+    @Test
+    void match_ValuesOutsideVocabularyFallBackToLookup()
+    {
+        CompiledRuleSet rules = CompiledRuleSet
+                .compile( List.of( new RedirectRuleDto( RuleDimension.OS, "ChromeOS", "https://chromeos", 1 ),
+                                   new RedirectRuleDto( RuleDimension.COUNTRY, "de", "https://de", 0 ) ) );
+        assertEquals( "https://chromeos", rules.match( "Desktop", "chromeos", null ) );
+        assertEquals( "https://de", rules.match( "Desktop", "Windows", "de" ) );
+    }
+
+    @Test
+    void compile_ManyCountryRules()
+    {
+        List<RedirectRuleDto> list = new ArrayList<>();
+        for ( int i = 0; i < 200; i++ )
+        {
+            list.add( new RedirectRuleDto( RuleDimension.COUNTRY, "C" + i, "https://c" + i, 200 - i ) );
+        }
+        CompiledRuleSet rules = CompiledRuleSet.compile( list );
+        assertEquals( "https://c199", rules.match( "Mobile", "iOS", "C199" ) );
+        assertFalse( rules.usesUserAgent() );
+    }
+
+    @Test
+    void compile_NoUsableRulesIsEmpty()
+    {
+        assertSame( CompiledRuleSet.EMPTY, CompiledRuleSet.compile( null ) );
+        assertSame( CompiledRuleSet.EMPTY, CompiledRuleSet
+                .compile( List.of( new RedirectRuleDto( RuleDimension.OS, null, "https://x", 0 ) ) ) );
+        assertNull( CompiledRuleSet.EMPTY.match( "Mobile", "iOS", "US" ) );
+    }
+}
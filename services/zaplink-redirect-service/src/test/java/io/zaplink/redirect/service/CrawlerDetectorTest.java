@@ -0,0 +1,82 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.redirect.service.RedirectStageMetrics.LinkType;
+
+class CrawlerDetectorTest
+{
+    private final MeterRegistry   meterRegistry = new SimpleMeterRegistry();
+    private final CrawlerDetector detector      = detector( 1.0 );
+    @Test
+    void match_FindsConfiguredAgentsAnywhereIgnoringCase()
+    {
+        assertEquals( "facebookexternalhit",
+                      detector.match( "facebookexternalhit/1.1 (+http://www.facebook.com/externalhit_uatext.php)" ) );
+        assertEquals( "slackbot", detector.match( "Slackbot-LinkExpanding 1.0 (+https://api.slack.com/robots)" ) );
+        assertEquals( "twitterbot", detector.match( "Twitterbot/1.0" ) );
+        assertEquals( "whatsapp", detector.match( "WhatsApp/2.23.20.0 A" ) );
+        assertEquals( "googlebot",
+                      detector.match( "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)" ) );
+    }
+
+    @Test
+    void match_IgnoresBrowsersAndUnlistedBots()
+    {
+        for ( String ua : UaProfileTest.USER_AGENTS )
+        {
+            if ( !ua.contains( "Googlebot" ) && !ua.contains( "facebookexternalhit" ) && !ua.contains( "Slackbot" ) )
+            {
+                assertNull( detector.match( ua ), ua );
+            }
+        }
+        assertNull( detector.match( null ) );
+    }
+
+    @Test
+    void detect_CountsCrawlersAndHeadRequests()
+    {
+        MockHttpServletRequest crawler = new MockHttpServletRequest( "GET", "/r/abc" );
+        crawler.addHeader( "User-Agent", "Twitterbot/1.0" );
+        MockHttpServletRequest head = new MockHttpServletRequest( "HEAD", "/s/abc" );
+        head.addHeader( "User-Agent", "Mozilla/5.0 (X11; Linux x86_64; rv:121.0) Gecko/20100101 Firefox/121.0" );
+        MockHttpServletRequest browser = new MockHttpServletRequest( "GET", "/r/abc" );
+        browser.addHeader( "User-Agent", "Mozilla/5.0 (X11; Linux x86_64; rv:121.0) Gecko/20100101 Firefox/121.0" );
+        assertTrue( detector.detect( crawler, LinkType.URL ) );
+        assertTrue( detector.detect( head, LinkType.QR ) );
+        assertFalse( detector.detect( browser, LinkType.URL ) );
+        assertEquals( 1, meterRegistry.get( "redirect.bot.hits" ).tags( "type", "url", "agent", "twitterbot" ).counter()
+                .count() );
+        assertEquals( 1, meterRegistry.get( "redirect.bot.hits" ).tags( "type", "qr", "agent", "head" ).counter()
+                .count() );
+    }
+
+    @Test
+    void detect_CountsOnlySampledHits()
+    {
+        CrawlerDetector unsampled = detector( 0.0 );
+        MockHttpServletRequest crawler = new MockHttpServletRequest( "GET", "/r/abc" );
+        crawler.addHeader( "User-Agent", "Slackbot-LinkExpanding 1.0" );
+        assertTrue( unsampled.detect( crawler, LinkType.URL ) );
+        assertEquals( 0, meterRegistry.get( "redirect.bot.hits" ).tags( "type", "url", "agent", "slackbot" ).counter()
+                .count() );
+    }
+
+    private CrawlerDetector detector( double sampleRate )
+    {
+        RedirectStageMetrics stageMetrics = new RedirectStageMetrics( meterRegistry, sampleRate,
+                                                                      new Duration[] { Duration.ofMillis( 1 ) }, false );
+        return new CrawlerDetector( meterRegistry, stageMetrics, true, new String[] {
+                "facebookexternalhit", " Slackbot", "twitterbot", "whatsapp", "googlebot", "", "slackbot" } );
+    }
+}
@@ -0,0 +1,101 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.repository.DynamicQrCodeRepository;
+import io.zaplink.redirect.repository.RedirectRuleRepository;
+import io.zaplink.redirect.service.QrRedirectService.QrRedirectResult;
+import io.zaplink.redirect.service.RedirectConfigCache.QrEntry;
+
+class QrRedirectServiceTest
+{
+    private static final String          QR_KEY  = "qr123";
+    private static final String          COUNTER = RedisConstants.QR_SCAN_COUNTER_PREFIX + QR_KEY;
+    private StringRedisTemplate          redisTemplate;
+    private QrScanBatchService           qrScanBatchService;
+    private QrRedirectService            qrRedirectService;
+    private final MockHttpServletRequest request = new MockHttpServletRequest( "GET", "/qr/" + QR_KEY );
+    @BeforeEach
+    void setUp()
+    {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        redisTemplate = mock( StringRedisTemplate.class );
+        DynamicQrCodeRepository dynamicQrCodeRepository = mock( DynamicQrCodeRepository.class );
+        qrScanBatchService = mock( QrScanBatchService.class );
+        RedisGuard redisGuard = new RedisGuard( meterRegistry, 100, 20, 0.5, Duration.ofMillis( 100 ), 0.5,
+                                                Duration.ofSeconds( 5 ), 5, false, 0.99, Duration.ofMillis( 2 ),
+                                                Duration.ofMillis( 50 ) );
+        QrScanLimiter qrScanLimiter = new QrScanLimiter( redisTemplate, dynamicQrCodeRepository, qrScanBatchService,
+                                                         redisGuard, meterRegistry, Duration.ofDays( 30 ) );
+        KnownKeyFilter knownKeyFilter = mock( KnownKeyFilter.class );
+        when( knownKeyFilter.mightContainQrKey( QR_KEY ) ).thenReturn( true );
+        ClientRateLimiter clientRateLimiter = mock( ClientRateLimiter.class );
+        when( clientRateLimiter.tryAcquire( any(), anyBoolean() ) ).thenReturn( true );
+        QrConfigDto qr = QrConfigDto.builder().id( 7L ).destinationUrl( "https://example.com" ).rules( List.of() )
+                .active( true ).allowedDomains( List.of() ).scanLimit( 5 ).trackAnalytics( true ).build();
+        RedirectConfigCache redirectConfigCache = mock( RedirectConfigCache.class );
+        when( redirectConfigCache.getLocalQrConfig( QR_KEY ) )
+                .thenReturn( Optional.of( new QrEntry( qr, CompiledRuleSet.EMPTY, AllowedDomains.UNRESTRICTED ) ) );
+        RedirectStageMetrics stageMetrics = new RedirectStageMetrics( meterRegistry, 0.0,
+                                                                      new Duration[] { Duration.ofMillis( 1 ) },
+                                                                      false );
+        qrRedirectService = new QrRedirectService( dynamicQrCodeRepository, mock( RedirectRuleRepository.class ),
+                                                   mock( GeoIpService.class ), mock( KafkaEventPublisher.class ),
+                                                   null, mock( RuleEngine.class ), knownKeyFilter, meterRegistry,
+                                                   redirectConfigCache, qrScanLimiter, qrScanBatchService,
+                                                   mock( UserAgentClassifier.class ),
+                                                   mock( RedirectCachePolicy.class ), mock( LocalLinkStore.class ),
+                                                   stageMetrics, clientRateLimiter, redisGuard );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolveUntracked_UsesUpTheScanLimit()
+    {
+        AtomicLong count = new AtomicLong();
+        when( redisTemplate.execute( any( RedisScript.class ), eq( List.of( COUNTER ) ), any(), any() ) )
+                .thenAnswer( invocation -> count.get() < 5 ? count.incrementAndGet() : -1L );
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertInstanceOf( QrRedirectResult.Success.class, qrRedirectService.resolveUntracked( QR_KEY, request ) );
+        }
+        assertInstanceOf( QrRedirectResult.LimitReached.class, qrRedirectService.resolveUntracked( QR_KEY, request ),
+                          "a crawler cannot read the destination past the limit" );
+        verify( qrScanBatchService, times( 5 ) ).recordScan( 7L );
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolveUntracked_AtTheLimit_GetsNoDestination()
+    {
+        when( redisTemplate.execute( any( RedisScript.class ), eq( List.of( COUNTER ) ), any(), any() ) )
+                .thenReturn( -1L );
+        request.setMethod( "HEAD" );
+        assertInstanceOf( QrRedirectResult.LimitReached.class, qrRedirectService.resolveUntracked( QR_KEY, request ) );
+        verify( qrScanBatchService, never() ).recordScan( anyLong() );
+    }
+}
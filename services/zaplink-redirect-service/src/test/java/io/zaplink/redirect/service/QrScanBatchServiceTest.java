@@ -0,0 +1,51 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.zaplink.redirect.repository.DynamicQrCodeRepository;
+
+class QrScanBatchServiceTest
+{
+    private DynamicQrCodeRepository repository;
+    private QrScanBatchService      service;
+    @BeforeEach
+    void setUp()
+    {
+        repository = mock( DynamicQrCodeRepository.class );
+        service = new QrScanBatchService( repository,
+                                          new TransactionTemplate( mock( PlatformTransactionManager.class ) ) );
+    }
+
+    @Test
+    void flush_WritesAccumulatedScansOncePerQr()
+    {
+        when( repository.incrementTotalScans( eq( 7L ), eq( 3L ), any() ) ).thenReturn( 1 );
+        service.recordScan( 7L );
+        service.recordScan( 7L );
+        service.recordScan( 7L );
+        assertEquals( 3, service.pendingScans( 7L ) );
+        service.flush();
+        verify( repository ).incrementTotalScans( eq( 7L ), eq( 3L ), any() );
+        assertEquals( 0, service.pendingScans( 7L ) );
+    }
+
+    @Test
+    void flush_RequeuesScansOnError()
+    {
+        when( repository.incrementTotalScans( eq( 9L ), eq( 2L ), any() ) ).thenThrow( new IllegalStateException() );
+        service.recordScan( 9L );
+        service.recordScan( 9L );
+        service.flush();
+        assertEquals( 2, service.pendingScans( 9L ) );
+    }
+}
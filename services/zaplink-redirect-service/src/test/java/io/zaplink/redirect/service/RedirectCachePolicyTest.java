@@ -0,0 +1,65 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.zaplink.redirect.common.enums.RedirectType;
+import io.zaplink.redirect.common.enums.RuleDimension;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto.RedirectRuleDto;
+
+class RedirectCachePolicyTest
+{
+    private final RedirectCachePolicy policy = new RedirectCachePolicy( Duration.ofHours( 1 ) );
+    @Test
+    void maxAge_OnlyForStaticUntrackedLinks()
+    {
+        RedirectRuleDto rule = new RedirectRuleDto( RuleDimension.COUNTRY, "US", "https://example.com/us", 1 );
+        assertEquals( 600, policy.maxAge( url( List.of(), RedirectType.PERMANENT, 600, false, null ) ) );
+        assertEquals( 0, policy.maxAge( url( List.of(), RedirectType.PERMANENT, 600, true, null ) ) );
+        assertEquals( 0, policy.maxAge( url( List.of( rule ), RedirectType.PERMANENT, 600, false, null ) ) );
+        assertEquals( 0, policy.maxAge( new RedirectConfigDto( "https://example.com", List.of() ) ) );
+    }
+
+    @Test
+    void maxAge_CappedByLimitAndExpiry()
+    {
+        assertEquals( 3600, policy.maxAge( url( List.of(), RedirectType.PERMANENT, null, false, null ) ) );
+        assertEquals( 3600, policy.maxAge( url( List.of(), RedirectType.TEMPORARY, 86400, false, null ) ) );
+        assertEquals( 0, policy.maxAge( url( List.of(), RedirectType.TEMPORARY, null, false, null ) ) );
+        long untilExpiry = policy
+                .maxAge( url( List.of(), RedirectType.PERMANENT, null, false, LocalDateTime.now().plusMinutes( 5 ) ) );
+        assertTrue( untilExpiry > 290 && untilExpiry <= 300, "max-age " + untilExpiry );
+        assertEquals( 0, policy
+                .maxAge( url( List.of(), RedirectType.PERMANENT, 600, false, LocalDateTime.now().minusMinutes( 1 ) ) ) );
+    }
+
+    @Test
+    void maxAge_QrWithScanLimitIsNotCacheable()
+    {
+        QrConfigDto plain = QrConfigDto.builder().destinationUrl( "https://example.com" ).rules( List.of() )
+                .allowedDomains( List.of() ).redirectType( RedirectType.PERMANENT ).cacheMaxAge( 600 ).build();
+        QrConfigDto limited = QrConfigDto.builder().destinationUrl( "https://example.com" ).rules( List.of() )
+                .allowedDomains( List.of() ).scanLimit( 100 ).redirectType( RedirectType.PERMANENT ).cacheMaxAge( 600 )
+                .build();
+        assertEquals( 600, policy.maxAge( plain ) );
+        assertEquals( 0, policy.maxAge( limited ) );
+    }
+
+    private static RedirectConfigDto url( List<RedirectRuleDto> rules,
+                                          RedirectType redirectType,
+                                          Integer cacheMaxAge,
+                                          boolean trackAnalytics,
+                                          LocalDateTime expiresAt )
+    {
+        return new RedirectConfigDto( "https://example.com", rules, redirectType, cacheMaxAge, trackAnalytics,
+                                      expiresAt, null );
+    }
+}
@@ -0,0 +1,65 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.redirect.dto.QrConfigDto;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+
+class RedirectConfigCacheTest
+{
+    private RedirectConfigCache cache;
+    @BeforeEach
+    void setUp()
+    {
+        cache = new RedirectConfigCache( mock( RedisService.class ), mock( RuleEngine.class ),
+                                         new SimpleMeterRegistry(), 100, Duration.ofMinutes( 5 ),
+                                         Duration.ofSeconds( 60 ), 0.0, 1.0 );
+        cache.cacheLocalUrlConfig( "abc", new RedirectConfigDto( "https://example.com", List.of() ) );
+        cache.cacheLocalQrConfig( "abc", QrConfigDto.builder().id( 7L ).destinationUrl( "https://example.com" )
+                .rules( List.of() ).allowedDomains( List.of() ).build() );
+    }
+
+    @Test
+    void onInvalidation_UrlMessage_EvictsOnlyTheUrlEntry()
+    {
+        cache.onInvalidation( "url:abc" );
+        assertTrue( cache.getLocalUrlConfig( "abc" ).isEmpty() );
+        assertTrue( cache.getLocalQrConfig( "abc" ).isPresent() );
+    }
+
+    @Test
+    void onInvalidation_QrMessage_EvictsOnlyTheQrEntry()
+    {
+        cache.onInvalidation( "qr:abc" );
+        assertTrue( cache.getLocalQrConfig( "abc" ).isEmpty() );
+        assertTrue( cache.getLocalUrlConfig( "abc" ).isPresent() );
+    }
+
+    @Test
+    void onInvalidation_OtherKeys_AreLeftAlone()
+    {
+        cache.onInvalidation( "url:abcd" );
+        cache.onInvalidation( "qr:ab" );
+        assertTrue( cache.getLocalUrlConfig( "abc" ).isPresent() );
+        assertTrue( cache.getLocalQrConfig( "abc" ).isPresent() );
+    }
+
+    @Test
+    void onInvalidation_MalformedMessages_AreIgnored()
+    {
+        for ( String message : List.of( "", "abc", "url", "URL:abc", "link:abc", " url:abc", "url:", "qr:" ) )
+        {
+            cache.onInvalidation( message );
+        }
+        assertTrue( cache.getLocalUrlConfig( "abc" ).isPresent() );
+        assertTrue( cache.getLocalQrConfig( "abc" ).isPresent() );
+    }
+}
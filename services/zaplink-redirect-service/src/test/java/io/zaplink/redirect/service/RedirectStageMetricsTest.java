@@ -0,0 +1,62 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.redirect.service.QrRedirectService.QrRedirectResult;
+import io.zaplink.redirect.service.RedirectStageMetrics.LinkType;
+import io.zaplink.redirect.service.RedirectStageMetrics.Outcome;
+import io.zaplink.redirect.service.RedirectStageMetrics.Sample;
+import io.zaplink.redirect.service.RedirectStageMetrics.Stage;
+
+class RedirectStageMetricsTest
+{
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    @Test
+    void unsampledRequest_CountsResultWithoutTimers()
+    {
+        RedirectStageMetrics metrics = metrics( 0.0 );
+        Sample sample = metrics.begin( LinkType.QR );
+        sample.stop( Stage.CACHE_LOOKUP, Outcome.L1_HIT, sample.start() );
+        sample.finish( new QrRedirectResult.LimitReached() );
+        assertEquals( 1.0, registry.get( "redirect.resolve.results" ).tags( "type", "qr", "result", "limit-reached" )
+                .counter().count() );
+        assertNull( registry.find( "redirect.stage" ).timer() );
+        assertEquals( 0, registry.get( "redirect.resolve" ).timer().count() );
+    }
+
+    @Test
+    void sampledRequest_TimesStagesWithTags()
+    {
+        RedirectStageMetrics metrics = metrics( 1.0 );
+        Sample sample = metrics.begin( LinkType.URL );
+        sample.stop( Stage.RULE_EVALUATION, Outcome.MATCHED, sample.start() );
+        sample.finish( new UrlRedirectService.RedirectResult.Success( "https://example.com" ) );
+        assertEquals( 1, registry.get( "redirect.stage" )
+                .tags( "stage", "rule-evaluation", "type", "url", "result", "matched" ).timer().count() );
+        assertEquals( 1, registry.get( "redirect.resolve" ).tags( "type", "url", "result", "success" ).timer()
+                .count() );
+    }
+
+    @Test
+    void alwaysSample_IgnoresSampleRate()
+    {
+        RedirectStageMetrics metrics = metrics( 0.0 );
+        Sample loads = metrics.always( LinkType.URL );
+        loads.stop( Stage.DB_FALLBACK, Outcome.NOT_FOUND, loads.start() );
+        assertEquals( 1, registry.get( "redirect.stage" ).tags( "stage", "db-fallback", "result", "not-found" )
+                .timer().count() );
+    }
+
+    private RedirectStageMetrics metrics( double sampleRate )
+    {
+        return new RedirectStageMetrics( registry, sampleRate,
+                                         new Duration[] { Duration.ofMillis( 1 ), Duration.ofMillis( 10 ) }, false );
+    }
+}
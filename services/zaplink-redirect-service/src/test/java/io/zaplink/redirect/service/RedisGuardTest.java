@@ -0,0 +1,90 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RedisGuardTest
+{
+    private final CountDownLatch release    = new CountDownLatch( 1 );
+    private final RedisGuard     redisGuard = new RedisGuard( new SimpleMeterRegistry(), 100, 20, 0.5,
+                                                              Duration.ofMillis( 100 ), 0.5, Duration.ofSeconds( 5 ),
+                                                              5, true, 0.99, Duration.ofMillis( 1 ),
+                                                              Duration.ofMillis( 5 ) );
+    @AfterEach
+    void tearDown()
+    {
+        release.countDown();
+        redisGuard.shutdown();
+    }
+
+    @Test
+    void hedge_SlowRedisHit_AnswersWhenTheDatabaseFails()
+    {
+        CountDownLatch databaseFailed = new CountDownLatch( 1 );
+        String value = redisGuard.hedge( () -> {
+            await( databaseFailed );
+            pause( 50 );
+            return Optional.of( "redis" );
+        }, () -> {
+            databaseFailed.countDown();
+            throw new IllegalStateException( "pool exhausted" );
+        } );
+        assertEquals( "redis", value );
+    }
+
+    @Test
+    void hedge_RedisMiss_PassesOnTheDatabaseError()
+    {
+        IllegalStateException error = assertThrows( IllegalStateException.class, () -> redisGuard.hedge( () -> {
+            pause( 50 );
+            return Optional.empty();
+        }, () -> {
+            throw new IllegalStateException( "pool exhausted" );
+        } ) );
+        assertEquals( "pool exhausted", error.getMessage() );
+    }
+
+    @Test
+    void hedge_StalledRedis_LosesToTheDatabase()
+    {
+        String value = redisGuard.hedge( () -> {
+            await( release );
+            return Optional.of( "redis" );
+        }, () -> "database" );
+        assertEquals( "database", value );
+    }
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 5, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void pause( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
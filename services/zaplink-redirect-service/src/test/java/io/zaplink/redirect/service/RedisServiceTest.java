@@ -0,0 +1,71 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zaplink.redirect.common.codec.RedirectConfigCodec;
+import io.zaplink.redirect.common.constants.RedisConstants;
+import io.zaplink.redirect.common.enums.UrlStatusEnum;
+import io.zaplink.redirect.dto.RedirectConfigDto;
+
+class RedisServiceTest
+{
+    private static final String             KEY = RedisConstants.URL_CACHE_PREFIX
+            + RedisConstants.BINARY_CONFIG_SEGMENT + "abc";
+    private RedisTemplate<String, byte[]>   binaryRedisTemplate;
+    private ValueOperations<String, byte[]> values;
+    private RedisService                    redisService;
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp()
+    {
+        binaryRedisTemplate = mock( RedisTemplate.class );
+        values = mock( ValueOperations.class );
+        when( binaryRedisTemplate.opsForValue() ).thenReturn( values );
+        RedisGuard redisGuard = new RedisGuard( new SimpleMeterRegistry(), 100, 20, 0.5, Duration.ofMillis( 100 ), 0.5,
+                                                Duration.ofSeconds( 5 ), 5, false, 0.99, Duration.ofMillis( 2 ),
+                                                Duration.ofMillis( 50 ) );
+        redisService = new RedisService( null, binaryRedisTemplate, null, redisGuard, false, 0,
+                                         Duration.ofSeconds( 60 ) );
+    }
+
+    @Test
+    void touchUrlConfig_CutsTheTtlToTheLinksExpiry()
+    {
+        RedirectConfigDto config = RedirectConfigDto.builder().originalUrl( "https://example.com" ).rules( List.of() )
+                .expiresAt( LocalDateTime.now().plusMinutes( 10 ) ).build();
+        when( values.get( KEY ) ).thenReturn( RedirectConfigCodec.encode( config ) );
+        assertEquals( "https://example.com", redisService.touchUrlConfig( "abc" ).orElseThrow().originalUrl() );
+        ArgumentCaptor<Duration> ttl = ArgumentCaptor.forClass( Duration.class );
+        verify( binaryRedisTemplate ).expire( eq( KEY ), ttl.capture() );
+        assertTrue( ttl.getValue().compareTo( Duration.ofMinutes( 10 ) ) <= 0, ttl.getValue().toString() );
+        assertTrue( ttl.getValue().compareTo( Duration.ofMinutes( 9 ) ) > 0, ttl.getValue().toString() );
+    }
+
+    @Test
+    void touchUrlConfig_LeavesNegativeEntriesToExpire()
+    {
+        when( values.get( KEY ) )
+                .thenReturn( RedirectConfigCodec.encode( RedirectConfigDto.terminal( UrlStatusEnum.DELETED ) ) );
+        assertEquals( UrlStatusEnum.DELETED, redisService.touchUrlConfig( "abc" ).orElseThrow().status() );
+        verify( binaryRedisTemplate, never() ).expire( anyString(), any( Duration.class ) );
+    }
+}
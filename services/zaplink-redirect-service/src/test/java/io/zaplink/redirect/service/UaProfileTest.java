@@ -0,0 +1,56 @@
+package io.zaplink.redirect.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.zaplink.enrichment.UaProfile;
+
+class UaProfileTest
+{
+    static final List<String> USER_AGENTS = List
+            .of( "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+                 "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36 Edg/120.0.0.0",
+                 "Mozilla/5.0 (Macintosh; Intel Mac OS X 14_2) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Safari/605.1.15",
+                 "Mozilla/5.0 (iPhone; CPU iPhone OS 17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1",
+                 "Mozilla/5.0 (iPad; CPU OS 17_2 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.2 Mobile/15E148 Safari/604.1",
+                 "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Mobile Safari/537.36",
+                 "Mozilla/5.0 (Linux; Android 13; SM-X700) AppleWebKit/537.36 (KHTML, like Gecko) Safari/537.36",
+                 "Mozilla/5.0 (X11; Ubuntu; Linux x86_64; rv:121.0) Gecko/20100101 Firefox/121.0",
+                 "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36 OPR/106.0.0.0",
+                 "Opera/9.80 (Windows NT 6.1) Presto/2.12.388 Version/12.18",
+                 "Mozilla/5.0 (Windows NT 6.1; Trident/7.0; rv:11.0) like Gecko",
+                 "Mozilla/4.0 (compatible; MSIE 8.0; Windows NT 6.1)",
+                 "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+                 "facebookexternalhit/1.1 (+http://www.facebook.com/externalhit_uatext.php)",
+                 "Slackbot-LinkExpanding 1.0 (+https://api.slack.com/robots)",
+                 "curl/8.4.0", "Wget/1.21.4", "python-requests/2.31.0", "Darwin/23.2.0 CFNetwork/1490.0.4", "",
+                 "MOZILLA/5.0 (WINDOWS NT 10.0) CHROME/120" );
+    @Test
+    void parse_MatchesRequestUtilsClassification()
+    {
+        for ( String ua : USER_AGENTS )
+        {
+            UaProfile profile = UaProfile.parse( ua );
+            assertEquals( RequestUtils.extractDeviceType( ua ), profile.deviceType(), ua );
+            assertEquals( RequestUtils.extractOS( ua ), profile.os(), ua );
+            assertEquals( RequestUtils.extractBrowser( ua ), profile.browser(), ua );
+        }
+    }
+
+    @Test
+    void parse_FlagsBotsAndNotBrowsers()
+    {
+        assertTrue( UaProfile.parse( USER_AGENTS.get( 12 ) ).bot() );
+        assertTrue( UaProfile.parse( "facebookexternalhit/1.1" ).bot() );
+        assertTrue( UaProfile.parse( "curl/8.4.0" ).bot() );
+        assertFalse( UaProfile.parse( USER_AGENTS.get( 0 ) ).bot() );
+        assertFalse( UaProfile.parse( USER_AGENTS.get( 3 ) ).bot() );
+        assertSame( UaProfile.UNKNOWN, UaProfile.parse( null ) );
+    }
+}
@@ -0,0 +1,19 @@
+-- Per-link client caching policy for redirects
+-- redirect_type: TEMPORARY (302) or PERMANENT (301); redirect_cache_max_age: Cache-Control max-age in seconds
+-- A policy only applies to links with no redirect rules and analytics off (see the redirect service)
+
+ALTER TABLE url_mapping
+ADD COLUMN IF NOT EXISTS redirect_type VARCHAR(16),
+ADD COLUMN IF NOT EXISTS redirect_cache_max_age INTEGER,
+ADD COLUMN IF NOT EXISTS track_analytics BOOLEAN DEFAULT true;
+
+UPDATE url_mapping
+SET track_analytics = true
+WHERE track_analytics IS NULL;
+
+ALTER TABLE dynamic_qr_codes
+ADD COLUMN IF NOT EXISTS redirect_type VARCHAR(16),
+ADD COLUMN IF NOT EXISTS redirect_cache_max_age INTEGER;
+
+-- Verify the changes
+SELECT 'redirect cache policy columns added successfully' as status;
@@ -0,0 +1,9 @@
+-- The redirect service writes QR scan counts back in batches (see QrScanBatchService)
+-- Its database user needs UPDATE on those two columns; everything else it only reads
+-- Run with: psql -d zaplink_db -v redirect_user=<redirect service user> -f tools/db/grant-redirect-qr-scan-writes.sql
+
+GRANT SELECT ON core.dynamic_qr_codes TO :"redirect_user";
+GRANT UPDATE (total_scans, last_scanned) ON core.dynamic_qr_codes TO :"redirect_user";
+
+-- Verify the changes
+SELECT 'redirect qr scan write grant added successfully' as status;